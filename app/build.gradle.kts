@@ -1,3 +1,5 @@
+import javax.inject.Inject
+
 plugins {
     id("com.android.application")
     id("com.google.gms.google-services") // Firebase plugin
@@ -45,6 +47,19 @@ android {
         targetCompatibility = JavaVersion.VERSION_11
     }
 
+    // The offline food database is memory-mapped straight out of the APK
+    androidResources {
+        noCompress += "fdb"
+    }
+
+    testOptions {
+        unitTests {
+            isReturnDefaultValues = true
+            // Benchmarks under src/test are skipped unless run with -Dnirvana.benchmark=true
+            all { it.systemProperty("nirvana.benchmark", System.getProperty("nirvana.benchmark") ?: "false") }
+        }
+    }
+
     // Enable BuildConfig generation
     buildFeatures {
         buildConfig = true
@@ -53,7 +68,51 @@ android {
 
 }
 
+/** Builds the offline food database asset from the snapshot in fooddb/foods.tsv. */
+abstract class GenerateOfflineFoodDb @Inject constructor(
+    private val execOperations: ExecOperations
+) : DefaultTask() {
+    @get:InputFile
+    @get:PathSensitive(PathSensitivity.RELATIVE)
+    abstract val snapshot: RegularFileProperty
+
+    @get:Classpath
+    abstract val toolClasspath: ConfigurableFileCollection
+
+    @get:OutputDirectory
+    abstract val outputDir: DirectoryProperty
+
+    @TaskAction
+    fun generate() {
+        execOperations.javaexec {
+            classpath = toolClasspath
+            mainClass.set("com.example.nirvana.data.local.OfflineFoodDbWriter")
+            args(snapshot.get().asFile.path, outputDir.file("foods.fdb").get().asFile.path)
+        }
+    }
+}
+
+val offlineFoodDbTool: Configuration by configurations.creating {
+    isCanBeConsumed = false
+    attributes { attribute(Usage.USAGE_ATTRIBUTE, objects.named(Usage.JAVA_RUNTIME)) }
+}
+
+val generateOfflineFoodDb = tasks.register<GenerateOfflineFoodDb>("generateOfflineFoodDb") {
+    snapshot.set(layout.projectDirectory.file("fooddb/foods.tsv"))
+    toolClasspath.from(offlineFoodDbTool)
+}
+
+// The writer runs on the build machine and its output is packaged as an asset, so neither
+// the tool nor the snapshot ends up in the APK's code
+androidComponents {
+    onVariants { variant ->
+        variant.sources.assets?.addGeneratedSourceDirectory(generateOfflineFoodDb, GenerateOfflineFoodDb::outputDir)
+    }
+}
+
 dependencies {
+    offlineFoodDbTool(project(":tools:fooddb"))
+
     // AndroidX libraries
     implementation(libs.appcompat.v161)
     implementation(libs.material.v190)
@@ -84,6 +143,9 @@ dependencies {
 
     // Testing dependencies
     testImplementation(libs.junit)
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.9.3")
+    // Tests build offline databases with the same writer the asset is generated with
+    testImplementation(project(":tools:fooddb"))
     androidTestImplementation(libs.junit.v115)
     androidTestImplementation(libs.espresso.core.v351)
 
@@ -111,9 +173,8 @@ dependencies {
     implementation("oauth.signpost:signpost-commonshttp4:1.2.1.2")
 
 
-    // Replace Signpost with these
-    implementation("com.github.scribejava:scribejava-core:8.3.3")
-    implementation("com.github.scribejava:scribejava-httpclient-okhttp:8.3.3")
+    // Reference OAuth signatures for OAuth1Signer's tests; the app signs with OAuth1Signer
+    testImplementation("com.github.scribejava:scribejava-core:8.3.3")
 
 
     // Material Design
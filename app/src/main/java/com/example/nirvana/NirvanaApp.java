@@ -2,6 +2,7 @@ package com.example.nirvana;
 
 import android.app.Application;
 import android.util.Log;
+import com.example.nirvana.data.local.OfflineFoodDb;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 
@@ -13,6 +14,9 @@ public class NirvanaApp extends Application {
     public void onCreate() {
         super.onCreate();
 
+        // Map the offline food snapshot before the first search needs it
+        OfflineFoodDb.preload(this);
+
         // Initialize Firebase programmatically
 //        FirebaseOptions options = new FirebaseOptions.Builder()
 //                .setApiKey(BuildConfig.FIREBASE_API_KEY)
@@ -1,20 +1,20 @@
 package com.example.nirvana.api;
 
 import android.content.Context;
-import android.util.Log;
-import com.github.scribejava.core.builder.ServiceBuilder;
-import com.github.scribejava.core.model.OAuth1AccessToken;
-import com.github.scribejava.core.model.OAuthRequest;
-import com.github.scribejava.core.oauth.OAuth10aService;
+import com.example.nirvana.BuildConfig;
+import com.example.nirvana.api.cache.CachingInterceptor;
+import com.example.nirvana.api.cache.DiskStore;
+import com.example.nirvana.api.cache.ResponseCache;
+import com.example.nirvana.api.metrics.NetworkMetrics;
+import com.example.nirvana.api.metrics.SampledBodyLogger;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import okhttp3.HttpUrl;
+import okhttp3.Dispatcher;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
+import java.io.File;
 import java.io.IOException;
 
 public class ApiClient {
@@ -23,54 +23,104 @@ public class ApiClient {
     private static final String CONSUMER_KEY = "e02d0ba3dbad4a788effda4e4a65d794";
     private static final String CONSUMER_SECRET = "aa6318afc5cd400394180e706bc2ffd4";
 
+    private static final long MEMORY_CACHE_BYTES = 1024 * 1024;
+    private static final long DISK_CACHE_BYTES = 10 * 1024 * 1024;
+    // Debug builds log one call in this many in full
+    private static final int LOG_ONE_IN = 10;
+
     private static Retrofit retrofit = null;
-    private static OAuth10aService service = new ServiceBuilder(CONSUMER_KEY)
-            .apiSecret(CONSUMER_SECRET)
-            .build(FatSecretOAuthApi.instance());
+    private static ResponseCache responseCache = null;
+    private static RequestScheduler requestScheduler = null;
+    private static QuotaGuard quotaGuard = null;
+    private static NetworkMetrics networkMetrics = null;
+    private static CoalescingFatSecretApi fatSecretApi = null;
+    private static ServingPrefetcher servingPrefetcher = null;
 
     public static Retrofit getClient(Context context) {
         if (retrofit == null) {
-            HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
-            logging.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-            OkHttpClient.Builder httpClient = new OkHttpClient.Builder()
-                    .addInterceptor(chain -> {
-                        Request original = chain.request();
-                        HttpUrl originalUrl = original.url();
-
-                        // Create and sign OAuth request
-                        OAuthRequest oAuthRequest = new OAuthRequest(
-                                com.github.scribejava.core.model.Verb.GET,
-                                originalUrl.toString()
-                        );
-
-                        service.signRequest(new OAuth1AccessToken("", ""), oAuthRequest);
-                        Log.d("OAUTH_SIGNATURE", "Signed URL: " + oAuthRequest.getUrl());
+            networkMetrics = new NetworkMetrics();
+            responseCache = new ResponseCache(MEMORY_CACHE_BYTES, new DiskStore(
+                    new File(context.getApplicationContext().getCacheDir(), "fatsecret"),
+                    DISK_CACHE_BYTES));
+            CachingInterceptor cachingInterceptor = new CachingInterceptor(responseCache);
+            requestScheduler = new RequestScheduler();
+            quotaGuard = new QuotaGuard();
 
-                        // Build final signed request
-                        Request signedRequest = original.newBuilder()
-                                .url(oAuthRequest.getUrl())
-                                .build();
+            // The scheduler, not the dispatcher, limits concurrency; a low per-host limit here
+            // would let queued background calls hold the slots foreground calls need
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(64);
+            dispatcher.setMaxRequestsPerHost(64);
 
-                        return chain.proceed(signedRequest);
-                    })
-                    .addInterceptor(logging);
+            // Cache sits in front of signing so lookups use the unsigned URL; metrics sit in
+            // front of the cache so they see hits as well as network calls. The quota guard
+            // sits in front of the scheduler so its throttling and backoff waits hold no slot
+            OkHttpClient.Builder httpClient = new OkHttpClient.Builder()
+                    .dispatcher(dispatcher)
+                    .eventListenerFactory(networkMetrics)
+                    .addInterceptor(networkMetrics)
+                    .addInterceptor(cachingInterceptor)
+                    .addInterceptor(quotaGuard)
+                    .addInterceptor(requestScheduler)
+                    .addInterceptor(new OAuth1Signer(CONSUMER_KEY, CONSUMER_SECRET));
+            if (BuildConfig.DEBUG) {
+                httpClient.addInterceptor(new SampledBodyLogger(LOG_ONE_IN));
+            }
 
             // Create a lenient Gson instance
             Gson gson = new GsonBuilder()
                     .setLenient()
                     .create();
 
+            OkHttpClient client = httpClient.build();
+            cachingInterceptor.attachClient(client);
+
             retrofit = new Retrofit.Builder()
                     .baseUrl(BASE_URL + "/")
-                    .client(httpClient.build())
+                    .client(client)
                     .addConverterFactory(GsonConverterFactory.create(gson))
                     .build();
         }
         return retrofit;
     }
 
-    public static FatSecretApi getFatSecretApi(Context context) {
-        return getClient(context).create(FatSecretApi.class);
+    /** Shared across screens so identical in-flight requests are sent once. */
+    public static synchronized FatSecretApi getFatSecretApi(Context context) {
+        if (fatSecretApi == null) {
+            fatSecretApi = new CoalescingFatSecretApi(getClient(context).create(FatSecretApi.class));
+        }
+        return fatSecretApi;
+    }
+
+    /** One prefetcher for the app, so its per-minute budget holds across search dialogs. */
+    public static synchronized ServingPrefetcher getServingPrefetcher(Context context) {
+        if (servingPrefetcher == null) {
+            servingPrefetcher = new ServingPrefetcher(getFatSecretApi(context));
+        }
+        return servingPrefetcher;
+    }
+
+    /** Queue depth and wait times per priority class, for tuning the scheduler limits. */
+    public static RequestScheduler.Stats getSchedulerStats(Context context) {
+        getClient(context);
+        return requestScheduler.stats();
+    }
+
+    /** Rate limiter and circuit breaker in front of FatSecret. */
+    public static QuotaGuard getQuotaGuard(Context context) {
+        getClient(context);
+        return quotaGuard;
+    }
+
+    /** Hit/miss/eviction counters for the FatSecret response cache. */
+    public static ResponseCache.Stats getCacheStats(Context context) {
+        getClient(context);
+        return responseCache.stats();
+    }
+
+    /** Latency, byte, cache and error metrics per FatSecret method; {@code dump()} exports them. */
+    public static NetworkMetrics getNetworkMetrics(Context context) {
+        getClient(context);
+        return networkMetrics;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,304 @@
+package com.example.nirvana.api;
+
+import androidx.annotation.NonNull;
+import com.example.nirvana.api.cache.CachingInterceptor;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * {@link FatSecretApi} that collapses identical in-flight requests into one network call.
+ *
+ * Calls are keyed by method and normalized parameters, the same key the response cache
+ * uses, so two screens asking for the same food.get, or a dialog opened twice, share a
+ * single signed request and every caller gets the result. Cancelling one caller only
+ * detaches it; the shared request is cancelled once every caller has gone. A foreground
+ * caller joining a background request promotes it. Callers share the decoded body, which
+ * must be treated as read-only; an error body is buffered once and each caller gets its
+ * own copy to read.
+ *
+ * The key is worked out from the method's arguments, so a caller that joins a flight
+ * never builds an OkHttp call of its own.
+ */
+public class CoalescingFatSecretApi implements FatSecretApi {
+
+    private final FatSecretApi delegate;
+    private final Map<String, Flight<?>> inFlight = new HashMap<>();
+    private long sent;
+    private long coalesced;
+
+    public CoalescingFatSecretApi(FatSecretApi delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Call<FoodSearchResponse> searchFoods(String method, String query, int pageNumber,
+                                                int maxResults, String format, RequestPriority priority) {
+        return new SharedCall<>(delegate.searchFoods(method, query, pageNumber, maxResults, format, priority),
+                priority, key("method", method, "search_expression", query,
+                        "page_number", String.valueOf(pageNumber), "max_results", String.valueOf(maxResults),
+                        "format", format));
+    }
+
+    @Override
+    public Call<FoodGetResponse> getFood(String method, String foodId, String format, RequestPriority priority) {
+        return new SharedCall<>(delegate.getFood(method, foodId, format, priority),
+                priority, key("method", method, "food_id", foodId, "format", format));
+    }
+
+    /** Calls that went to the network. */
+    public synchronized long getSentCount() {
+        return sent;
+    }
+
+    /** Calls that joined a request already in flight instead of sending their own. */
+    public synchronized long getCoalescedCount() {
+        return coalesced;
+    }
+
+    /** The response cache's key for a call with these query parameters, given as name, value pairs. */
+    private static String key(String... params) {
+        Map<String, String> query = new HashMap<>();
+        for (int i = 0; i < params.length; i += 2) {
+            // Retrofit leaves out null query parameters
+            if (params[i + 1] != null) query.put(params[i], params[i + 1]);
+        }
+        return CachingInterceptor.cacheKey(query);
+    }
+
+    private static IOException canceled() {
+        return new IOException("Canceled");
+    }
+
+    /** One network call and the callers waiting on it. */
+    private final class Flight<T> implements Callback<T> {
+        final String key;
+        final Call<T> network;
+        final RequestPriority priority;
+        final List<SharedCall<T>> waiters = new ArrayList<>();
+        int active;
+
+        Flight(String key, Call<T> network, RequestPriority priority) {
+            this.key = key;
+            this.network = network;
+            this.priority = priority;
+        }
+
+        @Override
+        public void onResponse(@NonNull Call<T> call, @NonNull Response<T> response) {
+            // The error body is a one-shot stream; read it once so every waiter can read it
+            ResponseBody errorBody = response.errorBody();
+            byte[] errorBytes = null;
+            MediaType errorType = null;
+            if (errorBody != null) {
+                try {
+                    errorType = errorBody.contentType();
+                    errorBytes = errorBody.bytes();
+                } catch (IOException e) {
+                    onFailure(call, e);
+                    return;
+                } finally {
+                    errorBody.close();
+                }
+            }
+            for (SharedCall<T> waiter : settle()) {
+                if (waiter.isCanceled()) {
+                    waiter.callback.onFailure(waiter, canceled());
+                } else if (errorBytes != null) {
+                    waiter.callback.onResponse(waiter,
+                            Response.error(ResponseBody.create(errorBytes, errorType), response.raw()));
+                } else if (response.isSuccessful()) {
+                    waiter.callback.onResponse(waiter, Response.success(response.body(), response.raw()));
+                } else {
+                    waiter.callback.onResponse(waiter, response);
+                }
+            }
+        }
+
+        @Override
+        public void onFailure(@NonNull Call<T> call, @NonNull Throwable t) {
+            for (SharedCall<T> waiter : settle()) {
+                waiter.callback.onFailure(waiter, waiter.isCanceled() ? canceled() : t);
+            }
+        }
+
+        private List<SharedCall<T>> settle() {
+            synchronized (CoalescingFatSecretApi.this) {
+                if (inFlight.get(key) == this) inFlight.remove(key);
+                return new ArrayList<>(waiters);
+            }
+        }
+    }
+
+    /** Attaches {@code call} to the matching flight, starting one if needed; false if it was cancelled first. */
+    @SuppressWarnings("unchecked")
+    private <T> boolean join(SharedCall<T> call) {
+        Flight<T> flight;
+        boolean start = false;
+        synchronized (this) {
+            if (call.canceled) return false;
+            flight = (Flight<T>) inFlight.get(call.key);
+            if (flight == null) {
+                flight = new Flight<>(call.key, call.template, call.priority);
+                inFlight.put(call.key, flight);
+                sent++;
+                start = true;
+            } else {
+                coalesced++;
+                if (flight.priority != null && (call.priority == null || !call.priority.isBackground())) {
+                    // Someone is waiting on this now; let it jump the queue
+                    flight.priority.promote();
+                }
+            }
+            flight.waiters.add(call);
+            flight.active++;
+            call.flight = flight;
+        }
+        if (start) flight.network.enqueue(flight);
+        return true;
+    }
+
+    private <T> void leave(Flight<T> flight) {
+        synchronized (this) {
+            if (--flight.active > 0) return;
+            // Nobody is left to use the answer; a later caller starts a fresh request
+            if (inFlight.get(flight.key) == flight) inFlight.remove(flight.key);
+        }
+        flight.network.cancel();
+    }
+
+    /** A caller's handle on a possibly shared request. */
+    private final class SharedCall<T> implements Call<T> {
+        final Call<T> template;
+        final RequestPriority priority;
+        final String key;
+        volatile Callback<T> callback;
+        Flight<T> flight;
+        private boolean executed;
+        // Guarded by the enclosing api so joining and cancelling cannot interleave
+        private volatile boolean canceled;
+
+        SharedCall(Call<T> template, RequestPriority priority, String key) {
+            this.template = template;
+            this.priority = priority;
+            this.key = key;
+        }
+
+        @Override
+        public void enqueue(@NonNull Callback<T> callback) {
+            synchronized (this) {
+                if (executed) throw new IllegalStateException("Already executed.");
+                executed = true;
+                this.callback = callback;
+            }
+            if (!join(this)) {
+                // Let the underlying call report the cancellation on its callback executor
+                template.cancel();
+                template.enqueue(new Callback<T>() {
+                    @Override
+                    public void onResponse(@NonNull Call<T> call, @NonNull Response<T> response) {
+                        callback.onFailure(SharedCall.this, canceled());
+                    }
+
+                    @Override
+                    public void onFailure(@NonNull Call<T> call, @NonNull Throwable t) {
+                        callback.onFailure(SharedCall.this, t);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            BlockingCallback<T> blocking = new BlockingCallback<>();
+            enqueue(blocking);
+            return blocking.await();
+        }
+
+        @Override
+        public void cancel() {
+            Flight<T> joined;
+            synchronized (CoalescingFatSecretApi.this) {
+                if (canceled) return;
+                canceled = true;
+                joined = flight;
+            }
+            if (callback instanceof BlockingCallback) {
+                ((BlockingCallback<T>) callback).onFailure(this, canceled());
+            }
+            if (joined != null) leave(joined);
+        }
+
+        @Override
+        public synchronized boolean isExecuted() {
+            return executed;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @NonNull
+        @Override
+        public Call<T> clone() {
+            return new SharedCall<>(template.clone(), priority, key);
+        }
+
+        @NonNull
+        @Override
+        public Request request() {
+            return template.request();
+        }
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return template.timeout();
+        }
+    }
+
+    /** Turns the shared callback into a blocking result for {@link Call#execute()}. */
+    private static final class BlockingCallback<T> implements Callback<T> {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Response<T> response;
+        private volatile Throwable failure;
+
+        @Override
+        public synchronized void onResponse(@NonNull Call<T> call, @NonNull Response<T> response) {
+            if (done.getCount() == 0) return;
+            this.response = response;
+            done.countDown();
+        }
+
+        @Override
+        public synchronized void onFailure(@NonNull Call<T> call, @NonNull Throwable t) {
+            if (done.getCount() == 0) return;
+            this.failure = t;
+            done.countDown();
+        }
+
+        Response<T> await() throws IOException {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted", e);
+            }
+            if (failure instanceof IOException) throw (IOException) failure;
+            if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+            if (failure != null) throw new IOException(failure);
+            return response;
+        }
+    }
+}
@@ -4,21 +4,35 @@ package com.example.nirvana.api;
 import retrofit2.Call;
 import retrofit2.http.GET;
 import retrofit2.http.Query;
+import retrofit2.http.Tag;
 
 public interface FatSecretApi {
+    /** A user-initiated search; see {@link RequestPriority}. */
+    default Call<FoodSearchResponse> searchFoods(String method, String query, int pageNumber,
+                                                 int maxResults, String format) {
+        return searchFoods(method, query, pageNumber, maxResults, format, RequestPriority.foreground());
+    }
+
     @GET("server.api")
     Call<FoodSearchResponse> searchFoods(
             @Query("method") String method,
             @Query("search_expression") String query,
             @Query("page_number") int pageNumber,
             @Query("max_results") int maxResults,
-            @Query("format") String format
+            @Query("format") String format,
+            @Tag RequestPriority priority
     );
 
+    /** A user-initiated lookup; see {@link RequestPriority}. */
+    default Call<FoodGetResponse> getFood(String method, String foodId, String format) {
+        return getFood(method, foodId, format, RequestPriority.foreground());
+    }
+
     @GET("server.api")
     Call<FoodGetResponse> getFood(
             @Query("method") String method,
             @Query("food_id") String foodId,
-            @Query("format") String format
+            @Query("format") String format,
+            @Tag RequestPriority priority
     );
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package com.example.nirvana.api;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+
+/**
+ * Helpers for the hand-written FatSecret type adapters. FatSecret quotes every number,
+ * sends empty strings for unknown values and collapses one-element lists into a bare
+ * object, so reads here accept all of those shapes.
+ */
+final class FatSecretJson {
+
+    private FatSecretJson() {}
+
+    /** A string, or null for JSON null. Numbers are returned in their literal form. */
+    static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    /** A number, quoted or not; 0 for null, empty or malformed values. */
+    static double nextDouble(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NUMBER) {
+            return in.nextDouble();
+        }
+        if (token == JsonToken.STRING) {
+            String value = in.nextString();
+            if (value.isEmpty()) return 0;
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        in.skipValue();
+        return 0;
+    }
+
+    static int nextInt(JsonReader in) throws IOException {
+        return (int) nextDouble(in);
+    }
+
+    /** Reads one element of a list that may also arrive as a single bare object. */
+    interface ElementReader {
+        void read(JsonReader in) throws IOException;
+    }
+
+    static void readOneOrMany(JsonReader in, ElementReader element) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.BEGIN_ARRAY) {
+            in.beginArray();
+            while (in.hasNext()) {
+                if (in.peek() == JsonToken.BEGIN_OBJECT) element.read(in);
+                else in.skipValue();
+            }
+            in.endArray();
+        } else if (token == JsonToken.BEGIN_OBJECT) {
+            element.read(in);
+        } else {
+            in.skipValue();
+        }
+    }
+}
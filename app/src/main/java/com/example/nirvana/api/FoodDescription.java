@@ -0,0 +1,158 @@
+package com.example.nirvana.api;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Nutrition summary parsed from a foods.search {@code food_description}, e.g.
+ * "Per 100g - Calories: 95kcal | Fat: 0.30g | Carbs: 25.13g | Protein: 0.47g".
+ *
+ * The description already describes the food's default serving, so search rows can show
+ * macros and that serving can be logged without a food.get round trip. Parsing is a single
+ * pass over the string with no intermediate strings or boxing; instances can be reused
+ * across rows with {@link #parse(String, FoodDescription)}. Missing values are NaN.
+ */
+public final class FoodDescription {
+
+    private static final int MAX_DIGITS = 18;
+    private static final double[] POW10 = new double[MAX_DIGITS + 1];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+    }
+
+    private String source;
+    private int basisStart;
+    private int basisEnd;
+    public double calories;
+    public double fat;
+    public double carbs;
+    public double protein;
+
+    public FoodDescription() {
+        clear(null);
+    }
+
+    /** Parses {@code description}, or returns null if it has no calorie figure. */
+    @Nullable
+    public static FoodDescription parse(@Nullable String description) {
+        FoodDescription parsed = new FoodDescription();
+        return parse(description, parsed) ? parsed : null;
+    }
+
+    /**
+     * Parses into {@code out}, overwriting whatever it held. Returns false, leaving the
+     * fields that could not be read as NaN, when there is no calorie figure. Never throws.
+     */
+    public static boolean parse(@Nullable String description, @NonNull FoodDescription out) {
+        out.clear(description);
+        if (description == null) return false;
+        int length = description.length();
+        int i = skipSpaces(description, 0);
+
+        // "Per <basis> - "
+        if (regionMatches(description, i, "per ")) {
+            int start = skipSpaces(description, i + 4);
+            int dash = description.indexOf(" - ", start);
+            if (dash < 0) return false;
+            out.basisStart = start;
+            out.basisEnd = trimEnd(description, start, dash);
+            i = dash + 3;
+        }
+
+        // "<Label>: <number><unit>" segments separated by '|'
+        while (i < length) {
+            i = skipSpaces(description, i);
+            int labelStart = i;
+            while (i < length && description.charAt(i) != ':' && description.charAt(i) != '|') i++;
+            if (i >= length || description.charAt(i) == '|') {
+                i++;
+                continue;
+            }
+            int labelEnd = trimEnd(description, labelStart, i);
+            i = skipSpaces(description, i + 1);
+
+            // Number with optional thousands separators and decimals
+            long mantissa = 0;
+            int decimals = -1;
+            int digits = 0;
+            boolean overflow = false;
+            while (i < length) {
+                char c = description.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    if (digits < MAX_DIGITS) {
+                        mantissa = mantissa * 10 + (c - '0');
+                        if (decimals >= 0) decimals++;
+                        digits++;
+                    } else if (decimals < 0) {
+                        // Too large to be a real figure; extra decimals are just dropped
+                        overflow = true;
+                    }
+                } else if (c == '.' && decimals < 0) {
+                    decimals = 0;
+                } else if (c != ',' || decimals >= 0) {
+                    break;
+                }
+                i++;
+            }
+            while (i < length && description.charAt(i) != '|') i++;
+            if (digits == 0 || overflow) continue;
+
+            double value = decimals > 0 ? mantissa / POW10[decimals] : mantissa;
+            out.set(description, labelStart, labelEnd, value);
+        }
+        return !Double.isNaN(out.calories);
+    }
+
+    /** The serving the figures refer to, e.g. "100g" or "1 medium", or null if not given. */
+    @Nullable
+    public String getServingBasis() {
+        return basisEnd > basisStart ? source.substring(basisStart, basisEnd) : null;
+    }
+
+    /** "Per 100g" style label for display, or null if the basis is unknown. */
+    @Nullable
+    public String getServingLabel() {
+        String basis = getServingBasis();
+        return basis != null ? "Per " + basis : null;
+    }
+
+    private void clear(String description) {
+        source = description;
+        basisStart = 0;
+        basisEnd = 0;
+        calories = Double.NaN;
+        fat = Double.NaN;
+        carbs = Double.NaN;
+        protein = Double.NaN;
+    }
+
+    private void set(String text, int start, int end, double value) {
+        int length = end - start;
+        if (length == 8 && text.regionMatches(true, start, "calories", 0, 8)) {
+            calories = value;
+        } else if (length == 3 && text.regionMatches(true, start, "fat", 0, 3)) {
+            fat = value;
+        } else if ((length == 5 && text.regionMatches(true, start, "carbs", 0, 5))
+                || (length == 12 && text.regionMatches(true, start, "carbohydrate", 0, 12))) {
+            carbs = value;
+        } else if (length == 7 && text.regionMatches(true, start, "protein", 0, 7)) {
+            protein = value;
+        }
+    }
+
+    private static boolean regionMatches(String text, int offset, String prefix) {
+        return text.regionMatches(true, offset, prefix, 0, prefix.length());
+    }
+
+    private static int skipSpaces(String text, int i) {
+        while (i < text.length() && text.charAt(i) == ' ') i++;
+        return i;
+    }
+
+    private static int trimEnd(String text, int start, int end) {
+        while (end > start && text.charAt(end - 1) == ' ') end--;
+        return end;
+    }
+}
@@ -1,10 +1,13 @@
 // FoodGetResponse.java
 package com.example.nirvana.api;
 
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
 
 import java.util.List;
 
+/** food.get result; decoded by {@link FoodGetResponseAdapter} without reflection. */
+@JsonAdapter(FoodGetResponseAdapter.class)
 public class FoodGetResponse {
     @SerializedName("food")
     public Food food;
@@ -29,12 +32,12 @@ public class FoodGetResponse {
         @SerializedName("serving_description")
         public String description;
         @SerializedName("calories")
-        public String calories;
+        public double calories;
         @SerializedName("protein")
-        public String protein;
+        public double protein;
         @SerializedName("carbohydrate")
-        public String carbs;
+        public double carbs;
         @SerializedName("fat")
-        public String fat;
+        public double fat;
     }
 }
\ No newline at end of file
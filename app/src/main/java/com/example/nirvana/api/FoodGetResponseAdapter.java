@@ -0,0 +1,139 @@
+package com.example.nirvana.api;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Streaming decoder for food.get. Nutrients are read straight into doubles, and
+ * {@code servings.serving} may be a list or, for foods with one serving, a bare object.
+ */
+public class FoodGetResponseAdapter extends TypeAdapter<FoodGetResponse> {
+
+    @Override
+    public FoodGetResponse read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        FoodGetResponse response = new FoodGetResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            if (in.nextName().equals("food") && in.peek() == JsonToken.BEGIN_OBJECT) {
+                response.food = readFood(in);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return response;
+    }
+
+    private static FoodGetResponse.Food readFood(JsonReader in) throws IOException {
+        FoodGetResponse.Food food = new FoodGetResponse.Food();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "food_id":
+                    food.foodId = FatSecretJson.nextString(in);
+                    break;
+                case "food_name":
+                    food.foodName = FatSecretJson.nextString(in);
+                    break;
+                case "servings":
+                    if (in.peek() == JsonToken.BEGIN_OBJECT) {
+                        food.servings = readServings(in);
+                    } else {
+                        in.skipValue();
+                    }
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return food;
+    }
+
+    private static FoodGetResponse.Servings readServings(JsonReader in) throws IOException {
+        FoodGetResponse.Servings servings = new FoodGetResponse.Servings();
+        servings.servingList = new ArrayList<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            if (in.nextName().equals("serving")) {
+                FatSecretJson.readOneOrMany(in, reader -> servings.servingList.add(readServing(reader)));
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return servings;
+    }
+
+    private static FoodGetResponse.Serving readServing(JsonReader in) throws IOException {
+        FoodGetResponse.Serving serving = new FoodGetResponse.Serving();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "serving_id":
+                    serving.servingId = FatSecretJson.nextString(in);
+                    break;
+                case "serving_description":
+                    serving.description = FatSecretJson.nextString(in);
+                    break;
+                case "calories":
+                    serving.calories = FatSecretJson.nextDouble(in);
+                    break;
+                case "protein":
+                    serving.protein = FatSecretJson.nextDouble(in);
+                    break;
+                case "carbohydrate":
+                    serving.carbs = FatSecretJson.nextDouble(in);
+                    break;
+                case "fat":
+                    serving.fat = FatSecretJson.nextDouble(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return serving;
+    }
+
+    @Override
+    public void write(JsonWriter out, FoodGetResponse response) throws IOException {
+        if (response == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        if (response.food != null) {
+            FoodGetResponse.Food food = response.food;
+            out.name("food").beginObject();
+            out.name("food_id").value(food.foodId);
+            out.name("food_name").value(food.foodName);
+            if (food.servings != null && food.servings.servingList != null) {
+                out.name("servings").beginObject();
+                out.name("serving").beginArray();
+                for (FoodGetResponse.Serving serving : food.servings.servingList) {
+                    out.beginObject();
+                    out.name("serving_id").value(serving.servingId);
+                    out.name("serving_description").value(serving.description);
+                    out.name("calories").value(serving.calories);
+                    out.name("protein").value(serving.protein);
+                    out.name("carbohydrate").value(serving.carbs);
+                    out.name("fat").value(serving.fat);
+                    out.endObject();
+                }
+                out.endArray();
+                out.endObject();
+            }
+            out.endObject();
+        }
+        out.endObject();
+    }
+}
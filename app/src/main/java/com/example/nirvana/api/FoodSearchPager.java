@@ -0,0 +1,244 @@
+package com.example.nirvana.api;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Infinite scrolling over {@code foods.search} results for one query.
+ *
+ * Page 0 comes from {@link FoodSearchPipeline}; later pages are loaded here when the
+ * visible rows come within {@code prefetchDistance} of either end of what is loaded.
+ * Only a contiguous window of {@code maxPages} pages is kept: loading past the end
+ * evicts the page furthest behind, and scrolling back loads it again, normally from
+ * the response cache. A page is never requested while it is loaded or already in
+ * flight, and a page that failed is not retried until {@link #retryFailed()}.
+ *
+ * Rows are exposed as one list, {@link #getItems()}, starting with pinned rows (local
+ * matches) that are never evicted. Foods already shown are skipped in later pages.
+ */
+@MainThread
+public class FoodSearchPager {
+
+    public static final int DEFAULT_PREFETCH_DISTANCE = 5;
+    public static final int DEFAULT_MAX_PAGES = 5;
+
+    private static final String METHOD = "foods.search";
+    private static final String FORMAT = "json";
+
+    public interface Listener {
+        /** The whole list was replaced. */
+        void onReset();
+
+        void onItemRangeInserted(int position, int count);
+
+        void onItemRangeRemoved(int position, int count);
+
+        void onPageFailed(int page, Throwable t);
+    }
+
+    /** A loaded page and the rows it contributed after de-duplication. */
+    private static final class Page {
+        final int number;
+        final List<FoodSearchResponse.FoodItem> rows;
+
+        Page(int number, List<FoodSearchResponse.FoodItem> rows) {
+            this.number = number;
+            this.rows = rows;
+        }
+    }
+
+    private final FatSecretApi api;
+    private final Listener listener;
+    private final int pageSize;
+    private final int prefetchDistance;
+    private final int maxPages;
+
+    private final List<FoodSearchResponse.FoodItem> items = new ArrayList<>();
+    private final ArrayDeque<Page> window = new ArrayDeque<>();
+    private final Set<String> shownIds = new HashSet<>();
+    private final Set<Integer> inFlight = new HashSet<>();
+    private final List<Call<FoodSearchResponse>> calls = new ArrayList<>();
+    private String query;
+    private int pinnedCount;
+    private int totalResults;
+    private int failedPage = -1;
+    private int firstVisible;
+    private int lastVisible;
+    private long generation;
+
+    public FoodSearchPager(FatSecretApi api, Listener listener) {
+        this(api, listener, FoodSearchPipeline.DEFAULT_MAX_RESULTS, DEFAULT_PREFETCH_DISTANCE, DEFAULT_MAX_PAGES);
+    }
+
+    public FoodSearchPager(FatSecretApi api, Listener listener, int pageSize, int prefetchDistance, int maxPages) {
+        if (maxPages < 2) throw new IllegalArgumentException("maxPages must be at least 2");
+        this.api = api;
+        this.listener = listener;
+        this.pageSize = pageSize;
+        this.prefetchDistance = prefetchDistance;
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * Starts over for {@code query} with the pinned rows followed by page 0, or by nothing
+     * if {@code firstPage} is null (no remote results wanted).
+     */
+    public void start(@Nullable String query, @NonNull List<FoodSearchResponse.FoodItem> pinned,
+                      @Nullable FoodSearchResponse firstPage) {
+        cancel();
+        this.query = query;
+        items.clear();
+        window.clear();
+        shownIds.clear();
+        failedPage = -1;
+        firstVisible = 0;
+        lastVisible = 0;
+        for (FoodSearchResponse.FoodItem food : pinned) {
+            items.add(food);
+            shownIds.add(food.food_id);
+        }
+        pinnedCount = items.size();
+        totalResults = 0;
+        if (firstPage != null && query != null) {
+            // Responses without paging info are treated as the only page
+            totalResults = firstPage.totalResults > 0 ? firstPage.totalResults
+                    : firstPage.foods != null ? firstPage.foods.size() : 0;
+            Page page = new Page(0, dedupe(firstPage.foods));
+            window.add(page);
+            items.addAll(page.rows);
+        }
+        listener.onReset();
+    }
+
+    /** Drops in-flight page loads, e.g. when the query changes. Loaded rows stay. */
+    public void cancel() {
+        generation++;
+        inFlight.clear();
+        for (Call<FoodSearchResponse> call : calls) call.cancel();
+        calls.clear();
+    }
+
+    /** Rows to display: pinned rows, then the loaded window of pages. */
+    @NonNull
+    public List<FoodSearchResponse.FoodItem> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    public int getTotalResults() {
+        return totalResults;
+    }
+
+    /** Call as the list scrolls, with the adapter positions of the first and last visible rows. */
+    public void onVisibleRange(int first, int last) {
+        firstVisible = first;
+        lastVisible = last;
+        if (window.isEmpty()) return;
+        if (last >= items.size() - prefetchDistance) {
+            int next = window.peekLast().number + 1;
+            if ((long) next * pageSize < totalResults) load(next);
+        }
+        if (first - pinnedCount < prefetchDistance) {
+            int previous = window.peekFirst().number - 1;
+            if (previous >= 0) load(previous);
+        }
+    }
+
+    /** Allows the page that last failed to be requested again on the next scroll. */
+    public void retryFailed() {
+        failedPage = -1;
+        onVisibleRange(firstVisible, lastVisible);
+    }
+
+    private void load(int number) {
+        if (number == failedPage || !inFlight.add(number)) return;
+        final long token = generation;
+        Call<FoodSearchResponse> call = api.searchFoods(METHOD, query, number, pageSize, FORMAT);
+        calls.add(call);
+        call.enqueue(new Callback<FoodSearchResponse>() {
+            @Override
+            public void onResponse(@NonNull Call<FoodSearchResponse> c, @NonNull Response<FoodSearchResponse> response) {
+                if (token != generation) return;
+                calls.remove(c);
+                inFlight.remove(number);
+                if (response.isSuccessful() && response.body() != null && response.body().foods != null) {
+                    onPageLoaded(number, response.body());
+                } else {
+                    failedPage = number;
+                    listener.onPageFailed(number, new IOException("HTTP " + response.code()));
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<FoodSearchResponse> c, @NonNull Throwable t) {
+                if (token != generation || c.isCanceled()) return;
+                calls.remove(c);
+                inFlight.remove(number);
+                failedPage = number;
+                listener.onPageFailed(number, t);
+            }
+        });
+    }
+
+    private void onPageLoaded(int number, FoodSearchResponse body) {
+        if (body.totalResults > 0) totalResults = body.totalResults;
+        // The window may have moved while this page was in flight; only extend it contiguously
+        if (number == window.peekLast().number + 1) {
+            Page page = new Page(number, dedupe(body.foods));
+            int position = items.size();
+            window.addLast(page);
+            items.addAll(page.rows);
+            listener.onItemRangeInserted(position, page.rows.size());
+            // Never pull rows out from under the viewport
+            if (window.size() > maxPages && pinnedCount + window.peekFirst().rows.size() <= firstVisible) {
+                evictFirst();
+            }
+        } else if (number == window.peekFirst().number - 1) {
+            Page page = new Page(number, dedupe(body.foods));
+            window.addFirst(page);
+            items.addAll(pinnedCount, page.rows);
+            listener.onItemRangeInserted(pinnedCount, page.rows.size());
+            if (window.size() > maxPages && items.size() - window.peekLast().rows.size() > lastVisible) {
+                evictLast();
+            }
+        }
+    }
+
+    private void evictFirst() {
+        Page page = window.pollFirst();
+        items.subList(pinnedCount, pinnedCount + page.rows.size()).clear();
+        forget(page);
+        listener.onItemRangeRemoved(pinnedCount, page.rows.size());
+    }
+
+    private void evictLast() {
+        Page page = window.pollLast();
+        int position = items.size() - page.rows.size();
+        items.subList(position, items.size()).clear();
+        forget(page);
+        listener.onItemRangeRemoved(position, page.rows.size());
+    }
+
+    private void forget(Page page) {
+        for (FoodSearchResponse.FoodItem food : page.rows) shownIds.remove(food.food_id);
+    }
+
+    private List<FoodSearchResponse.FoodItem> dedupe(@Nullable List<FoodSearchResponse.FoodItem> foods) {
+        List<FoodSearchResponse.FoodItem> rows = new ArrayList<>();
+        if (foods == null) return rows;
+        for (FoodSearchResponse.FoodItem food : foods) {
+            if (shownIds.add(food.food_id)) rows.add(food);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.nirvana.api;
+
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.NonNull;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Turns raw search box input into FatSecret {@code foods.search} calls.
+ *
+ * Keystrokes are debounced so only the query the user settles on is sent, the
+ * in-flight call for a superseded query is cancelled, and any response that
+ * still arrives for an older query is dropped instead of overwriting newer results.
+ */
+public class FoodSearchPipeline {
+
+    public static final long DEFAULT_DEBOUNCE_MS = 300;
+    public static final int DEFAULT_MIN_QUERY_LENGTH = 2;
+    public static final int DEFAULT_MAX_RESULTS = 20;
+
+    private static final String METHOD = "foods.search";
+    private static final String FORMAT = "json";
+
+    public interface Listener {
+        void onSearchStarted(String query);
+
+        void onResponse(String query, Response<FoodSearchResponse> response);
+
+        void onFailure(String query, Throwable t);
+
+        /** The query became too short to search; any search in progress was dropped. */
+        void onCleared();
+    }
+
+    /** Minimal delayed-execution hook so the debounce can be driven by a fake clock in tests. */
+    public interface Scheduler {
+        void postDelayed(Runnable task, long delayMs);
+
+        void cancel(Runnable task);
+    }
+
+    private final FatSecretApi api;
+    private final Scheduler scheduler;
+    private final Listener listener;
+    private final long debounceMs;
+    private final int minQueryLength;
+
+    private final Object lock = new Object();
+    private long generation;
+    private String pendingQuery;
+    private Call<FoodSearchResponse> inFlight;
+
+    private final Runnable fireTask = this::firePending;
+
+    public FoodSearchPipeline(FatSecretApi api, Scheduler scheduler, Listener listener) {
+        this(api, scheduler, listener, DEFAULT_DEBOUNCE_MS, DEFAULT_MIN_QUERY_LENGTH);
+    }
+
+    public FoodSearchPipeline(FatSecretApi api, Scheduler scheduler, Listener listener,
+                              long debounceMs, int minQueryLength) {
+        this.api = api;
+        this.scheduler = scheduler;
+        this.listener = listener;
+        this.debounceMs = debounceMs;
+        this.minQueryLength = minQueryLength;
+    }
+
+    /** Scheduler backed by the main looper, for use from fragments. */
+    public static Scheduler mainThreadScheduler() {
+        Handler handler = new Handler(Looper.getMainLooper());
+        return new Scheduler() {
+            @Override
+            public void postDelayed(Runnable task, long delayMs) {
+                handler.postDelayed(task, delayMs);
+            }
+
+            @Override
+            public void cancel(Runnable task) {
+                handler.removeCallbacks(task);
+            }
+        };
+    }
+
+    /** Feed the current contents of the search box. Safe to call on every keystroke. */
+    public void onQueryChanged(@NonNull String rawQuery) {
+        String query = rawQuery.trim();
+        scheduler.cancel(fireTask);
+
+        synchronized (lock) {
+            generation++;
+            cancelInFlightLocked();
+            pendingQuery = query.length() >= minQueryLength ? query : null;
+        }
+
+        if (query.length() >= minQueryLength) {
+            scheduler.postDelayed(fireTask, debounceMs);
+        } else {
+            listener.onCleared();
+        }
+    }
+
+    /** Drops any pending or in-flight search; call when the owning view goes away. */
+    public void cancel() {
+        scheduler.cancel(fireTask);
+        synchronized (lock) {
+            generation++;
+            pendingQuery = null;
+            cancelInFlightLocked();
+        }
+    }
+
+    private void firePending() {
+        final String query;
+        final long token;
+        final Call<FoodSearchResponse> call;
+        synchronized (lock) {
+            if (pendingQuery == null) return;
+            query = pendingQuery;
+            token = generation;
+            pendingQuery = null;
+            call = api.searchFoods(METHOD, query, 0, DEFAULT_MAX_RESULTS, FORMAT);
+            inFlight = call;
+        }
+
+        listener.onSearchStarted(query);
+        call.enqueue(new Callback<FoodSearchResponse>() {
+            @Override
+            public void onResponse(Call<FoodSearchResponse> c, Response<FoodSearchResponse> response) {
+                if (isCurrent(c, token)) {
+                    listener.onResponse(query, response);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<FoodSearchResponse> c, Throwable t) {
+                if (!c.isCanceled() && isCurrent(c, token)) {
+                    listener.onFailure(query, t);
+                }
+            }
+        });
+    }
+
+    private boolean isCurrent(Call<FoodSearchResponse> call, long token) {
+        synchronized (lock) {
+            if (token != generation) return false;
+            if (inFlight == call) inFlight = null;
+            return true;
+        }
+    }
+
+    private void cancelInFlightLocked() {
+        if (inFlight != null) {
+            inFlight.cancel();
+            inFlight = null;
+        }
+    }
+}
@@ -1,12 +1,24 @@
 package com.example.nirvana.api;
 
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
 import java.util.List;
 
+/** foods.search result; decoded by {@link FoodSearchResponseAdapter} without reflection. */
+@JsonAdapter(FoodSearchResponseAdapter.class)
 public class FoodSearchResponse {
     @SerializedName("foods")
     public List<FoodItem> foods;
 
+    @SerializedName("total_results")
+    public int totalResults;
+
+    @SerializedName("page_number")
+    public int pageNumber;
+
+    @SerializedName("max_results")
+    public int maxResults;
+
     public static class FoodItem {
         @SerializedName("food_id")
         public String food_id;
@@ -0,0 +1,114 @@
+package com.example.nirvana.api;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Streaming decoder for foods.search. Accepts FatSecret's
+ * {@code {"foods":{"food":[...], "total_results":"..."}}} (with {@code food} as a bare
+ * object when there is one result) as well as a flat {@code {"foods":[...]}} list.
+ */
+public class FoodSearchResponseAdapter extends TypeAdapter<FoodSearchResponse> {
+
+    @Override
+    public FoodSearchResponse read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        FoodSearchResponse response = new FoodSearchResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!in.nextName().equals("foods")) {
+                in.skipValue();
+                continue;
+            }
+            response.foods = new ArrayList<>();
+            JsonToken token = in.peek();
+            if (token == JsonToken.BEGIN_ARRAY) {
+                FatSecretJson.readOneOrMany(in, reader -> response.foods.add(readFood(reader)));
+            } else if (token == JsonToken.BEGIN_OBJECT) {
+                readFoods(in, response);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return response;
+    }
+
+    private static void readFoods(JsonReader in, FoodSearchResponse response) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "food":
+                    FatSecretJson.readOneOrMany(in, reader -> response.foods.add(readFood(reader)));
+                    break;
+                case "total_results":
+                    response.totalResults = FatSecretJson.nextInt(in);
+                    break;
+                case "page_number":
+                    response.pageNumber = FatSecretJson.nextInt(in);
+                    break;
+                case "max_results":
+                    response.maxResults = FatSecretJson.nextInt(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    private static FoodSearchResponse.FoodItem readFood(JsonReader in) throws IOException {
+        FoodSearchResponse.FoodItem food = new FoodSearchResponse.FoodItem();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "food_id":
+                    food.food_id = FatSecretJson.nextString(in);
+                    break;
+                case "food_name":
+                    food.food_name = FatSecretJson.nextString(in);
+                    break;
+                case "food_description":
+                    food.food_description = FatSecretJson.nextString(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return food;
+    }
+
+    @Override
+    public void write(JsonWriter out, FoodSearchResponse response) throws IOException {
+        if (response == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        if (response.foods != null) {
+            out.name("foods").beginObject();
+            out.name("food").beginArray();
+            for (FoodSearchResponse.FoodItem food : response.foods) {
+                out.beginObject();
+                out.name("food_id").value(food.food_id);
+                out.name("food_name").value(food.food_name);
+                out.name("food_description").value(food.food_description);
+                out.endObject();
+            }
+            out.endArray();
+            out.name("max_results").value(response.maxResults);
+            out.name("page_number").value(response.pageNumber);
+            out.name("total_results").value(response.totalResults);
+            out.endObject();
+        }
+        out.endObject();
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.nirvana.api;
+
+import androidx.annotation.NonNull;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Two-legged OAuth 1.0a (HMAC-SHA1) signing for FatSecret, with the OAuth parameters
+ * added to the query string.
+ *
+ * The signature base string is built straight from the {@link HttpUrl}'s decoded query
+ * parameters into a per-thread buffer, percent-encoding as it goes, and hashed with a
+ * per-thread {@link Mac}; there is no intermediate request object and no re-parsing
+ * of a signed URL string. Output matches scribejava's for the same timestamp and nonce.
+ */
+public class OAuth1Signer implements Interceptor {
+
+    private static final String SIGNATURE_METHOD = "HMAC-SHA1";
+    private static final String VERSION = "1.0";
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final int MAX_PARAMS = 64;
+
+    /** Reusable per-thread scratch space, so signing allocates little beyond its output. */
+    private static final class Scratch {
+        final StringBuilder text = new StringBuilder(512);
+        byte[] bytes = new byte[512];
+        final String[] names = new String[MAX_PARAMS];
+        final String[] values = new String[MAX_PARAMS];
+        final int[] order = new int[MAX_PARAMS];
+    }
+
+    private final String consumerKey;
+    private final LongSupplier clockSeconds;
+    private final LongSupplier nonces;
+    private final ThreadLocal<Mac> mac;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    public OAuth1Signer(String consumerKey, String consumerSecret) {
+        this(consumerKey, consumerSecret, () -> System.currentTimeMillis() / 1000,
+                () -> ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE);
+    }
+
+    public OAuth1Signer(String consumerKey, String consumerSecret, LongSupplier clockSeconds, LongSupplier nonces) {
+        this.consumerKey = consumerKey;
+        this.clockSeconds = clockSeconds;
+        this.nonces = nonces;
+        // Two-legged: the token secret is empty, so the key is just "secret&"
+        StringBuilder key = new StringBuilder();
+        percentEncode(consumerSecret, key);
+        key.append('&');
+        SecretKeySpec spec = new SecretKeySpec(key.toString().getBytes(StandardCharsets.UTF_8), "HmacSHA1");
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance("HmacSHA1");
+                instance.init(spec);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA1 unavailable", e);
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        HttpUrl signed = sign(request.method(), request.url());
+        return chain.proceed(request.newBuilder().url(signed).build());
+    }
+
+    /** {@code url} with a fresh timestamp, nonce and signature added to its query. */
+    @NonNull
+    public HttpUrl sign(@NonNull String method, @NonNull HttpUrl url) {
+        String timestamp = Long.toString(clockSeconds.getAsLong());
+        String nonce = Long.toString(nonces.getAsLong());
+        String signature = signature(method, url, timestamp, nonce);
+        return url.newBuilder()
+                .addQueryParameter("oauth_consumer_key", consumerKey)
+                .addQueryParameter("oauth_nonce", nonce)
+                .addQueryParameter("oauth_signature_method", SIGNATURE_METHOD)
+                .addQueryParameter("oauth_timestamp", timestamp)
+                .addQueryParameter("oauth_version", VERSION)
+                .addQueryParameter("oauth_signature", signature)
+                .build();
+    }
+
+    /** Base64 HMAC-SHA1 of the signature base string for these OAuth values. */
+    String signature(String method, HttpUrl url, String timestamp, String nonce) {
+        Scratch s = scratch.get();
+        StringBuilder base = s.text;
+        base.setLength(0);
+        appendBaseString(base, s, method, url, timestamp, nonce);
+
+        // Everything in the base string is percent-encoded ASCII, so chars map to bytes 1:1
+        int length = base.length();
+        if (s.bytes.length < length) s.bytes = new byte[Math.max(length, s.bytes.length * 2)];
+        for (int i = 0; i < length; i++) s.bytes[i] = (byte) base.charAt(i);
+        Mac hmac = mac.get();
+        hmac.update(s.bytes, 0, length);
+        return Base64.getEncoder().encodeToString(hmac.doFinal());
+    }
+
+    /** The RFC 5849 signature base string, for tests and debugging. */
+    String baseString(String method, HttpUrl url, String timestamp, String nonce) {
+        StringBuilder base = new StringBuilder();
+        appendBaseString(base, new Scratch(), method, url, timestamp, nonce);
+        return base.toString();
+    }
+
+    private void appendBaseString(StringBuilder base, Scratch s, String method, HttpUrl url,
+                                  String timestamp, String nonce) {
+        base.append(method.toUpperCase(Locale.ROOT)).append('&');
+
+        // Base URI: scheme://host[:port]/path, default ports omitted, no query
+        int start = base.length();
+        base.append(url.scheme()).append("://").append(url.host());
+        if (url.port() != HttpUrl.defaultPort(url.scheme())) base.append(':').append(url.port());
+        base.append(url.encodedPath());
+        encodeInPlace(base, start);
+        base.append('&');
+
+        // Parameters: query plus OAuth, sorted by encoded name then value
+        int count = url.querySize();
+        if (count + 5 > MAX_PARAMS) throw new IllegalArgumentException("Too many query parameters");
+        for (int i = 0; i < count; i++) {
+            String value = url.queryParameterValue(i);
+            s.names[i] = url.queryParameterName(i);
+            s.values[i] = value != null ? value : "";
+        }
+        s.names[count] = "oauth_consumer_key";
+        s.values[count++] = consumerKey;
+        s.names[count] = "oauth_nonce";
+        s.values[count++] = nonce;
+        s.names[count] = "oauth_signature_method";
+        s.values[count++] = SIGNATURE_METHOD;
+        s.names[count] = "oauth_timestamp";
+        s.values[count++] = timestamp;
+        s.names[count] = "oauth_version";
+        s.values[count++] = VERSION;
+        sort(s, count);
+
+        // The normalized parameter string is itself encoded once more as part of the base string
+        for (int k = 0; k < count; k++) {
+            int i = s.order[k];
+            if (k > 0) base.append("%26");
+            doubleEncode(s.names[i], base);
+            base.append("%3D");
+            doubleEncode(s.values[i], base);
+        }
+    }
+
+    /** Insertion sort of parameter indices; FatSecret calls carry a handful of parameters. */
+    private static void sort(Scratch s, int count) {
+        for (int i = 0; i < count; i++) s.order[i] = i;
+        for (int i = 1; i < count; i++) {
+            int current = s.order[i];
+            int j = i - 1;
+            while (j >= 0 && compare(s, s.order[j], current) > 0) {
+                s.order[j + 1] = s.order[j];
+                j--;
+            }
+            s.order[j + 1] = current;
+        }
+    }
+
+    private static int compare(Scratch s, int a, int b) {
+        int byName = compareEncoded(s.names[a], s.names[b]);
+        return byName != 0 ? byName : compareEncoded(s.values[a], s.values[b]);
+    }
+
+    /**
+     * Compares two strings as their percent-encoded forms would compare, without encoding
+     * them. Only the rare non-ASCII or reserved characters need to be encoded to compare.
+     */
+    private static int compareEncoded(String a, String b) {
+        if (isUnreservedAscii(a) && isUnreservedAscii(b)) return a.compareTo(b);
+        StringBuilder x = new StringBuilder();
+        StringBuilder y = new StringBuilder();
+        percentEncode(a, x);
+        percentEncode(b, y);
+        return x.toString().compareTo(y.toString());
+    }
+
+    private static boolean isUnreservedAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!isUnreserved(value.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static boolean isUnreserved(int c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+
+    /** RFC 3986 percent-encoding of {@code value} as UTF-8, appended to {@code out}. */
+    static void percentEncode(CharSequence value, StringBuilder out) {
+        encode(value, 0, value.length(), out, false);
+    }
+
+    /** Percent-encodes, then encodes the result again: '%' becomes "%25". */
+    private static void doubleEncode(String value, StringBuilder out) {
+        encode(value, 0, value.length(), out, true);
+    }
+
+    /** Percent-encodes {@code out} from {@code start} to its end, in place. */
+    private static void encodeInPlace(StringBuilder out, int start) {
+        int end = out.length();
+        boolean clean = true;
+        for (int i = start; i < end && clean; i++) clean = isUnreserved(out.charAt(i));
+        if (clean) return;
+        String raw = out.substring(start, end);
+        out.setLength(start);
+        // The path is already percent-encoded by HttpUrl, so encoding it once yields "%25XX"
+        encode(raw, 0, raw.length(), out, false);
+    }
+
+    private static void encode(CharSequence value, int from, int to, StringBuilder out, boolean twice) {
+        for (int i = from; i < to; i++) {
+            int c = value.charAt(i);
+            if (isUnreserved(c)) {
+                out.append((char) c);
+                continue;
+            }
+            if (Character.isHighSurrogate((char) c) && i + 1 < to
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                c = Character.toCodePoint((char) c, value.charAt(++i));
+            }
+            if (c < 0x80) {
+                appendByte(out, c, twice);
+            } else if (c < 0x800) {
+                appendByte(out, 0xC0 | (c >> 6), twice);
+                appendByte(out, 0x80 | (c & 0x3F), twice);
+            } else if (c < 0x10000) {
+                appendByte(out, 0xE0 | (c >> 12), twice);
+                appendByte(out, 0x80 | ((c >> 6) & 0x3F), twice);
+                appendByte(out, 0x80 | (c & 0x3F), twice);
+            } else {
+                appendByte(out, 0xF0 | (c >> 18), twice);
+                appendByte(out, 0x80 | ((c >> 12) & 0x3F), twice);
+                appendByte(out, 0x80 | ((c >> 6) & 0x3F), twice);
+                appendByte(out, 0x80 | (c & 0x3F), twice);
+            }
+        }
+    }
+
+    private static void appendByte(StringBuilder out, int b, boolean twice) {
+        out.append(twice ? "%25" : "%").append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.nirvana.api;
+
+import androidx.annotation.NonNull;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Keeps FatSecret traffic inside the key's quota and stops hammering it while it is down.
+ *
+ * Every call that reaches the network takes a token from a bucket shared by the whole
+ * app; when the bucket is empty the call waits for the next token, or fails if that
+ * would take too long. 429 and 5xx responses and I/O errors are retried with
+ * exponential backoff and full jitter, honouring Retry-After. After enough consecutive
+ * failures the circuit opens and calls fail at once with {@link CircuitOpenException}
+ * until a cooldown has passed; then a single probe is let through, and its outcome
+ * closes or reopens the circuit.
+ *
+ * Once retries run out the last 429 or 5xx is returned as is. Installed after the
+ * response cache, which answers such a response or an I/O error from an expired entry
+ * when it has one, and before the {@link RequestScheduler}, so waiting for a token or
+ * sleeping between retries never holds a network slot; each attempt is admitted and
+ * signed afresh.
+ */
+public class QuotaGuard implements Interceptor {
+
+    public static final int DEFAULT_BUCKET_CAPACITY = 10;
+    public static final double DEFAULT_TOKENS_PER_SECOND = 2;
+    public static final long DEFAULT_MAX_TOKEN_WAIT_MS = 5_000;
+    public static final int DEFAULT_MAX_RETRIES = 2;
+    public static final long DEFAULT_BASE_BACKOFF_MS = 500;
+    public static final long DEFAULT_MAX_BACKOFF_MS = 8_000;
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_MS = 30_000;
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** Thrown instead of calling FatSecret while the circuit is open. */
+    public static class CircuitOpenException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public final long retryAfterMillis;
+
+        CircuitOpenException(long retryAfterMillis) {
+            super("FatSecret unavailable; retry in " + retryAfterMillis + "ms");
+            this.retryAfterMillis = retryAfterMillis;
+        }
+    }
+
+    /** Delay hook so backoff and throttling can run against a fake clock in tests. */
+    public interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private final int capacity;
+    private final double tokensPerMs;
+    private final long maxTokenWaitMs;
+    private final int maxRetries;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final int failureThreshold;
+    private final long openMs;
+    private final LongSupplier clock;
+    private final Sleeper sleeper;
+    private final DoubleSupplier random;
+
+    // Token bucket
+    private double tokens;
+    private long refilledAt;
+
+    // Circuit breaker
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    private long retries;
+    private long throttledMillis;
+    private long rejected;
+
+    public QuotaGuard() {
+        this(DEFAULT_BUCKET_CAPACITY, DEFAULT_TOKENS_PER_SECOND, DEFAULT_MAX_TOKEN_WAIT_MS,
+                DEFAULT_MAX_RETRIES, DEFAULT_BASE_BACKOFF_MS, DEFAULT_MAX_BACKOFF_MS,
+                DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MS,
+                System::currentTimeMillis, Thread::sleep, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    public QuotaGuard(int capacity, double tokensPerSecond, long maxTokenWaitMs,
+                      int maxRetries, long baseBackoffMs, long maxBackoffMs,
+                      int failureThreshold, long openMs,
+                      LongSupplier clock, Sleeper sleeper, DoubleSupplier random) {
+        this.capacity = capacity;
+        this.tokensPerMs = tokensPerSecond / 1000;
+        this.maxTokenWaitMs = maxTokenWaitMs;
+        this.maxRetries = maxRetries;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+        this.clock = clock;
+        this.sleeper = sleeper;
+        this.random = random;
+        this.tokens = capacity;
+        this.refilledAt = clock.getAsLong();
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        for (int attempt = 0; ; attempt++) {
+            boolean probe = enterCircuit();
+            // Until an outcome is recorded the probe slot is held; release it on any other exit
+            boolean recorded = false;
+            Response response;
+            try {
+                takeToken();
+                try {
+                    response = chain.proceed(request);
+                } catch (IOException e) {
+                    if (chain.call().isCanceled()) throw e;
+                    recordFailure();
+                    recorded = true;
+                    if (attempt >= maxRetries || isOpen()) throw e;
+                    backoff(attempt, -1);
+                    continue;
+                }
+                if (isRetryable(response.code())) {
+                    recordFailure();
+                } else {
+                    recordSuccess();
+                }
+                recorded = true;
+            } finally {
+                if (probe && !recorded) abandonProbe();
+            }
+
+            if (!isRetryable(response.code())) return response;
+            if (attempt >= maxRetries || isOpen()) return response;
+            long retryAfter = retryAfterMillis(response);
+            response.close();
+            backoff(attempt, retryAfter);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /** Calls repeated after a 429, 5xx or I/O error. */
+    public synchronized long getRetryCount() {
+        return retries;
+    }
+
+    /** Calls refused without trying because the circuit was open. */
+    public synchronized long getRejectedCount() {
+        return rejected;
+    }
+
+    /** Total time calls spent waiting for a rate-limit token. */
+    public synchronized long getThrottledMillis() {
+        return throttledMillis;
+    }
+
+    private static boolean isRetryable(int code) {
+        return code == 429 || code >= 500;
+    }
+
+    /** Returns true if this call is the half-open probe. */
+    private synchronized boolean enterCircuit() throws CircuitOpenException {
+        if (state == State.OPEN) {
+            long remaining = openedAt + openMs - clock.getAsLong();
+            if (remaining > 0) {
+                rejected++;
+                throw new CircuitOpenException(remaining);
+            }
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) {
+                rejected++;
+                throw new CircuitOpenException(0);
+            }
+            probeInFlight = true;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        state = State.CLOSED;
+    }
+
+    private synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+        }
+        probeInFlight = false;
+    }
+
+    /** A probe that never got an answer says nothing about FatSecret's health; let the next call probe. */
+    private synchronized void abandonProbe() {
+        probeInFlight = false;
+    }
+
+    private synchronized boolean isOpen() {
+        return state == State.OPEN;
+    }
+
+    private void takeToken() throws IOException {
+        long wait;
+        synchronized (this) {
+            refill();
+            if (tokens >= 1) {
+                tokens--;
+                return;
+            }
+            wait = (long) Math.ceil((1 - tokens) / tokensPerMs);
+            if (wait > maxTokenWaitMs) {
+                throw new IOException("FatSecret rate limit: next request allowed in " + wait + "ms");
+            }
+            // Claim the token now so concurrent callers queue up behind this one
+            tokens--;
+            throttledMillis += wait;
+        }
+        sleep(wait);
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerMs);
+        refilledAt = now;
+    }
+
+    private void backoff(int attempt, long retryAfterMs) throws IOException {
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt, 20));
+        long delay = (long) (random.getAsDouble() * ceiling);
+        if (retryAfterMs >= 0) delay = Math.max(delay, Math.min(retryAfterMs, maxBackoffMs));
+        synchronized (this) {
+            retries++;
+        }
+        sleep(delay);
+    }
+
+    private void sleep(long millis) throws IOException {
+        if (millis <= 0) return;
+        try {
+            sleeper.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while backing off", e);
+        }
+    }
+
+    /** Retry-After in seconds, or -1 if absent or not a number. */
+    private static long retryAfterMillis(Response response) {
+        String header = response.header("Retry-After");
+        if (header == null) return -1;
+        try {
+            return Long.parseLong(header.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
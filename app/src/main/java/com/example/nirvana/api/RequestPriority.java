@@ -0,0 +1,43 @@
+package com.example.nirvana.api;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Request tag telling {@link RequestScheduler} whether a user is waiting on a call.
+ * Untagged calls are treated as foreground. A background tag can be promoted after the
+ * call is queued, which is how a dialog joining a prefetch makes it jump the queue.
+ */
+public final class RequestPriority {
+
+    private volatile boolean background;
+
+    private RequestPriority(boolean background) {
+        this.background = background;
+    }
+
+    @NonNull
+    public static RequestPriority foreground() {
+        return new RequestPriority(false);
+    }
+
+    /** Speculative or maintenance work that may wait, or be dropped, under load. */
+    @NonNull
+    public static RequestPriority background() {
+        return new RequestPriority(true);
+    }
+
+    public boolean isBackground() {
+        return background;
+    }
+
+    /** Marks the call as one a user is now waiting on. */
+    public void promote() {
+        background = false;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return background ? "background" : "foreground";
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.nirvana.api;
+
+import androidx.annotation.NonNull;
+import java.io.IOException;
+import java.util.function.LongSupplier;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Application interceptor that admits FatSecret calls to the network by priority.
+ *
+ * Installed after the cache, so hits never queue; after {@link QuotaGuard}, so a slot
+ * is held only while an attempt is on the wire; and before the OAuth signer, so a call
+ * that waited is signed with a fresh timestamp. Foreground calls (see
+ * {@link RequestPriority}) take any free slot. Background calls are held to their own
+ * concurrency limit and only start while no foreground call is waiting; a background
+ * call that waits too long, or finds too many others already queued, is dropped with
+ * an {@link IOException} rather than adding to the backlog.
+ */
+public class RequestScheduler implements Interceptor {
+
+    public static final int DEFAULT_MAX_CONCURRENT = 4;
+    public static final int DEFAULT_MAX_BACKGROUND = 1;
+    public static final int DEFAULT_MAX_BACKGROUND_QUEUE = 8;
+    public static final long DEFAULT_MAX_BACKGROUND_WAIT_MS = 10_000;
+
+    // How often a waiting call checks whether it was cancelled
+    private static final long POLL_MS = 100;
+
+    /** Queue and wait-time counters for one priority class. */
+    public static class ClassStats {
+        public final int queued;
+        public final int running;
+        public final int maxQueued;
+        public final long admitted;
+        public final long dropped;
+        public final long totalWaitMillis;
+        public final long maxWaitMillis;
+
+        ClassStats(int queued, int running, int maxQueued, long admitted, long dropped,
+                   long totalWaitMillis, long maxWaitMillis) {
+            this.queued = queued;
+            this.running = running;
+            this.maxQueued = maxQueued;
+            this.admitted = admitted;
+            this.dropped = dropped;
+            this.totalWaitMillis = totalWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+        }
+
+        public double meanWaitMillis() {
+            return admitted == 0 ? 0 : (double) totalWaitMillis / admitted;
+        }
+
+        @Override
+        public String toString() {
+            return "{queued=" + queued + ", running=" + running + ", maxQueued=" + maxQueued
+                    + ", admitted=" + admitted + ", dropped=" + dropped
+                    + ", meanWaitMs=" + meanWaitMillis() + ", maxWaitMs=" + maxWaitMillis + '}';
+        }
+    }
+
+    public static class Stats {
+        public final ClassStats foreground;
+        public final ClassStats background;
+
+        Stats(ClassStats foreground, ClassStats background) {
+            this.foreground = foreground;
+            this.background = background;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{foreground=" + foreground + ", background=" + background + '}';
+        }
+    }
+
+    /** Mutable counters behind {@link ClassStats}; guarded by the scheduler. */
+    private static final class Counters {
+        int queued;
+        int running;
+        int maxQueued;
+        long admitted;
+        long dropped;
+        long totalWaitMillis;
+        long maxWaitMillis;
+
+        ClassStats snapshot() {
+            return new ClassStats(queued, running, maxQueued, admitted, dropped, totalWaitMillis, maxWaitMillis);
+        }
+    }
+
+    private final int maxConcurrent;
+    private final int maxBackground;
+    private final int maxBackgroundQueue;
+    private final long maxBackgroundWaitMs;
+    private final LongSupplier clock;
+
+    private final Counters foreground = new Counters();
+    private final Counters background = new Counters();
+
+    public RequestScheduler() {
+        this(DEFAULT_MAX_CONCURRENT, DEFAULT_MAX_BACKGROUND, DEFAULT_MAX_BACKGROUND_QUEUE,
+                DEFAULT_MAX_BACKGROUND_WAIT_MS, System::currentTimeMillis);
+    }
+
+    public RequestScheduler(int maxConcurrent, int maxBackground, int maxBackgroundQueue,
+                            long maxBackgroundWaitMs, LongSupplier clock) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxBackground = maxBackground;
+        this.maxBackgroundQueue = maxBackgroundQueue;
+        this.maxBackgroundWaitMs = maxBackgroundWaitMs;
+        this.clock = clock;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        RequestPriority priority = request.tag(RequestPriority.class);
+        Counters admittedAs = admit(chain, priority);
+        try {
+            return chain.proceed(request);
+        } finally {
+            release(admittedAs);
+        }
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(foreground.snapshot(), background.snapshot());
+    }
+
+    /** Blocks until the call may go out, returning the class it was admitted under. */
+    private synchronized Counters admit(Chain chain, RequestPriority priority) throws IOException {
+        long start = clock.getAsLong();
+        Counters queue = counters(priority);
+        if (queue == background && background.queued >= maxBackgroundQueue) {
+            background.dropped++;
+            throw new IOException("Background request dropped: queue full");
+        }
+        enqueue(queue);
+        try {
+            while (true) {
+                if (chain.call().isCanceled()) throw new IOException("Canceled");
+                Counters current = counters(priority);
+                if (current != queue) {
+                    // Promoted while waiting: move to the foreground queue
+                    queue.queued--;
+                    queue = current;
+                    enqueue(queue);
+                }
+                if (canStart(queue)) break;
+                long waited = clock.getAsLong() - start;
+                if (queue == background && waited >= maxBackgroundWaitMs) {
+                    background.dropped++;
+                    throw new IOException("Background request dropped after waiting " + waited + "ms");
+                }
+                wait(POLL_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while queued", e);
+        } finally {
+            queue.queued--;
+            // Someone else may be eligible now that this call left the queue
+            notifyAll();
+        }
+
+        long waited = clock.getAsLong() - start;
+        queue.running++;
+        queue.admitted++;
+        queue.totalWaitMillis += waited;
+        queue.maxWaitMillis = Math.max(queue.maxWaitMillis, waited);
+        return queue;
+    }
+
+    private synchronized void release(Counters counters) {
+        counters.running--;
+        notifyAll();
+    }
+
+    private Counters counters(RequestPriority priority) {
+        return priority != null && priority.isBackground() ? background : foreground;
+    }
+
+    private static void enqueue(Counters queue) {
+        queue.queued++;
+        queue.maxQueued = Math.max(queue.maxQueued, queue.queued);
+    }
+
+    private boolean canStart(Counters queue) {
+        int running = foreground.running + background.running;
+        if (running >= maxConcurrent) return false;
+        if (queue == foreground) return true;
+        return background.running < maxBackground && foreground.queued == 0;
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.nirvana.api;
+
+import androidx.annotation.NonNull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Speculatively fetches food.get for the foods the user is looking at, so the serving
+ * dialog opens with its servings already in the response cache.
+ *
+ * Work is deliberately modest: only the first few results of each list are queued, at
+ * most {@code maxConcurrent} calls run at once, and a per-minute budget caps how much
+ * FatSecret quota speculation may use. Queuing a new list, or {@link #cancel()}, drops
+ * whatever was left from the previous one. Because calls go through the shared
+ * {@link CoalescingFatSecretApi}, a dialog opened mid-prefetch joins the prefetch call,
+ * promoting it to foreground, and cancelling the prefetch does not cancel it. Calls are
+ * tagged background, so {@link RequestScheduler} may drop them under load.
+ */
+public class ServingPrefetcher {
+
+    public static final int DEFAULT_TOP_K = 5;
+    public static final int DEFAULT_MAX_CONCURRENT = 2;
+    public static final int DEFAULT_BUDGET_PER_MINUTE = 30;
+
+    private static final long WINDOW_MS = 60_000;
+    // Foods already prefetched this session; the response cache answers for them now
+    private static final int REMEMBERED = 256;
+
+    private final FatSecretApi api;
+    private final int topK;
+    private final int maxConcurrent;
+    private final int budgetPerMinute;
+    private final LongSupplier clock;
+
+    private final ArrayDeque<String> queue = new ArrayDeque<>();
+    private final Map<String, Call<FoodGetResponse>> running = new HashMap<>();
+    private final ArrayDeque<Long> sentAt = new ArrayDeque<>();
+    private final Map<String, Boolean> fetched = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > REMEMBERED;
+        }
+    };
+    private long sent;
+    private long skippedForBudget;
+
+    public ServingPrefetcher(FatSecretApi api) {
+        this(api, DEFAULT_TOP_K, DEFAULT_MAX_CONCURRENT, DEFAULT_BUDGET_PER_MINUTE, System::currentTimeMillis);
+    }
+
+    public ServingPrefetcher(FatSecretApi api, int topK, int maxConcurrent, int budgetPerMinute,
+                             LongSupplier clock) {
+        this.api = api;
+        this.topK = topK;
+        this.maxConcurrent = maxConcurrent;
+        this.budgetPerMinute = budgetPerMinute;
+        this.clock = clock;
+    }
+
+    /**
+     * Replaces any pending work with the first {@code topK} of {@code foods}, in order.
+     * Prefetches already running for foods still in the list are kept.
+     */
+    public void prefetch(@NonNull List<FoodSearchResponse.FoodItem> foods) {
+        List<Call<FoodGetResponse>> stale;
+        synchronized (this) {
+            Set<String> wanted = new LinkedHashSet<>();
+            for (FoodSearchResponse.FoodItem food : foods) {
+                if (wanted.size() >= topK) break;
+                if (food.food_id != null && !fetched.containsKey(food.food_id)) wanted.add(food.food_id);
+            }
+            stale = dropLocked(wanted);
+            for (String foodId : wanted) {
+                if (!running.containsKey(foodId)) queue.add(foodId);
+            }
+        }
+        cancelAll(stale);
+        pump();
+    }
+
+    /** Drops queued and in-flight prefetches, e.g. when the query changes. */
+    public void cancel() {
+        List<Call<FoodGetResponse>> stale;
+        synchronized (this) {
+            stale = dropLocked(Collections.emptySet());
+        }
+        cancelAll(stale);
+    }
+
+    /** food.get calls sent speculatively. */
+    public synchronized long getSentCount() {
+        return sent;
+    }
+
+    /** Foods left unfetched because the per-minute budget was spent. */
+    public synchronized long getSkippedForBudgetCount() {
+        return skippedForBudget;
+    }
+
+    private List<Call<FoodGetResponse>> dropLocked(Set<String> keep) {
+        queue.clear();
+        List<Call<FoodGetResponse>> stale = new ArrayList<>();
+        Iterator<Map.Entry<String, Call<FoodGetResponse>>> it = running.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Call<FoodGetResponse>> entry = it.next();
+            if (!keep.contains(entry.getKey())) {
+                stale.add(entry.getValue());
+                it.remove();
+            }
+        }
+        return stale;
+    }
+
+    private static void cancelAll(List<Call<FoodGetResponse>> calls) {
+        for (Call<FoodGetResponse> call : calls) call.cancel();
+    }
+
+    private void pump() {
+        while (true) {
+            final String foodId;
+            final Call<FoodGetResponse> call;
+            synchronized (this) {
+                if (queue.isEmpty() || running.size() >= maxConcurrent) return;
+                if (!takeBudgetLocked()) {
+                    skippedForBudget += queue.size();
+                    queue.clear();
+                    return;
+                }
+                foodId = queue.poll();
+                call = api.getFood("food.get", foodId, "json", RequestPriority.background());
+                running.put(foodId, call);
+                sent++;
+            }
+            call.enqueue(new Callback<FoodGetResponse>() {
+                @Override
+                public void onResponse(@NonNull Call<FoodGetResponse> c, @NonNull Response<FoodGetResponse> response) {
+                    // The cache interceptor has stored the body; nothing to keep here
+                    boolean ok = response.isSuccessful() && response.body() != null && response.body().food != null;
+                    finished(foodId, c, ok);
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<FoodGetResponse> c, @NonNull Throwable t) {
+                    finished(foodId, c, false);
+                }
+            });
+        }
+    }
+
+    private void finished(String foodId, Call<FoodGetResponse> call, boolean ok) {
+        synchronized (this) {
+            if (ok) fetched.put(foodId, Boolean.TRUE);
+            // A dropped call no longer holds a slot; its replacement may already be running
+            if (running.get(foodId) == call) running.remove(foodId);
+        }
+        pump();
+    }
+
+    private boolean takeBudgetLocked() {
+        long now = clock.getAsLong();
+        while (!sentAt.isEmpty() && now - sentAt.peekFirst() >= WINDOW_MS) sentAt.pollFirst();
+        if (sentAt.size() >= budgetPerMinute) return false;
+        sentAt.addLast(now);
+        return true;
+    }
+}
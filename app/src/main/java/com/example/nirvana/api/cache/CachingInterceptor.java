@@ -0,0 +1,241 @@
+package com.example.nirvana.api.cache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.example.nirvana.api.RequestPriority;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Application interceptor that serves FatSecret calls out of a {@link ResponseCache}.
+ *
+ * Must be installed before the OAuth signer so keys are built from the unsigned
+ * URL. Fresh entries are returned without touching the network; entries past their
+ * TTL but inside the stale window are returned immediately while a background call
+ * refreshes them; anything older goes to the network, falling back to the old copy
+ * if the network is unavailable or answers with a 429 or 5xx.
+ */
+public class CachingInterceptor implements Interceptor {
+
+    public static final String CACHE_STATUS_HEADER = "X-Nirvana-Cache";
+    private static final String REVALIDATE_HEADER = "X-Nirvana-Revalidate";
+
+    /** Freshness rules for a single FatSecret method. */
+    public static class Policy {
+        final long ttlMillis;
+        final long staleMillis;
+
+        public Policy(long ttl, long staleWhileRevalidate, TimeUnit unit) {
+            this.ttlMillis = unit.toMillis(ttl);
+            this.staleMillis = unit.toMillis(staleWhileRevalidate);
+        }
+    }
+
+    private final ResponseCache cache;
+    private final Map<String, Policy> policies = new HashMap<>();
+    private final LongSupplier clock;
+    private final Set<String> revalidating = new HashSet<>();
+    @Nullable
+    private OkHttpClient client;
+
+    public CachingInterceptor(ResponseCache cache) {
+        this(cache, System::currentTimeMillis);
+    }
+
+    public CachingInterceptor(ResponseCache cache, LongSupplier clock) {
+        this.cache = cache;
+        this.clock = clock;
+        policies.put("foods.search", new Policy(1, 24, TimeUnit.HOURS));
+        policies.put("food.get", new Policy(7, 30, TimeUnit.DAYS));
+    }
+
+    public CachingInterceptor setPolicy(String method, Policy policy) {
+        policies.put(method, policy);
+        return this;
+    }
+
+    /** Client used to issue background revalidations; set once the client has been built. */
+    public void attachClient(OkHttpClient client) {
+        this.client = client;
+    }
+
+    public ResponseCache getCache() {
+        return cache;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        String method = request.url().queryParameter("method");
+        Policy policy = method != null ? policies.get(method) : null;
+        if (policy == null || !"GET".equals(request.method())) {
+            return chain.proceed(request);
+        }
+
+        String key = cacheKey(request.url());
+        if (request.header(REVALIDATE_HEADER) != null) {
+            try {
+                return fetchAndStore(chain, request.newBuilder().removeHeader(REVALIDATE_HEADER).build(), key);
+            } finally {
+                synchronized (revalidating) {
+                    revalidating.remove(key);
+                }
+            }
+        }
+
+        ResponseCache.Entry entry = cache.get(key);
+        if (entry != null) {
+            long age = clock.getAsLong() - entry.storedAtMillis;
+            if (age <= policy.ttlMillis) {
+                cache.recordHit();
+                return fromCache(request, entry, "HIT");
+            }
+            if (age <= policy.ttlMillis + policy.staleMillis && client != null) {
+                cache.recordStaleHit();
+                revalidateInBackground(request, key);
+                return fromCache(request, entry, "STALE");
+            }
+        }
+
+        cache.recordMiss();
+        Response response;
+        try {
+            response = fetchAndStore(chain, request, key);
+        } catch (IOException e) {
+            if (entry == null) throw e;
+            // Offline: an expired answer beats no answer.
+            return fromCache(request, entry, "OFFLINE");
+        }
+        if (entry != null && isUnavailable(response.code())) {
+            // Rate limited or down after the quota guard's retries: same as offline
+            response.close();
+            return fromCache(request, entry, "OFFLINE");
+        }
+        return response;
+    }
+
+    private static boolean isUnavailable(int code) {
+        return code == 429 || code >= 500;
+    }
+
+    private Response fetchAndStore(Chain chain, Request request, String key) throws IOException {
+        Response response = chain.proceed(request);
+        ResponseBody body = response.body();
+        if (!response.isSuccessful() || body == null) {
+            return response;
+        }
+
+        MediaType contentType = body.contentType();
+        byte[] bytes = body.bytes();
+        if (!isErrorPayload(bytes)) {
+            cache.put(key, new ResponseCache.Entry(bytes,
+                    contentType != null ? contentType.toString() : "application/json",
+                    clock.getAsLong()));
+        }
+        return response.newBuilder()
+                .body(ResponseBody.create(bytes, contentType))
+                .header(CACHE_STATUS_HEADER, "MISS")
+                .build();
+    }
+
+    private void revalidateInBackground(Request request, String key) {
+        synchronized (revalidating) {
+            if (!revalidating.add(key)) return;
+        }
+        // Nobody is waiting on a refresh, so it queues behind user-initiated calls
+        Request refresh = request.newBuilder()
+                .header(REVALIDATE_HEADER, "1")
+                .tag(RequestPriority.class, RequestPriority.background())
+                .build();
+        client.newCall(refresh).enqueue(new Callback() {
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                response.close();
+            }
+
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                synchronized (revalidating) {
+                    revalidating.remove(key);
+                }
+            }
+        });
+    }
+
+    private static Response fromCache(Request request, ResponseCache.Entry entry, String status) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .header("Content-Type", entry.contentType)
+                .header(CACHE_STATUS_HEADER, status)
+                .body(ResponseBody.create(entry.body, MediaType.parse(entry.contentType)))
+                .build();
+    }
+
+    /** FatSecret reports errors inside a 200 response; those must never be cached. */
+    private static boolean isErrorPayload(byte[] body) {
+        for (int i = 0; i < body.length && i < 32; i++) {
+            if (body[i] == '<') return true;
+            if (body[i] == '"') {
+                return body.length > i + 6 && new String(body, i, 7).equals("\"error\"");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method plus the sorted, non-OAuth query parameters, with the search expression
+     * case- and whitespace-folded so "Chicken  breast" and "chicken breast" share an entry.
+     */
+    public static String cacheKey(HttpUrl url) {
+        Map<String, String> query = new HashMap<>();
+        for (String name : url.queryParameterNames()) {
+            query.put(name, url.queryParameter(name));
+        }
+        return cacheKey(query);
+    }
+
+    /** As above, from query parameters by name; null values count as empty. */
+    public static String cacheKey(Map<String, String> query) {
+        TreeMap<String, String> params = new TreeMap<>();
+        for (Map.Entry<String, String> param : query.entrySet()) {
+            String name = param.getKey();
+            if (name.startsWith("oauth_")) continue;
+            String value = param.getValue();
+            if (value == null) value = "";
+            if (name.equals("search_expression")) {
+                value = value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+            }
+            params.put(name, value);
+        }
+
+        StringBuilder key = new StringBuilder(params.getOrDefault("method", ""));
+        char separator = '?';
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            if (param.getKey().equals("method")) continue;
+            key.append(separator).append(param.getKey()).append('=').append(param.getValue());
+            separator = '&';
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.nirvana.api.cache;
+
+import android.util.Log;
+import androidx.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import okio.ByteString;
+
+/**
+ * One file per cache key under a private directory. Once the directory grows
+ * past {@code maxBytes}, the least recently written files are deleted first.
+ */
+public class DiskStore {
+
+    private static final String TAG = "DiskStore";
+    private static final int FORMAT_VERSION = 1;
+
+    private final File directory;
+    private final long maxBytes;
+    private long totalBytes = -1;
+    private long evictions;
+
+    public DiskStore(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    @Nullable
+    public synchronized ResponseCache.Entry read(String key) {
+        File file = fileFor(key);
+        if (!file.exists()) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) return null;
+            long storedAt = in.readLong();
+            String contentType = in.readUTF();
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new ResponseCache.Entry(body, contentType, storedAt);
+        } catch (IOException e) {
+            Log.w(TAG, "Dropping unreadable cache file " + file.getName(), e);
+            delete(file);
+            return null;
+        }
+    }
+
+    public synchronized void write(String key, ResponseCache.Entry entry) {
+        if (!directory.exists() && !directory.mkdirs()) return;
+        ensureSizeKnown();
+
+        File file = fileFor(key);
+        File tmp = new File(directory, file.getName() + ".tmp");
+        long previousLength = file.length();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(entry.storedAtMillis);
+            out.writeUTF(entry.contentType);
+            out.writeInt(entry.body.length);
+            out.write(entry.body);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write cache file", e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            return;
+        }
+        totalBytes += file.length() - previousLength;
+        trimToSize();
+    }
+
+    public synchronized void clear() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) file.delete();
+        }
+        totalBytes = 0;
+    }
+
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    private void trimToSize() {
+        if (totalBytes <= maxBytes) return;
+        File[] files = directory.listFiles();
+        if (files == null) return;
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (totalBytes <= maxBytes) break;
+            delete(file);
+            evictions++;
+        }
+    }
+
+    private void ensureSizeKnown() {
+        if (totalBytes >= 0) return;
+        totalBytes = 0;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) totalBytes += file.length();
+        }
+    }
+
+    private void delete(File file) {
+        long length = file.length();
+        if (file.delete() && totalBytes >= 0) {
+            totalBytes -= length;
+        }
+    }
+
+    private File fileFor(String key) {
+        return new File(directory, ByteString.encodeUtf8(key).sha1().hex());
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.nirvana.api.cache;
+
+import androidx.annotation.Nullable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier store for FatSecret response bodies: a byte-bounded in-memory LRU in
+ * front of a size-capped {@link DiskStore}. Entries that fall out of memory are
+ * still served from disk and promoted back on access.
+ */
+public class ResponseCache {
+
+    public static class Entry {
+        public final byte[] body;
+        public final String contentType;
+        public final long storedAtMillis;
+
+        public Entry(byte[] body, String contentType, long storedAtMillis) {
+            this.body = body;
+            this.contentType = contentType;
+            this.storedAtMillis = storedAtMillis;
+        }
+    }
+
+    /** Snapshot of the cache counters. */
+    public static class Stats {
+        public final long hits;
+        public final long staleHits;
+        public final long misses;
+        public final long memoryEvictions;
+        public final long diskEvictions;
+
+        Stats(long hits, long staleHits, long misses, long memoryEvictions, long diskEvictions) {
+            this.hits = hits;
+            this.staleHits = staleHits;
+            this.misses = misses;
+            this.memoryEvictions = memoryEvictions;
+            this.diskEvictions = diskEvictions;
+        }
+
+        public double hitRatio() {
+            long total = hits + staleHits + misses;
+            return total == 0 ? 0 : (double) (hits + staleHits) / total;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{hits=" + hits + ", staleHits=" + staleHits + ", misses=" + misses
+                    + ", memoryEvictions=" + memoryEvictions + ", diskEvictions=" + diskEvictions + '}';
+        }
+    }
+
+    private final long maxMemoryBytes;
+    @Nullable
+    private final DiskStore disk;
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(32, 0.75f, true);
+    private long memoryBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong memoryEvictions = new AtomicLong();
+
+    public ResponseCache(long maxMemoryBytes, @Nullable DiskStore disk) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.disk = disk;
+    }
+
+    @Nullable
+    public Entry get(String key) {
+        synchronized (memory) {
+            Entry entry = memory.get(key);
+            if (entry != null) return entry;
+        }
+        if (disk == null) return null;
+
+        Entry entry = disk.read(key);
+        if (entry != null) {
+            synchronized (memory) {
+                putInMemoryLocked(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    public void put(String key, Entry entry) {
+        synchronized (memory) {
+            putInMemoryLocked(key, entry);
+        }
+        if (disk != null) {
+            disk.write(key, entry);
+        }
+    }
+
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+            memoryBytes = 0;
+        }
+        if (disk != null) {
+            disk.clear();
+        }
+    }
+
+    void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    void recordStaleHit() {
+        staleHits.incrementAndGet();
+    }
+
+    void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.get(), staleHits.get(), misses.get(), memoryEvictions.get(),
+                disk != null ? disk.evictionCount() : 0);
+    }
+
+    private void putInMemoryLocked(String key, Entry entry) {
+        Entry previous = memory.put(key, entry);
+        if (previous != null) memoryBytes -= previous.body.length;
+        memoryBytes += entry.body.length;
+
+        Iterator<Map.Entry<String, Entry>> it = memory.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            if (eldest.getKey().equals(key)) continue;
+            memoryBytes -= eldest.getValue().body.length;
+            it.remove();
+            memoryEvictions.incrementAndGet();
+        }
+    }
+}
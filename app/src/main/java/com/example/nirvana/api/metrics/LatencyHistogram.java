@@ -0,0 +1,77 @@
+package com.example.nirvana.api.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-bucket latency histogram in milliseconds. Buckets follow a 1-2-5 series up to
+ * 30 seconds, with one overflow bucket; percentiles are reported as the upper bound of
+ * the bucket they fall in, which is precise enough to tell a slow handshake from a
+ * slow server. Not thread-safe; {@link NetworkMetrics} guards each instance.
+ */
+public class LatencyHistogram {
+
+    /** Inclusive upper bounds of every bucket but the last, which is unbounded. */
+    static final long[] BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000, 30_000};
+
+    public static class Snapshot {
+        public final long count;
+        public final long totalMillis;
+        public final long maxMillis;
+        public final long p50Millis;
+        public final long p90Millis;
+        public final long p99Millis;
+        /** Counts per bucket; bucket {@code i} holds values up to {@code bounds[i]}. */
+        public final long[] buckets;
+        public final long[] bounds = BOUNDS_MS;
+
+        Snapshot(long count, long totalMillis, long maxMillis, long[] buckets) {
+            this.count = count;
+            this.totalMillis = totalMillis;
+            this.maxMillis = maxMillis;
+            this.buckets = buckets;
+            this.p50Millis = percentile(0.50);
+            this.p90Millis = percentile(0.90);
+            this.p99Millis = percentile(0.99);
+        }
+
+        public double meanMillis() {
+            return count == 0 ? 0 : (double) totalMillis / count;
+        }
+
+        /** Upper bound of the bucket holding the {@code p} quantile, capped at the maximum seen. */
+        public long percentile(double p) {
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(p * count);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) return i < BOUNDS_MS.length ? Math.min(BOUNDS_MS[i], maxMillis) : maxMillis;
+            }
+            return maxMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "{count=" + count + ", meanMs=" + meanMillis() + ", p50Ms=" + p50Millis
+                    + ", p90Ms=" + p90Millis + ", p99Ms=" + p99Millis + ", maxMs=" + maxMillis + '}';
+        }
+    }
+
+    private final long[] buckets = new long[BOUNDS_MS.length + 1];
+    private long count;
+    private long totalMillis;
+    private long maxMillis;
+
+    public void record(long millis) {
+        if (millis < 0) millis = 0;
+        int i = Arrays.binarySearch(BOUNDS_MS, millis);
+        buckets[i >= 0 ? i : -i - 1]++;
+        count++;
+        totalMillis += millis;
+        maxMillis = Math.max(maxMillis, millis);
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(count, totalMillis, maxMillis, buckets.clone());
+    }
+}
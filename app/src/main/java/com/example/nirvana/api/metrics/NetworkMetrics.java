@@ -0,0 +1,347 @@
+package com.example.nirvana.api.metrics;
+
+import androidx.annotation.NonNull;
+import com.example.nirvana.api.cache.CachingInterceptor;
+import com.google.gson.GsonBuilder;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Per-endpoint network instrumentation for FatSecret calls, keyed by the {@code method}
+ * query parameter.
+ *
+ * As an {@link EventListener.Factory} it times each call's DNS lookup, connect, TLS
+ * handshake, time to first byte and total duration, and counts wire bytes and
+ * failures. As an application interceptor, installed ahead of the response cache, it
+ * sees each call's final response and counts cache hits, misses and HTTP errors; cache
+ * hits never reach the network, so the listener alone can't tell them apart from calls
+ * that finished without one. The listener does see whether a call ever went looking for
+ * a connection, and records the duration of calls that did not under {@code cached}
+ * instead of {@code total}, which keeps in-memory answers from pulling the network
+ * percentiles down. Expired entries served because the network failed still count under
+ * {@code total}, since the caller waited on that failure.
+ *
+ * Query it with {@link #snapshot()}, or export everything as JSON with {@link #dump()}.
+ */
+public class NetworkMetrics implements EventListener.Factory, Interceptor {
+
+    private static final String OTHER = "other";
+
+    /** Counters and latency histograms for one FatSecret method. */
+    public static class EndpointStats {
+        public final long calls;
+        public final long failures;
+        public final long httpErrors;
+        public final long canceled;
+        public final long cacheHits;
+        public final long staleHits;
+        public final long offlineHits;
+        public final long cacheMisses;
+        public final long bytesSent;
+        public final long bytesReceived;
+        public final LatencyHistogram.Snapshot dns;
+        public final LatencyHistogram.Snapshot connect;
+        public final LatencyHistogram.Snapshot tls;
+        public final LatencyHistogram.Snapshot ttfb;
+        public final LatencyHistogram.Snapshot total;
+        public final LatencyHistogram.Snapshot cached;
+
+        EndpointStats(Endpoint e) {
+            calls = e.calls;
+            failures = e.failures;
+            httpErrors = e.httpErrors;
+            canceled = e.canceled;
+            cacheHits = e.cacheHits;
+            staleHits = e.staleHits;
+            offlineHits = e.offlineHits;
+            cacheMisses = e.cacheMisses;
+            bytesSent = e.bytesSent;
+            bytesReceived = e.bytesReceived;
+            dns = e.dns.snapshot();
+            connect = e.connect.snapshot();
+            tls = e.tls.snapshot();
+            ttfb = e.ttfb.snapshot();
+            total = e.total.snapshot();
+            cached = e.cached.snapshot();
+        }
+
+        /** Calls that failed with an I/O error or an HTTP error status; cancellations excluded. */
+        public double errorRate() {
+            long finished = calls - canceled;
+            return finished == 0 ? 0 : (double) (failures + httpErrors) / finished;
+        }
+
+        public double cacheHitRatio() {
+            long lookups = cacheHits + staleHits + offlineHits + cacheMisses;
+            return lookups == 0 ? 0 : (double) (cacheHits + staleHits + offlineHits) / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "{calls=" + calls + ", errorRate=" + errorRate() + ", cacheHitRatio=" + cacheHitRatio()
+                    + ", bytesSent=" + bytesSent + ", bytesReceived=" + bytesReceived
+                    + ", dns=" + dns + ", connect=" + connect + ", tls=" + tls
+                    + ", ttfb=" + ttfb + ", total=" + total + ", cached=" + cached + '}';
+        }
+    }
+
+    /** Mutable state behind {@link EndpointStats}; guarded by the metrics object. */
+    private static final class Endpoint {
+        long calls;
+        long failures;
+        long httpErrors;
+        long canceled;
+        long cacheHits;
+        long staleHits;
+        long offlineHits;
+        long cacheMisses;
+        long bytesSent;
+        long bytesReceived;
+        final LatencyHistogram dns = new LatencyHistogram();
+        final LatencyHistogram connect = new LatencyHistogram();
+        final LatencyHistogram tls = new LatencyHistogram();
+        final LatencyHistogram ttfb = new LatencyHistogram();
+        final LatencyHistogram total = new LatencyHistogram();
+        final LatencyHistogram cached = new LatencyHistogram();
+    }
+
+    private final LongSupplier nanoClock;
+    private final Map<String, Endpoint> endpoints = new TreeMap<>();
+
+    public NetworkMetrics() {
+        this(System::nanoTime);
+    }
+
+    public NetworkMetrics(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    @NonNull
+    @Override
+    public EventListener create(@NonNull Call call) {
+        return new CallListener(endpointName(call.request()));
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+        String status = response.header(CachingInterceptor.CACHE_STATUS_HEADER);
+        synchronized (this) {
+            Endpoint endpoint = endpoint(endpointName(request));
+            if (status != null) {
+                switch (status) {
+                    case "HIT": endpoint.cacheHits++; break;
+                    case "STALE": endpoint.staleHits++; break;
+                    case "OFFLINE": endpoint.offlineHits++; break;
+                    default: endpoint.cacheMisses++; break;
+                }
+            }
+            if (!response.isSuccessful()) endpoint.httpErrors++;
+        }
+        return response;
+    }
+
+    /** Stats for every method seen so far, by method name. */
+    @NonNull
+    public synchronized Map<String, EndpointStats> snapshot() {
+        Map<String, EndpointStats> stats = new TreeMap<>();
+        for (Map.Entry<String, Endpoint> e : endpoints.entrySet()) {
+            stats.put(e.getKey(), new EndpointStats(e.getValue()));
+        }
+        return stats;
+    }
+
+    /** {@link #snapshot()} as JSON, for attaching to bug reports or pulling off a device. */
+    @NonNull
+    public String dump() {
+        return new GsonBuilder().setPrettyPrinting().create().toJson(snapshot());
+    }
+
+    public synchronized void reset() {
+        endpoints.clear();
+    }
+
+    private static String endpointName(Request request) {
+        String method = request.url().queryParameter("method");
+        return method != null ? method : OTHER;
+    }
+
+    private Endpoint endpoint(String name) {
+        Endpoint endpoint = endpoints.get(name);
+        if (endpoint == null) {
+            endpoint = new Endpoint();
+            endpoints.put(name, endpoint);
+        }
+        return endpoint;
+    }
+
+    private static long millisSince(long startNanos, long nowNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nowNanos - startNanos);
+    }
+
+    /**
+     * Timestamps for one call. OkHttp delivers a call's events on whichever thread is
+     * running it, one at a time, so only the hand-off into the shared counters locks.
+     */
+    private final class CallListener extends EventListener {
+        private final String name;
+        private long callStart;
+        private long dnsStart;
+        private long connectStart;
+        private long tlsStart;
+        private long requestStart;
+        // Set from whichever thread cancels the call
+        private volatile boolean canceled;
+        // False for calls the cache answered without asking for a connection
+        private boolean reachedNetwork;
+
+        CallListener(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void callStart(@NonNull Call call) {
+            callStart = nanoClock.getAsLong();
+        }
+
+        @Override
+        public void proxySelectStart(@NonNull Call call, @NonNull HttpUrl url) {
+            reachedNetwork = true;
+        }
+
+        @Override
+        public void connectionAcquired(@NonNull Call call, @NonNull Connection connection) {
+            reachedNetwork = true;
+        }
+
+        @Override
+        public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+            dnsStart = nanoClock.getAsLong();
+        }
+
+        @Override
+        public void dnsEnd(@NonNull Call call, @NonNull String domainName, @NonNull List<InetAddress> addresses) {
+            long elapsed = millisSince(dnsStart, nanoClock.getAsLong());
+            synchronized (NetworkMetrics.this) {
+                endpoint(name).dns.record(elapsed);
+            }
+        }
+
+        @Override
+        public void connectStart(@NonNull Call call, @NonNull InetSocketAddress address, @NonNull Proxy proxy) {
+            connectStart = nanoClock.getAsLong();
+        }
+
+        @Override
+        public void secureConnectStart(@NonNull Call call) {
+            tlsStart = nanoClock.getAsLong();
+        }
+
+        @Override
+        public void secureConnectEnd(@NonNull Call call, Handshake handshake) {
+            long elapsed = millisSince(tlsStart, nanoClock.getAsLong());
+            synchronized (NetworkMetrics.this) {
+                endpoint(name).tls.record(elapsed);
+            }
+        }
+
+        @Override
+        public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress address, @NonNull Proxy proxy,
+                               Protocol protocol) {
+            long elapsed = millisSince(connectStart, nanoClock.getAsLong());
+            synchronized (NetworkMetrics.this) {
+                endpoint(name).connect.record(elapsed);
+            }
+        }
+
+        @Override
+        public void requestHeadersStart(@NonNull Call call) {
+            requestStart = nanoClock.getAsLong();
+        }
+
+        @Override
+        public void requestHeadersEnd(@NonNull Call call, @NonNull Request request) {
+            long bytes = request.headers().byteCount();
+            synchronized (NetworkMetrics.this) {
+                endpoint(name).bytesSent += bytes;
+            }
+        }
+
+        @Override
+        public void requestBodyEnd(@NonNull Call call, long byteCount) {
+            synchronized (NetworkMetrics.this) {
+                endpoint(name).bytesSent += byteCount;
+            }
+        }
+
+        @Override
+        public void responseHeadersStart(@NonNull Call call) {
+            long elapsed = millisSince(requestStart, nanoClock.getAsLong());
+            synchronized (NetworkMetrics.this) {
+                endpoint(name).ttfb.record(elapsed);
+            }
+        }
+
+        @Override
+        public void responseHeadersEnd(@NonNull Call call, @NonNull Response response) {
+            long bytes = response.headers().byteCount();
+            synchronized (NetworkMetrics.this) {
+                endpoint(name).bytesReceived += bytes;
+            }
+        }
+
+        @Override
+        public void responseBodyEnd(@NonNull Call call, long byteCount) {
+            synchronized (NetworkMetrics.this) {
+                endpoint(name).bytesReceived += byteCount;
+            }
+        }
+
+        @Override
+        public void canceled(@NonNull Call call) {
+            canceled = true;
+        }
+
+        @Override
+        public void callEnd(@NonNull Call call) {
+            finish(false);
+        }
+
+        @Override
+        public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+            finish(true);
+        }
+
+        private void finish(boolean failed) {
+            long elapsed = millisSince(callStart, nanoClock.getAsLong());
+            synchronized (NetworkMetrics.this) {
+                Endpoint endpoint = endpoint(name);
+                endpoint.calls++;
+                if (canceled) {
+                    endpoint.canceled++;
+                } else if (failed) {
+                    endpoint.failures++;
+                }
+                (reachedNetwork || failed ? endpoint.total : endpoint.cached).record(elapsed);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.nirvana.api.metrics;
+
+import androidx.annotation.NonNull;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import okhttp3.logging.HttpLoggingInterceptor;
+
+/**
+ * Logs the full request and response, bodies included, for one call in every
+ * {@code oneIn}; the rest pass straight through without being buffered. Meant for
+ * debug builds only, as the last interceptor so the logged URL is the signed one.
+ */
+public class SampledBodyLogger implements Interceptor {
+
+    private final int oneIn;
+    private final HttpLoggingInterceptor body;
+    private final AtomicLong calls = new AtomicLong();
+
+    public SampledBodyLogger(int oneIn) {
+        this(oneIn, HttpLoggingInterceptor.Logger.DEFAULT);
+    }
+
+    public SampledBodyLogger(int oneIn, HttpLoggingInterceptor.Logger logger) {
+        if (oneIn < 1) throw new IllegalArgumentException("oneIn must be at least 1");
+        this.oneIn = oneIn;
+        this.body = new HttpLoggingInterceptor(logger);
+        body.setLevel(HttpLoggingInterceptor.Level.BODY);
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        if (calls.getAndIncrement() % oneIn == 0) return body.intercept(chain);
+        return chain.proceed(chain.request());
+    }
+}
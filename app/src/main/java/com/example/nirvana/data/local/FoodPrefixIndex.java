@@ -0,0 +1,345 @@
+package com.example.nirvana.data.local;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import com.example.nirvana.api.FoodSearchResponse;
+import com.example.nirvana.data.models.FoodItem;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+
+/**
+ * On-device typeahead over every food the user has seen in search results or logged.
+ *
+ * Each name is indexed at every word boundary ("grilled chicken breast" is reachable
+ * from "gri", "chi" and "bre") in a sorted array, so a lookup is two binary searches
+ * plus a scan of the matching range. Matches are ranked by how often and how recently
+ * the user logged them; foods only ever seen in search results rank last.
+ *
+ * New and renamed foods are merged into the sorted array on the next lookup: only their
+ * own keys are sorted, then spliced in with one linear pass. The saved index is read on
+ * a background thread, so lookups made before it is in simply see fewer foods.
+ */
+public class FoodPrefixIndex {
+
+    private static final String TAG = "FoodPrefixIndex";
+    private static final String FILE_NAME = "food_prefix_index.bin";
+    private static final int FORMAT_VERSION = 1;
+    private static final double RECENCY_HALF_LIFE_DAYS = 14;
+
+    private static FoodPrefixIndex instance;
+
+    private static class Food {
+        final String foodId;
+        int position;
+        String name;
+        String description;
+        int logCount;
+        long lastLoggedAt;
+
+        Food(String foodId, String name) {
+            this.foodId = foodId;
+            this.name = name;
+        }
+    }
+
+    private static class IndexKey {
+        final String text;
+        final int owner;
+        final boolean atStart;
+
+        IndexKey(String text, int owner, boolean atStart) {
+            this.text = text;
+            this.owner = owner;
+            this.atStart = atStart;
+        }
+    }
+
+    private final LongSupplier clock;
+    private final Map<String, Food> foodsById = new HashMap<>();
+    private final List<Food> foods = new ArrayList<>();
+
+    // Sorted suffix-at-word-boundary keys and, in parallel, the food each belongs to
+    private String[] keys = new String[0];
+    private int[] owners = new int[0];
+    private boolean[] atStart = new boolean[0];
+    private int[] seenStamps = new int[0];
+    private int queryStamp;
+    // Foods whose keys are missing from, or stale in, the arrays above
+    private final List<Integer> unindexed = new ArrayList<>();
+    private boolean savePending;
+
+    private File file;
+    private ExecutorService io;
+
+    public FoodPrefixIndex() {
+        this(System::currentTimeMillis);
+    }
+
+    public FoodPrefixIndex(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public static synchronized FoodPrefixIndex getInstance(Context context) {
+        if (instance == null) {
+            instance = new FoodPrefixIndex();
+            instance.file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+            instance.io = Executors.newSingleThreadExecutor();
+            instance.io.execute(instance::load);
+        }
+        return instance;
+    }
+
+    public synchronized int size() {
+        return foods.size();
+    }
+
+    /** Remember foods returned by a network search so they can be found offline next time. */
+    public synchronized void recordSeen(List<FoodSearchResponse.FoodItem> results) {
+        for (FoodSearchResponse.FoodItem result : results) {
+            Food food = upsert(result.food_id, result.food_name);
+            if (food != null && result.food_description != null) {
+                food.description = result.food_description;
+            }
+        }
+        scheduleSave();
+    }
+
+    public synchronized void recordLogged(FoodItem item) {
+        Food food = upsert(item.getFoodId(), item.getFoodName());
+        if (food != null) {
+            food.logCount++;
+            food.lastLoggedAt = clock.getAsLong();
+        }
+        scheduleSave();
+    }
+
+    /** Best {@code limit} matches for {@code query}, highest ranked first. */
+    @NonNull
+    public synchronized List<FoodSearchResponse.FoodItem> search(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty() || limit <= 0) return new ArrayList<>();
+        if (!unindexed.isEmpty()) merge();
+
+        int from = lowerBound(prefix);
+        int to = lowerBound(prefix + Character.MAX_VALUE);
+        long now = clock.getAsLong();
+
+        // Min-heap of the best candidates; a food matching at several words counts once
+        PriorityQueue<double[]> best = new PriorityQueue<>(limit + 1, (a, b) -> Double.compare(a[0], b[0]));
+        int stamp = ++queryStamp;
+        for (int i = from; i < to; i++) {
+            int owner = owners[i];
+            if (seenStamps[owner] == stamp) continue;
+            seenStamps[owner] = stamp;
+            double score = score(foods.get(owner), now, atStart[i]);
+            if (best.size() < limit) {
+                best.add(new double[]{score, owner});
+            } else if (score > best.peek()[0]) {
+                best.poll();
+                best.add(new double[]{score, owner});
+            }
+        }
+
+        FoodSearchResponse.FoodItem[] ranked = new FoodSearchResponse.FoodItem[best.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            Food food = foods.get((int) best.poll()[1]);
+            FoodSearchResponse.FoodItem item = new FoodSearchResponse.FoodItem();
+            item.food_id = food.foodId;
+            item.food_name = food.name;
+            item.food_description = food.description;
+            ranked[i] = item;
+        }
+        return new ArrayList<>(Arrays.asList(ranked));
+    }
+
+    private double score(Food food, long now, boolean matchesFromStart) {
+        double score = matchesFromStart ? 0.5 : 0;
+        if (food.logCount > 0) {
+            double ageDays = Math.max(0, now - food.lastLoggedAt) / 86_400_000d;
+            score += 1 + Math.log(1 + food.logCount) + 2 * Math.pow(0.5, ageDays / RECENCY_HALF_LIFE_DAYS);
+        }
+        return score;
+    }
+
+    private Food upsert(String foodId, String name) {
+        if (foodId == null || name == null || name.trim().isEmpty()) return null;
+        Food food = foodsById.get(foodId);
+        if (food == null) {
+            food = new Food(foodId, name);
+            foodsById.put(foodId, food);
+            food.position = foods.size();
+            unindexed.add(food.position);
+            foods.add(food);
+        } else if (!food.name.equals(name)) {
+            food.name = name;
+            unindexed.add(food.position);
+        }
+        return food;
+    }
+
+    /** Sorts the keys of {@link #unindexed} foods and splices them in, dropping their old ones. */
+    private void merge() {
+        boolean[] stale = new boolean[foods.size()];
+        List<IndexKey> entries = new ArrayList<>();
+        for (int owner : unindexed) {
+            if (stale[owner]) continue;
+            stale[owner] = true;
+            String name = normalize(foods.get(owner).name);
+            for (int start = 0; start < name.length(); start++) {
+                if (start == 0 || name.charAt(start - 1) == ' ') {
+                    entries.add(new IndexKey(name.substring(start), owner, start == 0));
+                }
+            }
+        }
+        unindexed.clear();
+        IndexKey[] added = entries.toArray(new IndexKey[0]);
+        Arrays.sort(added, (a, b) -> a.text.compareTo(b.text));
+
+        int capacity = keys.length + added.length;
+        String[] mergedKeys = new String[capacity];
+        int[] mergedOwners = new int[capacity];
+        boolean[] mergedAtStart = new boolean[capacity];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < added.length) {
+            if (i < keys.length && stale[owners[i]]) {
+                i++;
+            } else if (j == added.length || (i < keys.length && keys[i].compareTo(added[j].text) <= 0)) {
+                mergedKeys[n] = keys[i];
+                mergedOwners[n] = owners[i];
+                mergedAtStart[n++] = atStart[i++];
+            } else {
+                mergedKeys[n] = added[j].text;
+                mergedOwners[n] = added[j].owner;
+                mergedAtStart[n++] = added[j++].atStart;
+            }
+        }
+
+        keys = n == capacity ? mergedKeys : Arrays.copyOf(mergedKeys, n);
+        owners = n == capacity ? mergedOwners : Arrays.copyOf(mergedOwners, n);
+        atStart = n == capacity ? mergedAtStart : Arrays.copyOf(mergedAtStart, n);
+        if (seenStamps.length < foods.size()) seenStamps = Arrays.copyOf(seenStamps, foods.size());
+    }
+
+    private int lowerBound(String key) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    static String normalize(String text) {
+        if (text == null) return "";
+        StringBuilder out = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                if (space && out.length() > 0) out.append(' ');
+                out.append(c);
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return out.toString();
+    }
+
+    private void scheduleSave() {
+        if (io == null || savePending) return;
+        savePending = true;
+        io.execute(() -> {
+            byte[] snapshot;
+            synchronized (this) {
+                savePending = false;
+                snapshot = serialize();
+            }
+            File tmp = new File(file.getPath() + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                out.write(snapshot);
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to save food index", e);
+                return;
+            }
+            if (!tmp.renameTo(file)) tmp.delete();
+        });
+    }
+
+    private byte[] serialize() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(bytes))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(foods.size());
+            for (Food food : foods) {
+                out.writeUTF(food.foodId);
+                out.writeUTF(food.name);
+                out.writeUTF(food.description != null ? food.description : "");
+                out.writeInt(food.logCount);
+                out.writeLong(food.lastLoggedAt);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Runs on {@link #io}; foods recorded before it finishes keep their newer name and add up counts. */
+    private void load() {
+        if (!file.exists()) return;
+        List<Food> stored = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) return;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Food food = new Food(in.readUTF(), in.readUTF());
+                String description = in.readUTF();
+                food.description = description.isEmpty() ? null : description;
+                food.logCount = in.readInt();
+                food.lastLoggedAt = in.readLong();
+                stored.add(food);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding unreadable food index", e);
+            return;
+        }
+
+        synchronized (this) {
+            for (Food food : stored) {
+                Food current = foodsById.get(food.foodId);
+                if (current == null) {
+                    current = upsert(food.foodId, food.name);
+                    if (current == null) continue;
+                    current.description = food.description;
+                } else if (current.description == null) {
+                    current.description = food.description;
+                }
+                current.logCount += food.logCount;
+                current.lastLoggedAt = Math.max(current.lastLoggedAt, food.lastLoggedAt);
+            }
+            // Sort here rather than on the first lookup, which runs on the main thread
+            if (!unindexed.isEmpty()) merge();
+        }
+    }
+}
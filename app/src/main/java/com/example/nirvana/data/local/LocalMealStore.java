@@ -0,0 +1,53 @@
+package com.example.nirvana.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Persistent source of truth for logged meals, plus the outbox of keys whose local
+ * state still has to reach Firebase. A local mutation and its outbox record are
+ * written atomically, so nothing the user logged can be lost between the two.
+ */
+public interface LocalMealStore {
+
+    /** A key awaiting sync; {@code seq} increases with every local mutation. */
+    class PendingWrite {
+        public final long seq;
+        public final String key;
+
+        public PendingWrite(long seq, @NonNull String key) {
+            this.seq = seq;
+            this.key = key;
+        }
+    }
+
+    @Nullable
+    MealEntry get(@NonNull String key);
+
+    /** Every entry for the day, tombstones included. */
+    @NonNull
+    List<MealEntry> entriesForDay(@NonNull String dayKey);
+
+    /** Stores the entry without queueing it for sync; used for state that came from the server. */
+    void put(@NonNull MealEntry entry);
+
+    /** Stores a local mutation and appends its key to the outbox in one transaction. */
+    void putAndEnqueue(@NonNull MealEntry entry);
+
+    /** {@link #putAndEnqueue} for several entries, all in the same transaction. */
+    void putAndEnqueueAll(@NonNull List<MealEntry> entries);
+
+    /** Oldest pending writes first. */
+    @NonNull
+    List<PendingWrite> pendingWrites(int limit);
+
+    /**
+     * Records whether the server now holds each pushed entry and drops outbox records up to
+     * {@code seq}, in one transaction. Only {@link MealEntry#onServer} is updated, so a local
+     * change made while the push was in flight is kept.
+     */
+    void acknowledge(@NonNull List<MealEntry> synced, long seq);
+
+    boolean hasPendingWrite(@NonNull String key);
+}
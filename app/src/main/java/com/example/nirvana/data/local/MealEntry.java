@@ -0,0 +1,48 @@
+package com.example.nirvana.data.local;
+
+import androidx.annotation.NonNull;
+import com.example.nirvana.data.models.FoodItem;
+import com.example.nirvana.data.repository.DailyTotalsRepository;
+
+/**
+ * A logged {@link FoodItem} as held in the local store, with the bookkeeping sync needs.
+ * Deleted entries are kept as tombstones so a stale remote copy cannot resurrect them.
+ */
+public class MealEntry {
+    public final String key;
+    public final FoodItem item;
+    public final boolean deleted;
+    /** Whether the server is known to hold this entry, i.e. whether it counts in the remote totals. */
+    public final boolean onServer;
+
+    public MealEntry(@NonNull String key, @NonNull FoodItem item, boolean deleted, boolean onServer) {
+        this.key = key;
+        this.item = item;
+        this.deleted = deleted;
+        this.onServer = onServer;
+    }
+
+    public String dayKey() {
+        return DailyTotalsRepository.dayKey(item.getTimestamp());
+    }
+
+    public long version() {
+        return item.getVersion();
+    }
+
+    public MealEntry withOnServer(boolean onServer) {
+        return new MealEntry(key, item, deleted, onServer);
+    }
+
+    public MealEntry asDeleted(long version) {
+        FoodItem copy = new FoodItem(item);
+        copy.setVersion(version);
+        return new MealEntry(key, copy, true, onServer);
+    }
+
+    @Override
+    @NonNull
+    public String toString() {
+        return "MealEntry{key='" + key + '\'' + ", deleted=" + deleted + ", onServer=" + onServer + ", item=" + item + '}';
+    }
+}
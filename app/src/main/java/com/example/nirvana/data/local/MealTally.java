@@ -0,0 +1,82 @@
+package com.example.nirvana.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.example.nirvana.data.models.NutrientTotals;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live entries of one day, or of one meal on that day, with their totals maintained
+ * per change: applying a change subtracts the entry's previous state and adds its new
+ * one, so nothing is recomputed from the full list.
+ */
+public class MealTally {
+
+    private final String dayKey;
+    @Nullable
+    private final String mealType;
+    private final Map<String, MealEntry> entries = new HashMap<>();
+    private final NutrientTotals totals = new NutrientTotals();
+
+    public MealTally(@NonNull String dayKey, @Nullable String mealType) {
+        this.dayKey = dayKey;
+        this.mealType = mealType;
+    }
+
+    @NonNull
+    public String getDayKey() {
+        return dayKey;
+    }
+
+    /** Starts over from a full read of the partition. */
+    public void reset(@NonNull List<MealEntry> live) {
+        entries.clear();
+        totals.setCalories(0);
+        totals.setProtein(0);
+        totals.setCarbs(0);
+        totals.setFat(0);
+        apply(live);
+    }
+
+    /** Applies changed entries, tombstones included; returns whether any of them belonged here. */
+    public boolean apply(@NonNull List<MealEntry> changes) {
+        boolean changed = false;
+        for (MealEntry entry : changes) {
+            MealEntry previous = entries.remove(entry.key);
+            if (previous != null) {
+                totals.subtract(previous.item);
+                changed = true;
+            }
+            if (!entry.deleted && matches(entry)) {
+                entries.put(entry.key, entry);
+                totals.add(entry.item);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /** Current entries, oldest first. */
+    @NonNull
+    public List<MealEntry> entries() {
+        List<MealEntry> sorted = new ArrayList<>(entries.values());
+        sorted.sort((a, b) -> Long.compare(a.item.getTimestamp(), b.item.getTimestamp()));
+        return sorted;
+    }
+
+    @NonNull
+    public NutrientTotals totals() {
+        return totals;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    private boolean matches(MealEntry entry) {
+        return (mealType == null || mealType.equals(entry.item.getMealType())) && dayKey.equals(entry.dayKey());
+    }
+}
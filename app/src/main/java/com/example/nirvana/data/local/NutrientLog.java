@@ -0,0 +1,341 @@
+package com.example.nirvana.data.local;
+
+import androidx.annotation.NonNull;
+import com.example.nirvana.data.models.FoodItem;
+import com.example.nirvana.data.models.NutrientTotals;
+import com.example.nirvana.data.repository.MealLogRepository;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented copy of the meal log for history analytics: one primitive array per
+ * field, ordered by timestamp, instead of one {@link FoodItem} with five Strings per entry.
+ *
+ * Meal types and foods are stored as codes into per-log dictionaries. Nutrients are
+ * fixed-point hundredths in {@code int}s and summed into {@code long}s, so totals over
+ * any range are exact and independent of summation order. Each entry costs 33 bytes.
+ *
+ * Rollups first find the period boundaries on the day column, then sum each nutrient
+ * column over those runs. Not thread-safe; build it once, then only read it.
+ */
+public final class NutrientLog {
+
+    /** Fixed-point scale of the nutrient columns: values are stored in hundredths. */
+    public static final int SCALE = 100;
+
+    public enum Period { DAY, WEEK, MONTH }
+
+    private static final int CALORIES = 0;
+    private static final int PROTEIN = 1;
+    private static final int CARBS = 2;
+    private static final int FAT = 3;
+    private static final int NUTRIENTS = 4;
+
+    private final ZoneId zone;
+    private final Dictionary mealTypes = new Dictionary();
+    private final Dictionary foods = new Dictionary();
+    private final List<String> foodNames = new ArrayList<>();
+
+    private long[] timestamps;
+    private int[] days;
+    private byte[] meals;
+    private int[] foodCodes;
+    private final int[][] nutrients = new int[NUTRIENTS][];
+    private int size;
+
+    public NutrientLog() {
+        this(ZoneId.systemDefault(), 64);
+    }
+
+    /** {@code zone} decides which calendar day an entry falls on. */
+    public NutrientLog(@NonNull ZoneId zone, int capacity) {
+        this.zone = zone;
+        int initial = Math.max(capacity, 8);
+        timestamps = new long[initial];
+        days = new int[initial];
+        meals = new byte[initial];
+        foodCodes = new int[initial];
+        for (int n = 0; n < NUTRIENTS; n++) nutrients[n] = new int[initial];
+        // Stable codes for the known meals, so they read the same in every log
+        for (String mealType : MealLogRepository.MEAL_TYPES) mealTypes.code(mealType);
+    }
+
+    /** A log of every item in {@code days}, e.g. the result of {@link MealLogRepository#readRange}. */
+    @NonNull
+    public static NutrientLog of(@NonNull Map<String, List<FoodItem>> days) {
+        int count = 0;
+        for (List<FoodItem> items : days.values()) count += items.size();
+        NutrientLog log = new NutrientLog(ZoneId.systemDefault(), count);
+        for (List<FoodItem> items : days.values()) log.addAll(items);
+        return log;
+    }
+
+    public void addAll(@NonNull Iterable<FoodItem> items) {
+        for (FoodItem item : items) add(item);
+    }
+
+    /** Adds an entry in timestamp order; appending in order, as reads deliver them, is the cheap case. */
+    public void add(@NonNull FoodItem item) {
+        long timestamp = item.getTimestamp();
+        int at = size;
+        if (size > 0 && timestamps[size - 1] > timestamp) at = upperBound(timestamps, size, timestamp);
+        if (size == timestamps.length) grow();
+        if (at < size) shift(at);
+
+        timestamps[at] = timestamp;
+        days[at] = (int) Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate().toEpochDay();
+        String mealType = item.getMealType();
+        int meal = mealTypes.code(mealType != null ? mealType : "");
+        if (meal > Byte.MAX_VALUE) throw new IllegalArgumentException("Too many meal types: " + mealType);
+        meals[at] = (byte) meal;
+        String foodId = item.getFoodId();
+        int food = foods.code(foodId != null ? foodId : "");
+        if (food == foodNames.size()) foodNames.add(item.getFoodName());
+        foodCodes[at] = food;
+        nutrients[CALORIES][at] = toFixed(item.getCalories());
+        nutrients[PROTEIN][at] = toFixed(item.getProtein());
+        nutrients[CARBS][at] = toFixed(item.getCarbs());
+        nutrients[FAT][at] = toFixed(item.getFat());
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long timestamp(int entry) {
+        return timestamps[check(entry)];
+    }
+
+    @NonNull
+    public LocalDate day(int entry) {
+        return LocalDate.ofEpochDay(days[check(entry)]);
+    }
+
+    @NonNull
+    public String mealType(int entry) {
+        return mealTypes.value(meals[check(entry)]);
+    }
+
+    @NonNull
+    public String foodId(int entry) {
+        return foods.value(foodCodes[check(entry)]);
+    }
+
+    public String foodName(int entry) {
+        return foodNames.get(foodCodes[check(entry)]);
+    }
+
+    /** Distinct foods in the log. */
+    public int foodCount() {
+        return foodNames.size();
+    }
+
+    /** Calories of one entry, in hundredths. */
+    public int caloriesFixed(int entry) {
+        return nutrients[CALORIES][check(entry)];
+    }
+
+    /** Totals of the entries from {@code from} to {@code to} inclusive. */
+    @NonNull
+    public NutrientTotals totals(@NonNull LocalDate from, @NonNull LocalDate to) {
+        int lo = lowerBound(days, size, (int) from.toEpochDay());
+        int hi = lowerBound(days, size, (int) to.toEpochDay() + 1);
+        NutrientTotals totals = new NutrientTotals();
+        if (lo >= hi) return totals;
+        totals.setCalories(fromFixed(sum(nutrients[CALORIES], lo, hi)));
+        totals.setProtein(fromFixed(sum(nutrients[PROTEIN], lo, hi)));
+        totals.setCarbs(fromFixed(sum(nutrients[CARBS], lo, hi)));
+        totals.setFat(fromFixed(sum(nutrients[FAT], lo, hi)));
+        return totals;
+    }
+
+    /** Totals per day, Monday-to-Sunday week or calendar month that has entries, in order. */
+    @NonNull
+    public Rollup rollup(@NonNull Period period) {
+        // Boundaries: entries are ordered by day, so each period is one contiguous run
+        int[] starts = new int[8];
+        int[] ends = new int[8];
+        int[] firstDays = new int[8];
+        int periods = 0;
+        int periodEnd = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            int day = days[i];
+            if (day < periodEnd) continue;
+            if (periods == starts.length) {
+                starts = Arrays.copyOf(starts, periods * 2);
+                ends = Arrays.copyOf(ends, periods * 2);
+                firstDays = Arrays.copyOf(firstDays, periods * 2);
+            }
+            if (periods > 0) ends[periods - 1] = i;
+            int first = periodStart(period, day);
+            starts[periods] = i;
+            firstDays[periods] = first;
+            periodEnd = nextPeriodStart(period, first);
+            periods++;
+        }
+        if (periods > 0) ends[periods - 1] = size;
+
+        long[][] sums = new long[NUTRIENTS][periods];
+        for (int n = 0; n < NUTRIENTS; n++) {
+            int[] column = nutrients[n];
+            long[] out = sums[n];
+            for (int p = 0; p < periods; p++) out[p] = sum(column, starts[p], ends[p]);
+        }
+        int[] counts = new int[periods];
+        for (int p = 0; p < periods; p++) counts[p] = ends[p] - starts[p];
+        return new Rollup(Arrays.copyOf(firstDays, periods), counts, sums);
+    }
+
+    /** Per-period sums produced by {@link #rollup}; values are exact in hundredths. */
+    public static final class Rollup {
+        private final int[] firstDays;
+        private final int[] counts;
+        private final long[][] sums;
+
+        Rollup(int[] firstDays, int[] counts, long[][] sums) {
+            this.firstDays = firstDays;
+            this.counts = counts;
+            this.sums = sums;
+        }
+
+        public int size() {
+            return firstDays.length;
+        }
+
+        /** First day of the period, e.g. the Monday of a week. */
+        @NonNull
+        public LocalDate start(int period) {
+            return LocalDate.ofEpochDay(firstDays[period]);
+        }
+
+        public int entries(int period) {
+            return counts[period];
+        }
+
+        public long caloriesFixed(int period) {
+            return sums[CALORIES][period];
+        }
+
+        @NonNull
+        public NutrientTotals totals(int period) {
+            NutrientTotals totals = new NutrientTotals();
+            totals.setCalories(fromFixed(sums[CALORIES][period]));
+            totals.setProtein(fromFixed(sums[PROTEIN][period]));
+            totals.setCarbs(fromFixed(sums[CARBS][period]));
+            totals.setFat(fromFixed(sums[FAT][period]));
+            return totals;
+        }
+    }
+
+    static int toFixed(double value) {
+        return Math.toIntExact(Math.round(value * SCALE));
+    }
+
+    static double fromFixed(long value) {
+        return (double) value / SCALE;
+    }
+
+    private static long sum(int[] column, int from, int to) {
+        long total = 0;
+        for (int i = from; i < to; i++) total += column[i];
+        return total;
+    }
+
+    private static int periodStart(Period period, int epochDay) {
+        switch (period) {
+            case WEEK:
+                // 1970-01-01 was a Thursday, three days after a Monday
+                return epochDay - Math.floorMod(epochDay + 3, 7);
+            case MONTH:
+                return (int) LocalDate.ofEpochDay(epochDay).withDayOfMonth(1).toEpochDay();
+            default:
+                return epochDay;
+        }
+    }
+
+    private static int nextPeriodStart(Period period, int start) {
+        switch (period) {
+            case WEEK:
+                return start + 7;
+            case MONTH:
+                return (int) LocalDate.ofEpochDay(start).plusMonths(1).toEpochDay();
+            default:
+                return start + 1;
+        }
+    }
+
+    private int check(int entry) {
+        if (entry < 0 || entry >= size) throw new IndexOutOfBoundsException("Entry " + entry + " of " + size);
+        return entry;
+    }
+
+    private void grow() {
+        int capacity = timestamps.length * 2;
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        days = Arrays.copyOf(days, capacity);
+        meals = Arrays.copyOf(meals, capacity);
+        foodCodes = Arrays.copyOf(foodCodes, capacity);
+        for (int n = 0; n < NUTRIENTS; n++) nutrients[n] = Arrays.copyOf(nutrients[n], capacity);
+    }
+
+    /** Opens a gap at {@code at} for an entry that arrived out of order. */
+    private void shift(int at) {
+        int count = size - at;
+        System.arraycopy(timestamps, at, timestamps, at + 1, count);
+        System.arraycopy(days, at, days, at + 1, count);
+        System.arraycopy(meals, at, meals, at + 1, count);
+        System.arraycopy(foodCodes, at, foodCodes, at + 1, count);
+        for (int n = 0; n < NUTRIENTS; n++) System.arraycopy(nutrients[n], at, nutrients[n], at + 1, count);
+    }
+
+    /** First index whose value is above {@code key}. */
+    private static int upperBound(long[] values, int size, long key) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] <= key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** First index whose value is not below {@code key}. */
+    private static int lowerBound(int[] values, int size, int key) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Interns strings as dense codes in first-seen order. */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int code(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        String value(int code) {
+            return values.get(code);
+        }
+    }
+}
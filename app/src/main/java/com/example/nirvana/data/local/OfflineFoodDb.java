@@ -0,0 +1,331 @@
+package com.example.nirvana.data.local;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.example.nirvana.api.FoodGetResponse;
+import com.example.nirvana.api.FoodSearchResponse;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Read-only snapshot of common foods bundled with the app, so search works offline
+ * and popular foods never cost a FatSecret call. Generated at build time from
+ * {@code app/fooddb/foods.tsv} by OfflineFoodDbWriter in {@code :tools:fooddb}.
+ *
+ * The file is memory-mapped and queried in place: opening it reads only the header, and
+ * a search is two binary searches over a fixed-width name index compared byte-by-byte
+ * against the mapped UTF-8 names, filling an {@code int[]} of food numbers. Strings and
+ * result objects are only created for the foods actually shown.
+ *
+ * Layout, big-endian:
+ * <pre>
+ * header    magic, version, foodCount, servingCount, indexCount,
+ *           foodsOffset, servingsOffset, indexOffset, stringsOffset, stringsLength
+ * foods     sorted by id: idOffset, nameOffset, firstServing (int); idLength,
+ *           nameLength, servingCount, unused (short)
+ * servings  servingIdOffset, descriptionOffset (int); servingIdLength,
+ *           descriptionLength (short); calories, protein, carbs, fat (float)
+ * index     one entry per word start of each normalized name, sorted by key bytes:
+ *           keyOffset, food (int); keyLength, atNameStart (short)
+ * strings   UTF-8, de-duplicated; offsets above are relative to its start
+ * </pre>
+ */
+public final class OfflineFoodDb {
+
+    private static final String TAG = "OfflineFoodDb";
+    private static final String ASSET = "foods.fdb";
+
+    static final int MAGIC = 0x4E464442; // "NFDB"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 40;
+    static final int FOOD_BYTES = 20;
+    static final int SERVING_BYTES = 28;
+    static final int INDEX_BYTES = 12;
+
+    private static volatile OfflineFoodDb instance;
+    private static boolean missing;
+    private static final AtomicBoolean preloading = new AtomicBoolean();
+
+    private final ByteBuffer buffer;
+    private final int foodCount;
+    private final int servingCount;
+    private final int indexCount;
+    private final int foodsOffset;
+    private final int servingsOffset;
+    private final int indexOffset;
+    private final int stringsOffset;
+
+    // Per-search de-duplication of foods matching at several words; guarded by this
+    private int[] seenStamps;
+    private int stamp;
+
+    private OfflineFoodDb(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an offline food database");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported offline food database version " + buffer.getInt(4));
+        }
+        foodCount = buffer.getInt(8);
+        servingCount = buffer.getInt(12);
+        indexCount = buffer.getInt(16);
+        foodsOffset = buffer.getInt(20);
+        servingsOffset = buffer.getInt(24);
+        indexOffset = buffer.getInt(28);
+        stringsOffset = buffer.getInt(32);
+        long end = (long) stringsOffset + buffer.getInt(36);
+        if (end > buffer.capacity()
+                || (long) foodsOffset + (long) foodCount * FOOD_BYTES > servingsOffset
+                || (long) servingsOffset + (long) servingCount * SERVING_BYTES > indexOffset
+                || (long) indexOffset + (long) indexCount * INDEX_BYTES > stringsOffset) {
+            throw new IOException("Truncated offline food database");
+        }
+    }
+
+    /**
+     * Starts mapping the bundled database on a background thread, so that neither
+     * {@link #getInstance} nor {@link #peek} has to do it on the main thread.
+     */
+    public static void preload(Context context) {
+        // Not synchronized: the lock is held for as long as the background load runs
+        if (instance != null || !preloading.compareAndSet(false, true)) return;
+        Context app = context.getApplicationContext();
+        ExecutorService io = Executors.newSingleThreadExecutor();
+        io.execute(() -> getInstance(app));
+        io.shutdown();
+    }
+
+    /** The bundled database if it is already open, or null; never blocks or touches the asset. */
+    @Nullable
+    public static OfflineFoodDb peek() {
+        return instance;
+    }
+
+    /** The bundled database, or null if this build ships without one. Blocks while it is mapped. */
+    @Nullable
+    public static synchronized OfflineFoodDb getInstance(Context context) {
+        if (instance == null && !missing) {
+            // The asset is stored uncompressed (see build.gradle.kts) so it can be mapped in place
+            try (AssetFileDescriptor fd = context.getApplicationContext().getAssets().openFd(ASSET);
+                 FileInputStream in = fd.createInputStream()) {
+                instance = map(in.getChannel(), fd.getStartOffset(), fd.getLength());
+            } catch (FileNotFoundException e) {
+                missing = true;
+            } catch (IOException e) {
+                Log.w(TAG, "Offline food database unavailable", e);
+                missing = true;
+            }
+        }
+        return instance;
+    }
+
+    @NonNull
+    public static OfflineFoodDb open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            return map(raf.getChannel(), 0, raf.length());
+        }
+    }
+
+    /** The mapping stays valid after {@code channel} is closed. */
+    @NonNull
+    public static OfflineFoodDb map(FileChannel channel, long offset, long length) throws IOException {
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        return new OfflineFoodDb(mapped);
+    }
+
+    public int size() {
+        return foodCount;
+    }
+
+    /** Food number for {@code foodId}, or -1. */
+    public int find(String foodId) {
+        byte[] id = foodId.getBytes(StandardCharsets.UTF_8);
+        int lo = 0;
+        int hi = foodCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int record = foodsOffset + mid * FOOD_BYTES;
+            int cmp = compare(stringsOffset + buffer.getInt(record), buffer.getShort(record + 12) & 0xFFFF, id, false);
+            if (cmp < 0) lo = mid + 1;
+            else if (cmp > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * Fills {@code out} with the numbers of foods whose name has a word starting with
+     * {@code query}, foods whose name starts with it first, and returns how many it wrote.
+     */
+    public synchronized int search(String query, int[] out) {
+        String normalized = FoodPrefixIndex.normalize(query);
+        if (normalized.isEmpty() || out.length == 0) return 0;
+        byte[] prefix = normalized.getBytes(StandardCharsets.UTF_8);
+        int from = bound(prefix, false);
+        int to = bound(prefix, true);
+        if (from >= to) return 0;
+
+        if (seenStamps == null) seenStamps = new int[foodCount];
+        int current = ++stamp;
+        int count = 0;
+        for (int pass = 0; pass < 2 && count < out.length; pass++) {
+            for (int i = from; i < to && count < out.length; i++) {
+                int entry = indexOffset + i * INDEX_BYTES;
+                boolean atStart = buffer.getShort(entry + 10) != 0;
+                if (atStart != (pass == 0)) continue;
+                int food = buffer.getInt(entry + 4);
+                if (seenStamps[food] == current) continue;
+                seenStamps[food] = current;
+                out[count++] = food;
+            }
+        }
+        return count;
+    }
+
+    /** Up to {@code limit} matches as search rows, described by their first serving. */
+    @NonNull
+    public List<FoodSearchResponse.FoodItem> search(String query, int limit) {
+        int[] foods = new int[Math.max(0, limit)];
+        int count = search(query, foods);
+        List<FoodSearchResponse.FoodItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int food = foods[i];
+            FoodSearchResponse.FoodItem item = new FoodSearchResponse.FoodItem();
+            item.food_id = foodId(food);
+            item.food_name = name(food);
+            item.food_description = String.format(Locale.US,
+                    "Per %s - Calories: %.0fkcal | Fat: %.2fg | Carbs: %.2fg | Protein: %.2fg",
+                    servingDescription(food, 0), calories(food, 0), fat(food, 0),
+                    carbs(food, 0), protein(food, 0));
+            items.add(item);
+        }
+        return items;
+    }
+
+    /** The food in the shape food.get returns, or null if it isn't in the snapshot. */
+    @Nullable
+    public FoodGetResponse.Food getFood(String foodId) {
+        int food = find(foodId);
+        if (food < 0) return null;
+        FoodGetResponse.Food result = new FoodGetResponse.Food();
+        result.foodId = foodId(food);
+        result.foodName = name(food);
+        result.servings = new FoodGetResponse.Servings();
+        result.servings.servingList = new ArrayList<>();
+        for (int s = 0; s < servingCount(food); s++) {
+            FoodGetResponse.Serving serving = new FoodGetResponse.Serving();
+            serving.servingId = servingId(food, s);
+            serving.description = servingDescription(food, s);
+            serving.calories = calories(food, s);
+            serving.protein = protein(food, s);
+            serving.carbs = carbs(food, s);
+            serving.fat = fat(food, s);
+            result.servings.servingList.add(serving);
+        }
+        return result;
+    }
+
+    public String foodId(int food) {
+        int record = foodsOffset + food * FOOD_BYTES;
+        return string(buffer.getInt(record), buffer.getShort(record + 12));
+    }
+
+    public String name(int food) {
+        int record = foodsOffset + food * FOOD_BYTES;
+        return string(buffer.getInt(record + 4), buffer.getShort(record + 14));
+    }
+
+    public int servingCount(int food) {
+        return buffer.getShort(foodsOffset + food * FOOD_BYTES + 16) & 0xFFFF;
+    }
+
+    public String servingId(int food, int serving) {
+        int record = serving(food, serving);
+        return string(buffer.getInt(record), buffer.getShort(record + 8));
+    }
+
+    public String servingDescription(int food, int serving) {
+        int record = serving(food, serving);
+        return string(buffer.getInt(record + 4), buffer.getShort(record + 10));
+    }
+
+    public float calories(int food, int serving) {
+        return buffer.getFloat(serving(food, serving) + 12);
+    }
+
+    public float protein(int food, int serving) {
+        return buffer.getFloat(serving(food, serving) + 16);
+    }
+
+    public float carbs(int food, int serving) {
+        return buffer.getFloat(serving(food, serving) + 20);
+    }
+
+    public float fat(int food, int serving) {
+        return buffer.getFloat(serving(food, serving) + 24);
+    }
+
+    private int serving(int food, int serving) {
+        int record = foodsOffset + food * FOOD_BYTES;
+        if (serving < 0 || serving >= (buffer.getShort(record + 16) & 0xFFFF)) {
+            throw new IndexOutOfBoundsException("Serving " + serving + " of food " + food);
+        }
+        return servingsOffset + (buffer.getInt(record + 8) + serving) * SERVING_BYTES;
+    }
+
+    private String string(int offset, short length) {
+        byte[] bytes = new byte[length & 0xFFFF];
+        int start = stringsOffset + offset;
+        for (int i = 0; i < bytes.length; i++) bytes[i] = buffer.get(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * First index entry whose key is not below {@code prefix}, or with {@code past}, the
+     * first whose key neither is below nor starts with it.
+     */
+    private int bound(byte[] prefix, boolean past) {
+        int lo = 0;
+        int hi = indexCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int entry = indexOffset + mid * INDEX_BYTES;
+            int cmp = compare(stringsOffset + buffer.getInt(entry), buffer.getShort(entry + 8) & 0xFFFF, prefix, true);
+            if (cmp < 0 || (past && cmp == 0)) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Compares the mapped bytes at {@code position} with {@code other} as unsigned bytes.
+     * With {@code prefixOnly}, a key that starts with {@code other} compares equal.
+     */
+    private int compare(int position, int length, byte[] other, boolean prefixOnly) {
+        int n = Math.min(length, other.length);
+        for (int i = 0; i < n; i++) {
+            int x = buffer.get(position + i) & 0xFF;
+            int y = other[i] & 0xFF;
+            if (x != y) return x - y;
+        }
+        if (prefixOnly && length >= other.length) return 0;
+        return length - other.length;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.nirvana.data.local;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.example.nirvana.data.models.UserProfile;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link ProfileStore} in SharedPreferences, one file per signed-in user. Doubles are kept
+ * as their raw bits so a reloaded profile compares equal to the one that was saved.
+ */
+public class PreferencesProfileStore implements ProfileStore {
+
+    private final SharedPreferences preferences;
+
+    public PreferencesProfileStore(Context context, String userId) {
+        preferences = context.getApplicationContext()
+                .getSharedPreferences("profile_" + userId, Context.MODE_PRIVATE);
+    }
+
+    @Nullable
+    @Override
+    public UserProfile load() {
+        if (!preferences.contains("age")) return null;
+        // Same decoding as the server copy, so unknown enum names fall back the same way
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("name", preferences.getString("name", null));
+        fields.put("email", preferences.getString("email", null));
+        fields.put("gender", preferences.getString("gender", null));
+        fields.put("age", preferences.getInt("age", 0));
+        fields.put("weight", Double.longBitsToDouble(preferences.getLong("weight", 0)));
+        fields.put("height", Double.longBitsToDouble(preferences.getLong("height", 0)));
+        fields.put("activityLevel", preferences.getString("activityLevel", null));
+        fields.put("fitnessGoal", preferences.getString("fitnessGoal", null));
+        return UserProfile.fromMap(fields);
+    }
+
+    @Override
+    public void save(@NonNull UserProfile profile) {
+        preferences.edit()
+                .putString("name", profile.getName())
+                .putString("email", profile.getEmail())
+                .putString("gender", profile.getGender())
+                .putInt("age", profile.getAge())
+                .putLong("weight", Double.doubleToRawLongBits(profile.getWeight()))
+                .putLong("height", Double.doubleToRawLongBits(profile.getHeight()))
+                .putString("activityLevel", profile.getActivityLevel().name())
+                .putString("fitnessGoal", profile.getFitnessGoal().name())
+                .apply();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.nirvana.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.example.nirvana.data.models.UserProfile;
+
+/** The last profile seen on the server, kept on the device so screens can start from it. */
+public interface ProfileStore {
+
+    /** The stored profile, or null if none has been stored yet. */
+    @Nullable
+    UserProfile load();
+
+    void save(@NonNull UserProfile profile);
+}
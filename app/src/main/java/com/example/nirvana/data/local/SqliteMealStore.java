@@ -0,0 +1,168 @@
+package com.example.nirvana.data.local;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.example.nirvana.data.models.FoodItem;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** {@link LocalMealStore} on the platform SQLite database, one file per signed-in user. */
+public class SqliteMealStore extends SQLiteOpenHelper implements LocalMealStore {
+
+    private static final int DB_VERSION = 1;
+
+    private static final String ENTRIES = "entries";
+    private static final String OUTBOX = "outbox";
+    private static final String[] ENTRY_COLUMNS = {
+            "entry_key", "day", "meal_type", "food_id", "food_name", "serving_id", "serving_description",
+            "calories", "protein", "carbs", "fat", "timestamp", "version", "deleted", "on_server"};
+
+    public SqliteMealStore(Context context, String userId) {
+        super(context.getApplicationContext(), "meals_" + userId + ".db", null, DB_VERSION);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + ENTRIES + " ("
+                + "entry_key TEXT PRIMARY KEY, day TEXT NOT NULL, meal_type TEXT NOT NULL, "
+                + "food_id TEXT, food_name TEXT, serving_id TEXT, serving_description TEXT, "
+                + "calories REAL, protein REAL, carbs REAL, fat REAL, "
+                + "timestamp INTEGER NOT NULL, version INTEGER NOT NULL, "
+                + "deleted INTEGER NOT NULL, on_server INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX entries_day ON " + ENTRIES + " (day)");
+        db.execSQL("CREATE TABLE " + OUTBOX + " (seq INTEGER PRIMARY KEY AUTOINCREMENT, entry_key TEXT NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // First schema version; nothing to migrate yet
+    }
+
+    @Nullable
+    @Override
+    public MealEntry get(@NonNull String key) {
+        try (Cursor cursor = getReadableDatabase().query(ENTRIES, ENTRY_COLUMNS,
+                "entry_key = ?", new String[]{key}, null, null, null)) {
+            return cursor.moveToFirst() ? readEntry(cursor) : null;
+        }
+    }
+
+    @NonNull
+    @Override
+    public List<MealEntry> entriesForDay(@NonNull String dayKey) {
+        List<MealEntry> entries = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(ENTRIES, ENTRY_COLUMNS,
+                "day = ?", new String[]{dayKey}, null, null, "timestamp")) {
+            while (cursor.moveToNext()) {
+                entries.add(readEntry(cursor));
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public void put(@NonNull MealEntry entry) {
+        getWritableDatabase().insertWithOnConflict(ENTRIES, null, toValues(entry), SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    @Override
+    public void putAndEnqueue(@NonNull MealEntry entry) {
+        putAndEnqueueAll(Collections.singletonList(entry));
+    }
+
+    @Override
+    public void putAndEnqueueAll(@NonNull List<MealEntry> entries) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (MealEntry entry : entries) {
+                db.insertWithOnConflict(ENTRIES, null, toValues(entry), SQLiteDatabase.CONFLICT_REPLACE);
+                ContentValues outbox = new ContentValues();
+                outbox.put("entry_key", entry.key);
+                db.insert(OUTBOX, null, outbox);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @NonNull
+    @Override
+    public List<PendingWrite> pendingWrites(int limit) {
+        List<PendingWrite> pending = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(OUTBOX, new String[]{"seq", "entry_key"},
+                null, null, null, null, "seq", String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                pending.add(new PendingWrite(cursor.getLong(0), cursor.getString(1)));
+            }
+        }
+        return pending;
+    }
+
+    @Override
+    public void acknowledge(@NonNull List<MealEntry> synced, long seq) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (MealEntry entry : synced) {
+                ContentValues values = new ContentValues();
+                values.put("on_server", entry.onServer ? 1 : 0);
+                db.update(ENTRIES, values, "entry_key = ?", new String[]{entry.key});
+            }
+            db.delete(OUTBOX, "seq <= ?", new String[]{String.valueOf(seq)});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public boolean hasPendingWrite(@NonNull String key) {
+        try (Cursor cursor = getReadableDatabase().query(OUTBOX, new String[]{"seq"},
+                "entry_key = ?", new String[]{key}, null, null, null, "1")) {
+            return cursor.moveToFirst();
+        }
+    }
+
+    private static ContentValues toValues(MealEntry entry) {
+        FoodItem item = entry.item;
+        ContentValues values = new ContentValues();
+        values.put("entry_key", entry.key);
+        values.put("day", entry.dayKey());
+        values.put("meal_type", item.getMealType());
+        values.put("food_id", item.getFoodId());
+        values.put("food_name", item.getFoodName());
+        values.put("serving_id", item.getServingId());
+        values.put("serving_description", item.getServingDescription());
+        values.put("calories", item.getCalories());
+        values.put("protein", item.getProtein());
+        values.put("carbs", item.getCarbs());
+        values.put("fat", item.getFat());
+        values.put("timestamp", item.getTimestamp());
+        values.put("version", item.getVersion());
+        values.put("deleted", entry.deleted ? 1 : 0);
+        values.put("on_server", entry.onServer ? 1 : 0);
+        return values;
+    }
+
+    private static MealEntry readEntry(Cursor cursor) {
+        FoodItem item = new FoodItem(cursor.getString(3), cursor.getString(4), cursor.getString(5),
+                cursor.getString(6), cursor.getDouble(7), cursor.getDouble(8),
+                cursor.getDouble(9), cursor.getDouble(10), cursor.getString(2));
+        item.setTimestamp(cursor.getLong(11));
+        item.setVersion(cursor.getLong(12));
+        return new MealEntry(cursor.getString(0), item, cursor.getInt(13) != 0, cursor.getInt(14) != 0);
+    }
+}
@@ -12,6 +12,8 @@ public class FoodItem {
     private double carbs;
     private double fat;
     private String mealType;
+    private long timestamp;
+    private long version;
 
     // Default constructor (required for Firebase)
     public FoodItem() {}
@@ -32,6 +34,14 @@ public class FoodItem {
         this.mealType = mealType;
     }
 
+    /** Copy of {@code other}, including its timestamp and version. */
+    public FoodItem(@NonNull FoodItem other) {
+        this(other.foodId, other.foodName, other.servingId, other.servingDescription,
+                other.calories, other.protein, other.carbs, other.fat, other.mealType);
+        this.timestamp = other.timestamp;
+        this.version = other.version;
+    }
+
     // Getters and Setters
     @NonNull
     public String getFoodId() {
@@ -109,6 +119,24 @@ public class FoodItem {
         this.mealType = mealType;
     }
 
+    /** When the entry was logged, in epoch millis; 0 for entries logged before this was tracked. */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /** Last-writer-wins version of this entry; the copy with the higher version is kept on conflict. */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     // Optional: toString() method for debugging
     @Override
     @NonNull
@@ -123,6 +151,8 @@ public class FoodItem {
                 ", carbs=" + carbs +
                 ", fat=" + fat +
                 ", mealType='" + mealType + '\'' +
+                ", timestamp=" + timestamp +
+                ", version=" + version +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.example.nirvana.data.models;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.google.firebase.database.DataSnapshot;
+import java.util.Map;
+
+/**
+ * Decodes {@link FoodItem} from a Realtime Database snapshot's raw value, the
+ * {@code Map} that {@code snapshot.getValue()} returns, without the reflective bean
+ * mapper behind {@code getValue(FoodItem.class)}.
+ *
+ * Keys are FoodItem's bean property names and numbers arrive as Long or Double, as the
+ * bean mapper expects; unknown keys are ignored the same way. Unlike the bean mapper, a
+ * value of the wrong type leaves its field at the default instead of throwing. When
+ * FoodItem gains a property, add its case here; FoodItemMapperTest fails until then.
+ */
+public final class FoodItemMapper {
+
+    private FoodItemMapper() {}
+
+    @Nullable
+    public static FoodItem fromSnapshot(@NonNull DataSnapshot snapshot) {
+        return fromValue(snapshot.getValue());
+    }
+
+    /** The item described by {@code value}, or null if it is not a map. */
+    @Nullable
+    public static FoodItem fromValue(@Nullable Object value) {
+        if (!(value instanceof Map)) return null;
+        FoodItem item = new FoodItem();
+        for (Map.Entry<?, ?> field : ((Map<?, ?>) value).entrySet()) {
+            Object key = field.getKey();
+            Object v = field.getValue();
+            if (!(key instanceof String)) continue;
+            switch ((String) key) {
+                case "foodId":
+                    if (v instanceof String) item.setFoodId((String) v);
+                    break;
+                case "foodName":
+                    if (v instanceof String) item.setFoodName((String) v);
+                    break;
+                case "servingId":
+                    if (v instanceof String) item.setServingId((String) v);
+                    break;
+                case "servingDescription":
+                    if (v instanceof String) item.setServingDescription((String) v);
+                    break;
+                case "calories":
+                    if (v instanceof Number) item.setCalories(((Number) v).doubleValue());
+                    break;
+                case "protein":
+                    if (v instanceof Number) item.setProtein(((Number) v).doubleValue());
+                    break;
+                case "carbs":
+                    if (v instanceof Number) item.setCarbs(((Number) v).doubleValue());
+                    break;
+                case "fat":
+                    if (v instanceof Number) item.setFat(((Number) v).doubleValue());
+                    break;
+                case "mealType":
+                    if (v instanceof String) item.setMealType((String) v);
+                    break;
+                case "timestamp":
+                    if (v instanceof Number) item.setTimestamp(((Number) v).longValue());
+                    break;
+                case "version":
+                    if (v instanceof Number) item.setVersion(((Number) v).longValue());
+                    break;
+                default:
+                    break;
+            }
+        }
+        return item;
+    }
+}
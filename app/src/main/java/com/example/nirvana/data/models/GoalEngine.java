@@ -0,0 +1,84 @@
+package com.example.nirvana.data.models;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Calorie and macro targets from a {@link UserProfile}, computed on the device.
+ *
+ * BMR is Mifflin-St Jeor; genders other than male and female use the midpoint of the two
+ * offsets. TDEE is BMR times the usual activity factor, then shifted by the fitness goal
+ * and kept above a minimum intake. Protein is set per kg of body weight, fat at a quarter
+ * of the calories, and carbs take what is left.
+ */
+public final class GoalEngine {
+
+    static final double FAT_SHARE = 0.25;
+    static final long MIN_CALORIES_MALE = 1500;
+    static final long MIN_CALORIES = 1200;
+
+    private GoalEngine() {}
+
+    /** The targets for {@code profile}, or null while its age, weight or height is missing. */
+    @Nullable
+    public static NutrientGoals goals(@NonNull UserProfile profile) {
+        if (profile.getAge() <= 0 || profile.getWeight() <= 0 || profile.getHeight() <= 0) return null;
+
+        double bmr = 10 * profile.getWeight() + 6.25 * profile.getHeight() - 5 * profile.getAge()
+                + genderOffset(profile.getGender());
+        double tdee = bmr * activityFactor(profile.getActivityLevel());
+        // The floor never asks for more than the user burns
+        double floor = Math.min(tdee, "Male".equals(profile.getGender()) ? MIN_CALORIES_MALE : MIN_CALORIES);
+        long calories = Math.round(Math.max(tdee + calorieAdjustment(profile.getFitnessGoal()), floor));
+
+        long protein = Math.round(profile.getWeight() * proteinPerKg(profile.getFitnessGoal()));
+        long fat = Math.round(calories * FAT_SHARE / 9);
+        long carbs = Math.max(0, Math.round((calories - protein * 4 - fat * 9) / 4.0));
+        return new NutrientGoals(Math.round(bmr), Math.round(tdee), calories, protein, carbs, fat);
+    }
+
+    static double genderOffset(@Nullable String gender) {
+        if ("Male".equals(gender)) return 5;
+        if ("Female".equals(gender)) return -161;
+        return -78;
+    }
+
+    static double activityFactor(@NonNull UserProfile.ActivityLevel level) {
+        switch (level) {
+            case LIGHT:
+                return 1.375;
+            case MODERATE:
+                return 1.55;
+            case VERY:
+                return 1.725;
+            case EXTRA:
+                return 1.9;
+            default:
+                return 1.2;
+        }
+    }
+
+    static double calorieAdjustment(@NonNull UserProfile.FitnessGoal goal) {
+        switch (goal) {
+            case LOSE_WEIGHT:
+                return -500;
+            case BUILD_MUSCLE:
+                return 250;
+            default:
+                return 0;
+        }
+    }
+
+    static double proteinPerKg(@NonNull UserProfile.FitnessGoal goal) {
+        switch (goal) {
+            case LOSE_WEIGHT:
+                return 2.0;
+            case BUILD_MUSCLE:
+                return 1.8;
+            case INCREASE_STAMINA:
+                return 1.4;
+            default:
+                return 1.2;
+        }
+    }
+}
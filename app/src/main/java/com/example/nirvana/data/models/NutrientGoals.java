@@ -0,0 +1,36 @@
+package com.example.nirvana.data.models;
+
+import androidx.annotation.NonNull;
+
+/** Daily targets worked out by {@link GoalEngine}: calories in kcal, macros in grams. */
+public final class NutrientGoals {
+    /** Basal metabolic rate and total daily energy expenditure the targets start from. */
+    public final long bmr;
+    public final long tdee;
+    public final long calories;
+    public final long protein;
+    public final long carbs;
+    public final long fat;
+
+    public NutrientGoals(long bmr, long tdee, long calories, long protein, long carbs, long fat) {
+        this.bmr = bmr;
+        this.tdee = tdee;
+        this.calories = calories;
+        this.protein = protein;
+        this.carbs = carbs;
+        this.fat = fat;
+    }
+
+    @Override
+    @NonNull
+    public String toString() {
+        return "NutrientGoals{" +
+                "bmr=" + bmr +
+                ", tdee=" + tdee +
+                ", calories=" + calories +
+                ", protein=" + protein +
+                ", carbs=" + carbs +
+                ", fat=" + fat +
+                '}';
+    }
+}
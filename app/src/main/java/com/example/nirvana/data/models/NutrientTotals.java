@@ -0,0 +1,79 @@
+package com.example.nirvana.data.models;
+
+import androidx.annotation.NonNull;
+
+/** Running calorie and macro sums, stored per day under {@code users/{uid}/dailyTotals}. */
+public class NutrientTotals {
+    private double calories;
+    private double protein;
+    private double carbs;
+    private double fat;
+
+    // Default constructor (required for Firebase)
+    public NutrientTotals() {}
+
+    public static NutrientTotals of(Iterable<FoodItem> items) {
+        NutrientTotals totals = new NutrientTotals();
+        for (FoodItem item : items) {
+            totals.add(item);
+        }
+        return totals;
+    }
+
+    public void add(FoodItem item) {
+        calories += item.getCalories();
+        protein += item.getProtein();
+        carbs += item.getCarbs();
+        fat += item.getFat();
+    }
+
+    public void subtract(FoodItem item) {
+        calories -= item.getCalories();
+        protein -= item.getProtein();
+        carbs -= item.getCarbs();
+        fat -= item.getFat();
+    }
+
+    public double getCalories() {
+        return calories;
+    }
+
+    public void setCalories(double calories) {
+        this.calories = calories;
+    }
+
+    public double getProtein() {
+        return protein;
+    }
+
+    public void setProtein(double protein) {
+        this.protein = protein;
+    }
+
+    public double getCarbs() {
+        return carbs;
+    }
+
+    public void setCarbs(double carbs) {
+        this.carbs = carbs;
+    }
+
+    public double getFat() {
+        return fat;
+    }
+
+    public void setFat(double fat) {
+        this.fat = fat;
+    }
+
+    @Override
+    @NonNull
+    public String toString() {
+        return "NutrientTotals{" +
+                "calories=" + calories +
+                ", protein=" + protein +
+                ", carbs=" + carbs +
+                ", fat=" + fat +
+                '}';
+    }
+}
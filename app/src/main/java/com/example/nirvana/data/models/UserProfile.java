@@ -0,0 +1,174 @@
+package com.example.nirvana.data.models;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The profile stored in Firestore under {@code Users/{uid}}: who the user is and what
+ * {@link GoalEngine} needs to work out their targets. Weight is in kg and height in cm.
+ *
+ * Activity level and fitness goal are stored by enum name; profiles saved before they
+ * existed read as {@link ActivityLevel#SEDENTARY} and {@link FitnessGoal#STAY_FIT}.
+ */
+public class UserProfile {
+
+    /** In the order of the {@code activity_levels} array the setup screen shows. */
+    public enum ActivityLevel { SEDENTARY, LIGHT, MODERATE, VERY, EXTRA }
+
+    /** In the order of the {@code fitness_goals} array the setup screen shows. */
+    public enum FitnessGoal { LOSE_WEIGHT, BUILD_MUSCLE, INCREASE_STAMINA, STAY_FIT }
+
+    private String name;
+    private String email;
+    private String gender;
+    private int age;
+    private double weight;
+    private double height;
+    private ActivityLevel activityLevel = ActivityLevel.SEDENTARY;
+    private FitnessGoal fitnessGoal = FitnessGoal.STAY_FIT;
+
+    public UserProfile() {}
+
+    /** The profile in a Firestore document's fields; numbers may arrive as Long or Double. */
+    @NonNull
+    public static UserProfile fromMap(@NonNull Map<String, ?> fields) {
+        UserProfile profile = new UserProfile();
+        Object v;
+        if ((v = fields.get("name")) instanceof String) profile.name = (String) v;
+        if ((v = fields.get("email")) instanceof String) profile.email = (String) v;
+        if ((v = fields.get("gender")) instanceof String) profile.gender = (String) v;
+        if ((v = fields.get("age")) instanceof Number) profile.age = ((Number) v).intValue();
+        if ((v = fields.get("weight")) instanceof Number) profile.weight = ((Number) v).doubleValue();
+        if ((v = fields.get("height")) instanceof Number) profile.height = ((Number) v).doubleValue();
+        profile.activityLevel = parse(ActivityLevel.class, fields.get("activityLevel"), ActivityLevel.SEDENTARY);
+        profile.fitnessGoal = parse(FitnessGoal.class, fields.get("fitnessGoal"), FitnessGoal.STAY_FIT);
+        return profile;
+    }
+
+    /** The fields to write to the profile document. */
+    @NonNull
+    public Map<String, Object> toMap() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("name", name);
+        fields.put("email", email);
+        fields.put("gender", gender);
+        fields.put("age", age);
+        fields.put("weight", weight);
+        fields.put("height", height);
+        fields.put("activityLevel", activityLevel.name());
+        fields.put("fitnessGoal", fitnessGoal.name());
+        return fields;
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, @Nullable Object value, E fallback) {
+        if (!(value instanceof String)) return fallback;
+        try {
+            return Enum.valueOf(type, (String) value);
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getGender() {
+        return gender;
+    }
+
+    public void setGender(String gender) {
+        this.gender = gender;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public void setAge(int age) {
+        this.age = age;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    public void setHeight(double height) {
+        this.height = height;
+    }
+
+    @NonNull
+    public ActivityLevel getActivityLevel() {
+        return activityLevel;
+    }
+
+    public void setActivityLevel(@NonNull ActivityLevel activityLevel) {
+        this.activityLevel = activityLevel;
+    }
+
+    @NonNull
+    public FitnessGoal getFitnessGoal() {
+        return fitnessGoal;
+    }
+
+    public void setFitnessGoal(@NonNull FitnessGoal fitnessGoal) {
+        this.fitnessGoal = fitnessGoal;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof UserProfile)) return false;
+        UserProfile that = (UserProfile) o;
+        return age == that.age
+                && Double.compare(weight, that.weight) == 0
+                && Double.compare(height, that.height) == 0
+                && Objects.equals(name, that.name)
+                && Objects.equals(email, that.email)
+                && Objects.equals(gender, that.gender)
+                && activityLevel == that.activityLevel
+                && fitnessGoal == that.fitnessGoal;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, email, gender, age, weight, height, activityLevel, fitnessGoal);
+    }
+
+    @Override
+    @NonNull
+    public String toString() {
+        return "UserProfile{" +
+                "name='" + name + '\'' +
+                ", gender='" + gender + '\'' +
+                ", age=" + age +
+                ", weight=" + weight +
+                ", height=" + height +
+                ", activityLevel=" + activityLevel +
+                ", fitnessGoal=" + fitnessGoal +
+                '}';
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.nirvana.data.repository;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import com.example.nirvana.data.local.NutrientLog;
+import com.example.nirvana.data.models.FoodItem;
+import com.example.nirvana.data.models.NutrientTotals;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ServerValue;
+import java.text.SimpleDateFormat;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Calorie and macro totals kept per day under {@code users/{uid}/dailyTotals/{yyyy-MM-dd}},
+ * rolled up per Monday-to-Sunday week under {@code weeklyTotals/{yyyy-MM-dd of the Monday}}
+ * and per month under {@code monthlyTotals/{yyyy-MM}}.
+ *
+ * Totals are never recomputed from the meal log: every add or delete contributes a
+ * {@link ServerValue#increment} delta at each level to the same multi-path update that
+ * writes the entry, so the aggregates and the log change atomically and readers fetch
+ * a few small nodes.
+ */
+public class DailyTotalsRepository {
+
+    public static final String NODE = "dailyTotals";
+    public static final String WEEK_NODE = "weeklyTotals";
+    public static final String MONTH_NODE = "monthlyTotals";
+    /** Set once week and month totals have been filled in for days logged before they existed. */
+    static final String ROLLUPS_VERSION = "rollupsVersion";
+    private static final int CURRENT_ROLLUPS_VERSION = 1;
+    private static final String TAG = "DailyTotalsRepository";
+
+    private final DatabaseReference userRef;
+
+    public DailyTotalsRepository(DatabaseReference userRef) {
+        this.userRef = userRef;
+    }
+
+    /** Local calendar day of {@code timestampMillis}, e.g. "2025-04-03". */
+    @NonNull
+    public static String dayKey(long timestampMillis) {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date(timestampMillis));
+    }
+
+    /** "2025-03-31", the Monday starting the week of "2025-04-03". */
+    @NonNull
+    public static String weekKey(@NonNull String dayKey) {
+        return LocalDate.parse(dayKey).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toString();
+    }
+
+    /** "2025-04" for "2025-04-03". */
+    @NonNull
+    public static String monthKey(@NonNull String dayKey) {
+        return dayKey.substring(0, 7);
+    }
+
+    /** Adds the increments for logging ({@code sign = 1}) or removing ({@code sign = -1}) an entry. */
+    public static void putDelta(Map<String, Object> updates, FoodItem item, int sign) {
+        putDeltas(updates, Collections.singletonList(item), sign);
+    }
+
+    /**
+     * Same as {@link #putDelta} for many entries. Entries on the same day are summed into
+     * one increment per field, since a multi-path update can hold each path only once.
+     */
+    public static void putDeltas(Map<String, Object> updates, Iterable<FoodItem> items, int sign) {
+        List<FoodItem> none = new ArrayList<>();
+        putDeltas(updates, sign > 0 ? items : none, sign > 0 ? none : items);
+    }
+
+    /** Net increments for logging {@code added} and removing {@code removed} in one update. */
+    public static void putDeltas(Map<String, Object> updates, Iterable<FoodItem> added, Iterable<FoodItem> removed) {
+        Map<String, NutrientTotals> byDay = new HashMap<>();
+        for (FoodItem item : added) {
+            if (item.getTimestamp() > 0) dayTotals(byDay, item).add(item);
+        }
+        for (FoodItem item : removed) {
+            if (item.getTimestamp() > 0) dayTotals(byDay, item).subtract(item);
+        }
+        Map<String, NutrientTotals> byWeek = new HashMap<>();
+        Map<String, NutrientTotals> byMonth = new HashMap<>();
+        rollUp(byDay, byWeek, byMonth);
+        putIncrements(updates, NODE, byDay);
+        putIncrements(updates, WEEK_NODE, byWeek);
+        putIncrements(updates, MONTH_NODE, byMonth);
+    }
+
+    /** Sums day totals into the weeks and months they fall in. */
+    static void rollUp(Map<String, NutrientTotals> byDay,
+                       Map<String, NutrientTotals> byWeek, Map<String, NutrientTotals> byMonth) {
+        for (Map.Entry<String, NutrientTotals> day : byDay.entrySet()) {
+            add(totalsFor(byWeek, weekKey(day.getKey())), day.getValue());
+            add(totalsFor(byMonth, monthKey(day.getKey())), day.getValue());
+        }
+    }
+
+    private static void putIncrements(Map<String, Object> updates, String node, Map<String, NutrientTotals> byKey) {
+        for (Map.Entry<String, NutrientTotals> entry : byKey.entrySet()) {
+            String path = node + "/" + entry.getKey() + "/";
+            NutrientTotals totals = entry.getValue();
+            updates.put(path + "calories", ServerValue.increment(totals.getCalories()));
+            updates.put(path + "protein", ServerValue.increment(totals.getProtein()));
+            updates.put(path + "carbs", ServerValue.increment(totals.getCarbs()));
+            updates.put(path + "fat", ServerValue.increment(totals.getFat()));
+        }
+    }
+
+    private static NutrientTotals dayTotals(Map<String, NutrientTotals> byDay, FoodItem item) {
+        return totalsFor(byDay, dayKey(item.getTimestamp()));
+    }
+
+    private static NutrientTotals totalsFor(Map<String, NutrientTotals> byKey, String key) {
+        NutrientTotals totals = byKey.get(key);
+        if (totals == null) {
+            totals = new NutrientTotals();
+            byKey.put(key, totals);
+        }
+        return totals;
+    }
+
+    private static void add(NutrientTotals into, NutrientTotals delta) {
+        into.setCalories(into.getCalories() + delta.getCalories());
+        into.setProtein(into.getProtein() + delta.getProtein());
+        into.setCarbs(into.getCarbs() + delta.getCarbs());
+        into.setFat(into.getFat() + delta.getFat());
+    }
+
+    /**
+     * Fills in week and month totals for accounts that logged meals before rollups
+     * existed. A no-op once done. They are summed from the meal log itself as a
+     * {@link NutrientLog}, so they are exact rather than sums of the floating-point day
+     * increments. The rollups are written as absolute values in one update with the
+     * version marker; a meal logged on another device between the read and that update
+     * would be missing from its week and month.
+     */
+    public void backfillRollups(@NonNull MealLogRepository meals) {
+        userRef.child(ROLLUPS_VERSION).get().addOnSuccessListener(version -> {
+            Long current = version.getValue(Long.class);
+            if (current != null && current >= CURRENT_ROLLUPS_VERSION) return;
+            meals.readNutrientLog(new MealLogRepository.Callback<NutrientLog>() {
+                @Override
+                public void onLoaded(NutrientLog log) {
+                    Map<String, Object> updates = rollupUpdates(log);
+                    updates.put(ROLLUPS_VERSION, CURRENT_ROLLUPS_VERSION);
+                    userRef.updateChildren(updates)
+                            .addOnSuccessListener(aVoid -> Log.d(TAG, "Rolled up " + log.size() + " entries"))
+                            .addOnFailureListener(e -> Log.e(TAG, "Rollup backfill failed", e));
+                }
+
+                @Override
+                public void onError(@NonNull Exception e) {
+                    Log.e(TAG, "Rollup backfill failed", e);
+                }
+            });
+        }).addOnFailureListener(e -> Log.e(TAG, "Rollup backfill failed", e));
+    }
+
+    /** Absolute week and month totals of {@code log}, as multi-path update entries. */
+    static Map<String, Object> rollupUpdates(NutrientLog log) {
+        Map<String, Object> updates = new HashMap<>();
+        NutrientLog.Rollup weeks = log.rollup(NutrientLog.Period.WEEK);
+        for (int i = 0; i < weeks.size(); i++) {
+            updates.put(WEEK_NODE + "/" + weeks.start(i), weeks.totals(i));
+        }
+        NutrientLog.Rollup months = log.rollup(NutrientLog.Period.MONTH);
+        for (int i = 0; i < months.size(); i++) {
+            updates.put(MONTH_NODE + "/" + monthKey(months.start(i).toString()), months.totals(i));
+        }
+        return updates;
+    }
+
+    public DatabaseReference day(String dayKey) {
+        return userRef.child(NODE).child(dayKey);
+    }
+
+    public DatabaseReference today() {
+        return day(dayKey(System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.nirvana.data.repository;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import com.example.nirvana.api.FoodSearchPipeline;
+import com.example.nirvana.data.local.MealEntry;
+import com.example.nirvana.data.local.MealTally;
+import com.example.nirvana.data.sync.MealSyncEngine;
+import com.example.nirvana.data.sync.Subscription;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Process-wide view of the days currently on screen. Each observed day is read from the
+ * local store once and watched on the server once, however many screens show it; changes
+ * are applied to one {@link MealTally} per meal plus one for the whole day, and fanned out
+ * to observers of the meals they touched. Observers receive the shared tallies and must
+ * treat them as read-only.
+ *
+ * The store is read off the main thread, so observers of a day that is not loaded yet
+ * get their first tally once the read completes.
+ *
+ * A day stays open for {@link #CLOSE_DELAY_MS} after its last observer leaves, so swiping
+ * between meal pages or switching tabs, which pauses one page just before resuming the
+ * next, reuses its tallies and server listeners instead of rebuilding them.
+ */
+@MainThread
+public class MealDayRepository {
+
+    private static final String TAG = "MealDayRepository";
+    static final long CLOSE_DELAY_MS = 10_000;
+
+    private static MealDayRepository instance;
+    private static MealSyncEngine instanceEngine;
+
+    public interface Observer {
+        void onChanged(@NonNull MealTally tally);
+    }
+
+    private static class Registration {
+        @Nullable
+        final String mealType;
+        final Observer observer;
+
+        Registration(@Nullable String mealType, Observer observer) {
+            this.mealType = mealType;
+            this.observer = observer;
+        }
+    }
+
+    private static class Day {
+        final MealTally all;
+        final Map<String, MealTally> meals = new HashMap<>();
+        final List<Subscription> watches = new ArrayList<>();
+        final List<Registration> observers = new ArrayList<>();
+        boolean loaded;
+        Runnable pendingClose;
+
+        Day(String dayKey) {
+            all = new MealTally(dayKey, null);
+        }
+
+        MealTally meal(String mealType) {
+            MealTally tally = meals.get(mealType);
+            if (tally == null) {
+                tally = new MealTally(all.getDayKey(), mealType);
+                tally.reset(all.entries());
+                meals.put(mealType, tally);
+            }
+            return tally;
+        }
+    }
+
+    private final MealSyncEngine engine;
+    private final FoodSearchPipeline.Scheduler scheduler;
+    private final Map<String, Day> days = new HashMap<>();
+
+    public MealDayRepository(MealSyncEngine engine, FoodSearchPipeline.Scheduler scheduler) {
+        this.engine = engine;
+        this.scheduler = scheduler;
+        engine.addListener(this::onEntriesChanged);
+    }
+
+    /** Repository over the signed-in user's {@link MealSyncEngine}. */
+    public static synchronized MealDayRepository getInstance(Context context) {
+        MealSyncEngine engine = MealSyncEngine.getInstance(context);
+        if (instance == null || instanceEngine != engine) {
+            instance = new MealDayRepository(engine, FoodSearchPipeline.mainThreadScheduler());
+            instanceEngine = engine;
+        }
+        return instance;
+    }
+
+    /**
+     * Delivers the tally of {@code mealType} on {@code dayKey}, or of the whole day when
+     * {@code mealType} is null, while {@code owner} is resumed: as soon as the day is loaded,
+     * right away if it already is, and after every change. Registration ends by itself when the owner pauses.
+     */
+    public void observe(@NonNull LifecycleOwner owner, @NonNull String dayKey, @Nullable String mealType,
+                        @NonNull Observer observer) {
+        owner.getLifecycle().addObserver(new DefaultLifecycleObserver() {
+            private Subscription subscription;
+
+            @Override
+            public void onResume(@NonNull LifecycleOwner owner) {
+                subscription = observe(dayKey, mealType, observer);
+            }
+
+            @Override
+            public void onPause(@NonNull LifecycleOwner owner) {
+                subscription.cancel();
+                subscription = null;
+            }
+        });
+    }
+
+    /** As above, until the returned subscription is cancelled. */
+    @NonNull
+    public Subscription observe(@NonNull String dayKey, @Nullable String mealType,
+                                              @NonNull Observer observer) {
+        Day day = days.get(dayKey);
+        if (day == null) {
+            day = open(dayKey);
+        } else if (day.pendingClose != null) {
+            scheduler.cancel(day.pendingClose);
+            day.pendingClose = null;
+        }
+        Registration registration = new Registration(mealType, observer);
+        day.observers.add(registration);
+        if (day.loaded) observer.onChanged(mealType != null ? day.meal(mealType) : day.all);
+
+        Day observed = day;
+        return () -> {
+            if (observed.observers.remove(registration) && observed.observers.isEmpty()) {
+                observed.pendingClose = () -> close(observed);
+                scheduler.postDelayed(observed.pendingClose, CLOSE_DELAY_MS);
+            }
+        };
+    }
+
+    private Day open(String dayKey) {
+        Day day = new Day(dayKey);
+        days.put(dayKey, day);
+        for (String mealType : MealLogRepository.MEAL_TYPES) {
+            day.watches.add(engine.watch(dayKey, mealType));
+        }
+        engine.loadEntries(dayKey, null, new MealLogRepository.Callback<List<MealEntry>>() {
+            @Override
+            public void onLoaded(List<MealEntry> entries) {
+                loaded(day, entries);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                Log.w(TAG, "Reading " + dayKey + " from the local store failed", e);
+                loaded(day, new ArrayList<>());
+            }
+        });
+        return day;
+    }
+
+    /**
+     * The read includes every change the engine announced before it completed, so those
+     * were skipped and the tallies start from it.
+     */
+    private void loaded(Day day, List<MealEntry> entries) {
+        if (days.get(day.all.getDayKey()) != day) return;
+        day.loaded = true;
+        day.all.reset(entries);
+        for (MealTally meal : day.meals.values()) meal.reset(day.all.entries());
+        for (Registration registration : new ArrayList<>(day.observers)) {
+            registration.observer.onChanged(registration.mealType != null
+                    ? day.meal(registration.mealType) : day.all);
+        }
+    }
+
+    private void close(Day day) {
+        day.pendingClose = null;
+        for (Subscription watch : day.watches) {
+            watch.cancel();
+        }
+        days.remove(day.all.getDayKey());
+    }
+
+    private void onEntriesChanged(List<MealEntry> entries) {
+        for (Day day : new ArrayList<>(days.values())) {
+            if (!day.loaded || !day.all.apply(entries)) continue;
+
+            Set<String> changedMeals = new HashSet<>();
+            for (Map.Entry<String, MealTally> meal : day.meals.entrySet()) {
+                if (meal.getValue().apply(entries)) changedMeals.add(meal.getKey());
+            }
+            for (Registration registration : new ArrayList<>(day.observers)) {
+                if (registration.mealType == null) {
+                    registration.observer.onChanged(day.all);
+                } else if (changedMeals.contains(registration.mealType)) {
+                    registration.observer.onChanged(day.meal(registration.mealType));
+                }
+            }
+        }
+    }
+}
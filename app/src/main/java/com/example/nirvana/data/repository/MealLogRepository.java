@@ -0,0 +1,272 @@
+package com.example.nirvana.data.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import com.example.nirvana.data.local.NutrientLog;
+import com.example.nirvana.data.models.FoodItem;
+import com.example.nirvana.data.models.FoodItemMapper;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Meal log partitioned by month and day:
+ * {@code users/{uid}/mealLog/{yyyy-MM}/{yyyy-MM-dd}/{mealType}/{pushKey}}.
+ *
+ * Reads only touch the partitions they need: a day is one node, and any date range
+ * is one key-range query per month bucket it overlaps. Entries are written by
+ * {@link com.example.nirvana.data.sync.MealSyncEngine}, together with their
+ * {@link DailyTotalsRepository} deltas in one atomic update.
+ *
+ * Snapshots are decoded with {@link FoodItemMapper} on a background executor; callbacks
+ * run on the main thread and receive lists that are no longer modified.
+ */
+public class MealLogRepository {
+
+    private static final String TAG = "MealLogRepository";
+    public static final String NODE = "mealLog";
+    /** Meal partitions of a day, in the order the log screen shows them. */
+    public static final String[] MEAL_TYPES = {"Breakfast", "Lunch", "Dinner", "Snacks", "Other"};
+    /** Flat {@code meals/{mealType}/{pushKey}} layout used before partitioning. */
+    static final String LEGACY_NODE = "meals";
+    private static final String PUSH_CHARS =
+            "-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz";
+
+    public interface Callback<T> {
+        void onLoaded(T result);
+
+        void onError(@NonNull Exception e);
+    }
+
+    /** Shared by all instances; decoding is short and ordering between reads doesn't matter. */
+    private static final Executor DECODER = Executors.newSingleThreadExecutor();
+
+    private final DatabaseReference userRef;
+    private final Executor decoder;
+    private final Executor mainExecutor;
+
+    public MealLogRepository(DatabaseReference userRef) {
+        this(userRef, DECODER, new Handler(Looper.getMainLooper())::post);
+    }
+
+    public MealLogRepository(DatabaseReference userRef, Executor decoder, Executor mainExecutor) {
+        this.userRef = userRef;
+        this.decoder = decoder;
+        this.mainExecutor = mainExecutor;
+    }
+
+    /** "2025-04" for "2025-04-03". */
+    @NonNull
+    public static String monthKey(@NonNull String dayKey) {
+        return dayKey.substring(0, 7);
+    }
+
+    /** Path of an entry relative to the user node, for use in multi-path updates. */
+    @NonNull
+    public static String entryPath(@NonNull String dayKey, @NonNull String mealType, @NonNull String key) {
+        return NODE + "/" + monthKey(dayKey) + "/" + dayKey + "/" + mealType + "/" + key;
+    }
+
+    public DatabaseReference day(@NonNull String dayKey) {
+        return userRef.child(NODE).child(monthKey(dayKey)).child(dayKey);
+    }
+
+    public DatabaseReference meal(@NonNull String dayKey, @NonNull String mealType) {
+        return day(dayKey).child(mealType);
+    }
+
+    public void readDay(@NonNull String dayKey, @NonNull Callback<List<FoodItem>> callback) {
+        readRange(dayKey, dayKey, new Callback<TreeMap<String, List<FoodItem>>>() {
+            @Override
+            public void onLoaded(TreeMap<String, List<FoodItem>> days) {
+                List<FoodItem> items = days.get(dayKey);
+                callback.onLoaded(items != null ? items : Collections.emptyList());
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Entries from {@code fromDay} to {@code toDay} inclusive, keyed by day in ascending
+     * order. Days without entries are absent from the result.
+     */
+    public void readRange(@NonNull String fromDay, @NonNull String toDay,
+                          @NonNull Callback<TreeMap<String, List<FoodItem>>> callback) {
+        List<String> months = monthsBetween(fromDay, toDay);
+        TreeMap<String, List<FoodItem>> result = new TreeMap<>();
+        if (months.isEmpty()) {
+            callback.onLoaded(result);
+            return;
+        }
+        int[] pending = {months.size()};
+        boolean[] failed = {false};
+
+        for (String month : months) {
+            userRef.child(NODE).child(month).orderByKey().startAt(fromDay).endAt(toDay)
+                    .addListenerForSingleValueEvent(new ValueEventListener() {
+                        @Override
+                        public void onDataChange(@NonNull DataSnapshot snapshot) {
+                            if (failed[0]) return;
+                            decoder.execute(() -> {
+                                Map<String, List<FoodItem>> days = new HashMap<>();
+                                for (DataSnapshot daySnapshot : snapshot.getChildren()) {
+                                    days.put(daySnapshot.getKey(), readEntries(daySnapshot));
+                                }
+                                // result, pending and failed are only touched on the main thread
+                                mainExecutor.execute(() -> {
+                                    if (failed[0]) return;
+                                    result.putAll(days);
+                                    if (--pending[0] == 0) {
+                                        callback.onLoaded(result);
+                                    }
+                                });
+                            });
+                        }
+
+                        @Override
+                        public void onCancelled(@NonNull DatabaseError error) {
+                            if (failed[0]) return;
+                            failed[0] = true;
+                            callback.onError(error.toException());
+                        }
+                    });
+        }
+    }
+
+    /**
+     * The whole log as columns, for recomputing rollups. One read of every partition, so
+     * only for one-off work; screens read days or ranges.
+     */
+    public void readNutrientLog(@NonNull Callback<NutrientLog> callback) {
+        userRef.child(NODE).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                decoder.execute(() -> {
+                    Map<String, List<FoodItem>> days = new HashMap<>();
+                    for (DataSnapshot monthSnapshot : snapshot.getChildren()) {
+                        for (DataSnapshot daySnapshot : monthSnapshot.getChildren()) {
+                            days.put(daySnapshot.getKey(), readEntries(daySnapshot));
+                        }
+                    }
+                    NutrientLog log = NutrientLog.of(days);
+                    mainExecutor.execute(() -> callback.onLoaded(log));
+                });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.toException());
+            }
+        });
+    }
+
+    /**
+     * Moves entries from the legacy flat layout into day partitions and credits them to
+     * the daily totals, in one atomic update. Legacy entries carry no timestamp, so the
+     * creation time encoded in their push key is used instead. A no-op once migrated.
+     * {@code callback} hears once the log holds every entry, right away if there was
+     * nothing to move.
+     */
+    public void migrateLegacyMeals(@NonNull Callback<Void> callback) {
+        userRef.child(LEGACY_NODE).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                if (!snapshot.exists()) {
+                    callback.onLoaded(null);
+                    return;
+                }
+                decoder.execute(() -> migrate(snapshot, callback));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Legacy meal migration failed", error.toException());
+                callback.onError(error.toException());
+            }
+        });
+    }
+
+    private void migrate(DataSnapshot snapshot, Callback<Void> callback) {
+        Map<String, Object> updates = new HashMap<>();
+        List<FoodItem> uncounted = new ArrayList<>();
+        int count = 0;
+        for (DataSnapshot mealSnapshot : snapshot.getChildren()) {
+            for (DataSnapshot entry : mealSnapshot.getChildren()) {
+                FoodItem item = FoodItemMapper.fromSnapshot(entry);
+                if (item == null) continue;
+                // Timestamped entries were already added to the daily totals when logged
+                if (item.getTimestamp() <= 0) {
+                    item.setTimestamp(pushKeyTimestamp(entry.getKey()));
+                    uncounted.add(item);
+                }
+                item.setMealType(mealSnapshot.getKey());
+                String dayKey = DailyTotalsRepository.dayKey(item.getTimestamp());
+                updates.put(entryPath(dayKey, item.getMealType(), entry.getKey()), item);
+                count++;
+            }
+        }
+        DailyTotalsRepository.putDeltas(updates, uncounted, 1);
+        updates.put(LEGACY_NODE, null);
+
+        int migrated = count;
+        userRef.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "Migrated " + migrated + " legacy entries");
+                    callback.onLoaded(null);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Legacy meal migration failed", e);
+                    callback.onError(e);
+                });
+    }
+
+    static List<FoodItem> readEntries(DataSnapshot daySnapshot) {
+        List<FoodItem> items = new ArrayList<>();
+        for (DataSnapshot mealSnapshot : daySnapshot.getChildren()) {
+            for (DataSnapshot entry : mealSnapshot.getChildren()) {
+                FoodItem item = FoodItemMapper.fromSnapshot(entry);
+                if (item != null) items.add(item);
+            }
+        }
+        return Collections.unmodifiableList(items);
+    }
+
+    /** Month buckets ("yyyy-MM") overlapping the inclusive day range. */
+    static List<String> monthsBetween(String fromDay, String toDay) {
+        List<String> months = new ArrayList<>();
+        LocalDate month = LocalDate.parse(fromDay).withDayOfMonth(1);
+        LocalDate last = LocalDate.parse(toDay);
+        while (!month.isAfter(last)) {
+            months.add(monthKey(month.toString()));
+            month = month.plusMonths(1);
+        }
+        return months;
+    }
+
+    /** Firebase push keys start with their creation time as 8 base-64 digits. */
+    static long pushKeyTimestamp(String key) {
+        long timestamp = 0;
+        for (int i = 0; i < 8 && i < key.length(); i++) {
+            int digit = PUSH_CHARS.indexOf(key.charAt(i));
+            if (digit < 0) return System.currentTimeMillis();
+            timestamp = timestamp * 64 + digit;
+        }
+        return timestamp;
+    }
+}
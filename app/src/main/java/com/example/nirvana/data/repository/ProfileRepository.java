@@ -0,0 +1,143 @@
+package com.example.nirvana.data.repository;
+
+import android.content.Context;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import com.example.nirvana.data.local.PreferencesProfileStore;
+import com.example.nirvana.data.local.ProfileStore;
+import com.example.nirvana.data.models.GoalEngine;
+import com.example.nirvana.data.models.NutrientGoals;
+import com.example.nirvana.data.models.UserProfile;
+import com.example.nirvana.data.sync.FirestoreProfileRemote;
+import com.example.nirvana.data.sync.RemoteProfile;
+import com.example.nirvana.data.sync.Subscription;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.FirebaseFirestore;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The signed-in user's profile and the goals {@link GoalEngine} derives from it.
+ *
+ * Screens start from the copy in the local {@link ProfileStore}, so they need no network
+ * read to show goals. While anyone observes, the server copy is listened to and every
+ * change is written back to the store; goals are recomputed only when the profile
+ * actually differs from the one they were computed for.
+ */
+@MainThread
+public class ProfileRepository {
+
+    private static ProfileRepository instance;
+    private static String instanceUserId;
+
+    public interface Observer {
+        void onChanged(@NonNull UserProfile profile, @Nullable NutrientGoals goals);
+    }
+
+    private final ProfileStore store;
+    private final RemoteProfile remote;
+    private final List<Observer> observers = new ArrayList<>();
+    private Subscription subscription;
+    private boolean loaded;
+    @Nullable
+    private UserProfile profile;
+    @Nullable
+    private NutrientGoals goals;
+
+    public ProfileRepository(ProfileStore store, RemoteProfile remote) {
+        this.store = store;
+        this.remote = remote;
+    }
+
+    /** Repository for the signed-in user, replaced when another user signs in. */
+    public static synchronized ProfileRepository getInstance(Context context) {
+        String userId = FirebaseAuth.getInstance().getCurrentUser().getUid();
+        if (instance == null || !userId.equals(instanceUserId)) {
+            instance = new ProfileRepository(
+                    new PreferencesProfileStore(context, userId),
+                    new FirestoreProfileRemote(FirebaseFirestore.getInstance().collection("Users").document(userId)));
+            instanceUserId = userId;
+        }
+        return instance;
+    }
+
+    /** The last known profile, or null if none has been seen on this device. */
+    @Nullable
+    public UserProfile profile() {
+        load();
+        return profile;
+    }
+
+    /** Goals for {@link #profile()}, or null while it is missing or incomplete. */
+    @Nullable
+    public NutrientGoals goals() {
+        load();
+        return goals;
+    }
+
+    /**
+     * Delivers the profile and its goals while {@code owner} is resumed: right away if one
+     * is known, and after every change. Registration ends by itself when the owner pauses.
+     */
+    public void observe(@NonNull LifecycleOwner owner, @NonNull Observer observer) {
+        owner.getLifecycle().addObserver(new DefaultLifecycleObserver() {
+            private Subscription subscription;
+
+            @Override
+            public void onResume(@NonNull LifecycleOwner owner) {
+                subscription = observe(observer);
+            }
+
+            @Override
+            public void onPause(@NonNull LifecycleOwner owner) {
+                subscription.cancel();
+                subscription = null;
+            }
+        });
+    }
+
+    /** As above, until the returned subscription is cancelled. */
+    @NonNull
+    public Subscription observe(@NonNull Observer observer) {
+        load();
+        observers.add(observer);
+        if (profile != null) observer.onChanged(profile, goals);
+        if (subscription == null) subscription = remote.subscribe(this::update);
+        return () -> {
+            if (observers.remove(observer) && observers.isEmpty() && subscription != null) {
+                subscription.cancel();
+                subscription = null;
+            }
+        };
+    }
+
+    /** Stores {@code profile} locally right away, then on the server. */
+    public void save(@NonNull UserProfile profile, @NonNull MealLogRepository.Callback<Void> callback) {
+        load();
+        update(profile);
+        remote.save(profile, callback);
+    }
+
+    private void load() {
+        if (loaded) return;
+        loaded = true;
+        UserProfile stored = store.load();
+        if (stored != null) {
+            profile = stored;
+            goals = GoalEngine.goals(stored);
+        }
+    }
+
+    private void update(UserProfile changed) {
+        if (changed.equals(profile)) return;
+        profile = changed;
+        goals = GoalEngine.goals(changed);
+        store.save(changed);
+        for (Observer observer : new ArrayList<>(observers)) {
+            observer.onChanged(changed, goals);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.nirvana.data.repository;
+
+import androidx.annotation.NonNull;
+import com.example.nirvana.data.models.NutrientTotals;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calorie and macro trends over the last 7, 30, 90 or 365 days, read from the day, week
+ * and month rollups {@link DailyTotalsRepository} keeps up to date with every entry.
+ *
+ * Each range is drawn at one resolution and summarised at the next one up, so a year
+ * reads about 66 small records (53 weeks and 13 months) rather than the meal log.
+ */
+public class TrendRepository {
+
+    public enum Resolution {
+        DAY(DailyTotalsRepository.NODE),
+        WEEK(DailyTotalsRepository.WEEK_NODE),
+        MONTH(DailyTotalsRepository.MONTH_NODE);
+
+        final String node;
+
+        Resolution(String node) {
+            this.node = node;
+        }
+
+        LocalDate start(LocalDate day) {
+            switch (this) {
+                case WEEK:
+                    return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH:
+                    return day.withDayOfMonth(1);
+                default:
+                    return day;
+            }
+        }
+
+        LocalDate next(LocalDate start) {
+            switch (this) {
+                case WEEK:
+                    return start.plusWeeks(1);
+                case MONTH:
+                    return start.plusMonths(1);
+                default:
+                    return start.plusDays(1);
+            }
+        }
+
+        String key(LocalDate start) {
+            String day = start.toString();
+            return this == MONTH ? DailyTotalsRepository.monthKey(day) : day;
+        }
+    }
+
+    public enum Range {
+        DAYS_7(7, Resolution.DAY, Resolution.WEEK),
+        DAYS_30(30, Resolution.DAY, Resolution.WEEK),
+        DAYS_90(90, Resolution.WEEK, Resolution.MONTH),
+        DAYS_365(365, Resolution.WEEK, Resolution.MONTH);
+
+        public final int days;
+        public final Resolution points;
+        public final Resolution summary;
+
+        Range(int days, Resolution points, Resolution summary) {
+            this.days = days;
+            this.points = points;
+            this.summary = summary;
+        }
+    }
+
+    /** One day, week or month, with the days of it that have happened so far. */
+    public static final class Period {
+        public final LocalDate start;
+        public final int days;
+        public final NutrientTotals totals;
+
+        Period(LocalDate start, int days, NutrientTotals totals) {
+            this.start = start;
+            this.days = days;
+            this.totals = totals;
+        }
+
+        public double caloriesPerDay() {
+            return totals.getCalories() / days;
+        }
+    }
+
+    public static final class Trend {
+        public final Range range;
+        /** Chart points, oldest first, including periods without entries. */
+        public final List<Period> points;
+        /** The same span at the next coarser resolution, oldest first. */
+        public final List<Period> summary;
+
+        Trend(Range range, List<Period> points, List<Period> summary) {
+            this.range = range;
+            this.points = points;
+            this.summary = summary;
+        }
+    }
+
+    private final DatabaseReference userRef;
+
+    public TrendRepository(DatabaseReference userRef) {
+        this.userRef = userRef;
+    }
+
+    /** The last {@code range.days} days up to and including {@code today}. */
+    public void read(@NonNull Range range, @NonNull LocalDate today,
+                     @NonNull MealLogRepository.Callback<Trend> callback) {
+        LocalDate from = today.minusDays(range.days - 1);
+        Map<Resolution, Map<String, NutrientTotals>> loaded = new HashMap<>();
+        boolean[] failed = {false};
+        Resolution[] resolutions = {range.points, range.summary};
+
+        for (Resolution resolution : resolutions) {
+            userRef.child(resolution.node).orderByKey()
+                    .startAt(resolution.key(resolution.start(from)))
+                    .endAt(resolution.key(resolution.start(today)))
+                    .addListenerForSingleValueEvent(new ValueEventListener() {
+                        @Override
+                        public void onDataChange(@NonNull DataSnapshot snapshot) {
+                            if (failed[0]) return;
+                            Map<String, NutrientTotals> byKey = new HashMap<>();
+                            for (DataSnapshot period : snapshot.getChildren()) {
+                                NutrientTotals totals = period.getValue(NutrientTotals.class);
+                                if (totals != null) byKey.put(period.getKey(), totals);
+                            }
+                            loaded.put(resolution, byKey);
+                            if (loaded.size() == resolutions.length) {
+                                callback.onLoaded(new Trend(range,
+                                        periods(range.points, from, today, loaded.get(range.points)),
+                                        periods(range.summary, from, today, loaded.get(range.summary))));
+                            }
+                        }
+
+                        @Override
+                        public void onCancelled(@NonNull DatabaseError error) {
+                            if (failed[0]) return;
+                            failed[0] = true;
+                            callback.onError(error.toException());
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Every period at {@code resolution} overlapping {@code from..today}, empty ones as
+     * zero totals. Days count from the period's start, which may be before {@code from},
+     * since the rollup covers the whole period.
+     */
+    static List<Period> periods(Resolution resolution, LocalDate from, LocalDate today,
+                                Map<String, NutrientTotals> byKey) {
+        List<Period> periods = new ArrayList<>();
+        LocalDate end = today.plusDays(1);
+        for (LocalDate start = resolution.start(from); start.isBefore(end); start = resolution.next(start)) {
+            LocalDate next = resolution.next(start);
+            int days = (int) (Math.min(next.toEpochDay(), end.toEpochDay()) - start.toEpochDay());
+            NutrientTotals totals = byKey.get(resolution.key(start));
+            periods.add(new Period(start, days, totals != null ? totals : new NutrientTotals()));
+        }
+        return Collections.unmodifiableList(periods);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.nirvana.data.sync;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.example.nirvana.data.local.MealEntry;
+import com.example.nirvana.data.models.FoodItem;
+import com.example.nirvana.data.models.FoodItemMapper;
+import com.example.nirvana.data.repository.DailyTotalsRepository;
+import com.example.nirvana.data.repository.MealLogRepository;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link RemoteMealLog} over the day-partitioned layout of {@link MealLogRepository}.
+ *
+ * Firebase calls back on the main thread; each event is handed to {@code events}, in
+ * order, and entries are decoded and delivered there, so neither decoding nor the
+ * listener's local store writes cost the UI a frame.
+ */
+public class FirebaseMealRemote implements RemoteMealLog {
+
+    private static final String TAG = "FirebaseMealRemote";
+
+    private final DatabaseReference userRef;
+    private final MealLogRepository mealLog;
+    private final Executor events;
+
+    /** {@code events} must run tasks one at a time, in submission order. */
+    public FirebaseMealRemote(DatabaseReference userRef, Executor events) {
+        this.userRef = userRef;
+        this.mealLog = new MealLogRepository(userRef);
+        this.events = events;
+    }
+
+    @Override
+    public void push(@NonNull Batch batch) throws Exception {
+        Map<String, Object> updates = new HashMap<>();
+        List<FoodItem> added = new ArrayList<>();
+        List<FoodItem> removed = new ArrayList<>();
+        for (MealEntry entry : batch.added) {
+            updates.put(path(entry), entry.item);
+            added.add(entry.item);
+        }
+        for (MealEntry entry : batch.updated) {
+            updates.put(path(entry), entry.item);
+        }
+        for (MealEntry entry : batch.removed) {
+            updates.put(path(entry), null);
+            removed.add(entry.item);
+        }
+        DailyTotalsRepository.putDeltas(updates, added, removed);
+
+        // No timeout on purpose: while offline the Firebase client queues the write itself,
+        // and giving up here would make the retry apply the totals increments twice.
+        Tasks.await(userRef.updateChildren(updates));
+    }
+
+    @NonNull
+    @Override
+    public Subscription subscribe(@NonNull String dayKey, @NonNull String mealType, @NonNull Listener listener) {
+        DatabaseReference meal = mealLog.meal(dayKey, mealType);
+        // Events already queued when the subscription is cancelled are dropped
+        AtomicBoolean cancelled = new AtomicBoolean();
+        // Child events ship only the entry that changed, not the whole meal subtree
+        ChildEventListener childListener = meal.addChildEventListener(new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                events.execute(() -> deliver(snapshot));
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                events.execute(() -> deliver(snapshot));
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                String key = snapshot.getKey();
+                events.execute(() -> {
+                    if (!cancelled.get()) listener.onEntryRemoved(key);
+                });
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                // Order is by key, which never changes
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Sync of " + dayKey + "/" + mealType + " cancelled", error.toException());
+            }
+
+            private void deliver(DataSnapshot snapshot) {
+                if (cancelled.get()) return;
+                FoodItem item = FoodItemMapper.fromSnapshot(snapshot);
+                if (item == null) return;
+                item.setMealType(mealType);
+                listener.onEntryChanged(new MealEntry(snapshot.getKey(), item, false, true));
+            }
+        });
+
+        // Value events for a location fire after its initial child events, and are served
+        // from the data the child listener already synced rather than downloaded again
+        meal.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                events.execute(() -> {
+                    if (cancelled.get()) return;
+                    Set<String> keys = new HashSet<>();
+                    for (DataSnapshot entry : snapshot.getChildren()) {
+                        keys.add(entry.getKey());
+                    }
+                    listener.onSynced(dayKey, mealType, keys);
+                });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Sync of " + dayKey + "/" + mealType + " cancelled", error.toException());
+            }
+        });
+        return () -> {
+            cancelled.set(true);
+            meal.removeEventListener(childListener);
+        };
+    }
+
+    private static String path(MealEntry entry) {
+        return MealLogRepository.entryPath(entry.dayKey(), entry.item.getMealType(), entry.key);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.nirvana.data.sync;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import com.example.nirvana.data.models.UserProfile;
+import com.example.nirvana.data.repository.MealLogRepository;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.ListenerRegistration;
+import java.util.Map;
+
+/** {@link RemoteProfile} over the {@code Users/{uid}} document in Firestore. */
+public class FirestoreProfileRemote implements RemoteProfile {
+
+    private static final String TAG = "FirestoreProfileRemote";
+
+    private final DocumentReference document;
+
+    public FirestoreProfileRemote(DocumentReference document) {
+        this.document = document;
+    }
+
+    @NonNull
+    @Override
+    public Subscription subscribe(@NonNull Listener listener) {
+        ListenerRegistration registration = document.addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                // The cached profile stays in use; Firestore retries by itself
+                Log.w(TAG, "Profile listener failed", error);
+                return;
+            }
+            Map<String, Object> fields = snapshot != null ? snapshot.getData() : null;
+            if (fields != null) listener.onProfile(UserProfile.fromMap(fields));
+        });
+        return registration::remove;
+    }
+
+    @Override
+    public void save(@NonNull UserProfile profile, @NonNull MealLogRepository.Callback<Void> callback) {
+        document.set(profile.toMap())
+                .addOnSuccessListener(callback::onLoaded)
+                .addOnFailureListener(callback::onError);
+    }
+}
@@ -0,0 +1,448 @@
+package com.example.nirvana.data.sync;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.core.content.ContextCompat;
+import com.example.nirvana.data.local.LocalMealStore;
+import com.example.nirvana.data.local.MealEntry;
+import com.example.nirvana.data.local.SqliteMealStore;
+import com.example.nirvana.data.models.FoodItem;
+import com.example.nirvana.data.repository.MealLogRepository;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Offline-first meal log. Screens read and write the {@link LocalMealStore}; every local
+ * mutation lands in its outbox and is pushed to the {@link RemoteMealLog} in batches on a
+ * background thread, with exponential backoff when the server rejects a batch.
+ *
+ * Conflicts are settled per entry by last writer wins on {@link FoodItem#getVersion()}.
+ * Deleted entries stay behind as tombstones so an older remote copy cannot bring them back.
+ *
+ * Screens never touch the disk themselves: local writes and reads run one at a time, in
+ * call order, on the store executor, and results and change notifications come back on
+ * the main executor. A read therefore sees every write requested before it.
+ */
+public class MealSyncEngine {
+
+    private static final String TAG = "MealSyncEngine";
+    static final int BATCH_SIZE = 100;
+    static final long BATCH_WINDOW_MS = 1000;
+    private static final long MAX_RETRY_DELAY_MS = TimeUnit.MINUTES.toMillis(5);
+
+    public interface Listener {
+        /** Entries changed locally or remotely; deletions arrive as tombstones. */
+        void onEntriesChanged(@NonNull List<MealEntry> entries);
+    }
+
+    /** One remote subscription, shared by everyone watching the same meal partition. */
+    private static class Watch {
+        final Subscription subscription;
+        int watchers;
+
+        Watch(Subscription subscription) {
+            this.subscription = subscription;
+        }
+    }
+
+    private static MealSyncEngine instance;
+    private static String instanceUserId;
+
+    private final LocalMealStore store;
+    private final RemoteMealLog remote;
+    private final ScheduledExecutorService syncExecutor;
+    private final Executor storeExecutor;
+    private final Executor mainExecutor;
+    private final Supplier<String> keyGenerator;
+    private final LongSupplier clock;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Watch> watches = new HashMap<>();
+    private final RemoteMealLog.Listener remoteListener = new RemoteMealLog.Listener() {
+        @Override
+        public void onEntryChanged(@NonNull MealEntry entry) {
+            onRemoteEntry(entry);
+        }
+
+        @Override
+        public void onEntryRemoved(@NonNull String key) {
+            onRemoteRemoved(key);
+        }
+
+        @Override
+        public void onSynced(@NonNull String dayKey, @NonNull String mealType, @NonNull Set<String> keys) {
+            onRemoteSynced(dayKey, mealType, keys);
+        }
+    };
+    private boolean flushScheduled;
+    private int consecutiveFailures;
+    private boolean shutDown;
+    // Created for this engine by getInstance, so they go when it is replaced
+    private List<ExecutorService> ownedExecutors = Collections.emptyList();
+
+    /** {@code storeExecutor} must run tasks one at a time, in submission order. */
+    public MealSyncEngine(LocalMealStore store, RemoteMealLog remote, ScheduledExecutorService syncExecutor,
+                          Executor storeExecutor, Executor mainExecutor, Supplier<String> keyGenerator,
+                          LongSupplier clock) {
+        this.store = store;
+        this.remote = remote;
+        this.syncExecutor = syncExecutor;
+        this.storeExecutor = storeExecutor;
+        this.mainExecutor = mainExecutor;
+        this.keyGenerator = keyGenerator;
+        this.clock = clock;
+    }
+
+    /** Engine for the signed-in user, created on first use and replaced when the user changes. */
+    public static synchronized MealSyncEngine getInstance(Context context) {
+        String userId = FirebaseAuth.getInstance().getCurrentUser().getUid();
+        if (instance == null || !userId.equals(instanceUserId)) {
+            if (instance != null) instance.shutdown();
+            DatabaseReference root = FirebaseDatabase.getInstance().getReference();
+            DatabaseReference userRef = root.child("users").child(userId);
+            ExecutorService events = Executors.newSingleThreadExecutor();
+            ExecutorService storeExecutor = Executors.newSingleThreadExecutor();
+            instance = new MealSyncEngine(
+                    new SqliteMealStore(context, userId),
+                    new FirebaseMealRemote(userRef, events),
+                    Executors.newSingleThreadScheduledExecutor(),
+                    storeExecutor,
+                    ContextCompat.getMainExecutor(context.getApplicationContext()),
+                    () -> root.push().getKey(),
+                    System::currentTimeMillis);
+            instance.ownedExecutors = Arrays.asList(events, storeExecutor);
+            instanceUserId = userId;
+            // Drain anything left in the outbox by a previous session
+            instance.scheduleFlush(0);
+        }
+        return instance;
+    }
+
+    /**
+     * Stops listening to the server and lets the executors exit once their queued work is
+     * done. Writes still in the outbox are pushed by the next engine for the same user.
+     */
+    public synchronized void shutdown() {
+        if (shutDown) return;
+        shutDown = true;
+        for (Watch watch : watches.values()) watch.subscription.cancel();
+        watches.clear();
+        syncExecutor.shutdown();
+        for (ExecutorService executor : ownedExecutors) executor.shutdown();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Logs {@code item} locally and queues it for sync; returns its key right away. */
+    @NonNull
+    public String log(@NonNull FoodItem item) {
+        MealEntry entry = newEntry(item, clock.getAsLong());
+        onStore(() -> {
+            synchronized (this) {
+                store.putAndEnqueue(entry);
+            }
+            notifyChanged(Collections.singletonList(entry));
+            scheduleFlush(BATCH_WINDOW_MS);
+        });
+        return entry.key;
+    }
+
+    /**
+     * Logs a copy of every live entry of {@code mealType} on {@code fromDay} as eaten now,
+     * as one unit: one local transaction, one change notification and, for up to
+     * {@link #BATCH_SIZE} items, one multi-path write to the server. Then delivers the new
+     * keys on the main executor.
+     */
+    public void copyMeal(@NonNull String fromDay, @NonNull String mealType,
+                         @NonNull MealLogRepository.Callback<List<String>> callback) {
+        onStore(() -> {
+            List<FoodItem> copies = new ArrayList<>();
+            for (MealEntry entry : entries(fromDay, mealType)) {
+                copies.add(new FoodItem(entry.item));
+            }
+            List<MealEntry> entries = newEntries(copies);
+            List<String> keys = new ArrayList<>(entries.size());
+            for (MealEntry entry : entries) keys.add(entry.key);
+            if (!entries.isEmpty()) putAll(entries);
+            mainExecutor.execute(() -> callback.onLoaded(keys));
+        }, callback);
+    }
+
+    public void delete(@NonNull String key) {
+        onStore(() -> {
+            MealEntry tombstone;
+            synchronized (this) {
+                MealEntry entry = store.get(key);
+                if (entry == null || entry.deleted) return;
+                tombstone = entry.asDeleted(nextVersion(entry));
+                store.putAndEnqueue(tombstone);
+            }
+            notifyChanged(Collections.singletonList(tombstone));
+            scheduleFlush(BATCH_WINDOW_MS);
+        });
+    }
+
+    /**
+     * Live entries for the day, or only those of {@code mealType} if given, oldest first,
+     * delivered on the main executor. Reads only the local store.
+     */
+    public void loadEntries(@NonNull String dayKey, @Nullable String mealType,
+                            @NonNull MealLogRepository.Callback<List<MealEntry>> callback) {
+        onStore(() -> {
+            List<MealEntry> live = entries(dayKey, mealType);
+            mainExecutor.execute(() -> callback.onLoaded(live));
+        }, callback);
+    }
+
+    /** As {@link #loadEntries}, on the calling thread. */
+    @WorkerThread
+    @NonNull
+    public List<MealEntry> entries(@NonNull String dayKey) {
+        return entries(dayKey, null);
+    }
+
+    @WorkerThread
+    @NonNull
+    public List<MealEntry> entries(@NonNull String dayKey, @Nullable String mealType) {
+        List<MealEntry> live = new ArrayList<>();
+        for (MealEntry entry : store.entriesForDay(dayKey)) {
+            if (entry.deleted) continue;
+            if (mealType != null && !mealType.equals(entry.item.getMealType())) continue;
+            live.add(entry);
+        }
+        return Collections.unmodifiableList(live);
+    }
+
+    /**
+     * Keeps the local copy of one meal partition in step with changes made on other devices
+     * until the returned subscription is cancelled. Watchers of the same partition share one
+     * server listener, which is removed when the last of them cancels.
+     */
+    @NonNull
+    public synchronized Subscription watch(@NonNull String dayKey, @NonNull String mealType) {
+        String id = dayKey + "/" + mealType;
+        Watch watch = watches.get(id);
+        if (watch == null) {
+            watch = new Watch(remote.subscribe(dayKey, mealType, remoteListener));
+            watches.put(id, watch);
+        }
+        watch.watchers++;
+        Watch watched = watch;
+        boolean[] cancelled = {false};
+        return () -> {
+            synchronized (MealSyncEngine.this) {
+                if (cancelled[0]) return;
+                cancelled[0] = true;
+                if (--watched.watchers == 0) {
+                    watches.remove(id);
+                    watched.subscription.cancel();
+                }
+            }
+        };
+    }
+
+    /**
+     * Pushes the oldest batch of pending writes. Returns false if the server rejected it,
+     * in which case the outbox is left untouched for the next attempt.
+     */
+    public boolean syncNow() {
+        RemoteMealLog.Batch batch = new RemoteMealLog.Batch();
+        List<MealEntry> acknowledged = new ArrayList<>();
+        long lastSeq;
+        synchronized (this) {
+            List<LocalMealStore.PendingWrite> pending = store.pendingWrites(BATCH_SIZE);
+            if (pending.isEmpty()) return true;
+            lastSeq = pending.get(pending.size() - 1).seq;
+
+            // Several writes to one key collapse into its current state
+            Set<String> keys = new LinkedHashSet<>();
+            for (LocalMealStore.PendingWrite write : pending) keys.add(write.key);
+            for (String key : keys) {
+                MealEntry entry = store.get(key);
+                if (entry == null) continue;
+                if (entry.deleted) {
+                    if (entry.onServer) batch.removed.add(entry);
+                    acknowledged.add(entry.withOnServer(false));
+                } else {
+                    (entry.onServer ? batch.updated : batch.added).add(entry);
+                    acknowledged.add(entry.withOnServer(true));
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            try {
+                remote.push(batch);
+            } catch (Exception e) {
+                Log.w(TAG, "Pushing " + batch.size() + " meal entries failed", e);
+                return false;
+            }
+        }
+        synchronized (this) {
+            store.acknowledge(acknowledged, lastSeq);
+        }
+        return true;
+    }
+
+    /** Last writer wins: the remote copy replaces ours only if its version is higher. */
+    void onRemoteEntry(@NonNull MealEntry remoteEntry) {
+        MealEntry changed = null;
+        synchronized (this) {
+            MealEntry local = store.get(remoteEntry.key);
+            if (local == null || remoteEntry.version() > local.version()) {
+                changed = new MealEntry(remoteEntry.key, remoteEntry.item, false, true);
+                store.put(changed);
+            } else if (!local.onServer) {
+                store.put(local.withOnServer(true));
+            }
+        }
+        if (changed != null) notifyChanged(Collections.singletonList(changed));
+    }
+
+    void onRemoteRemoved(@NonNull String key) {
+        MealEntry changed;
+        synchronized (this) {
+            changed = markRemovedOnServer(store.get(key));
+        }
+        if (changed != null) notifyChanged(Collections.singletonList(changed));
+    }
+
+    /** Catches up on deletions that happened while the partition was not watched. */
+    void onRemoteSynced(@NonNull String dayKey, @NonNull String mealType, @NonNull Set<String> remoteKeys) {
+        List<MealEntry> changed = new ArrayList<>();
+        synchronized (this) {
+            for (MealEntry local : store.entriesForDay(dayKey)) {
+                if (!mealType.equals(local.item.getMealType()) || remoteKeys.contains(local.key)) continue;
+                MealEntry tombstone = markRemovedOnServer(local);
+                if (tombstone != null) changed.add(tombstone);
+            }
+        }
+        if (!changed.isEmpty()) notifyChanged(changed);
+    }
+
+    /** Records that the server no longer holds {@code local}; returns the new tombstone, if any. */
+    @Nullable
+    private MealEntry markRemovedOnServer(@Nullable MealEntry local) {
+        if (local == null || !local.onServer) return null;
+        if (local.deleted || store.hasPendingWrite(local.key)) {
+            // Our own pending state is newer; it will be pushed as-is
+            store.put(local.withOnServer(false));
+            return null;
+        }
+        // Deleted on another device
+        MealEntry tombstone = local.asDeleted(local.version()).withOnServer(false);
+        store.put(tombstone);
+        return tombstone;
+    }
+
+    static long retryDelayMs(int failures) {
+        long delay = BATCH_WINDOW_MS << Math.min(failures, 20);
+        return Math.min(delay, MAX_RETRY_DELAY_MS);
+    }
+
+    private MealEntry newEntry(FoodItem item, long now) {
+        item.setTimestamp(now);
+        item.setVersion(now);
+        return new MealEntry(keyGenerator.get(), item, false, false);
+    }
+
+    private List<MealEntry> newEntries(List<FoodItem> items) {
+        long now = clock.getAsLong();
+        List<MealEntry> entries = new ArrayList<>(items.size());
+        for (FoodItem item : items) entries.add(newEntry(item, now));
+        return entries;
+    }
+
+    private void putAll(List<MealEntry> entries) {
+        synchronized (this) {
+            store.putAndEnqueueAll(entries);
+        }
+        notifyChanged(entries);
+        // The batch is already complete, so there is nothing to wait for
+        scheduleFlush(0);
+    }
+
+    private void onStore(Runnable task) {
+        storeExecutor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Local meal store operation failed", e);
+            }
+        });
+    }
+
+    /** As above, reporting a failure to {@code callback} on the main executor. */
+    private void onStore(Runnable task, MealLogRepository.Callback<?> callback) {
+        storeExecutor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Local meal store operation failed", e);
+                mainExecutor.execute(() -> callback.onError(e));
+            }
+        });
+    }
+
+    private long nextVersion(MealEntry entry) {
+        return Math.max(clock.getAsLong(), entry.version() + 1);
+    }
+
+    private synchronized void scheduleFlush(long delayMs) {
+        if (flushScheduled || shutDown) return;
+        flushScheduled = true;
+        syncExecutor.schedule(this::flush, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush() {
+        synchronized (this) {
+            flushScheduled = false;
+        }
+        while (true) {
+            if (!syncNow()) {
+                consecutiveFailures++;
+                scheduleFlush(retryDelayMs(consecutiveFailures));
+                return;
+            }
+            consecutiveFailures = 0;
+            synchronized (this) {
+                if (store.pendingWrites(1).isEmpty()) return;
+            }
+        }
+    }
+
+    private void notifyChanged(List<MealEntry> entries) {
+        List<MealEntry> changed = Collections.unmodifiableList(entries);
+        mainExecutor.execute(() -> {
+            for (Listener listener : listeners) {
+                listener.onEntriesChanged(changed);
+            }
+        });
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.nirvana.data.sync;
+
+import androidx.annotation.NonNull;
+import com.example.nirvana.data.local.MealEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/** The server side of meal sync: Firebase in the app, an in-memory fake in tests. */
+public interface RemoteMealLog {
+
+    /** Mutations to apply atomically. Only {@code added} and {@code removed} move the daily totals. */
+    class Batch {
+        public final List<MealEntry> added = new ArrayList<>();
+        public final List<MealEntry> updated = new ArrayList<>();
+        public final List<MealEntry> removed = new ArrayList<>();
+
+        public boolean isEmpty() {
+            return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+        }
+
+        public int size() {
+            return added.size() + updated.size() + removed.size();
+        }
+    }
+
+    /** Per-entry changes to one meal partition. */
+    interface Listener {
+        /** An entry was added or changed on the server. */
+        void onEntryChanged(@NonNull MealEntry entry);
+
+        void onEntryRemoved(@NonNull String key);
+
+        /**
+         * Delivered once, after the entries present at subscription time. {@code keys} is
+         * everything the server holds for the partition, so anything synced earlier and
+         * missing from it was deleted while nobody was listening.
+         */
+        void onSynced(@NonNull String dayKey, @NonNull String mealType, @NonNull Set<String> keys);
+    }
+
+    /**
+     * Applies the batch in one write and blocks until the server acknowledges it.
+     * Throws only when the write was definitively rejected and can safely be retried.
+     */
+    void push(@NonNull Batch batch) throws Exception;
+
+    @NonNull
+    Subscription subscribe(@NonNull String dayKey, @NonNull String mealType, @NonNull Listener listener);
+}
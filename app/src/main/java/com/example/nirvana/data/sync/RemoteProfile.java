@@ -0,0 +1,24 @@
+package com.example.nirvana.data.sync;
+
+import androidx.annotation.NonNull;
+import com.example.nirvana.data.models.UserProfile;
+import com.example.nirvana.data.repository.MealLogRepository;
+
+/** The server copy of the user's profile: Firestore in the app, an in-memory fake in tests. */
+public interface RemoteProfile {
+
+    interface Listener {
+        /** The profile as the server has it now; called again on every change. */
+        void onProfile(@NonNull UserProfile profile);
+    }
+
+    /**
+     * Delivers the profile while subscribed, on the main thread. Nothing is delivered
+     * while the user has no profile yet.
+     */
+    @NonNull
+    Subscription subscribe(@NonNull Listener listener);
+
+    /** Replaces the stored profile. */
+    void save(@NonNull UserProfile profile, @NonNull MealLogRepository.Callback<Void> callback);
+}
@@ -0,0 +1,6 @@
+package com.example.nirvana.data.sync;
+
+/** Ends a registration made with one of the {@code subscribe} or {@code observe} methods. */
+public interface Subscription {
+    void cancel();
+}
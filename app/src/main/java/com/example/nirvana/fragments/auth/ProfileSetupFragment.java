@@ -9,27 +9,28 @@ import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.RadioGroup;
+import android.widget.Spinner;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 
 import com.example.nirvana.R;
 import com.example.nirvana.activities.MainActivity;
+import com.example.nirvana.data.models.UserProfile;
+import com.example.nirvana.data.repository.MealLogRepository;
+import com.example.nirvana.data.repository.ProfileRepository;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
-
-import java.util.HashMap;
-import java.util.Map;
 
 public class ProfileSetupFragment extends Fragment {
 
     private EditText etName, etAge, etWeight, etHeight;
     private RadioGroup rgGender;
+    private Spinner spinnerFitnessGoal, spinnerActivityLevel;
     private Button btnSaveContinue;
 
     private FirebaseAuth mAuth;
-    private FirebaseFirestore db;
 
     public ProfileSetupFragment() {
         // Required empty public constructor
@@ -42,7 +43,6 @@ public class ProfileSetupFragment extends Fragment {
 
         // Initialize Firebase
         mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
 
         // Bind Views
         etName = view.findViewById(R.id.etName);
@@ -50,6 +50,8 @@ public class ProfileSetupFragment extends Fragment {
         etWeight = view.findViewById(R.id.etWeight);
         etHeight = view.findViewById(R.id.etHeight);
         rgGender = view.findViewById(R.id.rgGender);
+        spinnerFitnessGoal = view.findViewById(R.id.spinnerFitnessGoal);
+        spinnerActivityLevel = view.findViewById(R.id.spinnerActivityLevel);
         btnSaveContinue = view.findViewById(R.id.btnSaveProfile);
 
         // Set button click listener
@@ -102,24 +104,32 @@ public class ProfileSetupFragment extends Fragment {
             return;
         }
 
-        // Create user data map
-        Map<String, Object> userProfile = new HashMap<>();
-        userProfile.put("name", name);
-        userProfile.put("age", age);
-        userProfile.put("weight", weight);
-        userProfile.put("height", height);
-        userProfile.put("gender", gender);
-        userProfile.put("email", user.getEmail());
-
-        // Save to Firestore
-        db.collection("Users").document(user.getUid())
-                .set(userProfile)
-                .addOnSuccessListener(aVoid -> {
-                    Toast.makeText(getContext(), "Profile saved successfully!", Toast.LENGTH_SHORT).show();
-                    navigateToHome();
-                })
-                .addOnFailureListener(e ->
-                        Toast.makeText(getContext(), "Error saving profile: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+        UserProfile profile = new UserProfile();
+        profile.setName(name);
+        profile.setAge(age);
+        profile.setWeight(weight);
+        profile.setHeight(height);
+        profile.setGender(gender);
+        profile.setEmail(user.getEmail());
+        // The spinners list these in the same order as the enums
+        profile.setFitnessGoal(UserProfile.FitnessGoal.values()[spinnerFitnessGoal.getSelectedItemPosition()]);
+        profile.setActivityLevel(UserProfile.ActivityLevel.values()[spinnerActivityLevel.getSelectedItemPosition()]);
+
+        // Cached on the device right away, so the diet goals are ready before the write lands
+        ProfileRepository.getInstance(requireContext()).save(profile, new MealLogRepository.Callback<Void>() {
+            @Override
+            public void onLoaded(Void result) {
+                if (!isAdded()) return;
+                Toast.makeText(getContext(), "Profile saved successfully!", Toast.LENGTH_SHORT).show();
+                navigateToHome();
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                if (!isAdded()) return;
+                Toast.makeText(getContext(), "Error saving profile: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private String getSelectedGender() {
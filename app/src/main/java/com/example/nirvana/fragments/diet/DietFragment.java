@@ -1,17 +1,25 @@
 package com.example.nirvana.fragments.diet;
 
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.Navigation;
 
 import com.example.nirvana.R;
-import com.example.nirvana.data.models.FoodItem;
+import com.example.nirvana.data.models.NutrientGoals;
+import com.example.nirvana.data.models.NutrientTotals;
+import com.example.nirvana.data.repository.DailyTotalsRepository;
+import com.example.nirvana.data.repository.MealDayRepository;
+import com.example.nirvana.data.repository.MealLogRepository;
+import com.example.nirvana.data.repository.ProfileRepository;
+import com.example.nirvana.ui.ScreenLoad;
 import com.github.mikephil.charting.charts.PieChart;
 import com.github.mikephil.charting.data.PieData;
 import com.github.mikephil.charting.data.PieDataSet;
@@ -19,24 +27,50 @@ import com.github.mikephil.charting.data.PieEntry;
 import com.github.mikephil.charting.utils.ColorTemplate;
 import com.google.android.material.button.MaterialButton;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 public class DietFragment extends Fragment {
 
+    private static final String TAG = "DietFragment";
+    // Only waited on until a profile has been cached on this device
+    private static final long PROFILE_TIMEOUT_MS = 3_000;
+    // Local store read; only slow if the disk is
+    private static final long TOTALS_TIMEOUT_MS = 1_000;
+
     private PieChart macrosChart;
-    private MaterialButton btnLogDiet;
-    private TextView tvCalories, tvRemaining, tvGoal;
+    private MaterialButton btnLogDiet, btnTrends;
+    private TextView tvTitle, tvCalories, tvRemaining, tvGoal, tvMacroGoals;
 
     private FirebaseAuth mAuth;
     private DatabaseReference mDatabase;
     private String userId;
+    private ScreenLoad<DashboardState> dashboard;
+
+    /** Everything the dashboard shows; each source contributes a copy with its part filled in. */
+    static final class DashboardState {
+        @Nullable final NutrientTotals totals;
+        @Nullable final NutrientGoals goals;
+        @Nullable final String name;
+
+        DashboardState(@Nullable NutrientTotals totals, @Nullable NutrientGoals goals, @Nullable String name) {
+            this.totals = totals;
+            this.goals = goals;
+            this.name = name;
+        }
+
+        DashboardState withTotals(NutrientTotals totals) {
+            return new DashboardState(totals, goals, name);
+        }
+
+        DashboardState withProfile(String name, NutrientGoals goals) {
+            return new DashboardState(totals, goals, name);
+        }
+    }
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
@@ -46,87 +80,113 @@ public class DietFragment extends Fragment {
         initializeViews(view);
         initializeFirebase();
         setupButtonListeners();
-        loadUserDietData();
+        loadDashboard();
 
         return view;
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        dashboard.cancel();
+    }
+
     private void initializeViews(View view) {
+        tvTitle = view.findViewById(R.id.tvTitle);
         macrosChart = view.findViewById(R.id.macrosChart);
         btnLogDiet = view.findViewById(R.id.btnLogDiet);
+        btnTrends = view.findViewById(R.id.btnTrends);
         tvCalories = view.findViewById(R.id.tvCalories);
         tvRemaining = view.findViewById(R.id.tvRemaining);
         tvGoal = view.findViewById(R.id.tvGoal);
+        tvMacroGoals = view.findViewById(R.id.tvMacroGoals);
     }
 
     private void initializeFirebase() {
         mAuth = FirebaseAuth.getInstance();
         mDatabase = FirebaseDatabase.getInstance().getReference();
         userId = mAuth.getCurrentUser().getUid();
-    }
-
-    private void setupButtonListeners() {
-        btnLogDiet.setOnClickListener(v ->
-                Navigation.findNavController(v).navigate(R.id.action_dietFragment_to_logDietFragment));
-    }
 
-    private void loadUserDietData() {
-        mDatabase.child("users").child(userId).child("meals").addListenerForSingleValueEvent(new ValueEventListener() {
+        // Older accounts still have the flat meals/{mealType} layout; move it into day partitions once
+        DatabaseReference userRef = mDatabase.child("users").child(userId);
+        MealLogRepository meals = new MealLogRepository(userRef);
+        meals.migrateLegacyMeals(new MealLogRepository.Callback<Void>() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                calculateNutrientTotals(snapshot);
-                fetchCalorieGoal();
+            public void onLoaded(Void result) {
+                // Week and month rollups were added later; fill them in from the meal log once.
+                // Only after the migration, or the legacy entries would be left out for good.
+                new DailyTotalsRepository(userRef).backfillRollups(meals);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                // Handle error
+            public void onError(@NonNull Exception e) {
+                // Both are retried the next time this screen opens
             }
         });
     }
 
-    private void calculateNutrientTotals(DataSnapshot snapshot) {
-        long totalCalories = 0;
-        long totalProtein = 0;
-        long totalCarbs = 0;
-        long totalFat = 0;
-
-        for (DataSnapshot mealSnapshot : snapshot.getChildren()) {
-            for (DataSnapshot foodSnapshot : mealSnapshot.getChildren()) {
-                FoodItem foodItem = foodSnapshot.getValue(FoodItem.class);
-                if (foodItem != null) {
-                    totalCalories += foodItem.getCalories();
-                    totalProtein += foodItem.getProtein();
-                    totalCarbs += foodItem.getCarbs();
-                    totalFat += foodItem.getFat();
-                }
-            }
-        }
-
-        updateUI(totalCalories, totalProtein, totalCarbs, totalFat);
+    private void setupButtonListeners() {
+        btnLogDiet.setOnClickListener(v ->
+                Navigation.findNavController(v).navigate(R.id.action_dietFragment_to_logDietFragment));
+        btnTrends.setOnClickListener(v ->
+                Navigation.findNavController(v).navigate(R.id.action_dietFragment_to_trendsFragment));
     }
 
-    private void fetchCalorieGoal() {
-        mDatabase.child("users").child(userId).child("diet").child("goal").get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful() && task.getResult() != null) {
-                        Long goal = task.getResult().getValue(Long.class);
-                        if (goal != null) {
-                            updateCalorieGoal(goal);
-                        }
-                    }
-                });
+    /**
+     * Today's totals and the profile load in parallel and are rendered together once both
+     * have arrived or timed out, rather than one after another. Goals are computed from the
+     * profile on the device instead of being read from the server.
+     */
+    private void loadDashboard() {
+        String today = DailyTotalsRepository.dayKey(System.currentTimeMillis());
+        ProfileRepository profiles = ProfileRepository.getInstance(requireContext());
+        dashboard = new ScreenLoad<>(new DashboardState(null, null, null),
+                ScreenLoad.mainThread(), this::render)
+                // Today's entries come from the local store, so these arrive without waiting on the
+                // network; the day's totals are shared with the meal pages rather than computed again here
+                .add("totals", TOTALS_TIMEOUT_MS, sink -> MealDayRepository.getInstance(requireContext())
+                                .observe(getViewLifecycleOwner(), today, null, tally -> sink.onValue(copyOf(tally.totals()))),
+                        DashboardState::withTotals)
+                // The cached profile arrives right away; the server copy follows only if it changed
+                .<DashboardState>add("profile", PROFILE_TIMEOUT_MS, sink -> profiles
+                                .observe(getViewLifecycleOwner(), (profile, goals) ->
+                                        sink.onValue(new DashboardState(null, goals, profile.getName()))),
+                        (state, observed) -> state.withProfile(observed.name, observed.goals));
+        dashboard.start();
     }
 
-    private void updateUI(long calories, long protein, long carbs, long fat) {
-        tvCalories.setText(String.valueOf(calories));
-        setupMacrosChart(protein, carbs, fat);
+    private static NutrientTotals copyOf(NutrientTotals totals) {
+        NutrientTotals copy = new NutrientTotals();
+        copy.setCalories(totals.getCalories());
+        copy.setProtein(totals.getProtein());
+        copy.setCarbs(totals.getCarbs());
+        copy.setFat(totals.getFat());
+        return copy;
     }
 
-    private void updateCalorieGoal(long goal) {
-        tvGoal.setText(String.valueOf(goal));
-        long remaining = goal - Long.parseLong(tvCalories.getText().toString());
-        tvRemaining.setText(String.valueOf(remaining));
+    private void render(DashboardState state) {
+        if (!dashboard.missing().isEmpty()) Log.w(TAG, "Rendering without " + dashboard.missing());
+
+        long calories = 0;
+        if (state.totals != null) {
+            calories = Math.round(state.totals.getCalories());
+            tvCalories.setText(String.valueOf(calories));
+            setupMacrosChart(Math.round(state.totals.getProtein()), Math.round(state.totals.getCarbs()),
+                    Math.round(state.totals.getFat()));
+        }
+        if (state.goals != null) {
+            tvGoal.setText(String.valueOf(state.goals.calories));
+            tvRemaining.setText(String.valueOf(state.goals.calories - calories));
+            NutrientTotals totals = state.totals != null ? state.totals : new NutrientTotals();
+            tvMacroGoals.setText(String.format(Locale.getDefault(),
+                    "Protein %d / %d g   Carbs %d / %d g   Fat %d / %d g",
+                    Math.round(totals.getProtein()), state.goals.protein,
+                    Math.round(totals.getCarbs()), state.goals.carbs,
+                    Math.round(totals.getFat()), state.goals.fat));
+        }
+        if (state.name != null && !state.name.isEmpty()) {
+            tvTitle.setText(state.name.split(" ")[0] + "'s Nutrition Today");
+        }
     }
 
     private void setupMacrosChart(long protein, long carbs, long fat) {
@@ -17,26 +17,45 @@ import androidx.fragment.app.DialogFragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.nirvana.R;
-import com.example.nirvana.adapters.FoodSearchAdapter;
 import com.example.nirvana.api.ApiClient;
-import com.example.nirvana.api.FatSecretApi;
+import com.example.nirvana.api.FoodDescription;
+import com.example.nirvana.api.FoodSearchPager;
+import com.example.nirvana.api.FoodSearchPipeline;
 import com.example.nirvana.api.FoodSearchResponse;
-import retrofit2.Call;
-import retrofit2.Callback;
+import com.example.nirvana.api.QuotaGuard;
+import com.example.nirvana.api.ServingPrefetcher;
+import com.example.nirvana.data.local.FoodPrefixIndex;
+import com.example.nirvana.data.local.OfflineFoodDb;
+import com.example.nirvana.data.models.FoodItem;
+import com.example.nirvana.ui.adapters.FoodSearchAdapter;
 import retrofit2.Response;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class FoodSearchDialog extends DialogFragment {
 
+    // Local matches shown above the remote pages
+    private static final int MAX_RESULTS = 20;
+    // Enough matches from the user's own history to skip FatSecret for this query. Snapshot
+    // matches don't count: common foods fill it easily, and the user could never page past it
+    private static final int LOCAL_RESULTS_ENOUGH = 8;
+
     private EditText etSearch;
     private RecyclerView rvSearchResults;
     private ProgressBar progressBar;
-    private FatSecretApi fatSecretApi;
-    private List<FoodSearchResponse.FoodItem> searchResults = new ArrayList<>();
+    private FoodSearchPipeline searchPipeline;
+    private FoodSearchPager pager;
+    private ServingPrefetcher prefetcher;
+    private FoodPrefixIndex foodIndex;
+    @Nullable
+    private OfflineFoodDb offlineDb;
+    private List<FoodSearchResponse.FoodItem> localResults = new ArrayList<>();
     private FoodSearchAdapter adapter;
     private MealFragment parentFragment;
+    private boolean unavailableShown;
 
     public FoodSearchDialog() {}
 
@@ -62,12 +81,47 @@ public class FoodSearchDialog extends DialogFragment {
         progressBar = view.findViewById(R.id.progressBar);
 
         rvSearchResults.setLayoutManager(new LinearLayoutManager(getContext()));
-        adapter = new FoodSearchAdapter(searchResults, foodItem -> {
-            showServingSelectionDialog(foodItem);
+        pager = new FoodSearchPager(ApiClient.getFatSecretApi(requireContext()), new PagerListener());
+        adapter = new FoodSearchAdapter(pager.getItems(), new FoodSearchAdapter.OnFoodClickListener() {
+            @Override
+            public void onFoodClick(FoodSearchResponse.FoodItem food) {
+                showServingSelectionDialog(food);
+            }
+
+            @Override
+            public boolean onFoodLongClick(FoodSearchResponse.FoodItem food) {
+                return quickAdd(food);
+            }
         });
         rvSearchResults.setAdapter(adapter);
 
-        fatSecretApi = ApiClient.getFatSecretApi(requireContext());
+        searchPipeline = new FoodSearchPipeline(
+                ApiClient.getFatSecretApi(requireContext()),
+                FoodSearchPipeline.mainThreadScheduler(),
+                new SearchListener());
+        foodIndex = FoodPrefixIndex.getInstance(requireContext());
+        OfflineFoodDb.preload(requireContext());
+        prefetcher = ApiClient.getServingPrefetcher(requireContext());
+
+        // Once the list settles, warm the servings of whatever the user is now looking at
+        rvSearchResults.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                int first = layoutManager.findFirstVisibleItemPosition();
+                if (first != RecyclerView.NO_POSITION) {
+                    pager.onVisibleRange(first, layoutManager.findLastVisibleItemPosition());
+                }
+            }
+
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    pager.retryFailed();
+                    prefetchVisible();
+                }
+            }
+        });
 
         etSearch.addTextChangedListener(new TextWatcher() {
             @Override
@@ -75,12 +129,7 @@ public class FoodSearchDialog extends DialogFragment {
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
-                if (s.length() >= 2) {
-                    searchFoods(s.toString());
-                } else if (s.length() == 0) {
-                    searchResults.clear();
-                    adapter.notifyDataSetChanged();
-                }
+                onQueryChanged(s.toString());
             }
 
             @Override
@@ -90,72 +139,190 @@ public class FoodSearchDialog extends DialogFragment {
         return view;
     }
 
-    private void searchFoods(String query) {
-        if (query == null || query.trim().isEmpty()) {
-            Toast.makeText(getContext(), "Please enter a search term", Toast.LENGTH_SHORT).show();
+    private void onQueryChanged(String query) {
+        prefetcher.cancel();
+        String trimmed = query.trim();
+        if (trimmed.length() < FoodSearchPipeline.DEFAULT_MIN_QUERY_LENGTH) {
+            // The pipeline reports this through onCleared, which empties the list and hides the spinner
+            searchPipeline.onQueryChanged(query);
             return;
         }
 
-        if (query.length() < 2) {
-            Toast.makeText(getContext(), "Please enter at least 2 characters", Toast.LENGTH_SHORT).show();
-            return;
+        // Foods the user already knows show up instantly, then the bundled snapshot;
+        // FatSecret only fills the gap
+        localResults = foodIndex.search(trimmed, MAX_RESULTS);
+        int known = localResults.size();
+        addOfflineMatches(trimmed);
+        pager.start(null, localResults, null);
+
+        if (known >= LOCAL_RESULTS_ENOUGH) {
+            searchPipeline.cancel();
+            progressBar.setVisibility(View.GONE);
+            rvSearchResults.setVisibility(View.VISIBLE);
+            prefetcher.prefetch(needingServings(localResults));
+        } else {
+            searchPipeline.onQueryChanged(query);
         }
+    }
 
-        progressBar.setVisibility(View.VISIBLE);
-        rvSearchResults.setVisibility(View.GONE);
-
-        fatSecretApi.searchFoods("foods.search", query, 0, 20, "json")
-            .enqueue(new Callback<FoodSearchResponse>() {
-                @Override
-                public void onResponse(Call<FoodSearchResponse> call, Response<FoodSearchResponse> response) {
-                    progressBar.setVisibility(View.GONE);
-                    rvSearchResults.setVisibility(View.VISIBLE);
-
-                    if (response.isSuccessful() && response.body() != null) {
-                        searchResults.clear();
-                        if (response.body().foods != null && !response.body().foods.isEmpty()) {
-                            searchResults.addAll(response.body().foods);
-                            adapter.notifyDataSetChanged();
-                        } else {
-                            Toast.makeText(getContext(), "No food items found", Toast.LENGTH_SHORT).show();
-                        }
-                    } else {
-                        String errorMessage = "Failed to search food items";
-                        if (response.errorBody() != null) {
-                            try {
-                                String errorBody = response.errorBody().string();
-                                Log.e("FoodSearch", "Error response: " + errorBody);
-                                // Check if it's an XML error response
-                                if (errorBody.contains("<error>") && errorBody.contains("<message>")) {
-                                    int start = errorBody.indexOf("<message>") + 9;
-                                    int end = errorBody.indexOf("</message>");
-                                    if (start > 8 && end > start) {
-                                        errorMessage = errorBody.substring(start, end);
-                                    }
-                                }
-                            } catch (IOException e) {
-                                Log.e("FoodSearch", "Error parsing response", e);
+    /** The offline snapshot once its background load has finished, else null. */
+    @Nullable
+    private OfflineFoodDb offlineDb() {
+        if (offlineDb == null) offlineDb = OfflineFoodDb.peek();
+        return offlineDb;
+    }
+
+    private void addOfflineMatches(String query) {
+        OfflineFoodDb offlineDb = offlineDb();
+        if (offlineDb == null || localResults.size() >= MAX_RESULTS) return;
+        Set<String> shown = new HashSet<>();
+        for (FoodSearchResponse.FoodItem food : localResults) shown.add(food.food_id);
+        for (FoodSearchResponse.FoodItem food : offlineDb.search(query, MAX_RESULTS)) {
+            if (localResults.size() >= MAX_RESULTS) break;
+            if (shown.add(food.food_id)) localResults.add(food);
+        }
+    }
+
+    /** Foods whose servings aren't in the bundled snapshot, so are worth prefetching. */
+    private List<FoodSearchResponse.FoodItem> needingServings(List<FoodSearchResponse.FoodItem> foods) {
+        List<FoodSearchResponse.FoodItem> remote = new ArrayList<>(foods.size());
+        OfflineFoodDb offlineDb = offlineDb();
+        for (FoodSearchResponse.FoodItem food : foods) {
+            if (offlineDb == null || food.food_id == null || offlineDb.find(food.food_id) < 0) remote.add(food);
+        }
+        return remote;
+    }
+
+    @Override
+    public void onDestroyView() {
+        searchPipeline.cancel();
+        pager.cancel();
+        prefetcher.cancel();
+        super.onDestroyView();
+    }
+
+    private class SearchListener implements FoodSearchPipeline.Listener {
+        @Override
+        public void onSearchStarted(String query) {
+            progressBar.setVisibility(View.VISIBLE);
+            rvSearchResults.setVisibility(localResults.isEmpty() ? View.GONE : View.VISIBLE);
+        }
+
+        @Override
+        public void onResponse(String query, Response<FoodSearchResponse> response) {
+            progressBar.setVisibility(View.GONE);
+            rvSearchResults.setVisibility(View.VISIBLE);
+
+            if (response.isSuccessful() && response.body() != null) {
+                if (response.body().foods != null && !response.body().foods.isEmpty()) {
+                    foodIndex.recordSeen(response.body().foods);
+                }
+                // Later pages load as the user scrolls towards the end
+                pager.start(query, localResults, response.body());
+                if (pager.getItems().isEmpty()) {
+                    Toast.makeText(getContext(), "No food items found", Toast.LENGTH_SHORT).show();
+                }
+                prefetcher.prefetch(needingServings(pager.getItems()));
+            } else {
+                String errorMessage = "Failed to search food items";
+                if (response.errorBody() != null) {
+                    try {
+                        String errorBody = response.errorBody().string();
+                        Log.e("FoodSearch", "Error response: " + errorBody);
+                        // Check if it's an XML error response
+                        if (errorBody.contains("<error>") && errorBody.contains("<message>")) {
+                            int start = errorBody.indexOf("<message>") + 9;
+                            int end = errorBody.indexOf("</message>");
+                            if (start > 8 && end > start) {
+                                errorMessage = errorBody.substring(start, end);
                             }
                         }
-                        Toast.makeText(getContext(), errorMessage, Toast.LENGTH_SHORT).show();
+                    } catch (IOException e) {
+                        Log.e("FoodSearch", "Error parsing response", e);
                     }
                 }
+                Toast.makeText(getContext(), errorMessage, Toast.LENGTH_SHORT).show();
+            }
+        }
 
-                @Override
-                public void onFailure(Call<FoodSearchResponse> call, Throwable t) {
-                    progressBar.setVisibility(View.GONE);
-                    rvSearchResults.setVisibility(View.VISIBLE);
-                    String errorMessage = "Network error: " + t.getMessage();
-                    Toast.makeText(getContext(), errorMessage, Toast.LENGTH_SHORT).show();
-                    Log.e("FoodSearch", "Search failed", t);
+        @Override
+        public void onFailure(String query, Throwable t) {
+            progressBar.setVisibility(View.GONE);
+            rvSearchResults.setVisibility(View.VISIBLE);
+            if (t instanceof QuotaGuard.CircuitOpenException) {
+                // FatSecret is down; the local matches on screen are what we can offer, so say it once
+                if (!unavailableShown) {
+                    unavailableShown = true;
+                    Toast.makeText(getContext(), "Online search is unavailable, showing saved foods",
+                            Toast.LENGTH_SHORT).show();
                 }
-            });
+                return;
+            }
+            String errorMessage = "Network error: " + t.getMessage();
+            Toast.makeText(getContext(), errorMessage, Toast.LENGTH_SHORT).show();
+            Log.e("FoodSearch", "Search failed", t);
+        }
+
+        @Override
+        public void onCleared() {
+            progressBar.setVisibility(View.GONE);
+            rvSearchResults.setVisibility(View.VISIBLE);
+            localResults = new ArrayList<>();
+            pager.start(null, localResults, null);
+        }
+    }
+
+    private class PagerListener implements FoodSearchPager.Listener {
+        @Override
+        public void onReset() {
+            adapter.notifyDataSetChanged();
+        }
+
+        @Override
+        public void onItemRangeInserted(int position, int count) {
+            adapter.notifyItemRangeInserted(position, count);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int position, int count) {
+            adapter.notifyItemRangeRemoved(position, count);
+        }
+
+        @Override
+        public void onPageFailed(int page, Throwable t) {
+            Log.e("FoodSearch", "Loading page " + page + " failed", t);
+            Toast.makeText(getContext(), "Couldn't load more results", Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    private void prefetchVisible() {
+        LinearLayoutManager layoutManager = (LinearLayoutManager) rvSearchResults.getLayoutManager();
+        if (layoutManager == null) return;
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION || last < first) return;
+        List<FoodSearchResponse.FoodItem> items = pager.getItems();
+        if (first >= items.size()) return;
+        prefetcher.prefetch(needingServings(items.subList(first, Math.min(last + 1, items.size()))));
+    }
+
+    /** Logs the serving the search description refers to, without fetching the food. */
+    private boolean quickAdd(FoodSearchResponse.FoodItem food) {
+        FoodDescription description = FoodDescription.parse(food.food_description);
+        if (description == null) return false;
+        FoodItem item = ServingSelectionDialog.fromDescription(
+                food.food_id, food.food_name, description, parentFragment.getMealType());
+        parentFragment.addFoodItem(item);
+        Toast.makeText(getContext(), "Added " + food.food_name, Toast.LENGTH_SHORT).show();
+        return true;
     }
 
     private void showServingSelectionDialog(FoodSearchResponse.FoodItem foodItem) {
         ServingSelectionDialog dialog = ServingSelectionDialog.newInstance(
                 foodItem.food_id,
                 foodItem.food_name,
+                foodItem.food_description,
+                offlineDb(),
                 parentFragment
         );
         dialog.show(getChildFragmentManager(), "ServingSelectionDialog");
@@ -5,21 +5,25 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
+import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.nirvana.R;
+import com.example.nirvana.data.local.FoodPrefixIndex;
+import com.example.nirvana.data.local.MealEntry;
+import com.example.nirvana.data.local.MealTally;
 import com.example.nirvana.data.models.FoodItem;
+import com.example.nirvana.data.models.NutrientTotals;
+import com.example.nirvana.data.repository.DailyTotalsRepository;
+import com.example.nirvana.data.repository.MealDayRepository;
+import com.example.nirvana.data.repository.MealLogRepository;
+import com.example.nirvana.data.sync.MealSyncEngine;
 import com.example.nirvana.ui.adapters.FoodItemAdapter;
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
-import java.util.ArrayList;
+import com.google.android.material.button.MaterialButton;
+import java.time.LocalDate;
 import java.util.List;
 
 public class MealFragment extends Fragment {
@@ -35,14 +39,16 @@ public class MealFragment extends Fragment {
     private TextView tvTotalFat;
     private RecyclerView rvFoodItems;
     private TextView tvEmptyState;
+    private MaterialButton btnCopyYesterday;
 
     // Adapter
     private FoodItemAdapter adapter;
-    private List<FoodItem> foodItems = new ArrayList<>();
 
-    // Firebase
-    private DatabaseReference mDatabase;
-    private String userId;
+    // Local meal log, synced to Firebase in the background
+    private MealSyncEngine mealSync;
+    private boolean canCopyYesterday;
+    @Nullable
+    private MealTally shown;
 
     public MealFragment() {
         // Required empty public constructor
@@ -63,9 +69,7 @@ public class MealFragment extends Fragment {
             mealType = getArguments().getString(ARG_MEAL_TYPE);
         }
 
-        // Initialize Firebase
-        mDatabase = FirebaseDatabase.getInstance().getReference();
-        userId = FirebaseAuth.getInstance().getCurrentUser().getUid();
+        mealSync = MealSyncEngine.getInstance(requireContext());
     }
 
     @Override
@@ -81,81 +85,107 @@ public class MealFragment extends Fragment {
         tvTotalFat = view.findViewById(R.id.tvTotalFat);
         rvFoodItems = view.findViewById(R.id.rvFoodItems);
         tvEmptyState = view.findViewById(R.id.tvEmptyState);
+        btnCopyYesterday = view.findViewById(R.id.btnCopyYesterday);
 
         // Set meal header
         tvMealHeader.setText(mealType);
 
         // Setup RecyclerView
         rvFoodItems.setLayoutManager(new LinearLayoutManager(getContext()));
-        adapter = new FoodItemAdapter(foodItems, foodItem -> {
+        adapter = new FoodItemAdapter(entry -> {
             // Handle item click (e.g., edit or delete)
-            showFoodItemOptions(foodItem);
+            showFoodItemOptions(entry);
         });
         rvFoodItems.setAdapter(adapter);
 
-        // Load meal items
-        loadMealItems();
+        btnCopyYesterday.setOnClickListener(v -> copyYesterday());
+
+        // Shared with the other pages and the dashboard; only delivered while this page is
+        // resumed, and ViewPager2 pauses the pages that are off screen
+        MealDayRepository.getInstance(requireContext())
+                .observe(getViewLifecycleOwner(), today(), mealType, this::render);
 
         return view;
     }
 
-    private void loadMealItems() {
-        mDatabase.child("users").child(userId).child("meals").child(mealType)
-                .addValueEventListener(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        foodItems.clear();
-                        double totalCalories = 0;
-                        double totalProtein = 0;
-                        double totalCarbs = 0;
-                        double totalFat = 0;
-
-                        for (DataSnapshot dataSnapshot : snapshot.getChildren()) {
-                            FoodItem foodItem = dataSnapshot.getValue(FoodItem.class);
-                            if (foodItem != null) {
-                                foodItems.add(foodItem);
-                                totalCalories += foodItem.getCalories();
-                                totalProtein += foodItem.getProtein();
-                                totalCarbs += foodItem.getCarbs();
-                                totalFat += foodItem.getFat();
-                            }
-                        }
-
-                        // Update totals
-                        tvTotalCalories.setText(String.format("%.0f", totalCalories));
-                        tvTotalProtein.setText(String.format("%.0fg", totalProtein));
-                        tvTotalCarbs.setText(String.format("%.0fg", totalCarbs));
-                        tvTotalFat.setText(String.format("%.0fg", totalFat));
-
-                        // Show empty state if no items
-                        if (foodItems.isEmpty()) {
-                            tvEmptyState.setVisibility(View.VISIBLE);
-                            rvFoodItems.setVisibility(View.GONE);
-                        } else {
-                            tvEmptyState.setVisibility(View.GONE);
-                            rvFoodItems.setVisibility(View.VISIBLE);
-                        }
-
-                        adapter.notifyDataSetChanged();
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        // Handle error
-                    }
-                });
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        shown = null;
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        mealSync.loadEntries(yesterday(), mealType, new MealLogRepository.Callback<List<MealEntry>>() {
+            @Override
+            public void onLoaded(List<MealEntry> entries) {
+                canCopyYesterday = !entries.isEmpty();
+                if (shown != null && getView() != null) render(shown);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                canCopyYesterday = false;
+            }
+        });
+    }
+
+    private void render(MealTally tally) {
+        shown = tally;
+        NutrientTotals totals = tally.totals();
+        tvTotalCalories.setText(String.format("%.0f", totals.getCalories()));
+        tvTotalProtein.setText(String.format("%.0fg", totals.getProtein()));
+        tvTotalCarbs.setText(String.format("%.0fg", totals.getCarbs()));
+        tvTotalFat.setText(String.format("%.0fg", totals.getFat()));
+
+        // Show empty state if no items
+        if (tally.isEmpty()) {
+            tvEmptyState.setVisibility(View.VISIBLE);
+            rvFoodItems.setVisibility(View.GONE);
+            btnCopyYesterday.setVisibility(canCopyYesterday ? View.VISIBLE : View.GONE);
+        } else {
+            tvEmptyState.setVisibility(View.GONE);
+            rvFoodItems.setVisibility(View.VISIBLE);
+            btnCopyYesterday.setVisibility(View.GONE);
+        }
+
+        // Diffed off the main thread; only rows that changed are rebound
+        adapter.submitList(tally.entries());
+    }
+
+    private static String today() {
+        return DailyTotalsRepository.dayKey(System.currentTimeMillis());
+    }
+
+    private static String yesterday() {
+        return LocalDate.parse(today()).minusDays(1).toString();
     }
 
-    private void showFoodItemOptions(FoodItem foodItem) {
+    private void copyYesterday() {
+        mealSync.copyMeal(yesterday(), mealType, new MealLogRepository.Callback<List<String>>() {
+            @Override
+            public void onLoaded(List<String> keys) {
+                if (!isAdded()) return;
+                Toast.makeText(getContext(), "Copied " + keys.size() + " items from yesterday", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                if (!isAdded()) return;
+                Toast.makeText(getContext(), "Couldn't copy yesterday's " + mealType, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void showFoodItemOptions(MealEntry entry) {
         // Implement dialog for edit/delete options
         // We'll add this in the next step
     }
 
     public void addFoodItem(FoodItem foodItem) {
-        String key = mDatabase.child("users").child(userId).child("meals").child(mealType).push().getKey();
-        if (key != null) {
-            mDatabase.child("users").child(userId).child("meals").child(mealType).child(key).setValue(foodItem);
-        }
+        mealSync.log(foodItem);
+        FoodPrefixIndex.getInstance(requireContext()).recordLogged(foodItem);
     }
 
     public String getMealType() {
@@ -165,12 +195,6 @@ public class MealFragment extends Fragment {
 
 
     private void deleteFoodItem(FoodItem foodItem, String key) {
-        mDatabase.child("users").child(userId).child("meals").child(mealType).child(key).removeValue()
-                .addOnSuccessListener(aVoid -> {
-                    // Item deleted successfully
-                })
-                .addOnFailureListener(e -> {
-                    // Handle error
-                });
+        mealSync.delete(key);
     }
-}
\ No newline at end of file
+}
@@ -16,7 +16,9 @@ import androidx.fragment.app.DialogFragment;
 import com.example.nirvana.R;
 import com.example.nirvana.api.ApiClient;
 import com.example.nirvana.api.FatSecretApi;
+import com.example.nirvana.api.FoodDescription;
 import com.example.nirvana.api.FoodGetResponse;
+import com.example.nirvana.data.local.OfflineFoodDb;
 import com.example.nirvana.data.models.FoodItem;
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -28,10 +30,16 @@ public class ServingSelectionDialog extends DialogFragment {
 
     private static final String ARG_FOOD_ID = "foodId";
     private static final String ARG_FOOD_NAME = "foodName";
+    private static final String ARG_FOOD_DESCRIPTION = "foodDescription";
 
     private String foodId;
     private String foodName;
+    // Default serving from the search result, usable before food.get answers
+    private FoodDescription description;
     private MealFragment parentFragment;
+    // Already-open offline snapshot, handed over so it is never mapped on the main thread
+    @Nullable
+    private OfflineFoodDb offlineDb;
     private FatSecretApi fatSecretApi;
     private List<FoodGetResponse.Serving> servings = new ArrayList<>(); // Fixed here
     private FoodGetResponse.Serving selectedServing;
@@ -42,12 +50,15 @@ public class ServingSelectionDialog extends DialogFragment {
 
     public ServingSelectionDialog() {}
 
-    public static ServingSelectionDialog newInstance(String foodId, String foodName, MealFragment fragment) {
+    public static ServingSelectionDialog newInstance(String foodId, String foodName, String foodDescription,
+                                                     @Nullable OfflineFoodDb offlineDb, MealFragment fragment) {
         ServingSelectionDialog dialog = new ServingSelectionDialog();
         Bundle args = new Bundle();
         args.putString(ARG_FOOD_ID, foodId);
         args.putString(ARG_FOOD_NAME, foodName);
+        args.putString(ARG_FOOD_DESCRIPTION, foodDescription);
         dialog.setArguments(args);
+        dialog.offlineDb = offlineDb;
         dialog.parentFragment = fragment;
         return dialog;
     }
@@ -58,6 +69,7 @@ public class ServingSelectionDialog extends DialogFragment {
         if (getArguments() != null) {
             foodId = getArguments().getString(ARG_FOOD_ID);
             foodName = getArguments().getString(ARG_FOOD_NAME);
+            description = FoodDescription.parse(getArguments().getString(ARG_FOOD_DESCRIPTION));
         }
         fatSecretApi = ApiClient.getFatSecretApi(requireContext());
     }
@@ -81,6 +93,10 @@ public class ServingSelectionDialog extends DialogFragment {
         TextView tvFoodTitle = view.findViewById(R.id.tvFoodTitle);
         tvFoodTitle.setText(foodName);
 
+        if (description != null) {
+            tvNutritionInfo.setText(nutritionInfo(description.getServingLabel(),
+                    description.calories, description.protein, description.carbs, description.fat));
+        }
         loadServings();
 
         spinnerServings.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
@@ -98,6 +114,9 @@ public class ServingSelectionDialog extends DialogFragment {
             if (selectedServing != null) {
                 addFoodItem();
                 dismiss();
+            } else if (description != null) {
+                parentFragment.addFoodItem(fromDescription(foodId, foodName, description, parentFragment.getMealType()));
+                dismiss();
             }
         });
 
@@ -105,6 +124,13 @@ public class ServingSelectionDialog extends DialogFragment {
     }
 
     private void loadServings() {
+        // Foods in the bundled snapshot don't need a food.get call
+        FoodGetResponse.Food offline = offlineDb != null ? offlineDb.getFood(foodId) : null;
+        if (offline != null) {
+            showServings(offline.servings.servingList);
+            return;
+        }
+
         fatSecretApi.getFood(
                 "food.get",  // method parameter
                 foodId,      // food_id
@@ -116,27 +142,7 @@ public class ServingSelectionDialog extends DialogFragment {
                         response.body().food != null &&
                         response.body().food.servings != null &&
                         response.body().food.servings.servingList != null) {
-
-                    servings.clear();
-                    servings.addAll(response.body().food.servings.servingList);
-
-                    List<String> servingDescriptions = new ArrayList<>();
-                    for (FoodGetResponse.Serving serving : servings) {
-                        servingDescriptions.add(serving.description);
-                    }
-
-                    ArrayAdapter<String> adapter = new ArrayAdapter<>(
-                            requireContext(),
-                            android.R.layout.simple_spinner_item,
-                            servingDescriptions
-                    );
-                    adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
-                    spinnerServings.setAdapter(adapter);
-
-                    if (!servings.isEmpty()) {
-                        selectedServing = servings.get(0);
-                        updateNutritionInfo();
-                    }
+                    showServings(response.body().food.servings.servingList);
                 }
             }
 
@@ -147,29 +153,67 @@ public class ServingSelectionDialog extends DialogFragment {
         });
     }
 
+    private void showServings(List<FoodGetResponse.Serving> servingList) {
+        servings.clear();
+        servings.addAll(servingList);
+
+        List<String> servingDescriptions = new ArrayList<>();
+        for (FoodGetResponse.Serving serving : servings) {
+            servingDescriptions.add(serving.description);
+        }
+
+        ArrayAdapter<String> adapter = new ArrayAdapter<>(
+                requireContext(),
+                android.R.layout.simple_spinner_item,
+                servingDescriptions
+        );
+        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spinnerServings.setAdapter(adapter);
+
+        if (!servings.isEmpty()) {
+            selectedServing = servings.get(0);
+            updateNutritionInfo();
+        }
+    }
+
     private void updateNutritionInfo() {
         if (selectedServing != null) {
-            String info = String.format(
-                    "Calories: %s\nProtein: %sg\nCarbs: %sg\nFat: %sg",
-                    selectedServing.calories,
-                    selectedServing.protein,
-                    selectedServing.carbs,
-                    selectedServing.fat
-            );
-            tvNutritionInfo.setText(info);
+            tvNutritionInfo.setText(nutritionInfo(null, selectedServing.calories,
+                    selectedServing.protein, selectedServing.carbs, selectedServing.fat));
         }
     }
 
+    private static String nutritionInfo(String serving, double calories, double protein, double carbs, double fat) {
+        String info = String.format("Calories: %.0f\nProtein: %.1fg\nCarbs: %.1fg\nFat: %.1fg",
+                calories, orZero(protein), orZero(carbs), orZero(fat));
+        return serving != null ? serving + "\n" + info : info;
+    }
+
+    /**
+     * Entry for the serving a search description refers to. FatSecret does not name that
+     * serving's id in search results, so it is left empty.
+     */
+    static FoodItem fromDescription(String foodId, String foodName, FoodDescription description, String mealType) {
+        String serving = description.getServingLabel();
+        return new FoodItem(foodId, foodName, "", serving != null ? serving : "1 serving",
+                description.calories, orZero(description.protein), orZero(description.carbs),
+                orZero(description.fat), mealType);
+    }
+
+    private static double orZero(double value) {
+        return Double.isNaN(value) ? 0 : value;
+    }
+
     private void addFoodItem() {
         FoodItem foodItem = new FoodItem(
                 foodId,
                 foodName,
                 selectedServing.servingId,
                 selectedServing.description,
-                Double.parseDouble(selectedServing.calories),
-                Double.parseDouble(selectedServing.protein),
-                Double.parseDouble(selectedServing.carbs),
-                Double.parseDouble(selectedServing.fat),
+                selectedServing.calories,
+                selectedServing.protein,
+                selectedServing.carbs,
+                selectedServing.fat,
                 parentFragment.getMealType()
         );
 
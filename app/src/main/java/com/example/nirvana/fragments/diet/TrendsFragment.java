@@ -0,0 +1,146 @@
+package com.example.nirvana.fragments.diet;
+
+import android.graphics.Color;
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.annotation.NonNull;
+import androidx.fragment.app.Fragment;
+import com.example.nirvana.R;
+import com.example.nirvana.data.repository.MealLogRepository;
+import com.example.nirvana.data.repository.TrendRepository;
+import com.github.mikephil.charting.charts.LineChart;
+import com.github.mikephil.charting.components.AxisBase;
+import com.github.mikephil.charting.components.XAxis;
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineData;
+import com.github.mikephil.charting.data.LineDataSet;
+import com.github.mikephil.charting.formatter.ValueFormatter;
+import com.google.android.material.button.MaterialButtonToggleGroup;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.FirebaseDatabase;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/** Calories and macros per day over the last 7, 30, 90 or 365 days. */
+public class TrendsFragment extends Fragment {
+
+    private static final DateTimeFormatter DAY_LABEL = DateTimeFormatter.ofPattern("d MMM", Locale.getDefault());
+    private static final DateTimeFormatter MONTH_LABEL = DateTimeFormatter.ofPattern("MMM yyyy", Locale.getDefault());
+
+    private LineChart caloriesChart, macrosChart;
+    private TextView tvSummary;
+    private TrendRepository trends;
+    // Reads complete out of order when the range is switched quickly; only the latest is drawn
+    private TrendRepository.Range shown;
+
+    @Override
+    public View onCreateView(LayoutInflater inflater, ViewGroup container,
+                             Bundle savedInstanceState) {
+        View view = inflater.inflate(R.layout.fragment_trends, container, false);
+        caloriesChart = view.findViewById(R.id.caloriesChart);
+        macrosChart = view.findViewById(R.id.macrosChart);
+        tvSummary = view.findViewById(R.id.tvSummary);
+        setupChart(caloriesChart);
+        setupChart(macrosChart);
+
+        String userId = FirebaseAuth.getInstance().getCurrentUser().getUid();
+        trends = new TrendRepository(FirebaseDatabase.getInstance().getReference().child("users").child(userId));
+
+        MaterialButtonToggleGroup rangeToggle = view.findViewById(R.id.rangeToggle);
+        rangeToggle.addOnButtonCheckedListener((group, checkedId, isChecked) -> {
+            if (!isChecked) return;
+            if (checkedId == R.id.btnRange30) load(TrendRepository.Range.DAYS_30);
+            else if (checkedId == R.id.btnRange90) load(TrendRepository.Range.DAYS_90);
+            else if (checkedId == R.id.btnRange365) load(TrendRepository.Range.DAYS_365);
+            else load(TrendRepository.Range.DAYS_7);
+        });
+        load(TrendRepository.Range.DAYS_7);
+        return view;
+    }
+
+    private void setupChart(LineChart chart) {
+        chart.getDescription().setEnabled(false);
+        chart.getAxisRight().setEnabled(false);
+        chart.getAxisLeft().setAxisMinimum(0f);
+        XAxis xAxis = chart.getXAxis();
+        xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
+        xAxis.setGranularity(1f);
+        xAxis.setValueFormatter(new ValueFormatter() {
+            @Override
+            public String getAxisLabel(float value, AxisBase axis) {
+                return LocalDate.ofEpochDay((long) value).format(DAY_LABEL);
+            }
+        });
+        chart.setNoDataText("No meals logged yet");
+    }
+
+    private void load(TrendRepository.Range range) {
+        shown = range;
+        trends.read(range, LocalDate.now(), new MealLogRepository.Callback<TrendRepository.Trend>() {
+            @Override
+            public void onLoaded(TrendRepository.Trend trend) {
+                if (!isAdded() || trend.range != shown) return;
+                render(trend);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                if (!isAdded()) return;
+                Toast.makeText(requireContext(), "Failed to load trends", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void render(TrendRepository.Trend trend) {
+        List<Entry> calories = new ArrayList<>();
+        List<Entry> protein = new ArrayList<>();
+        List<Entry> carbs = new ArrayList<>();
+        List<Entry> fat = new ArrayList<>();
+        for (TrendRepository.Period period : trend.points) {
+            float x = period.start.toEpochDay();
+            calories.add(new Entry(x, (float) period.caloriesPerDay()));
+            protein.add(new Entry(x, (float) (period.totals.getProtein() / period.days)));
+            carbs.add(new Entry(x, (float) (period.totals.getCarbs() / period.days)));
+            fat.add(new Entry(x, (float) (period.totals.getFat() / period.days)));
+        }
+
+        show(caloriesChart, dataSet(calories, "Calories", Color.rgb(255, 112, 67)));
+        show(macrosChart,
+                dataSet(protein, "Protein", Color.rgb(66, 165, 245)),
+                dataSet(carbs, "Carbs", Color.rgb(102, 187, 106)),
+                dataSet(fat, "Fat", Color.rgb(255, 202, 40)));
+
+        DateTimeFormatter label = trend.range.summary == TrendRepository.Resolution.MONTH ? MONTH_LABEL : DAY_LABEL;
+        String prefix = trend.range.summary == TrendRepository.Resolution.MONTH ? "" : "Week of ";
+        StringBuilder summary = new StringBuilder();
+        for (TrendRepository.Period period : trend.summary) {
+            if (summary.length() > 0) summary.append('\n');
+            summary.append(String.format(Locale.getDefault(), "%s%s: %d kcal/day",
+                    prefix, period.start.format(label), Math.round(period.caloriesPerDay())));
+        }
+        tvSummary.setText(summary);
+    }
+
+    /** A line of {@code entries}; at most 53 weekly points, so every one is drawn. */
+    private LineDataSet dataSet(List<Entry> entries, String label, int color) {
+        LineDataSet dataSet = new LineDataSet(entries, label);
+        dataSet.setColor(color);
+        dataSet.setLineWidth(2f);
+        dataSet.setDrawCircles(entries.size() <= 31);
+        dataSet.setCircleColor(color);
+        dataSet.setDrawValues(false);
+        return dataSet;
+    }
+
+    private static void show(LineChart chart, LineDataSet... dataSets) {
+        chart.setData(new LineData(dataSets));
+        chart.invalidate();
+    }
+}
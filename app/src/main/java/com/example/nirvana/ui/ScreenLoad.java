@@ -0,0 +1,181 @@
+package com.example.nirvana.ui;
+
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads a screen's independent sources in parallel and joins them into one immutable view
+ * state, so the first render waits for the slowest source rather than the sum of all.
+ *
+ * The state is rendered once every source has delivered, failed or run out its timeout;
+ * a source that timed out leaves its part of the state at the initial value for that
+ * first, partial render. Values arriving after it, late ones and updates from live
+ * sources alike, are folded in and rendered again. Everything runs on the main thread.
+ */
+@MainThread
+public final class ScreenLoad<S> {
+
+    /** Runs the source timeouts; {@link #mainThread()} in the app, a fake clock in tests. */
+    public interface Scheduler {
+        void postDelayed(@NonNull Runnable task, long delayMs);
+
+        void cancel(@NonNull Runnable task);
+    }
+
+    /** Starts an asynchronous read; may also deliver synchronously or more than once. */
+    public interface Source<T> {
+        void start(@NonNull Sink<T> sink);
+    }
+
+    public interface Sink<T> {
+        void onValue(T value);
+
+        void onError(@NonNull Exception e);
+    }
+
+    /** Returns a new state with {@code value} applied; must not modify {@code state}. */
+    public interface Reducer<S, T> {
+        @NonNull
+        S apply(@NonNull S state, T value);
+    }
+
+    public interface Renderer<S> {
+        void render(@NonNull S state);
+    }
+
+    private enum Status { PENDING, LOADED, FAILED, TIMED_OUT }
+
+    private final class Slot<T> implements Sink<T> {
+        final String name;
+        final long timeoutMs;
+        final Source<T> source;
+        final Reducer<S, T> reducer;
+        final Runnable timeout = this::onTimeout;
+        Status status = Status.PENDING;
+
+        Slot(String name, long timeoutMs, Source<T> source, Reducer<S, T> reducer) {
+            this.name = name;
+            this.timeoutMs = timeoutMs;
+            this.source = source;
+            this.reducer = reducer;
+        }
+
+        @Override
+        public void onValue(T value) {
+            if (cancelled) return;
+            state = reducer.apply(state, value);
+            if (status == Status.PENDING) scheduler.cancel(timeout);
+            status = Status.LOADED;
+            changed();
+        }
+
+        @Override
+        public void onError(@NonNull Exception e) {
+            if (cancelled || status != Status.PENDING) return;
+            scheduler.cancel(timeout);
+            status = Status.FAILED;
+            changed();
+        }
+
+        void onTimeout() {
+            if (cancelled || status != Status.PENDING) return;
+            status = Status.TIMED_OUT;
+            changed();
+        }
+    }
+
+    private final Scheduler scheduler;
+    private final Renderer<S> renderer;
+    private final List<Slot<?>> slots = new ArrayList<>();
+    private S state;
+    private boolean starting;
+    private boolean rendered;
+    private boolean cancelled;
+
+    public ScreenLoad(@NonNull S initial, @NonNull Scheduler scheduler,
+                      @NonNull Renderer<S> renderer) {
+        this.state = initial;
+        this.scheduler = scheduler;
+        this.renderer = renderer;
+    }
+
+    /** Posts to the main looper, where every source must deliver. */
+    @NonNull
+    public static Scheduler mainThread() {
+        Handler handler = new Handler(Looper.getMainLooper());
+        return new Scheduler() {
+            @Override
+            public void postDelayed(@NonNull Runnable task, long delayMs) {
+                handler.postDelayed(task, delayMs);
+            }
+
+            @Override
+            public void cancel(@NonNull Runnable task) {
+                handler.removeCallbacks(task);
+            }
+        };
+    }
+
+    /** Adds a source; its value is folded into the state with {@code reducer}. */
+    @NonNull
+    public <T> ScreenLoad<S> add(@NonNull String name, long timeoutMs,
+                                 @NonNull Source<T> source, @NonNull Reducer<S, T> reducer) {
+        slots.add(new Slot<>(name, timeoutMs, source, reducer));
+        return this;
+    }
+
+    /** Starts every source at once. */
+    public void start() {
+        starting = true;
+        for (Slot<?> slot : slots) {
+            scheduler.postDelayed(slot.timeout, slot.timeoutMs);
+            startSlot(slot);
+        }
+        starting = false;
+        changed();
+    }
+
+    /** Drops everything delivered from now on, e.g. when the view is destroyed. */
+    public void cancel() {
+        cancelled = true;
+        for (Slot<?> slot : slots) scheduler.cancel(slot.timeout);
+    }
+
+    @NonNull
+    public S state() {
+        return state;
+    }
+
+    /** Sources that timed out or failed and have not delivered since, for logging. */
+    @NonNull
+    public List<String> missing() {
+        List<String> missing = new ArrayList<>();
+        for (Slot<?> slot : slots) {
+            if (slot.status == Status.TIMED_OUT || slot.status == Status.FAILED) missing.add(slot.name);
+        }
+        return missing;
+    }
+
+    private <T> void startSlot(Slot<T> slot) {
+        try {
+            slot.source.start(slot);
+        } catch (RuntimeException e) {
+            slot.onError(e);
+        }
+    }
+
+    private void changed() {
+        if (starting || cancelled) return;
+        if (!rendered) {
+            for (Slot<?> slot : slots) {
+                if (slot.status == Status.PENDING) return;
+            }
+            rendered = true;
+        }
+        renderer.render(state);
+    }
+}
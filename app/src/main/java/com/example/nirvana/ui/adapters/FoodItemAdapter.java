@@ -7,23 +7,80 @@ import android.view.ViewGroup;
 import android.widget.ImageButton;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.nirvana.R;
+import com.example.nirvana.data.local.MealEntry;
 import com.example.nirvana.data.models.FoodItem;
 import java.util.List;
+import java.util.Objects;
 
-public class FoodItemAdapter extends RecyclerView.Adapter<FoodItemAdapter.ViewHolder> {
+/**
+ * Logged entries of one meal. Callers hand in immutable snapshots through
+ * {@link #submitList}; the diff against the current list runs on a background thread
+ * and only rows that actually changed are rebound, with a payload naming the fields
+ * that differ so an edited calorie count touches one TextView.
+ */
+public class FoodItemAdapter extends ListAdapter<MealEntry, FoodItemAdapter.ViewHolder> {
 
-    private List<FoodItem> foodItems;
-    private OnFoodItemClickListener listener;
+    static final int CHANGED_NAME = 1;
+    static final int CHANGED_SERVING = 1 << 1;
+    static final int CHANGED_CALORIES = 1 << 2;
+
+    static final DiffUtil.ItemCallback<MealEntry> DIFF = new DiffUtil.ItemCallback<MealEntry>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull MealEntry oldEntry, @NonNull MealEntry newEntry) {
+            return oldEntry.key.equals(newEntry.key);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull MealEntry oldEntry, @NonNull MealEntry newEntry) {
+            return changes(oldEntry.item, newEntry.item) == 0;
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull MealEntry oldEntry, @NonNull MealEntry newEntry) {
+            return changes(oldEntry.item, newEntry.item);
+        }
+    };
+
+    private final OnFoodItemClickListener listener;
 
     public interface OnFoodItemClickListener {
-        void onFoodItemClick(FoodItem foodItem);
+        void onFoodItemClick(MealEntry entry);
     }
 
-    public FoodItemAdapter(List<FoodItem> foodItems, OnFoodItemClickListener listener) {
-        this.foodItems = foodItems;
+    public FoodItemAdapter(OnFoodItemClickListener listener) {
+        super(DIFF);
         this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    /** Bitmask of the displayed fields that differ between two versions of an entry. */
+    static int changes(FoodItem before, FoodItem after) {
+        int changed = 0;
+        if (!Objects.equals(before.getFoodName(), after.getFoodName())) changed |= CHANGED_NAME;
+        if (!Objects.equals(before.getServingDescription(), after.getServingDescription())) changed |= CHANGED_SERVING;
+        if (Math.round(before.getCalories()) != Math.round(after.getCalories())) changed |= CHANGED_CALORIES;
+        return changed;
+    }
+
+    /** 64-bit FNV-1a of the entry key, so ids stay stable across snapshots. */
+    static long stableId(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableId(getItem(position).key);
     }
 
     @NonNull
@@ -31,23 +88,44 @@ public class FoodItemAdapter extends RecyclerView.Adapter<FoodItemAdapter.ViewHo
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_food_logged, parent, false);
-        return new ViewHolder(view);
+        ViewHolder holder = new ViewHolder(view);
+        view.setOnClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                listener.onFoodItemClick(getItem(position));
+            }
+        });
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        FoodItem foodItem = foodItems.get(position);
-
-        holder.tvFoodName.setText(foodItem.getFoodName());
-        holder.tvServing.setText(foodItem.getServingDescription());
-        holder.tvCalories.setText(String.format("%.0f kcal", foodItem.getCalories()));
-
-        holder.itemView.setOnClickListener(v -> listener.onFoodItemClick(foodItem));
+        bind(holder, getItem(position).item, CHANGED_NAME | CHANGED_SERVING | CHANGED_CALORIES);
     }
 
     @Override
-    public int getItemCount() {
-        return foodItems.size();
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        int changed = 0;
+        for (Object payload : payloads) {
+            changed |= (Integer) payload;
+        }
+        bind(holder, getItem(position).item, changed);
+    }
+
+    private static void bind(ViewHolder holder, FoodItem foodItem, int fields) {
+        if ((fields & CHANGED_NAME) != 0) {
+            holder.tvFoodName.setText(foodItem.getFoodName());
+        }
+        if ((fields & CHANGED_SERVING) != 0) {
+            holder.tvServing.setText(foodItem.getServingDescription());
+        }
+        if ((fields & CHANGED_CALORIES) != 0) {
+            holder.tvCalories.setText(String.format("%.0f kcal", foodItem.getCalories()));
+        }
     }
 
     public static class ViewHolder extends RecyclerView.ViewHolder {
@@ -64,4 +142,4 @@ public class FoodItemAdapter extends RecyclerView.Adapter<FoodItemAdapter.ViewHo
             btnDelete = itemView.findViewById(R.id.btnDelete);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package com.example.nirvana.ui.adapters;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import com.example.nirvana.R;
+import com.example.nirvana.api.FoodDescription;
+import com.example.nirvana.api.FoodSearchResponse;
+import java.util.List;
+
+/** Search results with the macros of each food's default serving, read from its description. */
+public class FoodSearchAdapter extends RecyclerView.Adapter<FoodSearchAdapter.ViewHolder> {
+
+    private final List<FoodSearchResponse.FoodItem> foods;
+    private final OnFoodClickListener listener;
+    // Reused for every bind so scrolling allocates nothing but the row text
+    private final FoodDescription description = new FoodDescription();
+
+    public interface OnFoodClickListener {
+        void onFoodClick(FoodSearchResponse.FoodItem food);
+
+        /** Long press: log the default serving straight away. */
+        default boolean onFoodLongClick(FoodSearchResponse.FoodItem food) {
+            return false;
+        }
+    }
+
+    public FoodSearchAdapter(List<FoodSearchResponse.FoodItem> foods, OnFoodClickListener listener) {
+        this.foods = foods;
+        this.listener = listener;
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_food_search, parent, false);
+        ViewHolder holder = new ViewHolder(view);
+        view.setOnClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) listener.onFoodClick(foods.get(position));
+        });
+        view.setOnLongClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            return position != RecyclerView.NO_POSITION && listener.onFoodLongClick(foods.get(position));
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        FoodSearchResponse.FoodItem food = foods.get(position);
+        holder.tvFoodName.setText(food.food_name);
+
+        if (FoodDescription.parse(food.food_description, description)) {
+            String basis = description.getServingBasis();
+            holder.tvCalories.setText(basis != null
+                    ? String.format("%.0f kcal / %s", description.calories, basis)
+                    : String.format("%.0f kcal", description.calories));
+            holder.tvNutrients.setText(String.format("P %sg  C %sg  F %sg",
+                    grams(description.protein), grams(description.carbs), grams(description.fat)));
+        } else {
+            holder.tvCalories.setText("");
+            holder.tvNutrients.setText("");
+        }
+    }
+
+    private static String grams(double value) {
+        return Double.isNaN(value) ? "-" : String.format("%.1f", value);
+    }
+
+    @Override
+    public int getItemCount() {
+        return foods.size();
+    }
+
+    public static class ViewHolder extends RecyclerView.ViewHolder {
+        TextView tvFoodName;
+        TextView tvCalories;
+        TextView tvNutrients;
+
+        public ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            tvFoodName = itemView.findViewById(R.id.tvFoodName);
+            tvCalories = itemView.findViewById(R.id.tvCalories);
+            tvNutrients = itemView.findViewById(R.id.tvNutrients);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.nirvana.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+public class CoalescingFatSecretApiTest {
+
+    private static final String FOOD = "{\"food\":{\"food_id\":\"42\",\"food_name\":\"Oats\"}}";
+    private static final String ERROR = "{\"error\":{\"code\":12,\"message\":\"Too many requests\"}}";
+    private static final String FAILING_ID = "500";
+    private static final String FOODS = "{\"foods\":{\"food\":{\"food_id\":\"1\",\"food_name\":\"Chicken Breast\"}}}";
+
+    private MockWebServer server;
+    private GatedDispatcher dispatcher;
+    private CoalescingFatSecretApi api;
+    private final AtomicInteger builtCalls = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        dispatcher = new GatedDispatcher();
+        server.setDispatcher(dispatcher);
+        server.start();
+        OkHttpClient client = new OkHttpClient();
+        api = new CoalescingFatSecretApi(new Retrofit.Builder()
+                .baseUrl(server.url("/rest/"))
+                .callFactory(request -> {
+                    builtCalls.incrementAndGet();
+                    return client.newCall(request);
+                })
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(FatSecretApi.class));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        dispatcher.release();
+        server.shutdown();
+    }
+
+    @Test
+    public void concurrentIdenticalCallsShareOneRequest() throws Exception {
+        Recorder<FoodGetResponse> a = enqueue(getFood("42"));
+        Recorder<FoodGetResponse> b = enqueue(getFood("42"));
+        Recorder<FoodGetResponse> c = enqueue(getFood("42"));
+        dispatcher.awaitHits(1);
+        dispatcher.release();
+
+        for (Recorder<FoodGetResponse> recorder : List.of(a, b, c)) {
+            assertTrue(recorder.done.await(5, TimeUnit.SECONDS));
+            assertEquals("Oats", recorder.response.body().food.foodName);
+        }
+        assertEquals(1, dispatcher.hits.get());
+        assertEquals(1, api.getSentCount());
+        assertEquals(2, api.getCoalescedCount());
+        // Joining callers never build an OkHttp call of their own
+        assertEquals(1, builtCalls.get());
+    }
+
+    @Test
+    public void everyCallerCanReadTheErrorBody() throws Exception {
+        Recorder<FoodGetResponse> a = enqueue(getFood(FAILING_ID));
+        Recorder<FoodGetResponse> b = enqueue(getFood(FAILING_ID));
+        dispatcher.awaitHits(1);
+        dispatcher.release();
+
+        for (Recorder<FoodGetResponse> recorder : List.of(a, b)) {
+            assertTrue(recorder.done.await(5, TimeUnit.SECONDS));
+            assertEquals(500, recorder.response.code());
+            assertEquals(ERROR, recorder.response.errorBody().string());
+        }
+        assertEquals(1, dispatcher.hits.get());
+    }
+
+    @Test
+    public void differentParametersAreNotCoalesced() throws Exception {
+        dispatcher.release();
+        Recorder<FoodGetResponse> a = enqueue(getFood("42"));
+        Recorder<FoodGetResponse> b = enqueue(getFood("43"));
+
+        assertTrue(a.done.await(5, TimeUnit.SECONDS));
+        assertTrue(b.done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, dispatcher.hits.get());
+    }
+
+    @Test
+    public void searchesThatNormalizeAlikeShareOneRequest() throws Exception {
+        Recorder<FoodSearchResponse> a = enqueue(search("Chicken  Breast"));
+        Recorder<FoodSearchResponse> b = enqueue(search("chicken breast"));
+        dispatcher.awaitHits(1);
+        dispatcher.release();
+
+        assertTrue(a.done.await(5, TimeUnit.SECONDS));
+        assertTrue(b.done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, dispatcher.hits.get());
+        assertEquals("Chicken Breast", b.response.body().foods.get(0).food_name);
+    }
+
+    @Test
+    public void cancellingOneCallerLeavesTheOthersWaiting() throws Exception {
+        Call<FoodGetResponse> first = getFood("42");
+        Recorder<FoodGetResponse> cancelled = enqueue(first);
+        Recorder<FoodGetResponse> kept = enqueue(getFood("42"));
+        dispatcher.awaitHits(1);
+
+        first.cancel();
+        dispatcher.release();
+
+        assertTrue(kept.done.await(5, TimeUnit.SECONDS));
+        assertEquals("Oats", kept.response.body().food.foodName);
+        assertTrue(cancelled.done.await(5, TimeUnit.SECONDS));
+        assertNotNull(cancelled.failure);
+        assertTrue(first.isCanceled());
+        assertEquals(1, dispatcher.hits.get());
+    }
+
+    @Test
+    public void cancellingEveryCallerAbortsTheSharedRequest() throws Exception {
+        Call<FoodGetResponse> first = getFood("42");
+        Call<FoodGetResponse> second = getFood("42");
+        Recorder<FoodGetResponse> a = enqueue(first);
+        Recorder<FoodGetResponse> b = enqueue(second);
+        dispatcher.awaitHits(1);
+
+        first.cancel();
+        second.cancel();
+
+        assertTrue(a.done.await(5, TimeUnit.SECONDS));
+        assertTrue(b.done.await(5, TimeUnit.SECONDS));
+        assertNotNull(a.failure);
+        assertNotNull(b.failure);
+
+        // The abandoned flight is gone, so the next caller sends a fresh request
+        dispatcher.release();
+        Recorder<FoodGetResponse> next = enqueue(getFood("42"));
+        assertTrue(next.done.await(5, TimeUnit.SECONDS));
+        assertEquals("Oats", next.response.body().food.foodName);
+        assertEquals(2, dispatcher.hits.get());
+    }
+
+    @Test
+    public void foregroundCallerPromotesABackgroundRequest() throws Exception {
+        RequestPriority prefetch = RequestPriority.background();
+        Recorder<FoodGetResponse> a = enqueue(api.getFood("food.get", "42", "json", prefetch));
+        dispatcher.awaitHits(1);
+        assertTrue(prefetch.isBackground());
+
+        Recorder<FoodGetResponse> b = enqueue(getFood("42"));
+        assertFalse(prefetch.isBackground());
+
+        dispatcher.release();
+        assertTrue(a.done.await(5, TimeUnit.SECONDS));
+        assertTrue(b.done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, dispatcher.hits.get());
+    }
+
+    @Test
+    public void settledRequestsAreNotReused() throws Exception {
+        dispatcher.release();
+        assertTrue(enqueue(getFood("42")).done.await(5, TimeUnit.SECONDS));
+        assertTrue(enqueue(getFood("42")).done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(2, dispatcher.hits.get());
+        assertEquals(0, api.getCoalescedCount());
+    }
+
+    @Test
+    public void executeJoinsAnEnqueuedRequest() throws Exception {
+        Recorder<FoodGetResponse> async = enqueue(getFood("42"));
+        dispatcher.awaitHits(1);
+        Call<FoodGetResponse> sync = getFood("42");
+        Thread releaser = new Thread(() -> {
+            while (api.getCoalescedCount() == 0) Thread.yield();
+            dispatcher.release();
+        });
+        releaser.start();
+
+        Response<FoodGetResponse> response = sync.execute();
+
+        assertEquals("Oats", response.body().food.foodName);
+        assertTrue(async.done.await(5, TimeUnit.SECONDS));
+        assertTrue(sync.isExecuted());
+        assertFalse(sync.isCanceled());
+        assertEquals(1, dispatcher.hits.get());
+    }
+
+    private Call<FoodGetResponse> getFood(String id) {
+        return api.getFood("food.get", id, "json");
+    }
+
+    private Call<FoodSearchResponse> search(String query) {
+        return api.searchFoods("foods.search", query, 0, 20, "json");
+    }
+
+    private static <T> Recorder<T> enqueue(Call<T> call) {
+        Recorder<T> recorder = new Recorder<>();
+        call.enqueue(recorder);
+        return recorder;
+    }
+
+    private static class Recorder<T> implements Callback<T> {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Response<T> response;
+        volatile Throwable failure;
+
+        @Override
+        public void onResponse(Call<T> call, Response<T> response) {
+            this.response = response;
+            done.countDown();
+        }
+
+        @Override
+        public void onFailure(Call<T> call, Throwable t) {
+            this.failure = t;
+            done.countDown();
+        }
+    }
+
+    /** Counts hits and holds every response until released, so callers overlap. */
+    private static class GatedDispatcher extends Dispatcher {
+        final AtomicInteger hits = new AtomicInteger();
+        private final CountDownLatch gate = new CountDownLatch(1);
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            hits.incrementAndGet();
+            gate.await(10, TimeUnit.SECONDS);
+            if (FAILING_ID.equals(request.getRequestUrl().queryParameter("food_id"))) {
+                return new MockResponse().setResponseCode(500).setBody(ERROR);
+            }
+            String method = request.getRequestUrl().queryParameter("method");
+            return new MockResponse().setBody("food.get".equals(method) ? FOOD : FOODS);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        void awaitHits(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (hits.get() < count && System.currentTimeMillis() < deadline) Thread.sleep(5);
+            assertEquals(count, hits.get());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.nirvana.api;
+
+import static org.junit.Assume.assumeTrue;
+
+import com.google.gson.Gson;
+import com.google.gson.annotations.SerializedName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Decode time and allocation of the streaming adapters against reflective Gson binding
+ * to String-typed models, over the recorded payloads. Run with {@code -Dnirvana.benchmark=true}.
+ */
+public class FatSecretAdaptersBenchmark {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 10_000;
+
+    @Before
+    public void requireBenchmarkFlag() {
+        assumeTrue(Boolean.getBoolean("nirvana.benchmark"));
+    }
+
+    @Test
+    public void streamingVersusReflective() throws Exception {
+        Gson gson = new Gson();
+        String search = FatSecretAdaptersTest.resource("fatsecret_foods_search.json");
+        String food = FatSecretAdaptersTest.resource("fatsecret_food_get.json");
+
+        report("foods.search", search.length(),
+                () -> gson.fromJson(search, FoodSearchResponse.class).foods.size(),
+                () -> gson.fromJson(search, ReflectiveSearch.class).foods.food.size());
+        report("food.get", food.length(),
+                () -> {
+                    double sum = 0;
+                    for (FoodGetResponse.Serving s : gson.fromJson(food, FoodGetResponse.class).food.servings.servingList) {
+                        sum += s.calories + s.protein + s.carbs + s.fat;
+                    }
+                    return (int) sum;
+                },
+                () -> {
+                    // What ServingSelectionDialog had to do after a reflective decode
+                    double sum = 0;
+                    for (ReflectiveServing s : gson.fromJson(food, ReflectiveFoodGet.class).food.servings.serving) {
+                        sum += Double.parseDouble(s.calories) + Double.parseDouble(s.protein)
+                                + Double.parseDouble(s.carbohydrate) + Double.parseDouble(s.fat);
+                    }
+                    return (int) sum;
+                });
+    }
+
+    private interface Decode {
+        int run();
+    }
+
+    private static void report(String name, int bytes, Decode streaming, Decode reflective) {
+        long[] stream = measure(streaming);
+        long[] reflect = measure(reflective);
+        System.out.printf("%s (%d bytes): streaming %.1fus %dB/op | reflective %.1fus %dB/op | %.1fx faster, %.1fx less garbage%n",
+                name, bytes, stream[0] / 1000.0, stream[1], reflect[0] / 1000.0, reflect[1],
+                (double) reflect[0] / stream[0], (double) reflect[1] / stream[1]);
+    }
+
+    /** Mean nanoseconds and bytes allocated per decode. */
+    private static long[] measure(Decode decode) {
+        int sink = 0;
+        for (int i = 0; i < WARMUP; i++) sink += decode.run();
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) sink += decode.run();
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        if (sink == 42) System.out.print("");
+        return new long[]{nanos / ITERATIONS, allocated / ITERATIONS};
+    }
+
+    // Reflective models with every nutrient as a String, as the app used before
+    static class ReflectiveSearch {
+        ReflectiveFoods foods;
+    }
+
+    static class ReflectiveFoods {
+        List<ReflectiveFood> food;
+        String max_results;
+        String page_number;
+        String total_results;
+    }
+
+    static class ReflectiveFood {
+        String food_id;
+        String food_name;
+        String food_description;
+        String food_type;
+        String food_url;
+        String brand_name;
+    }
+
+    static class ReflectiveFoodGet {
+        ReflectiveFoodDetail food;
+    }
+
+    static class ReflectiveFoodDetail {
+        String food_id;
+        String food_name;
+        ReflectiveServings servings;
+    }
+
+    static class ReflectiveServings {
+        List<ReflectiveServing> serving;
+    }
+
+    static class ReflectiveServing {
+        @SerializedName("serving_id")
+        String servingId;
+        @SerializedName("serving_description")
+        String description;
+        String calories;
+        String protein;
+        String carbohydrate;
+        String fat;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.nirvana.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import org.junit.Test;
+
+public class FatSecretAdaptersTest {
+
+    private final Gson gson = new Gson();
+
+    @Test
+    public void decodesRecordedSearch() throws IOException {
+        FoodSearchResponse response = gson.fromJson(resource("fatsecret_foods_search.json"), FoodSearchResponse.class);
+
+        assertEquals(50, response.foods.size());
+        assertEquals(1873, response.totalResults);
+        assertEquals(0, response.pageNumber);
+        assertEquals(50, response.maxResults);
+        FoodSearchResponse.FoodItem first = response.foods.get(0);
+        assertEquals("30000", first.food_id);
+        assertNotNull(first.food_name);
+        assertTrue(first.food_description.startsWith("Per 100g - Calories: "));
+    }
+
+    @Test
+    public void singleSearchResultArrivesAsBareObject() {
+        FoodSearchResponse response = gson.fromJson(
+                "{\"foods\":{\"food\":{\"food_id\":\"7\",\"food_name\":\"Ghee\",\"brand_name\":\"Amul\"},"
+                        + "\"total_results\":\"1\"}}", FoodSearchResponse.class);
+
+        assertEquals(1, response.foods.size());
+        assertEquals("Ghee", response.foods.get(0).food_name);
+        assertEquals(1, response.totalResults);
+    }
+
+    @Test
+    public void noResultsAndErrorsDecodeWithoutThrowing() {
+        FoodSearchResponse empty = gson.fromJson(
+                "{\"foods\":{\"max_results\":\"20\",\"page_number\":\"0\",\"total_results\":\"0\"}}",
+                FoodSearchResponse.class);
+        assertEquals(new ArrayList<FoodSearchResponse.FoodItem>(), empty.foods);
+
+        FoodSearchResponse error = gson.fromJson(
+                "{\"error\":{\"code\":9,\"message\":\"Invalid signature\"}}", FoodSearchResponse.class);
+        assertNull(error.foods);
+    }
+
+    @Test
+    public void flatFoodListIsAccepted() {
+        FoodSearchResponse response = gson.fromJson(
+                "{\"foods\":[{\"food_id\":1,\"food_name\":\"Chicken Breast\"}]}", FoodSearchResponse.class);
+
+        assertEquals("1", response.foods.get(0).food_id);
+    }
+
+    @Test
+    public void decodesServingsIntoPrimitives() throws IOException {
+        FoodGetResponse response = gson.fromJson(resource("fatsecret_food_get.json"), FoodGetResponse.class);
+
+        assertEquals("1641", response.food.foodId);
+        assertEquals(8, response.food.servings.servingList.size());
+        FoodGetResponse.Serving serving = response.food.servings.servingList.get(0);
+        assertEquals("50000", serving.servingId);
+        assertEquals("1 oz boneless", serving.description);
+        assertTrue(serving.calories > 0);
+    }
+
+    @Test
+    public void singleServingArrivesAsBareObject() throws IOException {
+        FoodGetResponse response = gson.fromJson(resource("fatsecret_food_get_single.json"), FoodGetResponse.class);
+
+        assertEquals(1, response.food.servings.servingList.size());
+        assertEquals("1 cup (8 fl oz)", response.food.servings.servingList.get(0).description);
+    }
+
+    @Test
+    public void emptyAndMalformedNumbersReadAsZero() {
+        FoodGetResponse response = gson.fromJson(
+                "{\"food\":{\"servings\":{\"serving\":{\"calories\":\"\",\"protein\":\"n/a\",\"fat\":null,\"carbohydrate\":1.5}}}}",
+                FoodGetResponse.class);
+
+        FoodGetResponse.Serving serving = response.food.servings.servingList.get(0);
+        assertEquals(0, serving.calories, 0);
+        assertEquals(0, serving.protein, 0);
+        assertEquals(0, serving.fat, 0);
+        assertEquals(1.5, serving.carbs, 0);
+    }
+
+    @Test
+    public void writtenResponsesReadBack() throws IOException {
+        FoodGetResponse food = gson.fromJson(resource("fatsecret_food_get.json"), FoodGetResponse.class);
+        FoodGetResponse again = gson.fromJson(gson.toJson(food), FoodGetResponse.class);
+        assertEquals(food.food.servings.servingList.get(3).fat, again.food.servings.servingList.get(3).fat, 0);
+
+        FoodSearchResponse search = gson.fromJson(resource("fatsecret_foods_search.json"), FoodSearchResponse.class);
+        FoodSearchResponse searchAgain = gson.fromJson(gson.toJson(search), FoodSearchResponse.class);
+        assertEquals(search.foods.get(49).food_description, searchAgain.foods.get(49).food_description);
+        assertEquals(search.totalResults, searchAgain.totalResults);
+    }
+
+    static String resource(String name) throws IOException {
+        try (InputStream in = FatSecretAdaptersTest.class.getClassLoader().getResourceAsStream(name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.nirvana.api;
+
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Description parsing throughput against a straightforward regex parser.
+ * Run with {@code -Dnirvana.benchmark=true}.
+ */
+public class FoodDescriptionBenchmark {
+
+    private static final int DESCRIPTIONS = 10_000;
+    private static final int ROUNDS = 30;
+    private static final Pattern FIELD = Pattern.compile("(\\w+):\\s*([\\d.,]+)");
+
+    @Before
+    public void requireBenchmarkFlag() {
+        assumeTrue(Boolean.getBoolean("nirvana.benchmark"));
+    }
+
+    @Test
+    public void parseThroughput() {
+        Random random = new Random(3);
+        String[] descriptions = new String[DESCRIPTIONS];
+        for (int i = 0; i < DESCRIPTIONS; i++) {
+            descriptions[i] = String.format("Per %dg - Calories: %dkcal | Fat: %.2fg | Carbs: %.2fg | Protein: %.2fg",
+                    1 + random.nextInt(300), random.nextInt(900), random.nextDouble() * 50,
+                    random.nextDouble() * 100, random.nextDouble() * 40);
+        }
+
+        FoodDescription reused = new FoodDescription();
+        double sink = 0;
+        long bestParser = Long.MAX_VALUE;
+        long bestRegex = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (String description : descriptions) {
+                FoodDescription.parse(description, reused);
+                sink += reused.calories + reused.protein;
+            }
+            bestParser = Math.min(bestParser, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (String description : descriptions) {
+                sink += regexCalories(description);
+            }
+            bestRegex = Math.min(bestRegex, System.nanoTime() - start);
+        }
+
+        System.out.printf("FoodDescription %d descriptions: parser=%.0fns/desc (%.1fM/s) regex=%.0fns/desc (%.1fx slower) [%s]%n",
+                DESCRIPTIONS, (double) bestParser / DESCRIPTIONS,
+                DESCRIPTIONS / (bestParser / 1e9) / 1e6,
+                (double) bestRegex / DESCRIPTIONS, (double) bestRegex / bestParser,
+                sink > 0 ? "ok" : "?");
+    }
+
+    /** What the parser replaces: match every field and parse its number. */
+    private static double regexCalories(String description) {
+        double calories = 0;
+        Matcher matcher = FIELD.matcher(description);
+        while (matcher.find()) {
+            double value = Double.parseDouble(matcher.group(2).replace(",", ""));
+            if (matcher.group(1).equalsIgnoreCase("calories")) calories = value;
+        }
+        return calories;
+    }
+}
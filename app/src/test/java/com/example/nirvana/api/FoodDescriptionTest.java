@@ -0,0 +1,136 @@
+package com.example.nirvana.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class FoodDescriptionTest {
+
+    private static final double EPSILON = 1e-9;
+
+    // description, basis, calories, fat, carbs, protein (NaN = absent)
+    private static final Object[][] CORPUS = {
+            {"Per 100g - Calories: 95kcal | Fat: 0.30g | Carbs: 25.13g | Protein: 0.47g", "100g", 95, 0.30, 25.13, 0.47},
+            {"Per 1 medium - Calories: 105kcal | Fat: 0.39g | Carbs: 26.95g | Protein: 1.29g", "1 medium", 105, 0.39, 26.95, 1.29},
+            {"Per 1 cup - Calories: 1,234kcal | Fat: 10g | Carbs: 0g | Protein: 100.5g", "1 cup", 1234, 10, 0, 100.5},
+            {"Per 1/2 cup (chopped) - Calories: 15kcal | Fat: 0.00g | Carbs: 3.5g | Protein: 0.8g", "1/2 cup (chopped)", 15, 0, 3.5, 0.8},
+            {"per 100ml - calories: 42kcal | fat: 1g | carbs: 5g | protein: 3.4g", "100ml", 42, 1, 5, 3.4},
+            {"Per 1 serving - Calories: 250kcal | Protein: 20g | Fat: 8g | Carbs: 24g", "1 serving", 250, 8, 24, 20},
+            {"Per 1 slice - Calories: 80kcal", "1 slice", 80, Double.NaN, Double.NaN, Double.NaN},
+            {"Calories: 300kcal | Fat: 12g | Carbohydrate: 30g | Protein: 15g", null, 300, 12, 30, 15},
+            {"  Per   2 pieces  -   Calories:  130 kcal |  Fat:  6 g | Carbs: 14 g | Protein: 4 g ", "2 pieces", 130, 6, 14, 4},
+            {"Per 100g - Calories: .5kcal | Fat: 0.g | Carbs: 1.25g | Protein: 0g", "100g", 0.5, 0, 1.25, 0},
+            {"Per 100g - Calories: 95kcal | Fiber: 2.4g | Fat: 0.3g", "100g", 95, 0.3, Double.NaN, Double.NaN},
+    };
+
+    @Test
+    public void parsesCorpus() {
+        for (Object[] row : CORPUS) {
+            String text = (String) row[0];
+            FoodDescription parsed = FoodDescription.parse(text);
+            assertNotNull(text, parsed);
+            assertEquals(text, row[1], parsed.getServingBasis());
+            assertValue(text, ((Number) row[2]).doubleValue(), parsed.calories);
+            assertValue(text, ((Number) row[3]).doubleValue(), parsed.fat);
+            assertValue(text, ((Number) row[4]).doubleValue(), parsed.carbs);
+            assertValue(text, ((Number) row[5]).doubleValue(), parsed.protein);
+        }
+    }
+
+    @Test
+    public void rejectsDescriptionsWithoutCalories() {
+        assertNull(FoodDescription.parse(null));
+        assertNull(FoodDescription.parse(""));
+        assertNull(FoodDescription.parse("Per 100g"));
+        assertNull(FoodDescription.parse("Per 100g - Fat: 1g | Carbs: 2g"));
+        assertNull(FoodDescription.parse("Per 100g - Calories: kcal | Fat: 1g"));
+        assertNull(FoodDescription.parse("Per 100g - Calories: 99999999999999999999999kcal"));
+    }
+
+    @Test
+    public void reusedInstanceDoesNotLeakPreviousValues() {
+        FoodDescription reused = new FoodDescription();
+        assertTrue(FoodDescription.parse("Per 100g - Calories: 95kcal | Fat: 0.3g | Carbs: 25g | Protein: 0.5g", reused));
+        assertTrue(FoodDescription.parse("Calories: 10kcal", reused));
+
+        assertNull(reused.getServingBasis());
+        assertTrue(Double.isNaN(reused.fat));
+        assertFalse(FoodDescription.parse("garbage", reused));
+        assertTrue(Double.isNaN(reused.calories));
+    }
+
+    @Test
+    public void roundTripsGeneratedDescriptions() {
+        Random random = new Random(11);
+        FoodDescription parsed = new FoodDescription();
+        for (int i = 0; i < 20_000; i++) {
+            int calories = random.nextInt(5000);
+            double fat = random.nextInt(100_000) / 100.0;
+            double carbs = random.nextInt(100_000) / 100.0;
+            double protein = random.nextInt(100_000) / 100.0;
+            String basis = (1 + random.nextInt(500)) + (random.nextBoolean() ? "g" : " cup");
+            String text = String.format("Per %s - Calories: %s | Fat: %.2fg | Carbs: %.2fg | Protein: %.2fg",
+                    basis, String.format("%,dkcal", calories), fat, carbs, protein);
+
+            assertTrue(text, FoodDescription.parse(text, parsed));
+            assertEquals(text, basis, parsed.getServingBasis());
+            assertEquals(text, calories, parsed.calories, EPSILON);
+            assertEquals(text, fat, parsed.fat, EPSILON);
+            assertEquals(text, carbs, parsed.carbs, EPSILON);
+            assertEquals(text, protein, parsed.protein, EPSILON);
+        }
+    }
+
+    @Test
+    public void fuzzedInputNeverThrows() {
+        Random random = new Random(5);
+        String alphabet = "Per 100g-:|.,kcalFtCrbsPoin0123456789 \t/()";
+        String seed = "Per 100g - Calories: 95kcal | Fat: 0.30g | Carbs: 25.13g | Protein: 0.47g";
+        FoodDescription parsed = new FoodDescription();
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder text;
+            if (random.nextBoolean()) {
+                // Mutate a real description
+                text = new StringBuilder(seed);
+                for (int m = random.nextInt(6); m >= 0; m--) {
+                    int at = random.nextInt(text.length());
+                    switch (random.nextInt(3)) {
+                        case 0: text.deleteCharAt(at); break;
+                        case 1: text.insert(at, alphabet.charAt(random.nextInt(alphabet.length()))); break;
+                        default: text.setCharAt(at, alphabet.charAt(random.nextInt(alphabet.length())));
+                    }
+                }
+            } else {
+                text = new StringBuilder();
+                for (int c = random.nextInt(80); c > 0; c--) {
+                    text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+            }
+
+            boolean ok = FoodDescription.parse(text.toString(), parsed);
+            assertEquals(ok, !Double.isNaN(parsed.calories));
+            assertNonNegative(parsed.calories);
+            assertNonNegative(parsed.fat);
+            assertNonNegative(parsed.carbs);
+            assertNonNegative(parsed.protein);
+            parsed.getServingBasis();
+        }
+    }
+
+    private static void assertValue(String text, double expected, double actual) {
+        if (Double.isNaN(expected)) {
+            assertTrue(text, Double.isNaN(actual));
+        } else {
+            assertEquals(text, expected, actual, EPSILON);
+        }
+    }
+
+    private static void assertNonNegative(double value) {
+        assertTrue(Double.isNaN(value) || value >= 0);
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.nirvana.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import okhttp3.Request;
+import okio.Timeout;
+import org.junit.Before;
+import org.junit.Test;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+public class FoodSearchPagerTest {
+
+    private ManualApi api;
+    private RecordingListener listener;
+    private FoodSearchPager pager;
+
+    @Before
+    public void setUp() {
+        api = new ManualApi();
+        listener = new RecordingListener();
+        pager = new FoodSearchPager(api, listener, 20, 5, 3);
+    }
+
+    @Test
+    public void nextPageLoadsNearTheEndAndOnlyOnce() {
+        pager.start("rice", new ArrayList<>(), page(0, 20, 100));
+        assertEquals(20, pager.getItems().size());
+
+        pager.onVisibleRange(0, 10);
+        assertEquals(0, api.pending.size());
+
+        pager.onVisibleRange(5, 15);
+        pager.onVisibleRange(6, 16);
+        assertEquals(1, api.pending.size());
+        assertEquals(1, api.pending.get(0).page);
+
+        api.respond(1, page(1, 20, 100));
+        assertEquals(40, pager.getItems().size());
+        assertEquals(List.of("+20,20"), listener.events);
+        assertEquals("food-20", pager.getItems().get(20).food_id);
+    }
+
+    @Test
+    public void stopsAtTheLastPage() {
+        pager.start("rice", new ArrayList<>(), page(0, 20, 30));
+        pager.onVisibleRange(10, 19);
+        api.respond(1, page(1, 10, 30));
+
+        pager.onVisibleRange(20, 29);
+        assertEquals(0, api.pending.size());
+        assertEquals(30, pager.getItems().size());
+    }
+
+    @Test
+    public void windowIsBoundedAndEvictedPagesComeBack() {
+        pager.start("chicken", new ArrayList<>(), page(0, 20, 1000));
+        pager.onVisibleRange(10, 19);
+        api.respond(1, page(1, 20, 1000));
+        pager.onVisibleRange(30, 39);
+        api.respond(2, page(2, 20, 1000));
+        assertEquals(60, pager.getItems().size());
+
+        // A fourth page pushes out the first, which is well above the viewport
+        pager.onVisibleRange(50, 59);
+        api.respond(3, page(3, 20, 1000));
+        assertEquals(60, pager.getItems().size());
+        assertEquals("food-20", pager.getItems().get(0).food_id);
+        assertEquals(List.of("+20,20", "+40,20", "+60,20", "-0,20"), listener.events);
+
+        // Scrolling back to the top of the window asks for page 0 again and drops page 3
+        pager.onVisibleRange(2, 11);
+        assertEquals(0, api.pending.get(0).page);
+        api.respond(0, page(0, 20, 1000));
+        assertEquals("food-0", pager.getItems().get(0).food_id);
+        assertEquals(60, pager.getItems().size());
+        assertEquals(List.of("+0,20", "-60,20"), listener.events.subList(4, 6));
+    }
+
+    @Test
+    public void rowsUnderTheViewportAreNotEvicted() {
+        pager.start("chicken", new ArrayList<>(), page(0, 20, 1000));
+        pager.onVisibleRange(10, 19);
+        api.respond(1, page(1, 20, 1000));
+        pager.onVisibleRange(15, 39);
+        api.respond(2, page(2, 20, 1000));
+        pager.onVisibleRange(15, 59);
+        api.respond(3, page(3, 20, 1000));
+
+        // Page 0 is still on screen, so the window grows past its limit for now
+        assertEquals(80, pager.getItems().size());
+    }
+
+    @Test
+    public void pinnedRowsStayFirstAndAreNotRepeated() {
+        List<FoodSearchResponse.FoodItem> pinned = new ArrayList<>();
+        pinned.add(food("food-3"));
+        pager.start("rice", pinned, page(0, 20, 100));
+
+        assertEquals(20, pager.getItems().size());
+        assertEquals("food-3", pager.getItems().get(0).food_id);
+        assertEquals("food-0", pager.getItems().get(1).food_id);
+    }
+
+    @Test
+    public void failedPageWaitsForRetry() {
+        pager.start("rice", new ArrayList<>(), page(0, 20, 100));
+        pager.onVisibleRange(10, 19);
+        api.fail(1);
+        assertEquals(List.of("!1"), listener.events);
+
+        pager.onVisibleRange(11, 19);
+        assertEquals(0, api.pending.size());
+
+        pager.retryFailed();
+        assertEquals(1, api.pending.size());
+        api.respond(1, page(1, 20, 100));
+        assertEquals(40, pager.getItems().size());
+    }
+
+    @Test
+    public void newQueryCancelsAndIgnoresOlderPages() {
+        pager.start("rice", new ArrayList<>(), page(0, 20, 100));
+        pager.onVisibleRange(10, 19);
+        ManualApi.PendingCall stale = api.pending.get(0);
+
+        pager.start("oats", new ArrayList<>(), page(0, 5, 5));
+        assertTrue(stale.canceled);
+        stale.callback.onResponse(stale, Response.success(page(1, 20, 100)));
+
+        assertEquals(5, pager.getItems().size());
+        assertEquals(List.of(), listener.events);
+    }
+
+    private static FoodSearchResponse page(int number, int count, int total) {
+        FoodSearchResponse response = new FoodSearchResponse();
+        response.foods = new ArrayList<>();
+        for (int i = 0; i < count; i++) response.foods.add(food("food-" + (number * 20 + i)));
+        response.pageNumber = number;
+        response.maxResults = 20;
+        response.totalResults = total;
+        return response;
+    }
+
+    private static FoodSearchResponse.FoodItem food(String id) {
+        FoodSearchResponse.FoodItem food = new FoodSearchResponse.FoodItem();
+        food.food_id = id;
+        food.food_name = id;
+        return food;
+    }
+
+    private static class RecordingListener implements FoodSearchPager.Listener {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onReset() {
+            events.clear();
+        }
+
+        @Override
+        public void onItemRangeInserted(int position, int count) {
+            events.add("+" + position + "," + count);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int position, int count) {
+            events.add("-" + position + "," + count);
+        }
+
+        @Override
+        public void onPageFailed(int page, Throwable t) {
+            events.add("!" + page);
+        }
+    }
+
+    /** Search calls that stay pending until the test answers them, on the test thread. */
+    private static class ManualApi implements FatSecretApi {
+        final List<PendingCall> pending = new ArrayList<>();
+
+        @Override
+        public Call<FoodSearchResponse> searchFoods(String method, String query, int pageNumber,
+                                                    int maxResults, String format, RequestPriority priority) {
+            return new PendingCall(pageNumber);
+        }
+
+        @Override
+        public Call<FoodGetResponse> getFood(String method, String foodId, String format, RequestPriority priority) {
+            throw new UnsupportedOperationException();
+        }
+
+        void respond(int page, FoodSearchResponse body) {
+            PendingCall call = take(page);
+            call.callback.onResponse(call, Response.success(body));
+        }
+
+        void fail(int page) {
+            PendingCall call = take(page);
+            call.callback.onFailure(call, new IOException("offline"));
+        }
+
+        private PendingCall take(int page) {
+            for (PendingCall call : pending) {
+                if (call.page == page) {
+                    pending.remove(call);
+                    return call;
+                }
+            }
+            throw new AssertionError("page " + page + " was not requested");
+        }
+
+        class PendingCall implements Call<FoodSearchResponse> {
+            final int page;
+            Callback<FoodSearchResponse> callback;
+            boolean canceled;
+
+            PendingCall(int page) {
+                this.page = page;
+            }
+
+            @Override
+            public void enqueue(Callback<FoodSearchResponse> callback) {
+                this.callback = callback;
+                pending.add(this);
+            }
+
+            @Override
+            public void cancel() {
+                canceled = true;
+                pending.remove(this);
+            }
+
+            @Override
+            public boolean isCanceled() {
+                return canceled;
+            }
+
+            @Override
+            public Response<FoodSearchResponse> execute() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public boolean isExecuted() {
+                return callback != null;
+            }
+
+            @Override
+            public Call<FoodSearchResponse> clone() {
+                return new PendingCall(page);
+            }
+
+            @Override
+            public Request request() {
+                return new Request.Builder().url("https://example.com/").build();
+            }
+
+            @Override
+            public Timeout timeout() {
+                return Timeout.NONE;
+            }
+        }
+    }
+}
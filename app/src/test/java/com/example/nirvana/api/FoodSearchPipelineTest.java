@@ -0,0 +1,176 @@
+package com.example.nirvana.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+public class FoodSearchPipelineTest {
+
+    private static final String BODY = "{\"foods\":[{\"food_id\":\"1\",\"food_name\":\"Chicken Breast\"}]}";
+
+    private MockWebServer server;
+    private FatSecretApi api;
+    private FakeScheduler scheduler;
+    private RecordingListener listener;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        api = new Retrofit.Builder()
+                .baseUrl(server.url("/rest/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(FatSecretApi.class);
+        scheduler = new FakeScheduler();
+        listener = new RecordingListener();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void typingBurstSendsSingleRequestForFinalQuery() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY));
+        FoodSearchPipeline pipeline = new FoodSearchPipeline(api, scheduler, listener, 300, 2);
+
+        String query = "chicken breast";
+        for (int i = 1; i <= query.length(); i++) {
+            pipeline.onQueryChanged(query.substring(0, i));
+            scheduler.advanceBy(120);
+        }
+        scheduler.advanceBy(300);
+
+        assertTrue(listener.responses.await(5, TimeUnit.SECONDS));
+        assertEquals(1, server.getRequestCount());
+        RecordedRequest request = server.takeRequest();
+        assertEquals("chicken breast", request.getRequestUrl().queryParameter("search_expression"));
+        assertEquals(List.of("chicken breast"), listener.delivered);
+    }
+
+    @Test
+    public void supersededQueryIsCancelledAndItsResultDropped() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY).setBodyDelay(500, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse().setBody(BODY));
+        FoodSearchPipeline pipeline = new FoodSearchPipeline(api, scheduler, listener, 300, 2);
+
+        pipeline.onQueryChanged("rice");
+        scheduler.advanceBy(300);
+        assertEquals("rice", server.takeRequest(5, TimeUnit.SECONDS)
+                .getRequestUrl().queryParameter("search_expression"));
+
+        pipeline.onQueryChanged("rice cake");
+        scheduler.advanceBy(300);
+
+        assertTrue(listener.responses.await(5, TimeUnit.SECONDS));
+        Thread.sleep(700);
+        assertEquals(2, server.getRequestCount());
+        assertEquals(List.of("rice cake"), listener.delivered);
+        assertEquals(0, listener.failures);
+    }
+
+    @Test
+    public void shortOrEmptyQueriesNeverHitTheNetwork() {
+        FoodSearchPipeline pipeline = new FoodSearchPipeline(api, scheduler, listener, 300, 2);
+
+        pipeline.onQueryChanged("c");
+        scheduler.advanceBy(1000);
+        pipeline.onQueryChanged("");
+        scheduler.advanceBy(1000);
+
+        assertEquals(0, server.getRequestCount());
+        assertEquals(2, listener.cleared);
+    }
+
+    @Test
+    public void shrinkingBelowMinimumClearsTheInFlightSearch() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY).setBodyDelay(300, TimeUnit.MILLISECONDS));
+        FoodSearchPipeline pipeline = new FoodSearchPipeline(api, scheduler, listener, 300, 2);
+
+        pipeline.onQueryChanged("rice");
+        scheduler.advanceBy(300);
+        server.takeRequest(5, TimeUnit.SECONDS);
+        pipeline.onQueryChanged("r");
+
+        assertEquals(1, listener.cleared);
+        Thread.sleep(600);
+        assertTrue(listener.delivered.isEmpty());
+        assertEquals(0, listener.failures);
+    }
+
+    /** Runs delayed tasks synchronously as virtual time is advanced. */
+    private static class FakeScheduler implements FoodSearchPipeline.Scheduler {
+        private final List<long[]> dueTimes = new ArrayList<>();
+        private final List<Runnable> tasks = new ArrayList<>();
+        private long now;
+
+        @Override
+        public void postDelayed(Runnable task, long delayMs) {
+            tasks.add(task);
+            dueTimes.add(new long[]{now + delayMs});
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            int i;
+            while ((i = tasks.indexOf(task)) >= 0) {
+                tasks.remove(i);
+                dueTimes.remove(i);
+            }
+        }
+
+        void advanceBy(long ms) {
+            now += ms;
+            for (int i = 0; i < tasks.size(); ) {
+                if (dueTimes.get(i)[0] <= now) {
+                    Runnable task = tasks.remove(i);
+                    dueTimes.remove(i);
+                    task.run();
+                } else {
+                    i++;
+                }
+            }
+        }
+    }
+
+    private static class RecordingListener implements FoodSearchPipeline.Listener {
+        final List<String> delivered = new ArrayList<>();
+        final CountDownLatch responses = new CountDownLatch(1);
+        volatile int failures;
+        int cleared;
+
+        @Override
+        public void onSearchStarted(String query) {}
+
+        @Override
+        public synchronized void onResponse(String query, Response<FoodSearchResponse> response) {
+            delivered.add(query);
+            responses.countDown();
+        }
+
+        @Override
+        public void onFailure(String query, Throwable t) {
+            failures++;
+        }
+
+        @Override
+        public void onCleared() {
+            cleared++;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.nirvana.api;
+
+import static org.junit.Assume.assumeTrue;
+
+import com.github.scribejava.core.builder.ServiceBuilder;
+import com.github.scribejava.core.model.OAuth1AccessToken;
+import com.github.scribejava.core.model.OAuthRequest;
+import com.github.scribejava.core.model.Verb;
+import com.github.scribejava.core.oauth.OAuth10aService;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import okhttp3.HttpUrl;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Signing throughput and allocation of {@link OAuth1Signer} against scribejava producing
+ * the same signed URL. Run with {@code -Dnirvana.benchmark=true}.
+ */
+public class OAuth1SignerBenchmark {
+
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 50_000;
+
+    @Before
+    public void requireBenchmarkFlag() {
+        assumeTrue(Boolean.getBoolean("nirvana.benchmark"));
+    }
+
+    @Test
+    public void leanVersusScribejava() {
+        HttpUrl url = HttpUrl.get("https://platform.fatsecret.com/rest/server.api").newBuilder()
+                .addQueryParameter("method", "foods.search")
+                .addQueryParameter("search_expression", "greek yogurt")
+                .addQueryParameter("page_number", "0")
+                .addQueryParameter("max_results", "20")
+                .addQueryParameter("format", "json")
+                .build();
+        OAuth1Signer signer = new OAuth1Signer(OAuth1SignerTest.KEY, OAuth1SignerTest.SECRET);
+        OAuth10aService service = new ServiceBuilder(OAuth1SignerTest.KEY)
+                .apiSecret(OAuth1SignerTest.SECRET)
+                .build(new OAuth1SignerTest.ReferenceApi());
+        OAuth1AccessToken token = new OAuth1AccessToken("", "");
+
+        long[] lean = measure(() -> signer.sign("GET", url).querySize());
+        long[] scribe = measure(() -> {
+            OAuthRequest request = new OAuthRequest(Verb.GET, url.toString());
+            service.signRequest(token, request);
+            HttpUrl.Builder signed = url.newBuilder();
+            for (Map.Entry<String, String> p : request.getOauthParameters().entrySet()) {
+                signed.addQueryParameter(p.getKey(), p.getValue());
+            }
+            return signed.build().querySize();
+        });
+        System.out.printf("sign: lean %.0f/s %dB/op | scribejava %.0f/s %dB/op | %.1fx faster, %.1fx less garbage%n",
+                1e9 / lean[0], lean[1], 1e9 / scribe[0], scribe[1],
+                (double) scribe[0] / lean[0], (double) scribe[1] / lean[1]);
+    }
+
+    private interface Sign {
+        int run();
+    }
+
+    /** Mean nanoseconds and bytes allocated per signature. */
+    private static long[] measure(Sign sign) {
+        int sink = 0;
+        for (int i = 0; i < WARMUP; i++) sink += sign.run();
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) sink += sign.run();
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        if (sink == 42) System.out.print("");
+        return new long[]{Math.max(1, nanos / ITERATIONS), allocated / ITERATIONS};
+    }
+}
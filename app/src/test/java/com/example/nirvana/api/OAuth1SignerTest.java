@@ -0,0 +1,171 @@
+package com.example.nirvana.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.github.scribejava.core.builder.ServiceBuilder;
+import com.github.scribejava.core.builder.api.DefaultApi10a;
+import com.github.scribejava.core.model.OAuth1AccessToken;
+import com.github.scribejava.core.model.OAuth1RequestToken;
+import com.github.scribejava.core.model.OAuthRequest;
+import com.github.scribejava.core.model.Verb;
+import com.github.scribejava.core.oauth.OAuth10aService;
+import com.github.scribejava.core.services.TimestampService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Test;
+
+public class OAuth1SignerTest {
+
+    static final String KEY = "e02d0ba3dbad4a788effda4e4a65d794";
+    static final String SECRET = "aa6318afc5cd400394180e706bc2ffd4";
+    private static final String BASE = "https://platform.fatsecret.com/rest/server.api";
+
+    private static final String[] TERMS = {
+            "chicken breast", "Cr\u00e8me br\u00fbl\u00e9e", "p\u00e3o de queijo", "100% juice", "a+b=c", "fish & chips",
+            "rock'n'roll (large)", "~tilde*star!", "pizza \ud83c\udf55", "", " leading space", "\u540d\u5b57",
+            "semi;colon,comma", "slash/back\\slash", "tab\tquote\"", "UPPER lower 123", "-._~",
+    };
+
+    @Test
+    public void matchesScribejavaOnACorpusOfRequests() {
+        Random random = new Random(42);
+        List<HttpUrl> corpus = new ArrayList<>();
+        for (String term : TERMS) {
+            corpus.add(HttpUrl.get(BASE).newBuilder()
+                    .addQueryParameter("method", "foods.search")
+                    .addQueryParameter("search_expression", term)
+                    .addQueryParameter("page_number", String.valueOf(random.nextInt(10)))
+                    .addQueryParameter("max_results", "20")
+                    .addQueryParameter("format", "json")
+                    .build());
+        }
+        for (int i = 0; i < 50; i++) {
+            corpus.add(HttpUrl.get(BASE).newBuilder()
+                    .addQueryParameter("method", "food.get")
+                    .addQueryParameter("food_id", String.valueOf(random.nextInt(5_000_000)))
+                    .addQueryParameter("format", "json")
+                    .build());
+        }
+        // Repeated names, empty values, non-default ports and encoded paths
+        corpus.add(HttpUrl.get("https://platform.fatsecret.com/rest/server.api?b=2&a=2&a=1&c=&d"));
+        corpus.add(HttpUrl.get("http://localhost:8080/rest/server%20api/server.api?method=food.get&food_id=1"));
+        corpus.add(HttpUrl.get("https://PLATFORM.fatsecret.com:443/rest/server.api?Z=1&a=1&_=1&~=1"));
+
+        long timestamp = 1_700_000_000L;
+        for (HttpUrl url : corpus) {
+            String nonce = Long.toString(random.nextLong() & Long.MAX_VALUE);
+            String expected = scribejavaSignature(url, Long.toString(timestamp), nonce);
+            String actual = new OAuth1Signer(KEY, SECRET).signature("GET", url, Long.toString(timestamp), nonce);
+            assertEquals(url.toString(), expected, actual);
+            timestamp += 7;
+        }
+    }
+
+    @Test
+    public void baseStringFollowsTheSpec() {
+        // RFC 5849 section 3.4.1 example shape, with FatSecret's two-legged parameters
+        HttpUrl url = HttpUrl.get(BASE + "?method=foods.search&search_expression=a%20b");
+        String base = new OAuth1Signer("key", "secret").baseString("get", url, "137131200", "4572616e48616d6d");
+
+        assertEquals("GET&https%3A%2F%2Fplatform.fatsecret.com%2Frest%2Fserver.api&"
+                + "method%3Dfoods.search%26oauth_consumer_key%3Dkey%26oauth_nonce%3D4572616e48616d6d"
+                + "%26oauth_signature_method%3DHMAC-SHA1%26oauth_timestamp%3D137131200"
+                + "%26oauth_version%3D1.0%26search_expression%3Da%2520b", base);
+    }
+
+    @Test
+    public void sortsByEncodedNameWhereScribejavaSortsDecoded() {
+        // RFC 5849 3.4.1.3.2: "%C3%A9" sorts before "~"; scribejava compares the raw 'e'-acute
+        HttpUrl url = HttpUrl.get(BASE + "?~=1&%C3%A9=1");
+        String base = new OAuth1Signer("key", "secret").baseString("GET", url, "1", "1");
+
+        assertTrue(base, base.indexOf("%25C3%25A9%3D1") < base.indexOf("%26~%3D1"));
+    }
+
+    @Test
+    public void signedRequestCarriesOAuthParametersInTheQuery() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody("{}"));
+        server.start();
+        try {
+            OAuth1Signer signer = new OAuth1Signer(KEY, SECRET, () -> 1_700_000_000L, () -> 12345L);
+            okhttp3.OkHttpClient client = new okhttp3.OkHttpClient.Builder().addInterceptor(signer).build();
+            HttpUrl url = server.url("/rest/server.api?method=food.get&food_id=42&format=json");
+            client.newCall(new okhttp3.Request.Builder().url(url).build()).execute().close();
+
+            RecordedRequest recorded = server.takeRequest();
+            HttpUrl sent = recorded.getRequestUrl();
+            assertEquals(KEY, sent.queryParameter("oauth_consumer_key"));
+            assertEquals("12345", sent.queryParameter("oauth_nonce"));
+            assertEquals("1700000000", sent.queryParameter("oauth_timestamp"));
+            assertEquals("HMAC-SHA1", sent.queryParameter("oauth_signature_method"));
+            assertEquals("1.0", sent.queryParameter("oauth_version"));
+            assertEquals(scribejavaSignature(url, "1700000000", "12345"), sent.queryParameter("oauth_signature"));
+            assertTrue(recorded.getHeader("Authorization") == null);
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    /** Reference signature from scribejava with the OAuth timestamp and nonce pinned. */
+    static String scribejavaSignature(HttpUrl url, String timestamp, String nonce) {
+        OAuth10aService service = new ServiceBuilder(KEY).apiSecret(SECRET).build(new PinnedApi(timestamp, nonce));
+        OAuthRequest request = new OAuthRequest(Verb.GET, url.toString());
+        service.signRequest(new OAuth1AccessToken("", ""), request);
+        return request.getOauthParameters().get("oauth_signature");
+    }
+
+    /** FatSecret's OAuth 1.0a endpoints, for signing with scribejava; never called. */
+    static class ReferenceApi extends DefaultApi10a {
+        @Override
+        public String getRequestTokenEndpoint() {
+            return "https://www.fatsecret.com/oauth/request_token";
+        }
+
+        @Override
+        public String getAccessTokenEndpoint() {
+            return "https://www.fatsecret.com/oauth/access_token";
+        }
+
+        @Override
+        public String getAuthorizationBaseUrl() {
+            return "https://www.fatsecret.com/oauth/authorize";
+        }
+
+        @Override
+        public String getAuthorizationUrl(OAuth1RequestToken requestToken) {
+            return getAuthorizationBaseUrl() + "?oauth_token=" + requestToken.getToken();
+        }
+    }
+
+    static class PinnedApi extends ReferenceApi {
+        private final String timestamp;
+        private final String nonce;
+
+        PinnedApi(String timestamp, String nonce) {
+            this.timestamp = timestamp;
+            this.nonce = nonce;
+        }
+
+        @Override
+        public TimestampService getTimestampService() {
+            return new TimestampService() {
+                @Override
+                public String getTimestampInSeconds() {
+                    return timestamp;
+                }
+
+                @Override
+                public String getNonce() {
+                    return nonce;
+                }
+            };
+        }
+    }
+}
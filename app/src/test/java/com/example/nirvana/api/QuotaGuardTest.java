@@ -0,0 +1,275 @@
+package com.example.nirvana.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.nirvana.api.cache.CachingInterceptor;
+import com.example.nirvana.api.cache.ResponseCache;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QuotaGuardTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final List<Long> sleeps = new ArrayList<>();
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void serverErrorsAreRetriedWithJitteredBackoff() throws Exception {
+        QuotaGuard guard = guard(100, 3, 3, 30_000);
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setBody("{}"));
+
+        try (Response response = get(client(guard), "1")) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(3, server.getRequestCount());
+        // Half of 100ms, then half of 200ms
+        assertEquals(List.of(50L, 100L), sleeps);
+        assertEquals(2, guard.getRetryCount());
+        assertEquals(QuotaGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    public void lastErrorIsReturnedOnceRetriesRunOut() throws Exception {
+        QuotaGuard guard = guard(100, 2, 10, 30_000);
+        for (int i = 0; i < 3; i++) server.enqueue(new MockResponse().setResponseCode(502));
+
+        try (Response response = get(client(guard), "1")) {
+            assertEquals(502, response.code());
+        }
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void retryAfterIsHonoured() throws Exception {
+        QuotaGuard guard = guard(100, 1, 10, 30_000);
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "3"));
+        server.enqueue(new MockResponse().setBody("{}"));
+
+        get(client(guard), "1").close();
+
+        assertEquals(List.of(3_000L), sleeps);
+    }
+
+    @Test
+    public void connectionFailuresAreRetried() throws Exception {
+        QuotaGuard guard = guard(100, 1, 10, 30_000);
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        server.enqueue(new MockResponse().setBody("{}"));
+
+        try (Response response = get(client(guard), "1")) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(1, guard.getRetryCount());
+    }
+
+    @Test
+    public void circuitOpensFailsFastAndRecoversThroughAProbe() throws Exception {
+        QuotaGuard guard = guard(100, 0, 3, 30_000);
+        OkHttpClient client = client(guard);
+        for (int i = 0; i < 3; i++) server.enqueue(new MockResponse().setResponseCode(503));
+        for (int i = 0; i < 3; i++) get(client, "1").close();
+        assertEquals(QuotaGuard.State.OPEN, guard.getState());
+
+        try {
+            get(client, "2");
+            fail("expected the open circuit to refuse the call");
+        } catch (QuotaGuard.CircuitOpenException e) {
+            assertEquals(30_000, e.retryAfterMillis);
+        }
+        assertEquals(3, server.getRequestCount());
+        assertEquals(1, guard.getRejectedCount());
+
+        now.addAndGet(30_000);
+        server.enqueue(new MockResponse().setBody("{}"));
+        get(client, "3").close();
+        assertEquals(QuotaGuard.State.CLOSED, guard.getState());
+        assertEquals(4, server.getRequestCount());
+    }
+
+    @Test
+    public void failedProbeReopensTheCircuit() throws Exception {
+        QuotaGuard guard = guard(100, 2, 1, 30_000);
+        OkHttpClient client = client(guard);
+        server.enqueue(new MockResponse().setResponseCode(500));
+        get(client, "1").close();
+        assertEquals(QuotaGuard.State.OPEN, guard.getState());
+
+        now.addAndGet(30_000);
+        server.enqueue(new MockResponse().setResponseCode(500));
+        // The probe is not retried: one failure is enough to reopen
+        get(client, "2").close();
+        assertEquals(QuotaGuard.State.OPEN, guard.getState());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void probeThatNeverReachesTheServerLetsTheNextCallProbe() throws Exception {
+        // One token every 10s, so the probe fails waiting for one
+        QuotaGuard guard = new QuotaGuard(1, 0.1, 5_000, 0, 100, 1_000, 1, 1_000,
+                now::get, this::sleep, () -> 0.5);
+        OkHttpClient client = client(guard);
+        server.enqueue(new MockResponse().setResponseCode(500));
+        get(client, "1").close();
+        assertEquals(QuotaGuard.State.OPEN, guard.getState());
+
+        now.addAndGet(1_000);
+        try {
+            get(client, "2");
+            fail("expected the limiter to refuse the probe");
+        } catch (QuotaGuard.CircuitOpenException e) {
+            fail("the probe was refused as if another one were in flight");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("rate limit"));
+        }
+
+        now.addAndGet(9_000);
+        server.enqueue(new MockResponse().setBody("{}"));
+        get(client, "3").close();
+        assertEquals(QuotaGuard.State.CLOSED, guard.getState());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void bucketThrottlesBursts() throws Exception {
+        QuotaGuard guard = new QuotaGuard(2, 1, 5_000, 0, 100, 1_000, 5, 30_000,
+                now::get, this::sleep, () -> 0.5);
+        OkHttpClient client = client(guard);
+        for (int i = 0; i < 3; i++) server.enqueue(new MockResponse().setBody("{}"));
+
+        for (int i = 0; i < 3; i++) get(client, String.valueOf(i)).close();
+
+        assertEquals(List.of(1_000L), sleeps);
+        assertEquals(1_000, guard.getThrottledMillis());
+    }
+
+    @Test
+    public void callsThatWouldWaitTooLongForATokenFail() throws Exception {
+        QuotaGuard guard = new QuotaGuard(1, 0.1, 5_000, 0, 100, 1_000, 5, 30_000,
+                now::get, this::sleep, () -> 0.5);
+        OkHttpClient client = client(guard);
+        server.enqueue(new MockResponse().setBody("{}"));
+        get(client, "1").close();
+
+        try {
+            get(client, "2");
+            fail("expected the limiter to refuse the call");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("rate limit"));
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void openCircuitFallsBackToTheCachedAnswer() throws Exception {
+        QuotaGuard guard = guard(100, 0, 1, 120_000);
+        ResponseCache cache = new ResponseCache(64 * 1024, null);
+        CachingInterceptor caching = new CachingInterceptor(cache, now::get)
+                .setPolicy("food.get", new CachingInterceptor.Policy(60, 0, TimeUnit.SECONDS));
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(caching).addInterceptor(guard).build();
+
+        server.enqueue(new MockResponse().setBody("{\"food\":{\"food_id\":\"1\"}}"));
+        get(client, "1").close();
+        server.enqueue(new MockResponse().setResponseCode(503));
+        get(client, "2").close();
+        assertEquals(QuotaGuard.State.OPEN, guard.getState());
+
+        // The cached copy has expired, but FatSecret is still considered down
+        now.addAndGet(61_000);
+        try (Response response = get(client, "1")) {
+            assertEquals("OFFLINE", response.header(CachingInterceptor.CACHE_STATUS_HEADER));
+            assertEquals("{\"food\":{\"food_id\":\"1\"}}", response.body().string());
+        }
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void errorLeftAfterRetriesFallsBackToTheCachedAnswer() throws Exception {
+        QuotaGuard guard = guard(100, 1, 10, 30_000);
+        ResponseCache cache = new ResponseCache(64 * 1024, null);
+        CachingInterceptor caching = new CachingInterceptor(cache, now::get)
+                .setPolicy("food.get", new CachingInterceptor.Policy(60, 0, TimeUnit.SECONDS));
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(caching).addInterceptor(guard).build();
+
+        server.enqueue(new MockResponse().setBody("{\"food\":{\"food_id\":\"1\"}}"));
+        get(client, "1").close();
+
+        now.addAndGet(61_000);
+        server.enqueue(new MockResponse().setResponseCode(429));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        try (Response response = get(client, "1")) {
+            assertEquals(200, response.code());
+            assertEquals("OFFLINE", response.header(CachingInterceptor.CACHE_STATUS_HEADER));
+            assertEquals("{\"food\":{\"food_id\":\"1\"}}", response.body().string());
+        }
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void backoffHoldsNoSchedulerSlot() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler();
+        List<Integer> runningWhileAsleep = new ArrayList<>();
+        QuotaGuard guard = new QuotaGuard(100, 100, 5_000, 2, 100, 10_000, 10, 30_000,
+                now::get, millis -> runningWhileAsleep.add(scheduler.stats().foreground.running),
+                () -> 0.5);
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(guard)
+                .addInterceptor(scheduler)
+                .build();
+
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("{}"));
+        try (Response response = get(client, "1")) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(List.of(0, 0), runningWhileAsleep);
+        assertEquals(3, scheduler.stats().foreground.admitted);
+    }
+
+    private QuotaGuard guard(long baseBackoffMs, int maxRetries, int failureThreshold, long openMs) {
+        return new QuotaGuard(100, 100, 5_000, maxRetries, baseBackoffMs, 10_000,
+                failureThreshold, openMs, now::get, this::sleep, () -> 0.5);
+    }
+
+    private void sleep(long millis) {
+        sleeps.add(millis);
+        now.addAndGet(millis);
+    }
+
+    private static OkHttpClient client(QuotaGuard guard) {
+        return new OkHttpClient.Builder().addInterceptor(guard).build();
+    }
+
+    private Response get(OkHttpClient client, String foodId) throws IOException {
+        return client.newCall(new Request.Builder()
+                .url(server.url("/server.api?method=food.get&food_id=" + foodId))
+                .build()).execute();
+    }
+}
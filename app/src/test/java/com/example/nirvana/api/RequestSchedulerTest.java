@@ -0,0 +1,216 @@
+package com.example.nirvana.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RequestSchedulerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final List<String> outcomes = new CopyOnWriteArrayList<>();
+    private MockWebServer server;
+    private HeldDispatcher held;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        held = new HeldDispatcher();
+        server.setDispatcher(held);
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        held.permits.release(100);
+        server.shutdown();
+    }
+
+    @Test
+    public void foregroundJumpsQueuedBackgroundWork() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(1, 1, 8, 60_000, now::get);
+        OkHttpClient client = client(scheduler);
+
+        send(client, "a", RequestPriority.background());
+        awaitTrue(() -> held.arrived.size() == 1);
+        send(client, "b", RequestPriority.background());
+        awaitTrue(() -> scheduler.stats().background.queued == 1);
+        send(client, "c", null);
+        awaitTrue(() -> scheduler.stats().foreground.queued == 1);
+
+        held.permits.release(3);
+        awaitTrue(() -> outcomes.size() == 3);
+        assertEquals(List.of("a", "c", "b"), held.arrived);
+    }
+
+    @Test
+    public void backgroundHasItsOwnConcurrencyLimit() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(4, 1, 8, 60_000, now::get);
+        OkHttpClient client = client(scheduler);
+
+        send(client, "a", RequestPriority.background());
+        send(client, "b", RequestPriority.background());
+        send(client, "c", RequestPriority.background());
+        // The admitted call can be queued at the server a moment after the others queue here
+        awaitTrue(() -> scheduler.stats().background.queued == 2 && held.arrived.size() == 1);
+        assertEquals(1, scheduler.stats().background.running);
+
+        // Foreground work still has free slots
+        send(client, "d", RequestPriority.foreground());
+        awaitTrue(() -> held.arrived.size() == 2);
+        assertEquals("d", held.arrived.get(1));
+    }
+
+    @Test
+    public void backgroundIsDroppedWhenItsQueueIsFull() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(4, 1, 1, 60_000, now::get);
+        OkHttpClient client = client(scheduler);
+
+        send(client, "a", RequestPriority.background());
+        awaitTrue(() -> held.arrived.size() == 1);
+        send(client, "b", RequestPriority.background());
+        awaitTrue(() -> scheduler.stats().background.queued == 1);
+        send(client, "c", RequestPriority.background());
+
+        awaitTrue(() -> outcomes.contains("c:failed"));
+        assertEquals(1, scheduler.stats().background.dropped);
+    }
+
+    @Test
+    public void backgroundIsDroppedAfterWaitingTooLong() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(4, 1, 8, 5_000, now::get);
+        OkHttpClient client = client(scheduler);
+
+        send(client, "a", RequestPriority.background());
+        awaitTrue(() -> held.arrived.size() == 1);
+        send(client, "b", RequestPriority.background());
+        awaitTrue(() -> scheduler.stats().background.queued == 1);
+
+        now.addAndGet(5_000);
+        awaitTrue(() -> outcomes.contains("b:failed"));
+        assertEquals(0, scheduler.stats().background.queued);
+        assertEquals(1, scheduler.stats().background.dropped);
+    }
+
+    @Test
+    public void promotedBackgroundCallStartsAsForeground() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(4, 1, 8, 60_000, now::get);
+        OkHttpClient client = client(scheduler);
+
+        send(client, "a", RequestPriority.background());
+        awaitTrue(() -> held.arrived.size() == 1);
+        RequestPriority waiting = RequestPriority.background();
+        send(client, "b", waiting);
+        awaitTrue(() -> scheduler.stats().background.queued == 1);
+
+        waiting.promote();
+        awaitTrue(() -> held.arrived.size() == 2);
+        assertEquals(1, scheduler.stats().foreground.admitted);
+        assertEquals(0, scheduler.stats().background.queued);
+    }
+
+    @Test
+    public void cancelledCallLeavesTheQueue() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(1, 1, 8, 60_000, now::get);
+        OkHttpClient client = client(scheduler);
+
+        send(client, "a", null);
+        awaitTrue(() -> held.arrived.size() == 1);
+        Call queued = send(client, "b", null);
+        awaitTrue(() -> scheduler.stats().foreground.queued == 1);
+
+        queued.cancel();
+        awaitTrue(() -> outcomes.contains("b:failed"));
+        assertEquals(0, scheduler.stats().foreground.queued);
+        held.permits.release();
+        awaitTrue(() -> outcomes.contains("a"));
+        assertEquals(1, held.arrived.size());
+    }
+
+    @Test
+    public void waitTimesAreRecorded() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(1, 1, 8, 60_000, now::get);
+        OkHttpClient client = client(scheduler);
+
+        send(client, "a", null);
+        awaitTrue(() -> held.arrived.size() == 1);
+        send(client, "b", null);
+        awaitTrue(() -> scheduler.stats().foreground.queued == 1);
+        now.addAndGet(250);
+        held.permits.release(2);
+        awaitTrue(() -> outcomes.size() == 2);
+
+        RequestScheduler.ClassStats stats = scheduler.stats().foreground;
+        assertEquals(2, stats.admitted);
+        assertEquals(1, stats.maxQueued);
+        assertEquals(250, stats.maxWaitMillis);
+        assertEquals(125, stats.meanWaitMillis(), 0.001);
+        assertTrue(scheduler.stats().toString().contains("maxWaitMs=250"));
+    }
+
+    private OkHttpClient client(RequestScheduler scheduler) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(64);
+        return new OkHttpClient.Builder().dispatcher(dispatcher).addInterceptor(scheduler).build();
+    }
+
+    private Call send(OkHttpClient client, String id, RequestPriority priority) {
+        Request request = new Request.Builder()
+                .url(server.url("/server.api?method=food.get&food_id=" + id))
+                .tag(RequestPriority.class, priority)
+                .build();
+        Call call = client.newCall(request);
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call c, Response response) {
+                response.close();
+                outcomes.add(id);
+            }
+
+            @Override
+            public void onFailure(Call c, IOException e) {
+                outcomes.add(id + ":failed");
+            }
+        });
+        return call;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    /** Records arrival order and answers one request per released permit. */
+    private static class HeldDispatcher extends okhttp3.mockwebserver.Dispatcher {
+        final List<String> arrived = new CopyOnWriteArrayList<>();
+        final Semaphore permits = new Semaphore(0);
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            arrived.add(request.getRequestUrl().queryParameter("food_id"));
+            permits.tryAcquire(10, TimeUnit.SECONDS);
+            return new MockResponse().setBody("{}");
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.nirvana.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+public class ServingPrefetcherTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private MockWebServer server;
+    private GatedDispatcher dispatcher;
+    private FatSecretApi api;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        dispatcher = new GatedDispatcher();
+        server.setDispatcher(dispatcher);
+        server.start();
+        api = new CoalescingFatSecretApi(new Retrofit.Builder()
+                .baseUrl(server.url("/rest/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(FatSecretApi.class));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        dispatcher.release();
+        server.shutdown();
+    }
+
+    @Test
+    public void onlyTopResultsAreFetched() throws Exception {
+        dispatcher.release();
+        ServingPrefetcher prefetcher = new ServingPrefetcher(api, 3, 2, 30, now::get);
+
+        prefetcher.prefetch(foods("1", "2", "3", "4", "5", "6"));
+
+        awaitTrue(() -> dispatcher.requested.size() == 3);
+        Thread.sleep(100);
+        assertEquals(List.of("1", "2", "3"), sorted(dispatcher.requested));
+        assertEquals(3, prefetcher.getSentCount());
+    }
+
+    @Test
+    public void concurrencyIsBounded() throws Exception {
+        ServingPrefetcher prefetcher = new ServingPrefetcher(api, 5, 2, 30, now::get);
+
+        prefetcher.prefetch(foods("1", "2", "3", "4"));
+        awaitTrue(() -> dispatcher.requested.size() == 2);
+        Thread.sleep(100);
+        assertEquals(2, dispatcher.requested.size());
+
+        dispatcher.release();
+        awaitTrue(() -> dispatcher.requested.size() == 4);
+    }
+
+    @Test
+    public void budgetCapsSpeculationPerMinute() throws Exception {
+        dispatcher.release();
+        ServingPrefetcher prefetcher = new ServingPrefetcher(api, 5, 1, 2, now::get);
+
+        prefetcher.prefetch(foods("1", "2", "3", "4"));
+        awaitTrue(() -> prefetcher.getSkippedForBudgetCount() == 2);
+        assertEquals(2, dispatcher.requested.size());
+
+        // A minute later the budget is back; foods already fetched are not asked for again
+        now.addAndGet(60_000);
+        prefetcher.prefetch(foods("1", "2", "3", "4"));
+        awaitTrue(() -> dispatcher.requested.size() == 4);
+        Thread.sleep(100);
+        assertEquals(List.of("1", "2", "3", "4"), sorted(dispatcher.requested));
+    }
+
+    @Test
+    public void newListDropsQueuedAndRunningWork() throws Exception {
+        ServingPrefetcher prefetcher = new ServingPrefetcher(api, 5, 1, 30, now::get);
+
+        prefetcher.prefetch(foods("1", "2", "3"));
+        awaitTrue(() -> dispatcher.requested.size() == 1);
+        prefetcher.prefetch(foods("7", "8"));
+        dispatcher.release();
+
+        awaitTrue(() -> dispatcher.requested.size() == 3);
+        Thread.sleep(100);
+        assertEquals(List.of("1", "7", "8"), sorted(dispatcher.requested));
+    }
+
+    @Test
+    public void runningPrefetchForAFoodStillInTheListIsKept() throws Exception {
+        ServingPrefetcher prefetcher = new ServingPrefetcher(api, 5, 1, 30, now::get);
+
+        prefetcher.prefetch(foods("1", "2"));
+        awaitTrue(() -> dispatcher.requested.size() == 1);
+        prefetcher.prefetch(foods("2", "1"));
+        dispatcher.release();
+
+        awaitTrue(() -> prefetcher.getSentCount() == 2 && dispatcher.requested.size() == 2);
+        Thread.sleep(100);
+        assertEquals(List.of("1", "2"), sorted(dispatcher.requested));
+    }
+
+    @Test
+    public void servingDialogJoinsAPrefetchInFlight() throws Exception {
+        ServingPrefetcher prefetcher = new ServingPrefetcher(api, 5, 1, 30, now::get);
+        prefetcher.prefetch(foods("42"));
+        awaitTrue(() -> dispatcher.requested.size() == 1);
+
+        CountDownLatch opened = new CountDownLatch(1);
+        List<String> names = new CopyOnWriteArrayList<>();
+        api.getFood("food.get", "42", "json").enqueue(new Callback<FoodGetResponse>() {
+            @Override
+            public void onResponse(Call<FoodGetResponse> call, Response<FoodGetResponse> response) {
+                names.add(response.body().food.foodName);
+                opened.countDown();
+            }
+
+            @Override
+            public void onFailure(Call<FoodGetResponse> call, Throwable t) {
+                opened.countDown();
+            }
+        });
+        // The query changes while the dialog is open; its request must survive
+        prefetcher.cancel();
+        dispatcher.release();
+
+        assertTrue(opened.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("Food 42"), names);
+        assertEquals(1, dispatcher.requested.size());
+    }
+
+    private static List<FoodSearchResponse.FoodItem> foods(String... ids) {
+        List<FoodSearchResponse.FoodItem> foods = new ArrayList<>();
+        for (String id : ids) {
+            FoodSearchResponse.FoodItem food = new FoodSearchResponse.FoodItem();
+            food.food_id = id;
+            food.food_name = "Food " + id;
+            foods.add(food);
+        }
+        return foods;
+    }
+
+    private static List<String> sorted(List<String> ids) {
+        List<String> copy = new ArrayList<>(ids);
+        copy.sort(null);
+        return copy;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    /** Records requested food ids and holds responses until released. */
+    private static class GatedDispatcher extends Dispatcher {
+        final List<String> requested = new CopyOnWriteArrayList<>();
+        private final CountDownLatch gate = new CountDownLatch(1);
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            String id = request.getRequestUrl().queryParameter("food_id");
+            requested.add(id);
+            gate.await(10, TimeUnit.SECONDS);
+            return new MockResponse().setBody(
+                    "{\"food\":{\"food_id\":\"" + id + "\",\"food_name\":\"Food " + id + "\"}}");
+        }
+
+        void release() {
+            gate.countDown();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.nirvana.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CachingInterceptorTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private MockWebServer server;
+    private ResponseCache cache;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        cache = new ResponseCache(64 * 1024, new DiskStore(tmp.newFolder("cache"), 256 * 1024));
+        CachingInterceptor interceptor = new CachingInterceptor(cache, now::get)
+                .setPolicy("food.get", new CachingInterceptor.Policy(60, 600, TimeUnit.SECONDS));
+        client = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+        interceptor.attachClient(client);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void repeatLookupIsServedFromMemory() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"food\":{\"food_id\":\"42\"}}"));
+
+        assertEquals("MISS", status(get(foodGet("42"))));
+        assertEquals("HIT", status(get(foodGet("42"))));
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, cache.stats().hits);
+        assertEquals(1, cache.stats().misses);
+    }
+
+    @Test
+    public void keyIgnoresOAuthParamsAndFoldsSearchCase() {
+        HttpUrl a = server.url("/server.api?method=foods.search&search_expression=Chicken%20%20Breast&oauth_nonce=1");
+        HttpUrl b = server.url("/server.api?search_expression=chicken%20breast&method=foods.search&oauth_nonce=2");
+        assertEquals(CachingInterceptor.cacheKey(a), CachingInterceptor.cacheKey(b));
+    }
+
+    @Test
+    public void staleEntryIsServedWhileRevalidating() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"v\":1}"));
+        server.enqueue(new MockResponse().setBody("{\"v\":2}"));
+        get(foodGet("7")).close();
+
+        now.addAndGet(TimeUnit.SECONDS.toMillis(120));
+        Response stale = get(foodGet("7"));
+        assertEquals("STALE", status(stale));
+        assertEquals("{\"v\":1}", stale.body().string());
+
+        server.takeRequest();
+        server.takeRequest(5, TimeUnit.SECONDS);
+        waitForRevalidation("{\"v\":2}");
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void expiredEntryIsUsedWhenOffline() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"v\":1}"));
+        get(foodGet("9")).close();
+        Request request = foodGet("9");
+        server.shutdown();
+
+        now.addAndGet(TimeUnit.HOURS.toMillis(1));
+        Response offline = get(request);
+        assertEquals("OFFLINE", status(offline));
+        assertEquals("{\"v\":1}", offline.body().string());
+    }
+
+    @Test
+    public void evictedMemoryEntryIsReloadedFromDisk() throws Exception {
+        ResponseCache small = new ResponseCache(16, new DiskStore(tmp.newFolder("small"), 1024));
+        small.put("a", new ResponseCache.Entry(new byte[12], "application/json", 0));
+        small.put("b", new ResponseCache.Entry(new byte[12], "application/json", 0));
+
+        assertEquals(1, small.stats().memoryEvictions);
+        assertEquals(12, small.get("a").body.length);
+        assertNull(small.get("missing"));
+    }
+
+    private void waitForRevalidation(String expected) throws Exception {
+        String key = CachingInterceptor.cacheKey(foodGet("7").url());
+        for (int i = 0; i < 50; i++) {
+            ResponseCache.Entry entry = cache.get(key);
+            if (entry != null && expected.equals(new String(entry.body))) return;
+            Thread.sleep(20);
+        }
+        throw new AssertionError("cache was not refreshed");
+    }
+
+    private Request foodGet(String id) {
+        return new Request.Builder()
+                .url(server.url("/server.api?method=food.get&food_id=" + id + "&format=json"))
+                .build();
+    }
+
+    private Response get(Request request) throws IOException {
+        return client.newCall(request).execute();
+    }
+
+    private static String status(Response response) {
+        String status = response.header(CachingInterceptor.CACHE_STATUS_HEADER);
+        response.close();
+        return status;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.nirvana.api.cache;
+
+import static org.junit.Assume.assumeTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Replays a recorded FatSecret call trace against a local stub server, with and
+ * without the response cache. Run with {@code -Dnirvana.benchmark=true}.
+ */
+public class ResponseCacheBenchmark {
+
+    private static final long STUB_LATENCY_MS = 5;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Before
+    public void requireBenchmarkFlag() {
+        assumeTrue(Boolean.getBoolean("nirvana.benchmark"));
+    }
+
+    @Test
+    public void replayTrace() throws Exception {
+        List<String[]> trace = loadTrace();
+
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse()
+                        .setBody("{\"foods\":{\"food\":[]}}")
+                        .setHeadersDelay(STUB_LATENCY_MS, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+        try {
+            OkHttpClient uncached = new OkHttpClient();
+            ResponseCache cache = new ResponseCache(1024 * 1024,
+                    new DiskStore(tmp.newFolder("cache"), 10 * 1024 * 1024));
+            CachingInterceptor interceptor = new CachingInterceptor(cache);
+            OkHttpClient cached = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+            interceptor.attachClient(cached);
+
+            report("uncached", replay(server, uncached, trace), server.getRequestCount());
+            int before = server.getRequestCount();
+            report("cached", replay(server, cached, trace), server.getRequestCount() - before);
+            System.out.println("cache " + cache.stats() + " hitRatio=" + cache.stats().hitRatio());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private static long[] replay(MockWebServer server, OkHttpClient client, List<String[]> trace)
+            throws Exception {
+        long[] latencies = new long[trace.size()];
+        for (int i = 0; i < trace.size(); i++) {
+            String[] call = trace.get(i);
+            String param = call[0].equals("food.get") ? "food_id" : "search_expression";
+            Request request = new Request.Builder()
+                    .url(server.url("/server.api").newBuilder()
+                            .addQueryParameter("method", call[0])
+                            .addQueryParameter(param, call[1])
+                            .addQueryParameter("format", "json")
+                            .build())
+                    .build();
+            long start = System.nanoTime();
+            try (Response response = client.newCall(request).execute()) {
+                response.body().bytes();
+            }
+            latencies[i] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    private static void report(String label, long[] latencies, int networkCalls) {
+        long total = 0;
+        for (long latency : latencies) total += latency;
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-8s calls=%d network=%d total=%dms p50=%dus p99=%dus%n",
+                label, latencies.length, networkCalls,
+                TimeUnit.NANOSECONDS.toMillis(total),
+                TimeUnit.NANOSECONDS.toMicros(sorted[sorted.length / 2]),
+                TimeUnit.NANOSECONDS.toMicros(sorted[(int) (sorted.length * 0.99)]));
+    }
+
+    private static List<String[]> loadTrace() throws Exception {
+        List<String[]> trace = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                ResponseCacheBenchmark.class.getResourceAsStream("/fatsecret_query_trace.txt"),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                int space = line.indexOf(' ');
+                trace.add(new String[]{line.substring(0, space), line.substring(space + 1)});
+            }
+        }
+        return trace;
+    }
+}
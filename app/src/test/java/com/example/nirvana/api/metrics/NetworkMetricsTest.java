@@ -0,0 +1,204 @@
+package com.example.nirvana.api.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.nirvana.api.cache.CachingInterceptor;
+import com.example.nirvana.api.cache.ResponseCache;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NetworkMetricsTest {
+
+    private static final String BODY = "{\"foods\":{\"food\":[]}}";
+
+    private final NetworkMetrics metrics = new NetworkMetrics();
+    private MockWebServer server;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        client = new OkHttpClient.Builder()
+                .retryOnConnectionFailure(false)
+                .eventListenerFactory(metrics)
+                .addInterceptor(metrics)
+                .addInterceptor(new CachingInterceptor(new ResponseCache(64 * 1024, null)))
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void networkCallIsTimedAndCountedUnderItsMethod() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY));
+
+        get("foods.search", "apple");
+
+        NetworkMetrics.EndpointStats stats = metrics.snapshot().get("foods.search");
+        assertEquals(1, stats.calls);
+        assertEquals(1, stats.connect.count);
+        assertEquals(1, stats.ttfb.count);
+        assertEquals(1, stats.total.count);
+        assertEquals(0, stats.cached.count);
+        assertEquals(0, stats.tls.count);
+        assertTrue(stats.bytesSent > 0);
+        assertTrue(stats.bytesReceived > BODY.length());
+        assertEquals(0, stats.errorRate(), 0);
+    }
+
+    @Test
+    public void cacheHitsAreCountedWithoutNetworkTimings() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY));
+
+        get("foods.search", "apple");
+        get("foods.search", "apple");
+
+        NetworkMetrics.EndpointStats stats = metrics.snapshot().get("foods.search");
+        assertEquals(2, stats.calls);
+        assertEquals(1, stats.cacheHits);
+        assertEquals(1, stats.cacheMisses);
+        assertEquals(0.5, stats.cacheHitRatio(), 0);
+        assertEquals(1, stats.ttfb.count);
+        // The hit is timed apart from the network call, so it doesn't skew its percentiles
+        assertEquals(1, stats.total.count);
+        assertEquals(1, stats.cached.count);
+    }
+
+    @Test
+    public void failuresAndHttpErrorsCountTowardsTheErrorRate() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setBody("{}"));
+
+        try {
+            get("food.get", "1");
+            fail();
+        } catch (IOException expected) {
+        }
+        get("food.get", "2");
+        get("food.get", "3");
+
+        NetworkMetrics.EndpointStats stats = metrics.snapshot().get("food.get");
+        assertEquals(3, stats.calls);
+        assertEquals(1, stats.httpErrors);
+        assertEquals(1, stats.failures);
+        assertEquals(2 / 3.0, stats.errorRate(), 1e-9);
+    }
+
+    @Test
+    public void dumpExportsEveryEndpointAsJson() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY));
+        server.enqueue(new MockResponse().setBody("{}"));
+        get("foods.search", "apple");
+        get("food.get", "1");
+
+        Map<String, NetworkMetrics.EndpointStats> snapshot = metrics.snapshot();
+        String dump = metrics.dump();
+
+        assertEquals(2, snapshot.size());
+        assertTrue(dump, dump.contains("\"foods.search\""));
+        assertTrue(dump, dump.contains("\"food.get\""));
+        assertTrue(dump, dump.contains("\"ttfb\""));
+
+        metrics.reset();
+        assertTrue(metrics.snapshot().isEmpty());
+    }
+
+    @Test
+    public void histogramReportsBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) histogram.record(30);
+        for (int i = 0; i < 9; i++) histogram.record(400);
+        histogram.record(12_345);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.count);
+        assertEquals(50, snapshot.p50Millis);
+        assertEquals(50, snapshot.p90Millis);
+        assertEquals(500, snapshot.p99Millis);
+        assertEquals(12_345, snapshot.percentile(1.0));
+        assertEquals((90 * 30 + 9 * 400 + 12_345) / 100.0, snapshot.meanMillis(), 1e-9);
+    }
+
+    @Test
+    public void bodyLoggerOnlyLogsSampledCalls() throws Exception {
+        List<String> lines = new ArrayList<>();
+        OkHttpClient logged = new OkHttpClient.Builder()
+                .addInterceptor(new SampledBodyLogger(2, lines::add))
+                .build();
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setBody(BODY));
+            logged.newCall(new Request.Builder().url(server.url("/?method=food.get&food_id=" + i)).build())
+                    .execute().close();
+        }
+
+        long requests = lines.stream().filter(line -> line.startsWith("--> GET")).count();
+        assertEquals(2, requests);
+        assertTrue(lines.contains(BODY));
+    }
+
+    @Test
+    public void callsThatNeverRunLeaveNothingBehind() throws Exception {
+        List<WeakReference<Object>> calls = new ArrayList<>();
+        Request request = new Request.Builder()
+                .url(server.url("/rest/server.api?method=foods.search&search_expression=apple"))
+                .build();
+        // Built and dropped, as a caller computing a cache key would
+        for (int i = 0; i < 10; i++) calls.add(new WeakReference<>(client.newCall(request)));
+        Call canceled = client.newCall(request);
+        canceled.cancel();
+        try {
+            canceled.execute();
+            fail("expected the cancelled call to fail");
+        } catch (IOException expected) {
+        }
+        calls.add(new WeakReference<>(canceled));
+        canceled = null;
+
+        for (int i = 0; i < 50 && !allCleared(calls); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertTrue("metrics kept a call alive", allCleared(calls));
+        assertEquals(0, server.getRequestCount());
+        NetworkMetrics.EndpointStats stats = metrics.snapshot().get("foods.search");
+        assertEquals(1, stats.calls);
+        assertEquals(1, stats.canceled);
+    }
+
+    private static boolean allCleared(List<WeakReference<Object>> references) {
+        for (WeakReference<Object> reference : references) {
+            if (reference.get() != null) return false;
+        }
+        return true;
+    }
+
+    private void get(String method, String arg) throws IOException {
+        String param = method.equals("food.get") ? "food_id" : "search_expression";
+        Request request = new Request.Builder()
+                .url(server.url("/rest/server.api?method=" + method + "&" + param + "=" + arg))
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            response.body().string();
+        }
+    }
+}
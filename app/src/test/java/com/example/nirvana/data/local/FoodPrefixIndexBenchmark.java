@@ -0,0 +1,78 @@
+package com.example.nirvana.data.local;
+
+import static org.junit.Assume.assumeTrue;
+
+import com.example.nirvana.api.FoodSearchResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Lookup latency over 100k synthetic food names. Run with {@code -Dnirvana.benchmark=true}. */
+public class FoodPrefixIndexBenchmark {
+
+    private static final String[] WORDS = {
+            "chicken", "breast", "grilled", "rice", "brown", "white", "banana", "apple", "egg",
+            "boiled", "fried", "oats", "milk", "skim", "whole", "yogurt", "greek", "bread",
+            "wheat", "peanut", "butter", "salmon", "tuna", "paneer", "dal", "roti", "pasta",
+            "broccoli", "spinach", "almond", "avocado", "potato", "sweet", "cheese", "cheddar",
+            "orange", "juice", "beef", "steak", "tofu", "soup", "salad", "curry", "masala"};
+    private static final int NAMES = 100_000;
+    private static final int LOOKUPS = 20_000;
+
+    @Before
+    public void requireBenchmarkFlag() {
+        assumeTrue(Boolean.getBoolean("nirvana.benchmark"));
+    }
+
+    @Test
+    public void lookupLatencyOn100kNames() {
+        Random random = new Random(42);
+        FoodPrefixIndex index = new FoodPrefixIndex();
+        List<FoodSearchResponse.FoodItem> batch = new ArrayList<>();
+        for (int i = 0; i < NAMES; i++) {
+            FoodSearchResponse.FoodItem item = new FoodSearchResponse.FoodItem();
+            item.food_id = String.valueOf(i);
+            item.food_name = randomName(random) + " " + i;
+            batch.add(item);
+        }
+        index.recordSeen(batch);
+
+        long buildStart = System.nanoTime();
+        index.search("warm", 1);
+        long buildMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - buildStart);
+
+        String[] queries = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            queries[i] = word.substring(0, 2 + random.nextInt(word.length() - 1));
+        }
+        for (int i = 0; i < 2_000; i++) index.search(queries[i], 20);
+
+        long[] latencies = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            long start = System.nanoTime();
+            index.search(queries[i], 20);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("FoodPrefixIndex names=%d build=%dms p50=%dus p99=%dus max=%dus%n",
+                NAMES, buildMs,
+                TimeUnit.NANOSECONDS.toMicros(latencies[LOOKUPS / 2]),
+                TimeUnit.NANOSECONDS.toMicros(latencies[(int) (LOOKUPS * 0.99)]),
+                TimeUnit.NANOSECONDS.toMicros(latencies[LOOKUPS - 1]));
+    }
+
+    private static String randomName(Random random) {
+        int words = 1 + random.nextInt(3);
+        StringBuilder name = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            if (w > 0) name.append(' ');
+            name.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.nirvana.data.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.nirvana.api.FoodSearchResponse;
+import com.example.nirvana.data.models.FoodItem;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class FoodPrefixIndexTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.DAYS.toMillis(1000));
+    private final FoodPrefixIndex index = new FoodPrefixIndex(now::get);
+
+    @Test
+    public void matchesAtAnyWordBoundaryIgnoringCaseAndPunctuation() {
+        index.recordSeen(results("1:Grilled Chicken Breast", "2:Chickpeas", "3:Rice, Brown"));
+
+        assertEquals(names("Grilled Chicken Breast"), names(index.search("BREAST", 10)));
+        assertEquals(names("Rice, Brown"), names(index.search("rice br", 10)));
+        assertEquals(2, index.search("chick", 10).size());
+        assertTrue(index.search("icken", 10).isEmpty());
+    }
+
+    @Test
+    public void frequentlyAndRecentlyLoggedFoodsRankFirst() {
+        index.recordSeen(results("1:Chicken Curry", "2:Chicken Salad", "3:Chicken Soup"));
+        logged("3", "Chicken Soup", 1);
+        now.addAndGet(TimeUnit.DAYS.toMillis(60));
+        logged("2", "Chicken Salad", 5);
+        now.addAndGet(TimeUnit.DAYS.toMillis(1));
+        logged("1", "Chicken Curry", 1);
+
+        assertEquals(names("Chicken Salad", "Chicken Curry", "Chicken Soup"),
+                names(index.search("chicken", 10)));
+    }
+
+    @Test
+    public void foodMatchingSeveralWordsIsReturnedOnceAndLimitIsHonoured() {
+        index.recordSeen(results("1:Rice Pudding Rice", "2:Rice Cake", "3:Rice Noodles"));
+
+        List<FoodSearchResponse.FoodItem> hits = index.search("rice", 2);
+        assertEquals(2, hits.size());
+        assertEquals(3, index.search("rice", 10).size());
+    }
+
+    @Test
+    public void foodsRecordedAfterALookupAreMergedInAndRenamesDropTheOldName() {
+        index.recordSeen(results("1:Banana", "2:Apple Pie"));
+        assertEquals(names("Banana"), names(index.search("ban", 10)));
+
+        index.recordSeen(results("3:Baked Beans", "2:Cherry Pie", "4:Bagel"));
+
+        assertEquals(3, index.search("ba", 10).size());
+        assertTrue(index.search("apple", 10).isEmpty());
+        assertEquals(names("Cherry Pie"), names(index.search("pie", 10)));
+        assertEquals(names("Bagel"), names(index.search("bag", 10)));
+        assertEquals(4, index.size());
+    }
+
+    private void logged(String id, String name, int times) {
+        for (int i = 0; i < times; i++) {
+            index.recordLogged(new FoodItem(id, name, "s", "1 cup", 100, 1, 1, 1, "Lunch"));
+        }
+    }
+
+    private static List<FoodSearchResponse.FoodItem> results(String... idAndNames) {
+        List<FoodSearchResponse.FoodItem> items = new ArrayList<>();
+        for (String idAndName : idAndNames) {
+            FoodSearchResponse.FoodItem item = new FoodSearchResponse.FoodItem();
+            item.food_id = idAndName.substring(0, idAndName.indexOf(':'));
+            item.food_name = idAndName.substring(idAndName.indexOf(':') + 1);
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static List<String> names(String... names) {
+        return Arrays.asList(names);
+    }
+
+    private static List<String> names(List<FoodSearchResponse.FoodItem> items) {
+        List<String> names = new ArrayList<>();
+        for (FoodSearchResponse.FoodItem item : items) names.add(item.food_name);
+        return names;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.nirvana.data.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.nirvana.data.models.FoodItem;
+import com.example.nirvana.data.models.NutrientTotals;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class MealTallyTest {
+
+    private static final long NOON = TimeUnit.DAYS.toMillis(19_500) + TimeUnit.HOURS.toMillis(12);
+    private static final double EPSILON = 1e-6;
+
+    @Test
+    public void runningTotalsMatchFullRecompute() {
+        Random random = new Random(7);
+        String day = entry("x", "Lunch", 0, 1).dayKey();
+        MealTally tally = new MealTally(day, "Lunch");
+        Map<String, MealEntry> server = new HashMap<>();
+
+        for (int op = 0; op < 5_000; op++) {
+            String key = "k" + random.nextInt(40);
+            MealEntry change;
+            if (random.nextInt(4) == 0) {
+                change = entry(key, "Lunch", 0, op).asDeleted(op);
+                server.remove(key);
+            } else {
+                String mealType = random.nextInt(5) == 0 ? "Dinner" : "Lunch";
+                change = entry(key, mealType, random.nextDouble() * 600, op);
+                server.put(key, change);
+            }
+            tally.apply(Collections.singletonList(change));
+        }
+
+        List<FoodItem> expected = new ArrayList<>();
+        for (MealEntry entry : server.values()) {
+            if (entry.item.getMealType().equals("Lunch")) expected.add(entry.item);
+        }
+        NutrientTotals recomputed = NutrientTotals.of(expected);
+        assertEquals(expected.size(), tally.entries().size());
+        assertEquals(recomputed.getCalories(), tally.totals().getCalories(), EPSILON);
+        assertEquals(recomputed.getProtein(), tally.totals().getProtein(), EPSILON);
+    }
+
+    @Test
+    public void changesOutsideThePartitionAreIgnored() {
+        String day = entry("x", "Lunch", 0, 1).dayKey();
+        MealTally tally = new MealTally(day, "Lunch");
+
+        assertFalse(tally.apply(Collections.singletonList(entry("a", "Dinner", 300, 1))));
+        assertTrue(tally.apply(Collections.singletonList(entry("b", "Lunch", 300, 1))));
+        assertEquals(300, tally.totals().getCalories(), EPSILON);
+    }
+
+    @Test
+    public void entriesAreOrderedByTime() {
+        String day = entry("x", "Lunch", 0, 1).dayKey();
+        MealTally tally = new MealTally(day, null);
+        MealEntry late = entry("a", "Lunch", 100, 1);
+        late.item.setTimestamp(NOON + 60_000);
+        tally.reset(List.of(late, entry("b", "Lunch", 200, 1)));
+
+        assertEquals("b", tally.entries().get(0).key);
+        assertEquals(300, tally.totals().getCalories(), EPSILON);
+    }
+
+    private static MealEntry entry(String key, String mealType, double calories, long version) {
+        FoodItem item = new FoodItem("id", "Food", "s", "1 serving", calories, calories / 10, calories / 5, calories / 20, mealType);
+        item.setTimestamp(NOON);
+        item.setVersion(version);
+        return new MealEntry(key, item, false, true);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.nirvana.data.local;
+
+import static org.junit.Assume.assumeTrue;
+
+import com.example.nirvana.data.models.FoodItem;
+import com.example.nirvana.data.models.NutrientTotals;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Heap and rollup cost of {@link NutrientLog} against grouping {@link FoodItem}s into
+ * {@link NutrientTotals}, over five years of synthetic entries. Run with
+ * {@code -Dnirvana.benchmark=true}.
+ */
+public class NutrientLogBenchmark {
+
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+    private static final int YEARS = 5;
+    private static final int FOODS = 400;
+    private static final String[] MEALS = {"Breakfast", "Lunch", "Dinner", "Snacks"};
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 50;
+
+    @Before
+    public void requireBenchmarkFlag() {
+        assumeTrue(Boolean.getBoolean("nirvana.benchmark"));
+    }
+
+    @Test
+    public void columnsVersusObjects() {
+        // Retained heap: every decoded FoodItem holds its own String instances
+        long before = usedHeap();
+        List<FoodItem> items = synthetic();
+        long objectHeap = usedHeap() - before;
+        before = usedHeap();
+        NutrientLog log = new NutrientLog(ZONE, items.size());
+        log.addAll(items);
+        long columnHeap = usedHeap() - before;
+        System.out.printf("NutrientLog entries=%d heap: objects %dKB (%dB/entry) | columns %dKB (%dB/entry)%n",
+                items.size(), objectHeap / 1024, objectHeap / items.size(),
+                columnHeap / 1024, columnHeap / items.size());
+
+        for (NutrientLog.Period period : NutrientLog.Period.values()) {
+            long[] objects = measure(() -> groupObjects(items, period));
+            long[] columns = measure(() -> log.rollup(period));
+            System.out.printf("  %s rollup: objects %.1fus %dB | columns %.1fus %dB | %.1fx faster%n",
+                    period, objects[0] / 1000.0, objects[1], columns[0] / 1000.0, columns[1],
+                    (double) objects[0] / columns[0]);
+        }
+
+        // Drift of double sums against the exact fixed-point ones, per day
+        Map<LocalDate, NutrientTotals> byDay = groupObjects(items, NutrientLog.Period.DAY);
+        NutrientLog.Rollup days = log.rollup(NutrientLog.Period.DAY);
+        double worst = 0;
+        for (int p = 0; p < days.size(); p++) {
+            double exact = NutrientLog.fromFixed(days.caloriesFixed(p));
+            worst = Math.max(worst, Math.abs(byDay.get(days.start(p)).getCalories() - exact));
+        }
+        System.out.printf("  worst daily double-sum drift: %.3ekcal%n", worst);
+    }
+
+    private static List<FoodItem> synthetic() {
+        Random random = new Random(5);
+        double[][] foods = new double[FOODS][];
+        for (int f = 0; f < FOODS; f++) {
+            foods[f] = new double[]{random.nextInt(80_000) / 100.0, random.nextInt(6_000) / 100.0,
+                    random.nextInt(9_000) / 100.0, random.nextInt(4_000) / 100.0};
+        }
+        List<FoodItem> items = new ArrayList<>();
+        LocalDateTime day = LocalDateTime.of(2021, 1, 1, 7, 0);
+        for (int d = 0; d < 365 * YEARS; d++, day = day.plusDays(1)) {
+            int entries = 4 + random.nextInt(5);
+            for (int e = 0; e < entries; e++) {
+                int f = random.nextInt(FOODS);
+                FoodItem item = new FoodItem(new String("food" + f), "Food number " + f, "serving" + f,
+                        "1 serving (100 g)", foods[f][0], foods[f][1], foods[f][2], foods[f][3],
+                        new String(MEALS[e % MEALS.length]));
+                item.setTimestamp(day.plusMinutes(e * 150L).atZone(ZONE).toInstant().toEpochMilli());
+                item.setVersion(1);
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /** What a rollup over FoodItems has to do: a date per entry and a map of boxed totals. */
+    private static Map<LocalDate, NutrientTotals> groupObjects(List<FoodItem> items, NutrientLog.Period period) {
+        Map<LocalDate, NutrientTotals> totals = new TreeMap<>();
+        for (FoodItem item : items) {
+            LocalDate day = Instant.ofEpochMilli(item.getTimestamp()).atZone(ZONE).toLocalDate();
+            if (period == NutrientLog.Period.WEEK) day = day.with(TemporalAdjusters.previousOrSame(java.time.DayOfWeek.MONDAY));
+            else if (period == NutrientLog.Period.MONTH) day = day.withDayOfMonth(1);
+            totals.computeIfAbsent(day, k -> new NutrientTotals()).add(item);
+        }
+        return totals;
+    }
+
+    /** Mean nanoseconds and bytes allocated per run. */
+    private static long[] measure(Supplier<Object> run) {
+        int sink = 0;
+        for (int i = 0; i < WARMUP; i++) sink += run.get().hashCode();
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) sink += run.get().hashCode();
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        if (sink == 42) System.out.print("");
+        return new long[]{nanos / ITERATIONS, allocated / ITERATIONS};
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
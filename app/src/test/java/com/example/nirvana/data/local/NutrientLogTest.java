@@ -0,0 +1,147 @@
+package com.example.nirvana.data.local;
+
+import static org.junit.Assert.assertEquals;
+
+import com.example.nirvana.data.models.FoodItem;
+import com.example.nirvana.data.models.NutrientTotals;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class NutrientLogTest {
+
+    private static final ZoneId ZONE = ZoneOffset.ofHours(5);
+
+    static FoodItem item(String foodId, String mealType, LocalDateTime at,
+                         double calories, double protein, double carbs, double fat) {
+        FoodItem item = new FoodItem(foodId, "Food " + foodId, "s", "1 serving",
+                calories, protein, carbs, fat, mealType);
+        item.setTimestamp(at.atZone(ZONE).toInstant().toEpochMilli());
+        return item;
+    }
+
+    @Test
+    public void totalsAreExactInHundredths() {
+        NutrientLog log = new NutrientLog(ZONE, 0);
+        LocalDateTime noon = LocalDateTime.of(2025, 4, 3, 12, 0);
+        for (int i = 0; i < 1_000; i++) {
+            log.add(item("f", "Lunch", noon.plusSeconds(i), 0.1, 0.01, 0.07, 0.03));
+        }
+
+        NutrientTotals totals = log.totals(noon.toLocalDate(), noon.toLocalDate());
+
+        assertEquals(100.0, totals.getCalories(), 0);
+        assertEquals(10.0, totals.getProtein(), 0);
+        assertEquals(70.0, totals.getCarbs(), 0);
+        assertEquals(30.0, totals.getFat(), 0);
+    }
+
+    @Test
+    public void daysFollowTheLogZone() {
+        NutrientLog log = new NutrientLog(ZONE, 0);
+        log.add(item("a", "Snacks", LocalDateTime.of(2025, 4, 3, 23, 59), 100, 0, 0, 0));
+        log.add(item("b", "Breakfast", LocalDateTime.of(2025, 4, 4, 0, 1), 200, 0, 0, 0));
+
+        NutrientLog.Rollup days = log.rollup(NutrientLog.Period.DAY);
+
+        assertEquals(2, days.size());
+        assertEquals(LocalDate.of(2025, 4, 3), days.start(0));
+        assertEquals(10_000, days.caloriesFixed(0));
+        assertEquals(LocalDate.of(2025, 4, 4), days.start(1));
+        assertEquals(20_000, days.caloriesFixed(1));
+    }
+
+    @Test
+    public void weeksStartOnMondayAndMonthsOnTheFirst() {
+        NutrientLog log = new NutrientLog(ZONE, 0);
+        // Sunday 2025-03-30, Monday 2025-03-31, Tuesday 2025-04-01
+        log.add(item("a", "Lunch", LocalDateTime.of(2025, 3, 30, 12, 0), 1, 0, 0, 0));
+        log.add(item("a", "Lunch", LocalDateTime.of(2025, 3, 31, 12, 0), 2, 0, 0, 0));
+        log.add(item("a", "Lunch", LocalDateTime.of(2025, 4, 1, 12, 0), 4, 0, 0, 0));
+
+        NutrientLog.Rollup weeks = log.rollup(NutrientLog.Period.WEEK);
+        assertEquals(2, weeks.size());
+        assertEquals(LocalDate.of(2025, 3, 24), weeks.start(0));
+        assertEquals(1, weeks.totals(0).getCalories(), 0);
+        assertEquals(LocalDate.of(2025, 3, 31), weeks.start(1));
+        assertEquals(2, weeks.entries(1));
+        assertEquals(6, weeks.totals(1).getCalories(), 0);
+
+        NutrientLog.Rollup months = log.rollup(NutrientLog.Period.MONTH);
+        assertEquals(2, months.size());
+        assertEquals(LocalDate.of(2025, 3, 1), months.start(0));
+        assertEquals(3, months.totals(0).getCalories(), 0);
+        assertEquals(LocalDate.of(2025, 4, 1), months.start(1));
+        assertEquals(4, months.totals(1).getCalories(), 0);
+    }
+
+    @Test
+    public void outOfOrderEntriesMatchSortedOnes() {
+        Random random = new Random(11);
+        List<FoodItem> items = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 2_000; i++) {
+            items.add(item("f" + random.nextInt(30), i % 2 == 0 ? "Lunch" : "Dinner",
+                    start.plusMinutes(random.nextInt(60 * 24 * 120)),
+                    random.nextInt(80_000) / 100.0, random.nextInt(5_000) / 100.0,
+                    random.nextInt(9_000) / 100.0, random.nextInt(4_000) / 100.0));
+        }
+        NutrientLog shuffled = new NutrientLog(ZONE, 0);
+        shuffled.addAll(items);
+        items.sort((a, b) -> Long.compare(a.getTimestamp(), b.getTimestamp()));
+        NutrientLog sorted = new NutrientLog(ZONE, 0);
+        sorted.addAll(items);
+
+        assertEquals(sorted.size(), shuffled.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(sorted.timestamp(i), shuffled.timestamp(i));
+        }
+        NutrientLog.Rollup a = sorted.rollup(NutrientLog.Period.WEEK);
+        NutrientLog.Rollup b = shuffled.rollup(NutrientLog.Period.WEEK);
+        long total = 0;
+        for (int p = 0; p < a.size(); p++) {
+            assertEquals(a.start(p), b.start(p));
+            assertEquals(a.caloriesFixed(p), b.caloriesFixed(p));
+            total += a.caloriesFixed(p);
+        }
+        long expected = 0;
+        for (FoodItem item : items) expected += Math.round(item.getCalories() * NutrientLog.SCALE);
+        assertEquals(expected, total);
+    }
+
+    @Test
+    public void rangeTotalsIncludeBothEnds() {
+        NutrientLog log = new NutrientLog(ZONE, 0);
+        for (int day = 1; day <= 10; day++) {
+            log.add(item("a", "Lunch", LocalDateTime.of(2025, 4, day, 12, 0), day, 1, 2, 3));
+        }
+
+        NutrientTotals totals = log.totals(LocalDate.of(2025, 4, 3), LocalDate.of(2025, 4, 5));
+
+        assertEquals(12, totals.getCalories(), 0);
+        assertEquals(3, totals.getProtein(), 0);
+        assertEquals(0, log.totals(LocalDate.of(2025, 5, 1), LocalDate.of(2025, 5, 31)).getCalories(), 0);
+    }
+
+    @Test
+    public void stringsAreStoredOncePerDistinctValue() {
+        NutrientLog log = new NutrientLog(ZONE, 0);
+        LocalDateTime noon = LocalDateTime.of(2025, 4, 3, 12, 0);
+        log.add(item("oats", "Breakfast", noon, 150, 5, 27, 3));
+        log.add(item("oats", "Breakfast", noon.plusDays(1), 150, 5, 27, 3));
+        log.add(item("rice", "Brunch", noon.plusDays(2), 200, 4, 45, 1));
+
+        assertEquals(2, log.foodCount());
+        assertEquals("oats", log.foodId(1));
+        assertEquals("Food rice", log.foodName(2));
+        assertEquals("Breakfast", log.mealType(0));
+        assertEquals("Brunch", log.mealType(2));
+        assertEquals(3, log.rollup(NutrientLog.Period.DAY).size());
+        assertEquals(0, new NutrientLog(ZONE, 0).rollup(NutrientLog.Period.MONTH).size());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.nirvana.data.local;
+
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Cold-open time and lookup latency of a 100k-food offline database.
+ * Run with {@code -Dnirvana.benchmark=true}.
+ */
+public class OfflineFoodDbBenchmark {
+
+    private static final String[] WORDS = {
+            "chicken", "breast", "grilled", "rice", "brown", "white", "banana", "apple", "egg",
+            "boiled", "fried", "oats", "milk", "skim", "whole", "yogurt", "greek", "bread",
+            "wheat", "peanut", "butter", "salmon", "tuna", "paneer", "dal", "roti", "pasta",
+            "broccoli", "spinach", "almond", "avocado", "potato", "sweet", "cheese", "cheddar",
+            "orange", "juice", "beef", "steak", "tofu", "soup", "salad", "curry", "masala"};
+    private static final String[] SERVINGS = {"100 g", "1 cup", "1 serving", "1 oz", "1 medium", "1 tbsp"};
+    private static final int FOODS = 100_000;
+    private static final int OPENS = 200;
+    private static final int LOOKUPS = 20_000;
+
+    @Before
+    public void requireBenchmarkFlag() {
+        assumeTrue(Boolean.getBoolean("nirvana.benchmark"));
+    }
+
+    @Test
+    public void coldOpenAndLookupOn100kFoods() throws Exception {
+        Random random = new Random(42);
+        OfflineFoodDbWriter writer = new OfflineFoodDbWriter();
+        for (int i = 0; i < FOODS; i++) {
+            List<OfflineFoodDbWriter.Serving> servings = new ArrayList<>();
+            for (int s = 1 + random.nextInt(3); s > 0; s--) {
+                servings.add(OfflineFoodDbTest.serving(String.valueOf(s), SERVINGS[random.nextInt(SERVINGS.length)],
+                        random.nextInt(800), random.nextInt(400) / 10.0, random.nextInt(900) / 10.0,
+                        random.nextInt(500) / 10.0));
+            }
+            writer.add(String.valueOf(1_000_000 + i), randomName(random) + " " + i, servings);
+        }
+        File file = File.createTempFile("foods", ".fdb");
+        file.deleteOnExit();
+        long writeStart = System.nanoTime();
+        writer.write(file);
+        long writeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - writeStart);
+
+        String[] queries = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            queries[i] = word.substring(0, 2 + random.nextInt(word.length() - 1));
+        }
+
+        // Open plus first query, as the search dialog does; the page cache is warm after the first
+        long[] opens = new long[OPENS];
+        int[] out = new int[20];
+        for (int i = 0; i < OPENS; i++) {
+            long start = System.nanoTime();
+            OfflineFoodDb db = OfflineFoodDb.open(file);
+            db.search(queries[i], out);
+            opens[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(opens);
+
+        OfflineFoodDb db = OfflineFoodDb.open(file);
+        for (int i = 0; i < 2_000; i++) db.search(queries[i], out);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long[] latencies = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            long start = System.nanoTime();
+            db.search(queries[i], out);
+            latencies[i] = System.nanoTime() - start;
+        }
+        long allocated = (threads.getThreadAllocatedBytes(thread) - allocatedBefore) / LOOKUPS;
+        Arrays.sort(latencies);
+
+        long[] rows = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            long start = System.nanoTime();
+            db.search(queries[i], 20);
+            rows[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(rows);
+
+        System.out.printf("OfflineFoodDb foods=%d file=%dKB write=%dms open+first-query p50=%dus max=%dus%n",
+                FOODS, file.length() / 1024, writeMs,
+                TimeUnit.NANOSECONDS.toMicros(opens[OPENS / 2]), TimeUnit.NANOSECONDS.toMicros(opens[OPENS - 1]));
+        System.out.printf("  lookup (int[]) p50=%dus p99=%dus max=%dus, %dB/lookup | rows (20 items) p50=%dus p99=%dus%n",
+                TimeUnit.NANOSECONDS.toMicros(latencies[LOOKUPS / 2]),
+                TimeUnit.NANOSECONDS.toMicros(latencies[(int) (LOOKUPS * 0.99)]),
+                TimeUnit.NANOSECONDS.toMicros(latencies[LOOKUPS - 1]), allocated,
+                TimeUnit.NANOSECONDS.toMicros(rows[LOOKUPS / 2]),
+                TimeUnit.NANOSECONDS.toMicros(rows[(int) (LOOKUPS * 0.99)]));
+    }
+
+    private static String randomName(Random random) {
+        int words = 1 + random.nextInt(3);
+        StringBuilder name = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            if (w > 0) name.append(' ');
+            name.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.nirvana.data.local;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.nirvana.api.FoodDescription;
+import com.example.nirvana.api.FoodGetResponse;
+import com.example.nirvana.api.FoodSearchResponse;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class OfflineFoodDbTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void searchMatchesWordStartsWithNameStartsFirst() throws Exception {
+        OfflineFoodDb db = build(new OfflineFoodDbWriter()
+                .add("10", "Grilled Chicken Breast", servings(serving("1", "100 g", 165, 31, 0, 3.6)))
+                .add("11", "Chicken Curry", servings(serving("2", "1 cup", 293, 24, 10, 17)))
+                .add("12", "Chickpeas", servings(serving("3", "100 g", 164, 8.9, 27, 2.6)))
+                .add("13", "Rice, Brown", servings(serving("4", "1 cup", 216, 5, 45, 1.8))));
+
+        assertEquals(Arrays.asList("Chicken Curry", "Chickpeas", "Grilled Chicken Breast"),
+                names(db.search("chi", 10)));
+        assertEquals(Arrays.asList("Chicken Curry", "Grilled Chicken Breast"), names(db.search("CHICKEN", 10)));
+        assertEquals(Arrays.asList("Rice, Brown"), names(db.search("rice br", 10)));
+        assertEquals(Arrays.asList("Chicken Curry"), names(db.search("chi", 1)));
+        assertTrue(db.search("icken", 10).isEmpty());
+        assertTrue(db.search("zz", 10).isEmpty());
+        assertTrue(db.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    public void aFoodMatchingAtSeveralWordsIsReturnedOnce() throws Exception {
+        OfflineFoodDb db = build(new OfflineFoodDbWriter()
+                .add("1", "Bean and Bean Salad", servings(serving("1", "1 bowl", 200, 10, 30, 4))));
+
+        int[] out = new int[10];
+        assertEquals(1, db.search("bean", out));
+        assertEquals(1, db.search("bea", out));
+    }
+
+    @Test
+    public void servingsRoundTripWithAllTheirFields() throws Exception {
+        OfflineFoodDb db = build(new OfflineFoodDbWriter()
+                .add("33691", "Banana", servings(
+                        serving("1", "1 medium", 105, 1.29, 26.95, 0.39),
+                        serving("2", "100 g", 89, 1.09, 22.84, 0.33)))
+                .add("4881", "Cr\u00e8me Br\u00fbl\u00e9e", servings(serving("9", "1 ramekin", 330, 4, 25, 24))));
+
+        FoodGetResponse.Food banana = db.getFood("33691");
+        assertEquals("Banana", banana.foodName);
+        assertEquals(2, banana.servings.servingList.size());
+        FoodGetResponse.Serving medium = banana.servings.servingList.get(0);
+        assertEquals("1", medium.servingId);
+        assertEquals("1 medium", medium.description);
+        assertEquals(105, medium.calories, 1e-4);
+        assertEquals(1.29, medium.protein, 1e-4);
+        assertEquals(26.95, medium.carbs, 1e-4);
+        assertEquals(0.39, medium.fat, 1e-4);
+        assertEquals("100 g", banana.servings.servingList.get(1).description);
+
+        assertEquals("Cr\u00e8me Br\u00fbl\u00e9e", db.getFood("4881").foodName);
+        assertEquals(1, db.search("br\u00fb", 10).size());
+        assertNull(db.getFood("404"));
+        assertEquals(-1, db.find("3369"));
+    }
+
+    @Test
+    public void searchRowsCarryADescriptionOfTheFirstServing() throws Exception {
+        OfflineFoodDb db = build(new OfflineFoodDbWriter()
+                .add("1", "Apple", servings(serving("1", "1 medium", 95, 0.47, 25.13, 0.31))));
+
+        FoodSearchResponse.FoodItem row = db.search("app", 10).get(0);
+        FoodDescription description = FoodDescription.parse(row.food_description);
+
+        assertEquals("1", row.food_id);
+        assertEquals("1 medium", description.getServingBasis());
+        assertEquals(95, description.calories, 0.5);
+        assertEquals(25.13, description.carbs, 0.01);
+        assertEquals(0.47, description.protein, 0.01);
+        assertEquals(0.31, description.fat, 0.01);
+    }
+
+    @Test
+    public void repeatedStringsAreStoredOnce() throws Exception {
+        OfflineFoodDbWriter one = new OfflineFoodDbWriter();
+        OfflineFoodDbWriter many = new OfflineFoodDbWriter();
+        one.add("1", "Oats", servings(serving("1", "100 grams serving", 389, 17, 66, 7)));
+        many.add("1", "Oats", servings(serving("1", "100 grams serving", 389, 17, 66, 7)));
+        for (int i = 2; i <= 11; i++) {
+            many.add(String.valueOf(i), "Oats", servings(serving("1", "100 grams serving", 389, 17, 66, 7)));
+        }
+
+        long perExtraFood = (file(many).length() - file(one).length()) / 10;
+        // Food record, serving record, one index entry and the new id; no repeated text
+        assertEquals(OfflineFoodDb.FOOD_BYTES + OfflineFoodDb.SERVING_BYTES + OfflineFoodDb.INDEX_BYTES + 1,
+                perExtraFood, 1);
+    }
+
+    @Test
+    public void rejectsFilesThatAreNotADatabase() throws Exception {
+        File junk = folder.newFile("junk.fdb");
+        try (FileOutputStream out = new FileOutputStream(junk)) {
+            out.write(new byte[64]);
+        }
+        try {
+            OfflineFoodDb.open(junk);
+            fail();
+        } catch (IOException expected) {
+        }
+
+        byte[] valid = java.nio.file.Files.readAllBytes(file(new OfflineFoodDbWriter()
+                .add("1", "Apple", servings(serving("1", "1 medium", 95, 0.5, 25, 0.3)))).toPath());
+        File truncated = folder.newFile("truncated.fdb");
+        try (FileOutputStream out = new FileOutputStream(truncated)) {
+            out.write(Arrays.copyOf(valid, valid.length - 4));
+        }
+        try {
+            OfflineFoodDb.open(truncated);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void foodsAreFoundByIdInByteOrder() throws Exception {
+        OfflineFoodDbWriter writer = new OfflineFoodDbWriter();
+        String[] ids = {"9", "10", "100", "2", "abc", "Z"};
+        for (String id : ids) writer.add(id, "Food " + id, servings(serving("1", "1 g", 1, 0, 0, 0)));
+        OfflineFoodDb db = build(writer);
+
+        String[] stored = new String[db.size()];
+        for (int i = 0; i < stored.length; i++) stored[i] = db.foodId(i);
+        assertArrayEquals(new String[]{"10", "100", "2", "9", "Z", "abc"}, stored);
+        for (String id : ids) assertEquals("Food " + id, db.name(db.find(id)));
+    }
+
+    @Test
+    public void writerNormalizesNamesLikeTheIndex() {
+        for (String name : new String[]{"Rice, Brown", "  Cr\u00e8me  Br\u00fbl\u00e9e ", "7-Up", "PB&J", "", null}) {
+            assertEquals(FoodPrefixIndex.normalize(name), OfflineFoodDbWriter.normalize(name));
+        }
+    }
+
+    @Test
+    public void formatConstantsMatchTheReader() {
+        assertEquals(OfflineFoodDb.MAGIC, OfflineFoodDbWriter.MAGIC);
+        assertEquals(OfflineFoodDb.FORMAT_VERSION, OfflineFoodDbWriter.FORMAT_VERSION);
+        assertEquals(OfflineFoodDb.HEADER_BYTES, OfflineFoodDbWriter.HEADER_BYTES);
+        assertEquals(OfflineFoodDb.FOOD_BYTES, OfflineFoodDbWriter.FOOD_BYTES);
+        assertEquals(OfflineFoodDb.SERVING_BYTES, OfflineFoodDbWriter.SERVING_BYTES);
+        assertEquals(OfflineFoodDb.INDEX_BYTES, OfflineFoodDbWriter.INDEX_BYTES);
+    }
+
+    private OfflineFoodDb build(OfflineFoodDbWriter writer) throws IOException {
+        return OfflineFoodDb.open(file(writer));
+    }
+
+    private File file(OfflineFoodDbWriter writer) throws IOException {
+        File file = folder.newFile();
+        writer.write(file);
+        return file;
+    }
+
+    static OfflineFoodDbWriter.Serving serving(String id, String description, double calories,
+                                               double protein, double carbs, double fat) {
+        return new OfflineFoodDbWriter.Serving(id, description, calories, protein, carbs, fat);
+    }
+
+    static List<OfflineFoodDbWriter.Serving> servings(OfflineFoodDbWriter.Serving... servings) {
+        return Arrays.asList(servings);
+    }
+
+    private static List<String> names(List<FoodSearchResponse.FoodItem> items) {
+        List<String> names = new ArrayList<>();
+        for (FoodSearchResponse.FoodItem item : items) names.add(item.food_name);
+        return names;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.nirvana.data.models;
+
+import static org.junit.Assume.assumeTrue;
+
+import com.google.firebase.database.core.utilities.encoding.CustomClassMapper;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Decode time and allocation per 1,000 raw entries for {@link FoodItemMapper} against the
+ * bean mapper that {@code DataSnapshot.getValue(FoodItem.class)} delegates to. Run with
+ * {@code -Dnirvana.benchmark=true}.
+ */
+public class FoodItemMapperBenchmark {
+
+    private static final int ENTRIES = 1_000;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 200;
+
+    @Before
+    public void requireBenchmarkFlag() {
+        assumeTrue(Boolean.getBoolean("nirvana.benchmark"));
+    }
+
+    @Test
+    public void mapperVersusGetValue() {
+        List<Map<String, Object>> entries = new ArrayList<>(ENTRIES);
+        for (int i = 0; i < ENTRIES; i++) entries.add(FoodItemMapperTest.raw(i));
+
+        long[] mapper = measure(entries, FoodItemMapper::fromValue);
+        long[] bean = measure(entries, raw -> CustomClassMapper.convertToCustomClass(raw, FoodItem.class));
+        System.out.printf("FoodItem x%d: mapper %.1fus %dB | getValue %.1fus %dB | %.1fx faster, %.1fx less garbage%n",
+                ENTRIES, mapper[0] / 1000.0, mapper[1], bean[0] / 1000.0, bean[1],
+                (double) bean[0] / mapper[0], (double) bean[1] / mapper[1]);
+    }
+
+    /** Mean nanoseconds and bytes allocated to decode all entries once. */
+    private static long[] measure(List<Map<String, Object>> entries, Function<Object, FoodItem> decode) {
+        double sink = 0;
+        for (int i = 0; i < WARMUP; i++) sink += decodeAll(entries, decode);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) sink += decodeAll(entries, decode);
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        if (sink == 42) System.out.print("");
+        return new long[]{nanos / ITERATIONS, allocated / ITERATIONS};
+    }
+
+    private static double decodeAll(List<Map<String, Object>> entries, Function<Object, FoodItem> decode) {
+        double calories = 0;
+        for (Map<String, Object> raw : entries) calories += decode.apply(raw).getCalories();
+        return calories;
+    }
+}
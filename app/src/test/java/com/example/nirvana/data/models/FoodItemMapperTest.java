@@ -0,0 +1,103 @@
+package com.example.nirvana.data.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.beans.BeanInfo;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class FoodItemMapperTest {
+
+    /** A raw entry as the database client hands it over: Strings, Longs and Doubles. */
+    static Map<String, Object> raw(int i) {
+        Map<String, Object> value = new HashMap<>();
+        value.put("foodId", "f" + i);
+        value.put("foodName", "Oats " + i);
+        value.put("servingId", "s" + i);
+        value.put("servingDescription", "1 cup");
+        value.put("calories", 150L + i);
+        value.put("protein", 5.5);
+        value.put("carbs", 27L);
+        value.put("fat", 2.5);
+        value.put("mealType", "Breakfast");
+        value.put("timestamp", 1_712_000_000_000L + i);
+        value.put("version", 3L);
+        return value;
+    }
+
+    @Test
+    public void decodesEveryField() {
+        FoodItem item = FoodItemMapper.fromValue(raw(7));
+
+        assertNotNull(item);
+        assertEquals("f7", item.getFoodId());
+        assertEquals("Oats 7", item.getFoodName());
+        assertEquals("s7", item.getServingId());
+        assertEquals("1 cup", item.getServingDescription());
+        assertEquals(157, item.getCalories(), 0);
+        assertEquals(5.5, item.getProtein(), 0);
+        assertEquals(27, item.getCarbs(), 0);
+        assertEquals(2.5, item.getFat(), 0);
+        assertEquals("Breakfast", item.getMealType());
+        assertEquals(1_712_000_000_007L, item.getTimestamp());
+        assertEquals(3, item.getVersion());
+    }
+
+    @Test
+    public void ignoresUnknownKeysAndMistypedValues() {
+        Map<String, Object> value = raw(1);
+        value.put("legacyField", "x");
+        value.put("calories", "lots");
+        value.put("foodName", 12L);
+
+        FoodItem item = FoodItemMapper.fromValue(value);
+
+        assertNotNull(item);
+        assertEquals(0, item.getCalories(), 0);
+        assertNull(item.getFoodName());
+        assertEquals("f1", item.getFoodId());
+    }
+
+    @Test
+    public void nonMapValuesAreNotItems() {
+        assertNull(FoodItemMapper.fromValue(null));
+        assertNull(FoodItemMapper.fromValue("Oats"));
+        assertNull(FoodItemMapper.fromValue(Collections.singletonList(raw(1))));
+    }
+
+    /** Fails when FoodItem gains a property the mapper doesn't read. */
+    @Test
+    public void readsEveryBeanProperty() throws Exception {
+        BeanInfo bean = Introspector.getBeanInfo(FoodItem.class, Object.class);
+        Map<String, Object> value = new HashMap<>();
+        List<PropertyDescriptor> properties = new ArrayList<>();
+        int n = 1;
+        for (PropertyDescriptor property : bean.getPropertyDescriptors()) {
+            if (property.getWriteMethod() == null || property.getReadMethod() == null) continue;
+            Class<?> type = property.getPropertyType();
+            Object distinct;
+            if (type == String.class) distinct = property.getName() + n;
+            else if (type == double.class) distinct = n + 0.25;
+            else if (type == long.class) distinct = (long) n;
+            else throw new AssertionError("No test value for " + property.getName() + " of type " + type);
+            value.put(property.getName(), distinct);
+            properties.add(property);
+            n++;
+        }
+
+        FoodItem item = FoodItemMapper.fromValue(value);
+
+        for (PropertyDescriptor property : properties) {
+            assertEquals(property.getName(), value.get(property.getName()),
+                    property.getReadMethod().invoke(item));
+        }
+    }
+}
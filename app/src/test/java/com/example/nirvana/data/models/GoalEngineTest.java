@@ -0,0 +1,84 @@
+package com.example.nirvana.data.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class GoalEngineTest {
+
+    @Test
+    public void maintenanceGoalsFollowMifflinStJeorAndActivity() {
+        NutrientGoals goals = GoalEngine.goals(profile("Male", 30, 80, 180,
+                UserProfile.ActivityLevel.MODERATE, UserProfile.FitnessGoal.STAY_FIT));
+
+        assertEquals(1_780, goals.bmr);
+        assertEquals(2_759, goals.tdee);
+        assertEquals(2_759, goals.calories);
+        assertEquals(96, goals.protein);
+        assertEquals(77, goals.fat);
+        assertEquals(421, goals.carbs);
+    }
+
+    @Test
+    public void deficitStopsAtTheMinimumIntake() {
+        NutrientGoals goals = GoalEngine.goals(profile("Female", 25, 60, 165,
+                UserProfile.ActivityLevel.SEDENTARY, UserProfile.FitnessGoal.LOSE_WEIGHT));
+
+        assertEquals(1_345, goals.bmr);
+        assertEquals(1_614, goals.tdee);
+        assertEquals(GoalEngine.MIN_CALORIES, goals.calories);
+        assertEquals(120, goals.protein);
+        assertEquals(33, goals.fat);
+        assertEquals(106, goals.carbs);
+    }
+
+    @Test
+    public void macrosAddUpToTheCalorieGoal() {
+        for (UserProfile.FitnessGoal goal : UserProfile.FitnessGoal.values()) {
+            NutrientGoals goals = GoalEngine.goals(profile("Other", 40, 70, 170,
+                    UserProfile.ActivityLevel.LIGHT, goal));
+            assertEquals(goal.name(), goals.calories,
+                    goals.protein * 4 + goals.carbs * 4 + goals.fat * 9, 6);
+        }
+    }
+
+    @Test
+    public void incompleteProfileHasNoGoals() {
+        assertNull(GoalEngine.goals(profile("Male", 30, 0, 180,
+                UserProfile.ActivityLevel.MODERATE, UserProfile.FitnessGoal.STAY_FIT)));
+    }
+
+    @Test
+    public void profilesSavedBeforeActivityAndGoalReadWithDefaults() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("name", "Asha Rao");
+        fields.put("age", 30L);
+        fields.put("weight", 80L);
+        fields.put("height", 180L);
+        fields.put("gender", "Male");
+        fields.put("fitnessGoal", "NOT_A_GOAL");
+
+        UserProfile profile = UserProfile.fromMap(fields);
+
+        assertEquals(80, profile.getWeight(), 0);
+        assertEquals(UserProfile.ActivityLevel.SEDENTARY, profile.getActivityLevel());
+        assertEquals(UserProfile.FitnessGoal.STAY_FIT, profile.getFitnessGoal());
+        assertEquals(profile, UserProfile.fromMap(profile.toMap()));
+    }
+
+    static UserProfile profile(String gender, int age, double weight, double height,
+                               UserProfile.ActivityLevel level, UserProfile.FitnessGoal goal) {
+        UserProfile profile = new UserProfile();
+        profile.setName("Test User");
+        profile.setGender(gender);
+        profile.setAge(age);
+        profile.setWeight(weight);
+        profile.setHeight(height);
+        profile.setActivityLevel(level);
+        profile.setFitnessGoal(goal);
+        return profile;
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.nirvana.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.nirvana.data.local.NutrientLog;
+import com.example.nirvana.data.models.FoodItem;
+import com.example.nirvana.data.models.NutrientTotals;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class DailyTotalsRepositoryTest {
+
+    private static final double EPSILON = 1e-6;
+
+    @Test
+    public void incrementalAggregateMatchesFullRecompute() {
+        Random random = new Random(2024);
+        Map<String, Double> server = new HashMap<>();
+        List<FoodItem> log = new ArrayList<>();
+        long start = TimeUnit.DAYS.toMillis(19_000);
+
+        for (int op = 0; op < 5_000; op++) {
+            Map<String, Object> updates = new HashMap<>();
+            int kind = random.nextInt(8);
+            if (log.isEmpty() || kind < 5) {
+                FoodItem item = randomItem(random, op, start);
+                log.add(item);
+                DailyTotalsRepository.putDelta(updates, item, 1);
+            } else if (kind < 7) {
+                DailyTotalsRepository.putDelta(updates, log.remove(random.nextInt(log.size())), -1);
+            } else {
+                // A batch that adds and removes in the same update, possibly on the same day
+                List<FoodItem> added = Arrays.asList(randomItem(random, op, start), randomItem(random, op, start));
+                List<FoodItem> removed = Collections.singletonList(log.remove(random.nextInt(log.size())));
+                log.addAll(added);
+                DailyTotalsRepository.putDeltas(updates, added, removed);
+            }
+            applyOnServer(server, updates);
+        }
+
+        Map<String, List<FoodItem>> byDay = new HashMap<>();
+        for (FoodItem item : log) {
+            byDay.computeIfAbsent(DailyTotalsRepository.dayKey(item.getTimestamp()), d -> new ArrayList<>()).add(item);
+        }
+        Map<String, NutrientTotals> expectedDays = new HashMap<>();
+        for (Map.Entry<String, List<FoodItem>> day : byDay.entrySet()) {
+            expectedDays.put(day.getKey(), NutrientTotals.of(day.getValue()));
+        }
+        Map<String, NutrientTotals> expectedWeeks = new HashMap<>();
+        Map<String, NutrientTotals> expectedMonths = new HashMap<>();
+        DailyTotalsRepository.rollUp(expectedDays, expectedWeeks, expectedMonths);
+
+        assertNode(expectedDays, DailyTotalsRepository.NODE, server);
+        assertNode(expectedWeeks, DailyTotalsRepository.WEEK_NODE, server);
+        assertNode(expectedMonths, DailyTotalsRepository.MONTH_NODE, server);
+        assertEquals(byDay.keySet(), nonEmptyKeys(DailyTotalsRepository.NODE, server));
+    }
+
+    @Test
+    public void legacyEntriesWithoutTimestampProduceNoDelta() {
+        FoodItem legacy = new FoodItem("1", "Apple", "s", "1 medium", 95, 0.5, 25, 0.3, "Snacks");
+        Map<String, Object> updates = new HashMap<>();
+
+        DailyTotalsRepository.putDelta(updates, legacy, -1);
+
+        assertEquals(0, updates.size());
+    }
+
+    @Test
+    public void deltasRollUpIntoTheirWeekAndMonth() {
+        Map<String, Object> updates = new HashMap<>();
+        // Sunday 2025-03-30 and Monday 2025-03-31 fall in different weeks, the same month
+        DailyTotalsRepository.putDeltas(updates, Arrays.asList(
+                itemOn("2025-03-30", 500), itemOn("2025-03-31", 700)), 1);
+
+        assertEquals(5 * 4, updates.size());
+        assertEquals(500, increment(updates, "dailyTotals/2025-03-30/calories"), EPSILON);
+        assertEquals(700, increment(updates, "dailyTotals/2025-03-31/calories"), EPSILON);
+        assertEquals(500, increment(updates, "weeklyTotals/2025-03-24/calories"), EPSILON);
+        assertEquals(700, increment(updates, "weeklyTotals/2025-03-31/calories"), EPSILON);
+        assertEquals(3, increment(updates, "weeklyTotals/2025-03-31/fat"), EPSILON);
+        assertEquals(1_200, increment(updates, "monthlyTotals/2025-03/calories"), EPSILON);
+        assertEquals(10, increment(updates, "monthlyTotals/2025-03/protein"), EPSILON);
+        assertEquals(54, increment(updates, "monthlyTotals/2025-03/carbs"), EPSILON);
+    }
+
+    @Test
+    public void rollUpSumsDaysIntoWeeksAndMonths() {
+        Map<String, NutrientTotals> byDay = new HashMap<>();
+        byDay.put("2025-03-30", NutrientTotals.of(Collections.singletonList(itemOn("2025-03-30", 500))));
+        byDay.put("2025-03-31", NutrientTotals.of(Collections.singletonList(itemOn("2025-03-31", 700))));
+        byDay.put("2025-04-01", NutrientTotals.of(Collections.singletonList(itemOn("2025-04-01", 900))));
+        Map<String, NutrientTotals> byWeek = new HashMap<>();
+        Map<String, NutrientTotals> byMonth = new HashMap<>();
+
+        DailyTotalsRepository.rollUp(byDay, byWeek, byMonth);
+
+        assertEquals(500, byWeek.get("2025-03-24").getCalories(), EPSILON);
+        assertEquals(1_600, byWeek.get("2025-03-31").getCalories(), EPSILON);
+        assertEquals(1_200, byMonth.get("2025-03").getCalories(), EPSILON);
+        assertEquals(900, byMonth.get("2025-04").getCalories(), EPSILON);
+    }
+
+    @Test
+    public void backfillRollsTheMealLogUpIntoWeeksAndMonths() {
+        NutrientLog log = new NutrientLog();
+        log.addAll(Arrays.asList(itemOn("2025-03-30", 500), itemOn("2025-03-31", 700),
+                itemOn("2025-04-01", 900.25), itemOn("2025-04-01", 0.5)));
+
+        Map<String, Object> updates = DailyTotalsRepository.rollupUpdates(log);
+
+        assertEquals(4, updates.size());
+        assertEquals(500, ((NutrientTotals) updates.get("weeklyTotals/2025-03-24")).getCalories(), EPSILON);
+        assertEquals(1_600.75, ((NutrientTotals) updates.get("weeklyTotals/2025-03-31")).getCalories(), EPSILON);
+        assertEquals(1_200, ((NutrientTotals) updates.get("monthlyTotals/2025-03")).getCalories(), EPSILON);
+        NutrientTotals april = (NutrientTotals) updates.get("monthlyTotals/2025-04");
+        assertEquals(900.75, april.getCalories(), EPSILON);
+        assertEquals(10, april.getProtein(), EPSILON);
+        assertEquals(54, april.getCarbs(), EPSILON);
+        assertEquals(6, april.getFat(), EPSILON);
+    }
+
+    private static FoodItem itemOn(String dayKey, double calories) {
+        FoodItem item = new FoodItem("1", "Oats", "s", "1 cup", calories, 5, 27, 3, "Breakfast");
+        item.setTimestamp(LocalDate.parse(dayKey).atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        return item;
+    }
+
+    private static FoodItem randomItem(Random random, int op, long start) {
+        FoodItem item = new FoodItem("f" + op, "Food " + op, "s", "1 serving",
+                random.nextDouble() * 800, random.nextDouble() * 60,
+                random.nextDouble() * 120, random.nextDouble() * 40, "Lunch");
+        item.setTimestamp(start + (long) (random.nextDouble() * TimeUnit.DAYS.toMillis(30)));
+        return item;
+    }
+
+    /** The amount in a {@link com.google.firebase.database.ServerValue#increment} placeholder. */
+    private static double increment(Map<String, Object> updates, String path) {
+        Object value = updates.get(path);
+        assertTrue(path + " is not an increment: " + value, value instanceof Map);
+        Object sv = ((Map<?, ?>) value).get(".sv");
+        assertTrue(path + " is not an increment: " + value, sv instanceof Map);
+        return ((Number) ((Map<?, ?>) sv).get("increment")).doubleValue();
+    }
+
+    /** What the server does with a multi-path update made only of increments. */
+    private static void applyOnServer(Map<String, Double> server, Map<String, Object> updates) {
+        for (String path : updates.keySet()) {
+            server.merge(path, increment(updates, path), Double::sum);
+        }
+    }
+
+    private static void assertNode(Map<String, NutrientTotals> expected, String node, Map<String, Double> server) {
+        Set<String> keys = new HashSet<>(expected.keySet());
+        for (String path : server.keySet()) {
+            if (path.startsWith(node + "/")) keys.add(path.substring(node.length() + 1, path.lastIndexOf('/')));
+        }
+        for (String key : keys) {
+            NutrientTotals totals = expected.getOrDefault(key, new NutrientTotals());
+            String path = node + "/" + key + "/";
+            assertEquals(path, totals.getCalories(), server.getOrDefault(path + "calories", 0d), EPSILON);
+            assertEquals(path, totals.getProtein(), server.getOrDefault(path + "protein", 0d), EPSILON);
+            assertEquals(path, totals.getCarbs(), server.getOrDefault(path + "carbs", 0d), EPSILON);
+            assertEquals(path, totals.getFat(), server.getOrDefault(path + "fat", 0d), EPSILON);
+        }
+    }
+
+    private static Set<String> nonEmptyKeys(String node, Map<String, Double> server) {
+        Set<String> keys = new HashSet<>();
+        for (Map.Entry<String, Double> field : server.entrySet()) {
+            String path = field.getKey();
+            if (path.startsWith(node + "/") && path.endsWith("/calories") && Math.abs(field.getValue()) > EPSILON) {
+                keys.add(path.substring(node.length() + 1, path.lastIndexOf('/')));
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.nirvana.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.example.nirvana.api.FoodSearchPipeline;
+import com.example.nirvana.data.local.MealEntry;
+import com.example.nirvana.data.local.MealTally;
+import com.example.nirvana.data.models.FoodItem;
+import com.example.nirvana.data.sync.FakeMealRemote;
+import com.example.nirvana.data.sync.InMemoryMealStore;
+import com.example.nirvana.data.sync.ManualScheduler;
+import com.example.nirvana.data.sync.MealSyncEngine;
+import com.example.nirvana.data.sync.RemoteMealLog;
+import com.example.nirvana.data.sync.Subscription;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MealDayRepositoryTest {
+
+    private static final long NOW = TimeUnit.DAYS.toMillis(19_500) + TimeUnit.HOURS.toMillis(12);
+
+    private InMemoryMealStore store;
+    private FakeMealRemote remote;
+    private MealSyncEngine engine;
+    private MealDayRepository repository;
+    private final FakeScheduler scheduler = new FakeScheduler();
+    private String today;
+
+    @Before
+    public void setUp() {
+        store = new InMemoryMealStore();
+        remote = new FakeMealRemote();
+        int[] keys = {0};
+        engine = new MealSyncEngine(store, remote, new ManualScheduler(), Runnable::run, Runnable::run,
+                () -> "key" + (++keys[0]), () -> NOW);
+        repository = new MealDayRepository(engine, scheduler);
+        today = DailyTotalsRepository.dayKey(NOW);
+    }
+
+    @Test
+    public void dayIsReadAndWatchedOnceForAllObservers() {
+        engine.log(food("Oats", "Breakfast", 300));
+        int readsBefore = store.dayReads;
+
+        List<MealTally> day = new ArrayList<>();
+        repository.observe(today, null, day::add);
+        for (String mealType : MealLogRepository.MEAL_TYPES) {
+            repository.observe(today, mealType, tally -> { });
+        }
+
+        assertEquals(1, store.dayReads - readsBefore);
+        assertEquals(MealLogRepository.MEAL_TYPES.length, remote.subscriptions);
+        assertEquals(300, day.get(0).totals().getCalories(), 0);
+    }
+
+    @Test
+    public void changesFanOutOnlyToTheirMeal() {
+        List<MealTally> lunch = new ArrayList<>();
+        List<MealTally> dinner = new ArrayList<>();
+        List<MealTally> day = new ArrayList<>();
+        repository.observe(today, "Lunch", lunch::add);
+        repository.observe(today, "Dinner", dinner::add);
+        repository.observe(today, null, day::add);
+
+        engine.log(food("Rice", "Lunch", 250));
+
+        assertEquals(2, lunch.size());
+        assertEquals(1, dinner.size());
+        assertEquals(2, day.size());
+        assertEquals(250, lunch.get(1).totals().getCalories(), 0);
+        assertEquals(250, day.get(1).totals().getCalories(), 0);
+    }
+
+    @Test
+    public void observersOfOneMealShareItsTally() {
+        List<MealTally> first = new ArrayList<>();
+        List<MealTally> second = new ArrayList<>();
+        repository.observe(today, "Lunch", first::add);
+        repository.observe(today, "Lunch", second::add);
+
+        assertSame(first.get(0), second.get(0));
+    }
+
+    @Test
+    public void remoteEntriesReachObservers() {
+        List<MealTally> dinner = new ArrayList<>();
+        repository.observe(today, "Dinner", dinner::add);
+
+        FoodItem item = food("Dal", "Dinner", 180);
+        item.setTimestamp(NOW);
+        item.setVersion(NOW);
+        for (RemoteMealLog.Listener listener : new ArrayList<>(remote.listeners)) {
+            listener.onEntryChanged(new MealEntry("remote1", item, false, true));
+        }
+
+        assertEquals(180, dinner.get(dinner.size() - 1).totals().getCalories(), 0);
+    }
+
+    @Test
+    public void lastObserverLeavingStopsWatchingTheDay() {
+        Subscription lunch = repository.observe(today, "Lunch", tally -> { });
+        Subscription day = repository.observe(today, null, tally -> { });
+
+        lunch.cancel();
+        day.cancel();
+        assertEquals(0, remote.cancellations);
+        assertEquals(MealDayRepository.CLOSE_DELAY_MS, (long) scheduler.pending.values().iterator().next());
+
+        scheduler.fireAll();
+        assertEquals(MealLogRepository.MEAL_TYPES.length, remote.cancellations);
+    }
+
+    @Test
+    public void returningWithinTheGracePeriodReusesTheDay() {
+        engine.log(food("Oats", "Breakfast", 300));
+        int readsBefore = store.dayReads;
+        repository.observe(today, "Breakfast", tally -> { }).cancel();
+
+        List<MealTally> lunch = new ArrayList<>();
+        repository.observe(today, "Lunch", lunch::add);
+        scheduler.fireAll();
+
+        assertEquals(1, store.dayReads - readsBefore);
+        assertEquals(MealLogRepository.MEAL_TYPES.length, remote.subscriptions);
+        assertEquals(0, remote.cancellations);
+        assertEquals(1, lunch.size());
+    }
+
+    @Test
+    public void dayIsReadOffTheCallingThreadAndStartsFromThatRead() {
+        ArrayDeque<Runnable> storeTasks = new ArrayDeque<>();
+        int[] keys = {0};
+        MealSyncEngine queued = new MealSyncEngine(store, remote, new ManualScheduler(), storeTasks::add,
+                Runnable::run, () -> "queued" + (++keys[0]), () -> NOW);
+        MealDayRepository queuedRepository = new MealDayRepository(queued, scheduler);
+
+        queued.log(food("Oats", "Breakfast", 300));
+        // Tallies are shared and updated in place, so keep what each delivery showed
+        List<Double> day = new ArrayList<>();
+        queuedRepository.observe(today, null, tally -> day.add(tally.totals().getCalories()));
+        queued.log(food("Eggs", "Breakfast", 150));
+        assertTrue(day.isEmpty());
+        assertEquals(0, store.dayReads);
+
+        while (!storeTasks.isEmpty()) storeTasks.poll().run();
+
+        // The first write is part of the read; only the later one is applied on top
+        assertEquals(2, day.size());
+        assertEquals(300, day.get(0), 0);
+        assertEquals(450, day.get(1), 0);
+    }
+
+    private static class FakeScheduler implements FoodSearchPipeline.Scheduler {
+        final Map<Runnable, Long> pending = new LinkedHashMap<>();
+
+        @Override
+        public void postDelayed(Runnable task, long delayMs) {
+            pending.put(task, delayMs);
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            pending.remove(task);
+        }
+
+        void fireAll() {
+            for (Runnable task : new ArrayList<>(pending.keySet())) {
+                pending.remove(task);
+                task.run();
+            }
+        }
+    }
+
+    private static FoodItem food(String name, String mealType, double calories) {
+        return new FoodItem("id-" + name, name, "s", "1 serving", calories, 10, 20, 5, mealType);
+    }
+}
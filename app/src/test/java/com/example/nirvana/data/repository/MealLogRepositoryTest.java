@@ -0,0 +1,42 @@
+package com.example.nirvana.data.repository;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+public class MealLogRepositoryTest {
+
+    @Test
+    public void rangeSpanningYearEndTouchesEachMonthBucketOnce() {
+        assertEquals(Arrays.asList("2024-11", "2024-12", "2025-01"),
+                MealLogRepository.monthsBetween("2024-11-28", "2025-01-03"));
+        assertEquals(Collections.singletonList("2025-04"),
+                MealLogRepository.monthsBetween("2025-04-03", "2025-04-03"));
+        assertEquals(Collections.emptyList(),
+                MealLogRepository.monthsBetween("2025-04-04", "2025-03-01"));
+    }
+
+    @Test
+    public void entryPathNestsDayUnderMonth() {
+        assertEquals("mealLog/2025-04/2025-04-03/Lunch/-Nabc",
+                MealLogRepository.entryPath("2025-04-03", "Lunch", "-Nabc"));
+    }
+
+    @Test
+    public void pushKeyTimestampDecodesCreationTime() {
+        // Push keys are 8 timestamp characters followed by 12 random ones
+        assertEquals(1_712_000_000_000L, MealLogRepository.pushKeyTimestamp(encode(1_712_000_000_000L) + "abcdefghijkl"));
+    }
+
+    private static String encode(long timestamp) {
+        String chars = "-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz";
+        char[] out = new char[8];
+        for (int i = 7; i >= 0; i--) {
+            out[i] = chars.charAt((int) (timestamp % 64));
+            timestamp /= 64;
+        }
+        return new String(out);
+    }
+}
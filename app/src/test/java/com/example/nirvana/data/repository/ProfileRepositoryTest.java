@@ -0,0 +1,138 @@
+package com.example.nirvana.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import androidx.annotation.NonNull;
+import com.example.nirvana.data.local.ProfileStore;
+import com.example.nirvana.data.models.NutrientGoals;
+import com.example.nirvana.data.models.UserProfile;
+import com.example.nirvana.data.sync.RemoteProfile;
+import com.example.nirvana.data.sync.Subscription;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class ProfileRepositoryTest {
+
+    private final FakeStore store = new FakeStore();
+    private final FakeRemote remote = new FakeRemote();
+    private final ProfileRepository repository = new ProfileRepository(store, remote);
+    private final List<NutrientGoals> delivered = new ArrayList<>();
+
+    @Test
+    public void cachedProfileIsDeliveredWithoutWaitingForTheServer() {
+        store.profile = profile(80);
+
+        repository.observe((profile, goals) -> delivered.add(goals));
+
+        assertEquals(1, delivered.size());
+        assertEquals(96, delivered.get(0).protein);
+        assertEquals(1, remote.listeners.size());
+    }
+
+    @Test
+    public void unchangedServerCopyNeitherRecomputesNorRewrites() {
+        store.profile = profile(80);
+        repository.observe((profile, goals) -> delivered.add(goals));
+        NutrientGoals cached = repository.goals();
+
+        remote.deliver(profile(80));
+
+        assertEquals(1, delivered.size());
+        assertEquals(0, store.saves);
+        assertSame(cached, repository.goals());
+    }
+
+    @Test
+    public void changedServerCopyIsCachedAndRecomputed() {
+        repository.observe((profile, goals) -> delivered.add(goals));
+        assertEquals(0, delivered.size());
+
+        remote.deliver(profile(80));
+        remote.deliver(profile(90));
+
+        assertEquals(2, delivered.size());
+        assertEquals(108, delivered.get(1).protein);
+        assertEquals(90, store.profile.getWeight(), 0);
+        assertEquals(2, store.saves);
+    }
+
+    @Test
+    public void listenerStopsWithTheLastObserver() {
+        Subscription first = repository.observe((profile, goals) -> {});
+        Subscription second = repository.observe((profile, goals) -> {});
+        assertEquals(1, remote.listeners.size());
+
+        first.cancel();
+        assertEquals(1, remote.listeners.size());
+        second.cancel();
+        assertEquals(0, remote.listeners.size());
+    }
+
+    @Test
+    public void saveCachesBeforeTheServerAnswers() {
+        assertNull(repository.goals());
+
+        repository.save(profile(80), new MealLogRepository.Callback<Void>() {
+            @Override
+            public void onLoaded(Void result) {}
+
+            @Override
+            public void onError(@NonNull Exception e) {}
+        });
+
+        assertNotNull(repository.goals());
+        assertEquals(1, store.saves);
+        assertEquals(1, remote.saved.size());
+    }
+
+    private static UserProfile profile(double weight) {
+        UserProfile profile = new UserProfile();
+        profile.setName("Test User");
+        profile.setGender("Male");
+        profile.setAge(30);
+        profile.setWeight(weight);
+        profile.setHeight(180);
+        return profile;
+    }
+
+    private static class FakeStore implements ProfileStore {
+        UserProfile profile;
+        int saves;
+
+        @Override
+        public UserProfile load() {
+            return profile;
+        }
+
+        @Override
+        public void save(@NonNull UserProfile profile) {
+            this.profile = profile;
+            saves++;
+        }
+    }
+
+    private static class FakeRemote implements RemoteProfile {
+        final List<Listener> listeners = new ArrayList<>();
+        final List<UserProfile> saved = new ArrayList<>();
+
+        void deliver(UserProfile profile) {
+            for (Listener listener : new ArrayList<>(listeners)) listener.onProfile(profile);
+        }
+
+        @NonNull
+        @Override
+        public Subscription subscribe(@NonNull Listener listener) {
+            listeners.add(listener);
+            return () -> listeners.remove(listener);
+        }
+
+        @Override
+        public void save(@NonNull UserProfile profile, @NonNull MealLogRepository.Callback<Void> callback) {
+            saved.add(profile);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.nirvana.data.repository;
+
+import static org.junit.Assert.assertEquals;
+
+import com.example.nirvana.data.models.NutrientTotals;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class TrendRepositoryTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 4, 3); // a Thursday
+
+    @Test
+    public void dailyPointsCoverTheRangeWithGapsAsZero() {
+        Map<String, NutrientTotals> byDay = new HashMap<>();
+        byDay.put("2025-03-30", calories(1_800));
+        byDay.put("2025-04-03", calories(2_100));
+
+        List<TrendRepository.Period> points = TrendRepository.periods(TrendRepository.Resolution.DAY,
+                TODAY.minusDays(6), TODAY, byDay);
+
+        assertEquals(7, points.size());
+        assertEquals(LocalDate.of(2025, 3, 28), points.get(0).start);
+        assertEquals(1_800, points.get(2).caloriesPerDay(), 0);
+        assertEquals(0, points.get(3).caloriesPerDay(), 0);
+        assertEquals(2_100, points.get(6).caloriesPerDay(), 0);
+    }
+
+    @Test
+    public void weeksStartOnMondayAndTheCurrentOneCountsElapsedDays() {
+        Map<String, NutrientTotals> byWeek = new HashMap<>();
+        byWeek.put("2025-03-31", calories(8_000));
+
+        List<TrendRepository.Period> weeks = TrendRepository.periods(TrendRepository.Resolution.WEEK,
+                TODAY.minusDays(13), TODAY, byWeek);
+
+        assertEquals(3, weeks.size());
+        assertEquals(LocalDate.of(2025, 3, 17), weeks.get(0).start);
+        assertEquals(7, weeks.get(0).days);
+        // Monday to Thursday
+        assertEquals(4, weeks.get(2).days);
+        assertEquals(2_000, weeks.get(2).caloriesPerDay(), 0);
+    }
+
+    @Test
+    public void aYearIsAboutSixtyFiveRecords() {
+        Map<String, NutrientTotals> none = Collections.emptyMap();
+        LocalDate from = TODAY.minusDays(364);
+
+        int weeks = TrendRepository.periods(TrendRepository.Resolution.WEEK, from, TODAY, none).size();
+        int months = TrendRepository.periods(TrendRepository.Resolution.MONTH, from, TODAY, none).size();
+
+        assertEquals(53, weeks);
+        assertEquals(13, months);
+        List<TrendRepository.Period> monthly =
+                TrendRepository.periods(TrendRepository.Resolution.MONTH, from, TODAY, none);
+        assertEquals(LocalDate.of(2024, 4, 1), monthly.get(0).start);
+        assertEquals(30, monthly.get(0).days);
+        assertEquals(3, monthly.get(12).days);
+    }
+
+    private static NutrientTotals calories(double calories) {
+        NutrientTotals totals = new NutrientTotals();
+        totals.setCalories(calories);
+        return totals;
+    }
+}
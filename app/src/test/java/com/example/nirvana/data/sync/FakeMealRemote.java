@@ -0,0 +1,41 @@
+package com.example.nirvana.data.sync;
+
+import androidx.annotation.NonNull;
+import com.example.nirvana.data.local.MealEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** {@link RemoteMealLog} that applies batches to a map and can be told to reject the next few. */
+public class FakeMealRemote implements RemoteMealLog {
+    public final Map<String, MealEntry> server = new HashMap<>();
+    public final List<Batch> batches = new ArrayList<>();
+    public int failuresLeft;
+    public int subscriptions;
+    public int cancellations;
+    public final List<Listener> listeners = new ArrayList<>();
+
+    @Override
+    public void push(@NonNull Batch batch) throws Exception {
+        if (failuresLeft > 0) {
+            failuresLeft--;
+            throw new Exception("rejected");
+        }
+        batches.add(batch);
+        for (MealEntry entry : batch.added) server.put(entry.key, entry.withOnServer(true));
+        for (MealEntry entry : batch.updated) server.put(entry.key, entry.withOnServer(true));
+        for (MealEntry entry : batch.removed) server.remove(entry.key);
+    }
+
+    @NonNull
+    @Override
+    public Subscription subscribe(@NonNull String dayKey, @NonNull String mealType, @NonNull Listener listener) {
+        subscriptions++;
+        listeners.add(listener);
+        return () -> {
+            cancellations++;
+            listeners.remove(listener);
+        };
+    }
+}
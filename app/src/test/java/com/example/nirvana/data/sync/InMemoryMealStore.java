@@ -0,0 +1,75 @@
+package com.example.nirvana.data.sync;
+
+import androidx.annotation.NonNull;
+import com.example.nirvana.data.local.LocalMealStore;
+import com.example.nirvana.data.local.MealEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** {@link LocalMealStore} backed by maps, for engine tests. */
+public class InMemoryMealStore implements LocalMealStore {
+    final Map<String, MealEntry> entries = new HashMap<>();
+    final TreeMap<Long, String> outbox = new TreeMap<>();
+    long nextSeq = 1;
+    public int dayReads;
+
+    @Override
+    public MealEntry get(@NonNull String key) {
+        return entries.get(key);
+    }
+
+    @NonNull
+    @Override
+    public List<MealEntry> entriesForDay(@NonNull String dayKey) {
+        dayReads++;
+        List<MealEntry> day = new ArrayList<>();
+        for (MealEntry entry : entries.values()) {
+            if (entry.dayKey().equals(dayKey)) day.add(entry);
+        }
+        return day;
+    }
+
+    @Override
+    public void put(@NonNull MealEntry entry) {
+        entries.put(entry.key, entry);
+    }
+
+    @Override
+    public void putAndEnqueue(@NonNull MealEntry entry) {
+        entries.put(entry.key, entry);
+        outbox.put(nextSeq++, entry.key);
+    }
+
+    @Override
+    public void putAndEnqueueAll(@NonNull List<MealEntry> batch) {
+        for (MealEntry entry : batch) putAndEnqueue(entry);
+    }
+
+    @NonNull
+    @Override
+    public List<PendingWrite> pendingWrites(int limit) {
+        List<PendingWrite> pending = new ArrayList<>();
+        for (Map.Entry<Long, String> write : outbox.entrySet()) {
+            if (pending.size() == limit) break;
+            pending.add(new PendingWrite(write.getKey(), write.getValue()));
+        }
+        return pending;
+    }
+
+    @Override
+    public void acknowledge(@NonNull List<MealEntry> synced, long seq) {
+        for (MealEntry entry : synced) {
+            MealEntry current = entries.get(entry.key);
+            if (current != null) entries.put(entry.key, current.withOnServer(entry.onServer));
+        }
+        outbox.headMap(seq, true).clear();
+    }
+
+    @Override
+    public boolean hasPendingWrite(@NonNull String key) {
+        return outbox.containsValue(key);
+    }
+}
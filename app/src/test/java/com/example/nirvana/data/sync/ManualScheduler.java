@@ -0,0 +1,72 @@
+package com.example.nirvana.data.sync;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/** Records scheduled work instead of running it, so tests decide when a flush happens. */
+public class ManualScheduler extends ScheduledThreadPoolExecutor {
+    public final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    public final ArrayDeque<Long> delays = new ArrayDeque<>();
+
+    public ManualScheduler() {
+        super(0);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        tasks.add(command);
+        delays.add(unit.toMillis(delay));
+        return new NoopFuture<>();
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    public void runNext() {
+        delays.poll();
+        tasks.poll().run();
+    }
+
+    private static class NoopFuture<V> implements ScheduledFuture<V> {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return 0;
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return 0;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return true;
+        }
+
+        @Override
+        public V get() {
+            return null;
+        }
+
+        @Override
+        public V get(long timeout, TimeUnit unit) {
+            return null;
+        }
+    }
+}
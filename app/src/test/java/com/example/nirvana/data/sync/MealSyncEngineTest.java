@@ -0,0 +1,306 @@
+package com.example.nirvana.data.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+import com.example.nirvana.data.local.MealEntry;
+import com.example.nirvana.data.models.FoodItem;
+import com.example.nirvana.data.repository.MealLogRepository;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MealSyncEngineTest {
+
+    private static final long NOW = TimeUnit.DAYS.toMillis(19_500) + TimeUnit.HOURS.toMillis(12);
+
+    private InMemoryMealStore store;
+    private FakeMealRemote remote;
+    private ManualScheduler scheduler;
+    private long[] clock;
+    private MealSyncEngine engine;
+
+    @Before
+    public void setUp() {
+        store = new InMemoryMealStore();
+        remote = new FakeMealRemote();
+        scheduler = new ManualScheduler();
+        clock = new long[]{NOW};
+        int[] keys = {0};
+        engine = new MealSyncEngine(store, remote, scheduler, Runnable::run, Runnable::run,
+                () -> "key" + (++keys[0]), () -> clock[0]);
+    }
+
+    @Test
+    public void logsWithinTheWindowArePushedAsOneBatch() {
+        engine.log(food("Oats", 300));
+        engine.log(food("Eggs", 150));
+        engine.log(food("Coffee", 5));
+
+        assertEquals(1, scheduler.tasks.size());
+        assertEquals(MealSyncEngine.BATCH_WINDOW_MS, (long) scheduler.delays.peek());
+        scheduler.runNext();
+
+        assertEquals(1, remote.batches.size());
+        assertEquals(3, remote.batches.get(0).added.size());
+        assertEquals(3, remote.server.size());
+        assertTrue(store.pendingWrites(10).isEmpty());
+    }
+
+    @Test
+    public void copyMealIsOneWriteAndOneNotification() {
+        for (int i = 0; i < 12; i++) {
+            engine.log(food("Ingredient " + i, 50 + i));
+        }
+        scheduler.runNext();
+        String yesterday = day();
+        clock[0] += TimeUnit.DAYS.toMillis(1);
+        List<List<MealEntry>> notified = new ArrayList<>();
+        engine.addListener(notified::add);
+
+        List<String> keys = new ArrayList<>();
+        engine.copyMeal(yesterday, "Breakfast", new MealLogRepository.Callback<List<String>>() {
+            @Override
+            public void onLoaded(List<String> result) {
+                keys.addAll(result);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                throw new AssertionError(e);
+            }
+        });
+
+        assertEquals(12, keys.size());
+        assertEquals(1, notified.size());
+        assertEquals(12, notified.get(0).size());
+        assertEquals(0, (long) scheduler.delays.peek());
+        scheduler.runNext();
+        assertEquals(2, remote.batches.size());
+        assertEquals(12, remote.batches.get(1).added.size());
+        assertEquals(12, engine.entries(day(), "Breakfast").size());
+    }
+
+    @Test
+    public void copyMealLogsFreshEntriesForToday() {
+        FoodItem oats = food("Oats", 300);
+        engine.log(oats);
+        String yesterday = day();
+        clock[0] += TimeUnit.DAYS.toMillis(1);
+
+        List<String> keys = new ArrayList<>();
+        engine.copyMeal(yesterday, "Breakfast", new MealLogRepository.Callback<List<String>>() {
+            @Override
+            public void onLoaded(List<String> result) {
+                keys.addAll(result);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                throw new AssertionError(e);
+            }
+        });
+
+        assertEquals(1, keys.size());
+        MealEntry copy = store.get(keys.get(0));
+        assertEquals(clock[0], copy.item.getTimestamp());
+        assertEquals(NOW, oats.getTimestamp());
+        assertEquals(1, engine.entries(yesterday).size());
+    }
+
+    @Test
+    public void rejectedBatchStaysQueuedAndBacksOff() {
+        remote.failuresLeft = 2;
+        String key = engine.log(food("Oats", 300));
+
+        scheduler.runNext();
+        assertEquals(MealSyncEngine.retryDelayMs(1), (long) scheduler.delays.peek());
+        assertEquals(1, store.pendingWrites(10).size());
+
+        scheduler.runNext();
+        assertEquals(MealSyncEngine.retryDelayMs(2), (long) scheduler.delays.peek());
+
+        scheduler.runNext();
+        assertTrue(store.pendingWrites(10).isEmpty());
+        assertTrue(remote.server.containsKey(key));
+        assertTrue(store.get(key).onServer);
+        assertTrue(scheduler.tasks.isEmpty());
+    }
+
+    @Test
+    public void entryDeletedBeforeSyncNeverReachesTheServer() {
+        String key = engine.log(food("Oats", 300));
+        engine.delete(key);
+
+        assertTrue(engine.entries(day()).isEmpty());
+        assertTrue(engine.syncNow());
+        assertTrue(remote.batches.isEmpty());
+        assertTrue(store.pendingWrites(10).isEmpty());
+    }
+
+    @Test
+    public void deletingASyncedEntryPushesARemoval() {
+        String key = engine.log(food("Oats", 300));
+        engine.syncNow();
+        clock[0] += 1000;
+        engine.delete(key);
+        engine.syncNow();
+
+        assertEquals(2, remote.batches.size());
+        assertEquals(1, remote.batches.get(1).removed.size());
+        assertFalse(remote.server.containsKey(key));
+        assertTrue(store.get(key).deleted);
+    }
+
+    @Test
+    public void newerRemoteVersionReplacesLocalCopy() {
+        String key = engine.log(food("Oats", 300));
+        engine.syncNow();
+
+        FoodItem edited = food("Oats", 450);
+        edited.setTimestamp(NOW);
+        edited.setVersion(NOW + 5000);
+        engine.onRemoteEntry(new MealEntry(key, edited, false, true));
+
+        assertEquals(450, engine.entries(day()).get(0).item.getCalories(), 0);
+    }
+
+    @Test
+    public void localTombstoneBeatsStaleRemoteCopy() {
+        String key = engine.log(food("Oats", 300));
+        engine.syncNow();
+        MealEntry stale = remote.server.get(key);
+        clock[0] += 1000;
+        engine.delete(key);
+
+        // The server still has the old copy until our removal is pushed
+        engine.onRemoteEntry(stale);
+        assertTrue(engine.entries(day()).isEmpty());
+
+        engine.syncNow();
+        assertFalse(remote.server.containsKey(key));
+    }
+
+    @Test
+    public void olderRemoteVersionIsIgnored() {
+        String key = engine.log(food("Oats", 300));
+        engine.syncNow();
+        List<List<MealEntry>> notified = new ArrayList<>();
+        engine.addListener(notified::add);
+
+        FoodItem old = food("Oats", 100);
+        old.setTimestamp(NOW);
+        old.setVersion(NOW - 1);
+        engine.onRemoteEntry(new MealEntry(key, old, false, true));
+
+        assertEquals(300, engine.entries(day()).get(0).item.getCalories(), 0);
+        assertTrue(notified.isEmpty());
+    }
+
+    @Test
+    public void remoteRemovalBecomesTombstone() {
+        String key = engine.log(food("Oats", 300));
+        engine.syncNow();
+        List<List<MealEntry>> notified = new ArrayList<>();
+        engine.addListener(notified::add);
+
+        engine.onRemoteRemoved(key);
+
+        assertTrue(engine.entries(day()).isEmpty());
+        assertTrue(notified.get(0).get(0).deleted);
+        assertFalse(store.hasPendingWrite(key));
+    }
+
+    @Test
+    public void entryMissingFromServerIsDeletedLocally() {
+        String key = engine.log(food("Oats", 300));
+        engine.syncNow();
+
+        engine.onRemoteSynced(day(), "Breakfast", Collections.emptySet());
+
+        assertTrue(engine.entries(day()).isEmpty());
+        assertTrue(store.get(key).deleted);
+        assertFalse(store.hasPendingWrite(key));
+    }
+
+    @Test
+    public void unsyncedEntryIsNotDeletedByRemoteSnapshot() {
+        engine.log(food("Oats", 300));
+
+        engine.onRemoteSynced(day(), "Breakfast", Collections.emptySet());
+
+        assertEquals(1, engine.entries(day()).size());
+    }
+
+    @Test
+    public void otherMealsAreUntouchedBySync() {
+        engine.log(food("Oats", 300));
+        engine.syncNow();
+
+        engine.onRemoteSynced(day(), "Lunch", Collections.emptySet());
+
+        assertEquals(1, engine.entries(day()).size());
+    }
+
+    @Test
+    public void watchersOfOnePartitionShareOneSubscription() {
+        Subscription first = engine.watch(day(), "Lunch");
+        Subscription second = engine.watch(day(), "Lunch");
+        engine.watch(day(), "Dinner");
+        assertEquals(2, remote.subscriptions);
+
+        first.cancel();
+        first.cancel();
+        assertEquals(0, remote.cancellations);
+        second.cancel();
+        assertEquals(1, remote.cancellations);
+
+        engine.watch(day(), "Lunch");
+        assertEquals(3, remote.subscriptions);
+    }
+
+    @Test
+    public void shutdownDropsServerListenersAndLeavesNewWritesInTheOutbox() {
+        engine.watch(day(), "Lunch");
+        engine.watch(day(), "Dinner");
+        engine.log(food("Oats", 300));
+
+        engine.shutdown();
+        assertEquals(2, remote.cancellations);
+        assertTrue(scheduler.isShutdown());
+
+        // Already scheduled work still runs; nothing new is scheduled
+        scheduler.runNext();
+        engine.log(food("Eggs", 150));
+        assertTrue(scheduler.tasks.isEmpty());
+        assertEquals(1, remote.batches.size());
+        assertEquals(1, store.pendingWrites(10).size());
+    }
+
+    @Test
+    public void retryDelayDoublesUpToTheCap() {
+        assertEquals(2000, MealSyncEngine.retryDelayMs(1));
+        assertEquals(4000, MealSyncEngine.retryDelayMs(2));
+        assertEquals(TimeUnit.MINUTES.toMillis(5), MealSyncEngine.retryDelayMs(12));
+        assertEquals(TimeUnit.MINUTES.toMillis(5), MealSyncEngine.retryDelayMs(1000));
+    }
+
+    private static FoodItem food(String name, double calories) {
+        return new FoodItem("id-" + name, name, "s", "1 serving", calories, 10, 20, 5, "Breakfast");
+    }
+
+    private static String day() {
+        return new MealEntry("k", withTimestamp(food("x", 0)), false, false).dayKey();
+    }
+
+    private static FoodItem withTimestamp(FoodItem item) {
+        item.setTimestamp(NOW);
+        return item;
+    }
+}
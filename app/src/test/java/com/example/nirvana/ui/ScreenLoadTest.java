@@ -0,0 +1,112 @@
+package com.example.nirvana.ui;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class ScreenLoadTest {
+
+    /** Sources deliver by hand; timeouts fire when the test says so. */
+    private static class FakeScheduler implements ScreenLoad.Scheduler {
+        final Map<Runnable, Long> pending = new LinkedHashMap<>();
+
+        @Override
+        public void postDelayed(Runnable task, long delayMs) {
+            pending.put(task, delayMs);
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            pending.remove(task);
+        }
+
+        void fireAll() {
+            for (Runnable task : new ArrayList<>(pending.keySet())) {
+                pending.remove(task);
+                task.run();
+            }
+        }
+    }
+
+    private final FakeScheduler scheduler = new FakeScheduler();
+    private final List<List<String>> renders = new ArrayList<>();
+    private final List<ScreenLoad.Sink<String>> sinks = new ArrayList<>();
+
+    private ScreenLoad<List<String>> load(String... names) {
+        ScreenLoad<List<String>> load = new ScreenLoad<>(Collections.emptyList(), scheduler, renders::add);
+        for (String name : names) {
+            load.<String>add(name, 1_000, sinks::add, (state, value) -> {
+                List<String> next = new ArrayList<>(state);
+                next.add(value);
+                return next;
+            });
+        }
+        return load;
+    }
+
+    @Test
+    public void startsEverySourceBeforeAnyDeliversAndRendersOnce() {
+        ScreenLoad<List<String>> load = load("goal", "totals", "profile");
+
+        load.start();
+        assertEquals(3, sinks.size());
+        assertEquals(3, scheduler.pending.size());
+
+        sinks.get(1).onValue("totals");
+        sinks.get(0).onValue("goal");
+        assertEquals(0, renders.size());
+        sinks.get(2).onValue("profile");
+
+        assertEquals(Collections.singletonList(Arrays.asList("totals", "goal", "profile")), renders);
+        assertEquals(0, scheduler.pending.size());
+    }
+
+    @Test
+    public void timeoutRendersWhatArrivedAndLateValuesRenderAgain() {
+        ScreenLoad<List<String>> load = load("goal", "totals");
+        load.start();
+
+        sinks.get(1).onValue("totals");
+        scheduler.fireAll();
+
+        assertEquals(Collections.singletonList(Collections.singletonList("totals")), renders);
+        assertEquals(Collections.singletonList("goal"), load.missing());
+
+        sinks.get(0).onValue("goal");
+        assertEquals(Arrays.asList("totals", "goal"), renders.get(1));
+        assertEquals(Collections.emptyList(), load.missing());
+    }
+
+    @Test
+    public void failuresCountAsSettledAndSynchronousSourcesDontRenderEarly() {
+        ScreenLoad<List<String>> load = new ScreenLoad<List<String>>(Collections.emptyList(), scheduler, renders::add)
+                .<String>add("local", 1_000, sink -> sink.onValue("local"), (state, value) -> Collections.singletonList(value))
+                .<String>add("remote", 1_000, sink -> sink.onError(new Exception("offline")), (state, value) -> state);
+
+        load.start();
+
+        assertEquals(Collections.singletonList(Collections.singletonList("local")), renders);
+        assertEquals(Collections.singletonList("remote"), load.missing());
+        assertEquals(0, scheduler.pending.size());
+    }
+
+    @Test
+    public void liveUpdatesRenderAgainUntilCancelled() {
+        ScreenLoad<List<String>> load = load("totals");
+        load.start();
+        sinks.get(0).onValue("1200 kcal");
+        sinks.get(0).onValue("1500 kcal");
+
+        load.cancel();
+        sinks.get(0).onValue("1800 kcal");
+
+        assertEquals(2, renders.size());
+        assertEquals(Arrays.asList("1200 kcal", "1500 kcal"), renders.get(1));
+    }
+}
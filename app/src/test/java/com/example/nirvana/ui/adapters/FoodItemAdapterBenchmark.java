@@ -0,0 +1,74 @@
+package com.example.nirvana.ui.adapters;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.example.nirvana.data.local.MealEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Rows rebound by diffed updates versus {@code notifyDataSetChanged()} over a stream of
+ * typical meal-list edits. Run with {@code -Dnirvana.benchmark=true}.
+ */
+public class FoodItemAdapterBenchmark {
+
+    private static final int[] LIST_SIZES = {15, 100, 500};
+    private static final int UPDATES = 2_000;
+
+    @Before
+    public void requireBenchmarkFlag() {
+        assumeTrue(Boolean.getBoolean("nirvana.benchmark"));
+    }
+
+    @Test
+    public void diffedUpdatesBindFewerRows() {
+        for (int size : LIST_SIZES) {
+            Random random = new Random(size);
+            List<MealEntry> current = new ArrayList<>();
+            int nextKey = 0;
+            for (int i = 0; i < size; i++) {
+                current.add(FoodItemAdapterTest.entry("k" + nextKey++, "Food " + i, 100 + random.nextInt(400)));
+            }
+
+            long fullBinds = 0;
+            long diffBinds = 0;
+            long diffNanos = 0;
+            for (int u = 0; u < UPDATES; u++) {
+                List<MealEntry> next = new ArrayList<>(current);
+                switch (random.nextInt(4)) {
+                    case 0: // log one more item
+                        next.add(FoodItemAdapterTest.entry("k" + nextKey++, "Food " + nextKey, 100 + random.nextInt(400)));
+                        break;
+                    case 1: // delete one and log another, keeping the length steady
+                        next.remove(random.nextInt(next.size()));
+                        next.add(FoodItemAdapterTest.entry("k" + nextKey++, "Food " + nextKey, 100 + random.nextInt(400)));
+                        break;
+                    case 2: { // edit one entry's calories
+                        int i = random.nextInt(next.size());
+                        MealEntry old = next.get(i);
+                        next.set(i, FoodItemAdapterTest.entry(old.key, old.item.getFoodName(), old.item.getCalories() + 50));
+                        break;
+                    }
+                    default: // unchanged snapshot, e.g. a sync echo of our own write
+                        break;
+                }
+
+                long start = System.nanoTime();
+                diffBinds += FoodItemAdapterTest.diff(current, next).binds;
+                diffNanos += System.nanoTime() - start;
+                fullBinds += next.size();
+                current = next;
+            }
+
+            System.out.printf("FoodItemAdapter rows=%d binds full=%d diffed=%d (%.1fx fewer) diff=%dus/update%n",
+                    size, fullBinds, diffBinds, (double) fullBinds / Math.max(1, diffBinds),
+                    TimeUnit.NANOSECONDS.toMicros(diffNanos / UPDATES));
+            assertTrue(diffBinds < fullBinds);
+        }
+    }
+}
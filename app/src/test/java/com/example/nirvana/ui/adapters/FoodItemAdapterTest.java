@@ -0,0 +1,116 @@
+package com.example.nirvana.ui.adapters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+import com.example.nirvana.data.local.MealEntry;
+import com.example.nirvana.data.models.FoodItem;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class FoodItemAdapterTest {
+
+    @Test
+    public void calorieEditIsOneChangeWithCaloriePayload() {
+        List<MealEntry> before = Arrays.asList(entry("a", "Oats", 300), entry("b", "Eggs", 150), entry("c", "Milk", 90));
+        List<MealEntry> after = Arrays.asList(entry("a", "Oats", 300), entry("b", "Eggs", 210), entry("c", "Milk", 90));
+
+        RecordingCallback updates = diff(before, after);
+
+        assertEquals(Arrays.asList("change 1 " + FoodItemAdapter.CHANGED_CALORIES), updates.events);
+    }
+
+    @Test
+    public void identicalSnapshotProducesNoUpdates() {
+        List<MealEntry> before = Arrays.asList(entry("a", "Oats", 300), entry("b", "Eggs", 150));
+        List<MealEntry> after = Arrays.asList(entry("a", "Oats", 300.2), entry("b", "Eggs", 150));
+
+        assertEquals(new ArrayList<String>(), diff(before, after).events);
+    }
+
+    @Test
+    public void insertAndRemoveAreReportedByPosition() {
+        List<MealEntry> before = Arrays.asList(entry("a", "Oats", 300), entry("b", "Eggs", 150));
+        List<MealEntry> after = Arrays.asList(entry("b", "Eggs", 150), entry("c", "Milk", 90));
+
+        RecordingCallback updates = diff(before, after);
+
+        assertEquals(Arrays.asList("insert 2 1", "remove 0 1"), updates.events);
+    }
+
+    @Test
+    public void stableIdDependsOnlyOnKey() {
+        assertEquals(FoodItemAdapter.stableId("-Nx1"), FoodItemAdapter.stableId("-Nx1"));
+        assertNotEquals(FoodItemAdapter.stableId("-Nx1"), FoodItemAdapter.stableId("-Nx2"));
+    }
+
+    static RecordingCallback diff(List<MealEntry> before, List<MealEntry> after) {
+        RecordingCallback updates = new RecordingCallback();
+        DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return before.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return after.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return FoodItemAdapter.DIFF.areItemsTheSame(before.get(oldPosition), after.get(newPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return FoodItemAdapter.DIFF.areContentsTheSame(before.get(oldPosition), after.get(newPosition));
+            }
+
+            @Nullable
+            @Override
+            public Object getChangePayload(int oldPosition, int newPosition) {
+                return FoodItemAdapter.DIFF.getChangePayload(before.get(oldPosition), after.get(newPosition));
+            }
+        }).dispatchUpdatesTo(updates);
+        return updates;
+    }
+
+    static MealEntry entry(String key, String name, double calories) {
+        return new MealEntry(key, new FoodItem("id-" + name, name, "s", "1 serving", calories, 10, 20, 5, "Lunch"),
+                false, true);
+    }
+
+    /** Counts what RecyclerView would rebind: one bind per inserted or changed row. */
+    static class RecordingCallback implements ListUpdateCallback {
+        final List<String> events = new ArrayList<>();
+        int binds;
+
+        @Override
+        public void onInserted(int position, int count) {
+            events.add("insert " + position + " " + count);
+            binds += count;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            events.add("remove " + position + " " + count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            events.add("move " + fromPosition + " " + toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload) {
+            events.add("change " + position + " " + payload);
+            binds += count;
+        }
+    }
+}
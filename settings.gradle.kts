@@ -22,3 +22,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "Nirvana"
 include(":app")
+// Desktop tools run during the build; nothing here ships in the APK
+include(":tools:fooddb")
@@ -0,0 +1,9 @@
+// Generates the offline food database asset; see OfflineFoodDbWriter
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
@@ -0,0 +1,282 @@
+package com.example.nirvana.data.local;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Build-time generator for the file the app's {@code OfflineFoodDb} reads; see that class
+ * for the layout. The app's {@code generateOfflineFoodDb} task runs it against the
+ * tab-separated snapshot in {@code app/fooddb/foods.tsv}, one serving per line, grouped
+ * by food:
+ *
+ * <pre>
+ * foodId  name  servingId  servingDescription  calories  protein  carbs  fat
+ * </pre>
+ *
+ * This module is not part of the APK, so the format constants and name normalization
+ * are repeated here; the app's OfflineFoodDbTest reads what this writes and fails if
+ * the two drift apart.
+ */
+public class OfflineFoodDbWriter {
+
+    static final int MAGIC = 0x4E464442; // "NFDB"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 40;
+    static final int FOOD_BYTES = 20;
+    static final int SERVING_BYTES = 28;
+    static final int INDEX_BYTES = 12;
+
+    public static final class Serving {
+        final String servingId;
+        final String description;
+        final double calories;
+        final double protein;
+        final double carbs;
+        final double fat;
+
+        public Serving(String servingId, String description, double calories,
+                       double protein, double carbs, double fat) {
+            this.servingId = servingId;
+            this.description = description;
+            this.calories = calories;
+            this.protein = protein;
+            this.carbs = carbs;
+            this.fat = fat;
+        }
+    }
+
+    private static final class Food {
+        final String foodId;
+        final String name;
+        final List<Serving> servings;
+        final byte[] idBytes;
+
+        Food(String foodId, String name, List<Serving> servings) {
+            this.foodId = foodId;
+            this.name = name;
+            this.servings = servings;
+            this.idBytes = foodId.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private final Map<String, Food> foods = new HashMap<>();
+
+    /** Adds a food, replacing any earlier one with the same id. Foods without servings are skipped. */
+    public OfflineFoodDbWriter add(String foodId, String name, List<Serving> servings) {
+        if (foodId == null || foodId.isEmpty() || name == null || servings == null || servings.isEmpty()) {
+            return this;
+        }
+        if (servings.size() > 0xFFFF) throw new IllegalArgumentException("Too many servings for " + foodId);
+        foods.put(foodId, new Food(foodId, name, new ArrayList<>(servings)));
+        return this;
+    }
+
+    public int size() {
+        return foods.size();
+    }
+
+    public void write(File file) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            write(out);
+        }
+    }
+
+    public void write(OutputStream sink) throws IOException {
+        // Foods sorted by id bytes, so the reader can binary search by id
+        Food[] sorted = foods.values().toArray(new Food[0]);
+        Arrays.sort(sorted, (a, b) -> compareBytes(a.idBytes, 0, a.idBytes.length, b.idBytes, 0, b.idBytes.length));
+
+        Strings strings = new Strings();
+        int servingCount = 0;
+        for (Food food : sorted) servingCount += food.servings.size();
+
+        ByteArrayOutputStream foodBlock = new ByteArrayOutputStream(sorted.length * FOOD_BYTES);
+        ByteArrayOutputStream servingBlock = new ByteArrayOutputStream(servingCount * SERVING_BYTES);
+        DataOutputStream foodOut = new DataOutputStream(foodBlock);
+        DataOutputStream servingOut = new DataOutputStream(servingBlock);
+        List<long[]> index = new ArrayList<>();
+        int firstServing = 0;
+        for (int f = 0; f < sorted.length; f++) {
+            Food food = sorted[f];
+            foodOut.writeInt(strings.offset(food.foodId));
+            foodOut.writeInt(strings.offset(food.name));
+            foodOut.writeInt(firstServing);
+            foodOut.writeShort(strings.length(food.foodId));
+            foodOut.writeShort(strings.length(food.name));
+            foodOut.writeShort(food.servings.size());
+            foodOut.writeShort(0);
+            firstServing += food.servings.size();
+
+            for (Serving serving : food.servings) {
+                String servingId = serving.servingId != null ? serving.servingId : "";
+                String description = serving.description != null ? serving.description : "";
+                servingOut.writeInt(strings.offset(servingId));
+                servingOut.writeInt(strings.offset(description));
+                servingOut.writeShort(strings.length(servingId));
+                servingOut.writeShort(strings.length(description));
+                servingOut.writeFloat((float) serving.calories);
+                servingOut.writeFloat((float) serving.protein);
+                servingOut.writeFloat((float) serving.carbs);
+                servingOut.writeFloat((float) serving.fat);
+            }
+
+            // One index key per word start of the normalized name, pointing into its bytes
+            String key = normalize(food.name);
+            if (key.isEmpty()) continue;
+            int keyOffset = strings.offset(key);
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            for (int start = 0; start < keyBytes.length; start++) {
+                if (start == 0 || keyBytes[start - 1] == ' ') {
+                    index.add(new long[]{keyOffset + start, keyBytes.length - start, f, start == 0 ? 1 : 0});
+                }
+            }
+        }
+
+        byte[] table = strings.bytes();
+        long[][] entries = index.toArray(new long[0][]);
+        Arrays.sort(entries, (a, b) -> {
+            int byKey = compareBytes(table, (int) a[0], (int) a[1], table, (int) b[0], (int) b[1]);
+            return byKey != 0 ? byKey : Long.compare(a[2], b[2]);
+        });
+
+        int foodsOffset = HEADER_BYTES;
+        int servingsOffset = foodsOffset + foodBlock.size();
+        int indexOffset = servingsOffset + servingBlock.size();
+        int stringsOffset = indexOffset + entries.length * INDEX_BYTES;
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(sink));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(sorted.length);
+        out.writeInt(servingCount);
+        out.writeInt(entries.length);
+        out.writeInt(foodsOffset);
+        out.writeInt(servingsOffset);
+        out.writeInt(indexOffset);
+        out.writeInt(stringsOffset);
+        out.writeInt(table.length);
+        foodBlock.writeTo(out);
+        servingBlock.writeTo(out);
+        for (long[] entry : entries) {
+            out.writeInt((int) entry[0]);
+            out.writeInt((int) entry[2]);
+            out.writeShort((int) entry[1]);
+            out.writeShort((int) entry[3]);
+        }
+        out.write(table);
+        out.flush();
+    }
+
+    /** Unsigned lexicographic order, which for UTF-8 is code point order. */
+    static int compareBytes(byte[] a, int aOffset, int aLength, byte[] b, int bOffset, int bLength) {
+        int n = Math.min(aLength, bLength);
+        for (int i = 0; i < n; i++) {
+            int x = a[aOffset + i] & 0xFF;
+            int y = b[bOffset + i] & 0xFF;
+            if (x != y) return x - y;
+        }
+        return aLength - bLength;
+    }
+
+    /** Same as the app's {@code FoodPrefixIndex.normalize}: lower case, words split on anything else. */
+    static String normalize(String text) {
+        if (text == null) return "";
+        StringBuilder out = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                if (space && out.length() > 0) out.append(' ');
+                out.append(c);
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return out.toString();
+    }
+
+    /** UTF-8 string table; repeated strings such as "100 g" are stored once. */
+    private static final class Strings {
+        private final ByteArrayOutputStream table = new ByteArrayOutputStream();
+        private final Map<String, int[]> offsets = new HashMap<>();
+
+        int offset(String value) {
+            return entry(value)[0];
+        }
+
+        int length(String value) {
+            return entry(value)[1];
+        }
+
+        private int[] entry(String value) {
+            int[] entry = offsets.get(value);
+            if (entry == null) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > 0xFFFF) throw new IllegalArgumentException("String too long: " + value);
+                entry = new int[]{table.size(), bytes.length};
+                table.write(bytes, 0, bytes.length);
+                offsets.put(value, entry);
+            }
+            return entry;
+        }
+
+        byte[] bytes() {
+            return table.toByteArray();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: OfflineFoodDbWriter <foods.tsv> <out.fdb>");
+            System.exit(2);
+        }
+        OfflineFoodDbWriter writer = new OfflineFoodDbWriter();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new FileInputStream(args[0]), StandardCharsets.UTF_8))) {
+            String foodId = null;
+            String name = null;
+            List<Serving> servings = new ArrayList<>();
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 8) {
+                    throw new IOException(args[0] + ":" + lineNumber + ": expected 8 fields, found " + fields.length);
+                }
+                if (!fields[0].equals(foodId)) {
+                    if (foodId != null) writer.add(foodId, name, servings);
+                    foodId = fields[0];
+                    name = fields[1];
+                    servings = new ArrayList<>();
+                }
+                try {
+                    servings.add(new Serving(fields[2], fields[3], Double.parseDouble(fields[4]),
+                            Double.parseDouble(fields[5]), Double.parseDouble(fields[6]), Double.parseDouble(fields[7])));
+                } catch (NumberFormatException e) {
+                    throw new IOException(args[0] + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+            if (foodId != null) writer.add(foodId, name, servings);
+        }
+        File out = new File(args[1]);
+        writer.write(out);
+        System.out.println("Wrote " + writer.size() + " foods, " + out.length() + " bytes, to " + out);
+    }
+}